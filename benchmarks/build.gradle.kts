@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import dev.gihwan.tollgate.Dependency
+
+plugins {
+    java
+}
+
+dependencies {
+    implementation(project(":gateway"))
+
+    implementation(Dependency.guava)
+    implementation(Dependency.jmhCore)
+    annotationProcessor(Dependency.jmhGeneratorAnnprocess)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+/**
+ * Runs the benchmarks, e.g. `gradle :benchmarks:jmh -Pjmh.args="RemappingPathFunctionBenchmark -f 1"`.
+ * The allocation rate is reported with the throughput using the GC profiler, e.g. `gc.alloc.rate.norm`.
+ */
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks."
+
+    val resultFile = project.layout.buildDirectory.file("jmh/results.json").get().asFile
+
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+
+    args("-rf", "json", "-rff", resultFile.path)
+    args("-prof", "gc")
+    (project.findProperty("jmh.args") as String?)?.let { args(it.split(' ').filter(String::isNotBlank)) }
+
+    doFirst { resultFile.parentFile.mkdirs() }
+}
@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.ResponseHeadersBuilder;
+
+/**
+ * Measures the header filters of requests and responses.
+ */
+@State(Scope.Thread)
+public class FilteringHeadersFunctionBenchmark {
+
+    private final HttpRequest req = HttpRequest.of(
+            RequestHeaders.builder(HttpMethod.GET, "/berry/cheri?limit=20")
+                          .add(HttpHeaderNames.ACCEPT, "application/json")
+                          .add(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate")
+                          .add(HttpHeaderNames.USER_AGENT, "benchmark")
+                          .add(HttpHeaderNames.COOKIE, "session=foo")
+                          .add(HttpHeaderNames.AUTHORIZATION, "Bearer bar")
+                          .add(HttpHeaderNames.CONNECTION, "keep-alive")
+                          .add("x-request-id", "baz")
+                          .add("x-private", "qux")
+                          .build());
+    private final ResponseHeaders resHeaders =
+            ResponseHeaders.builder(HttpStatus.OK)
+                           .add(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                           .add(HttpHeaderNames.CONTENT_LENGTH, "128")
+                           .add(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                           .add(HttpHeaderNames.SERVER, "benchmark")
+                           .add("x-request-id", "baz")
+                           .add("x-private", "qux")
+                           .build();
+
+    private final Function<HttpRequest, HttpRequest> allowRequestHeaders =
+            FilteringRequestHeadersFunction.ofAllowedSet(Set.of(HttpHeaderNames.ACCEPT,
+                                                                HttpHeaderNames.USER_AGENT,
+                                                                HttpHeaderNames.of("x-request-id")));
+    private final Function<HttpRequest, HttpRequest> disallowRequestHeaders =
+            FilteringRequestHeadersFunction.ofDisallowedSet(Set.of(HttpHeaderNames.COOKIE,
+                                                                   HttpHeaderNames.AUTHORIZATION,
+                                                                   HttpHeaderNames.of("x-private")));
+    private final Function<HttpRequest, HttpRequest> requestHeaderPolicy =
+            new FilteringRequestHeadersFunction(HeaderPolicy.builder()
+                                                            .remove("x-private")
+                                                            .rename("x-request-id", "x-correlation-id")
+                                                            .stripHopByHopHeaders(true)
+                                                            .set("x-gateway", "tollgate")
+                                                            .build());
+    // The consecutive header-only stages of an upstream, which are fused into one.
+    private final Function<HttpRequest, HttpRequest> fusedRequestFunctions =
+            FusedRequestHeadersFunction.compose(List.of(new RemappingPathFunction("/api/v2/berry"),
+                                                        disallowRequestHeaders,
+                                                        allowRequestHeaders));
+    private final Function<HttpRequest, HttpRequest> chainedRequestFunctions =
+            new RemappingPathFunction("/api/v2/berry").andThen(disallowRequestHeaders)
+                                                       .andThen(allowRequestHeaders);
+
+    private final FilteringResponseHeadersFunction allowResponseHeaders =
+            FilteringResponseHeadersFunction.ofAllowedSet(Set.of(HttpHeaderNames.CONTENT_TYPE,
+                                                                 HttpHeaderNames.CONTENT_LENGTH));
+    private final FilteringResponseHeadersFunction disallowResponseHeaders =
+            FilteringResponseHeadersFunction.ofDisallowedSet(Set.of(HttpHeaderNames.SERVER,
+                                                                    HttpHeaderNames.of("x-private")));
+
+    @Benchmark
+    public RequestHeaders allowRequestHeaders() {
+        return allowRequestHeaders.apply(req).headers();
+    }
+
+    @Benchmark
+    public RequestHeaders disallowRequestHeaders() {
+        return disallowRequestHeaders.apply(req).headers();
+    }
+
+    @Benchmark
+    public RequestHeaders requestHeaderPolicy() {
+        return requestHeaderPolicy.apply(req).headers();
+    }
+
+    @Benchmark
+    public RequestHeaders fusedRequestFunctions() {
+        return fusedRequestFunctions.apply(req).headers();
+    }
+
+    @Benchmark
+    public RequestHeaders chainedRequestFunctions() {
+        return chainedRequestFunctions.apply(req).headers();
+    }
+
+    @Benchmark
+    public ResponseHeaders allowResponseHeaders() {
+        final ResponseHeadersBuilder builder = resHeaders.toBuilder();
+        allowResponseHeaders.transform(builder);
+        return builder.build();
+    }
+
+    @Benchmark
+    public ResponseHeaders disallowResponseHeaders() {
+        final ResponseHeadersBuilder builder = resHeaders.toBuilder();
+        disallowResponseHeaders.transform(builder);
+        return builder.build();
+    }
+}
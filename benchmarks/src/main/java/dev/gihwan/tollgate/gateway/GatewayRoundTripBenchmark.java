@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.Server;
+
+/**
+ * Measures a full round trip from a client through a {@link Gateway} to an embedded {@link Server} in the same
+ * process, over the loopback interface.
+ */
+@State(Scope.Benchmark)
+public class GatewayRoundTripBenchmark {
+
+    @Param({ "H1C", "H2C" })
+    public SessionProtocol protocol;
+
+    private Server server;
+    private Gateway gateway;
+    private ClientFactory clientFactory;
+    private WebClient client;
+
+    @Setup
+    public void setUp() {
+        server = Server.builder()
+                       .http(0)
+                       .service("/api/v2/berry/{idOrName}", (ctx, req) -> HttpResponse.of("cheri"))
+                       .service("/api/v2/error", (ctx, req) -> HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE))
+                       .build();
+        server.start().join();
+
+        final String serverUri = "http://127.0.0.1:" + server.activeLocalPort();
+        gateway = Gateway.builder()
+                         .server(serverBuilder -> serverBuilder.http(0))
+                         .upstream("/berry/{idOrName}",
+                                   Upstream.builder(serverUri)
+                                           .path("/api/v2/berry/{idOrName}")
+                                           .disallowRequestHeaders("cookie")
+                                           .build())
+                         .upstream("/error",
+                                   Upstream.builder(serverUri)
+                                           .path("/api/v2/error")
+                                           .status(HttpStatusFunction.from(HttpStatus.SERVICE_UNAVAILABLE)
+                                                                     .to(HttpStatus.BAD_GATEWAY))
+                                           .build())
+                         .build();
+        gateway.start().join();
+
+        clientFactory = ClientFactory.builder().build();
+        client = WebClient.builder(protocol.uriText() + "://127.0.0.1:" + gateway.activeLocalPort())
+                          .factory(clientFactory)
+                          .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientFactory.close();
+        gateway.stop().join();
+        server.stop().join();
+    }
+
+    @Benchmark
+    public AggregatedHttpResponse proxy() {
+        return client.get("/berry/cheri?limit=20").aggregate().join();
+    }
+
+    @Benchmark
+    public AggregatedHttpResponse proxyWithStatus() {
+        return client.get("/error").aggregate().join();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.Server;
+
+/**
+ * Measures the latency distribution of the requests to an {@link Upstream} of four endpoints, one of which is
+ * {@code 20} milliseconds slower than the others, for each {@link LoadBalancer}. The percentiles, e.g.
+ * {@code p0.99}, show how often the slow endpoint is selected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+public class LoadBalancerBenchmark {
+
+    private static final int NUM_FAST_SERVERS = 3;
+    private static final Duration SLOW_SERVER_DELAY = Duration.ofMillis(20);
+
+    @Param({ "ROUND_ROBIN", "LEAST_OUTSTANDING", "P2C", "P2C_EWMA" })
+    public LoadBalancer loadBalancer;
+
+    private final List<Server> servers = new ArrayList<>();
+    private Upstream upstream;
+
+    @Setup
+    public void setUp() {
+        final List<Endpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < NUM_FAST_SERVERS; i++) {
+            endpoints.add(startServer(Server.builder()
+                                            .http(0)
+                                            .service("/", (ctx, req) -> HttpResponse.of("fast"))
+                                            .build()));
+        }
+        endpoints.add(startServer(Server.builder()
+                                        .http(0)
+                                        .service("/", (ctx, req) -> HttpResponse.delayed(
+                                                HttpResponse.of("slow"), SLOW_SERVER_DELAY))
+                                        .build()));
+
+        upstream = Upstream.builder(SessionProtocol.HTTP, EndpointGroup.of(endpoints))
+                           .loadBalancer(loadBalancer)
+                           .build();
+    }
+
+    private Endpoint startServer(Server server) {
+        server.start().join();
+        servers.add(server);
+        return Endpoint.of("127.0.0.1", server.activeLocalPort());
+    }
+
+    @TearDown
+    public void tearDown() {
+        servers.forEach(server -> server.stop().join());
+    }
+
+    @Benchmark
+    public AggregatedHttpResponse execute() {
+        return upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join();
+    }
+}
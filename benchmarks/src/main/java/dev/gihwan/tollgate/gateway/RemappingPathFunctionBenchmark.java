@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.common.base.Splitter;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.util.SafeCloseable;
+import com.linecorp.armeria.server.RoutingResult;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * Compares {@link RemappingPathFunction} with the implementation which splits the path pattern per request.
+ */
+@State(Scope.Thread)
+public class RemappingPathFunctionBenchmark {
+
+    private static final String STATIC_PATH_PATTERN = "/api/v2/berry";
+    private static final String PATH_PATTERN = "/api/v2/berry/{idOrName}/flavor/{flavor}";
+
+    private final HttpRequest req = HttpRequest.of(HttpMethod.GET, "/berry/cheri/flavor/spicy?limit=20");
+
+    private final Function<HttpRequest, HttpRequest> staticFunction =
+            new RemappingPathFunction(STATIC_PATH_PATTERN);
+    private final Function<HttpRequest, HttpRequest> function = new RemappingPathFunction(PATH_PATTERN);
+    private final Function<HttpRequest, HttpRequest> legacyStaticFunction =
+            new LegacyRemappingPathFunction(STATIC_PATH_PATTERN);
+    private final Function<HttpRequest, HttpRequest> legacyFunction =
+            new LegacyRemappingPathFunction(PATH_PATTERN);
+
+    private SafeCloseable ctxCloseable;
+
+    @Setup
+    public void setUp() {
+        final ServiceRequestContext ctx =
+                ServiceRequestContext.builder(req)
+                                     .routingResult(RoutingResult.builder()
+                                                                 .path("/berry/cheri/flavor/spicy")
+                                                                 .query("limit=20")
+                                                                 .decodedParam("idOrName", "cheri")
+                                                                 .decodedParam("flavor", "spicy")
+                                                                 .build())
+                                     .build();
+        ctxCloseable = ctx.push();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctxCloseable.close();
+    }
+
+    @Benchmark
+    public HttpRequest remapStaticPath() {
+        return staticFunction.apply(req);
+    }
+
+    @Benchmark
+    public HttpRequest remapPathWithPathParams() {
+        return function.apply(req);
+    }
+
+    @Benchmark
+    public HttpRequest legacyRemapStaticPath() {
+        return legacyStaticFunction.apply(req);
+    }
+
+    @Benchmark
+    public HttpRequest legacyRemapPathWithPathParams() {
+        return legacyFunction.apply(req);
+    }
+
+    /**
+     * The implementation of {@link RemappingPathFunction} before the path pattern is compiled into a
+     * {@link PathTemplate}. Please note that it drops the query string of a request.
+     */
+    private static final class LegacyRemappingPathFunction implements Function<HttpRequest, HttpRequest> {
+
+        private static final String PATH_SEPARATOR = "/";
+        private static final Splitter PATH_SPLITTER = Splitter.on(PATH_SEPARATOR);
+
+        private final String pathPattern;
+        private final boolean hasPathParams;
+
+        LegacyRemappingPathFunction(String pathPattern) {
+            this.pathPattern = pathPattern;
+            hasPathParams = hasPathParams(pathPattern);
+        }
+
+        private static boolean hasPathParams(String pathPattern) {
+            for (String segment : PATH_SPLITTER.split(pathPattern)) {
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public HttpRequest apply(HttpRequest req) {
+            if (hasPathParams) {
+                final ServiceRequestContext ctx = ServiceRequestContext.current();
+                return req.mapHeaders(headers -> remapPathWithPathParams(ctx, headers));
+            } else {
+                return req.mapHeaders(this::remapPath);
+            }
+        }
+
+        private RequestHeaders remapPathWithPathParams(ServiceRequestContext ctx, RequestHeaders headers) {
+            final List<String> segments = new ArrayList<>();
+            for (String segment : PATH_SPLITTER.split(pathPattern)) {
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    final String pathParamName = segment.substring(1, segment.length() - 1);
+                    final String pathParamValue = ctx.pathParam(pathParamName);
+                    if (pathParamValue == null) {
+                        throw new IllegalStateException("pathParam " + pathParamName + " does not exist");
+                    }
+                    segments.add(pathParamValue);
+                } else {
+                    segments.add(segment);
+                }
+            }
+
+            final String remappedPath = String.join(PATH_SEPARATOR, segments);
+            return headers.toBuilder()
+                          .path(remappedPath)
+                          .build();
+        }
+
+        private RequestHeaders remapPath(RequestHeaders headers) {
+            return headers.toBuilder()
+                          .path(pathPattern)
+                          .build();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.HttpStatusClass;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.ResponseHeadersBuilder;
+
+/**
+ * Measures {@link RemappingStatusFunction} and the compiled {@link HttpStatusFunction}s.
+ */
+@State(Scope.Thread)
+public class RemappingStatusFunctionBenchmark {
+
+    private final HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+    private final ResponseHeaders headers = ResponseHeaders.builder(HttpStatus.SERVICE_UNAVAILABLE)
+                                                           .contentType(MediaType.JSON)
+                                                           .build();
+
+    private final HttpStatusFunction first =
+            HttpStatusFunction.from(HttpStatusClass.SERVER_ERROR).to(HttpStatus.BAD_GATEWAY);
+    private final HttpStatusFunction second =
+            HttpStatusFunction.from(HttpStatus.BAD_GATEWAY, HttpStatus.NOT_FOUND).to(HttpStatus.OK);
+    // The consecutive status functions of an upstream, which are compiled into a single table.
+    private final HttpStatusFunction composed = DefaultHttpStatusFunction.compose(first, second);
+    // The status functions which are applied one by one with their predicates.
+    private final HttpStatusFunction chained = s -> {
+        final HttpStatus mapped = s.codeClass() == HttpStatusClass.SERVER_ERROR ? HttpStatus.BAD_GATEWAY : s;
+        return mapped.equals(HttpStatus.BAD_GATEWAY) || mapped.equals(HttpStatus.NOT_FOUND) ? HttpStatus.OK
+                                                                                             : mapped;
+    };
+
+    private final RemappingStatusFunction remappingStatusFunction = new RemappingStatusFunction(composed);
+
+    @Benchmark
+    public HttpStatus composedStatusFunction() {
+        return composed.apply(status);
+    }
+
+    @Benchmark
+    public HttpStatus chainedStatusFunction() {
+        return chained.apply(status);
+    }
+
+    @Benchmark
+    public ResponseHeaders remapStatus() {
+        final ResponseHeadersBuilder builder = headers.toBuilder();
+        remappingStatusFunction.transform(builder);
+        return builder.build();
+    }
+}
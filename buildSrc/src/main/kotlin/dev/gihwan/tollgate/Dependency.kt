@@ -33,8 +33,12 @@ object Dependency {
     const val commonsLang3 = "org.apache.commons:commons-lang3:${Version.commonsLang3}"
     const val config = "com.typesafe:config:${Version.config}"
     const val guava = "com.google.guava:guava:${Version.guava}"
+    const val hdrHistogram = "org.hdrhistogram:HdrHistogram:${Version.hdrHistogram}"
+    const val jmhCore = "org.openjdk.jmh:jmh-core:${Version.jmh}"
+    const val jmhGeneratorAnnprocess = "org.openjdk.jmh:jmh-generator-annprocess:${Version.jmh}"
     const val jsr305 = "com.google.code.findbugs:jsr305:${Version.jsr305}"
     const val logback = "ch.qos.logback:logback-classic:${Version.logback}"
+    const val micrometerPrometheus = "io.micrometer:micrometer-registry-prometheus:${Version.micrometer}"
     const val slf4j = "org.slf4j:slf4j-api:${Version.slf4j}"
 
     const val springBootAutoConfigure =
@@ -31,8 +31,11 @@ object Version {
     const val commonsLang3 = "3.12.0"
     const val config = "1.4.1"
     const val guava = "31.0.1-jre"
+    const val hdrHistogram = "2.1.12"
+    const val jmh = "1.34"
     const val jsr305 = "3.0.2"
     const val logback = "1.2.7"
+    const val micrometer = "1.7.6"
     const val slf4j = "1.7.32"
     const val springBoot = "2.6.1"
 
@@ -31,6 +31,7 @@ import com.linecorp.armeria.client.logging.LoggingClient;
 import com.linecorp.armeria.common.logging.LogLevel;
 import com.linecorp.armeria.server.logging.LoggingService;
 
+import dev.gihwan.tollgate.gateway.DeadlinePolicy;
 import dev.gihwan.tollgate.gateway.Gateway;
 import dev.gihwan.tollgate.gateway.Upstream;
 
@@ -51,14 +52,14 @@ public final class StreamingGateway {
                                                  .requestTimeoutMillis(0))
                        .route()
                        .path("/").path("/animation")
+                       // Bound the upstream by the request timeout, which is disabled, rather than by its own.
+                       .deadline(DeadlinePolicy.builder().build())
                        .decorator(LoggingService.builder()
                                                 .requestLogLevel(LogLevel.INFO)
                                                 .successfulResponseLogLevel(LogLevel.INFO)
                                                 .failureResponseLogLevel(LogLevel.WARN)
                                                 .newDecorator())
                        .build(Upstream.builder("http://localhost:9090")
-                                      // Disable timeout to serve infinite streaming response.
-                                      .client(builder -> builder.responseTimeoutMillis(0))
                                       .decorator(LoggingClient.builder()
                                                               .requestLogLevel(LogLevel.INFO)
                                                               .successfulResponseLogLevel(LogLevel.INFO)
@@ -38,7 +38,9 @@ dependencies {
     implementation(Dependency.bcprov)
     implementation(Dependency.commonsLang3)
     implementation(Dependency.guava)
+    implementation(Dependency.hdrHistogram)
     implementation(Dependency.jsr305)
+    implementation(Dependency.micrometerPrometheus)
     implementation(Dependency.slf4j)
 
     testImplementation(project(":junit5"))
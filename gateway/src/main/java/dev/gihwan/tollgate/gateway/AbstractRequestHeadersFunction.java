@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.RequestHeadersBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A {@link Function} which transforms only the {@link RequestHeaders} of a {@link HttpRequest}.
+ *
+ * The consecutive {@link AbstractRequestHeadersFunction}s of an {@link Upstream} are fused into a
+ * {@link FusedRequestHeadersFunction} which applies all of them to a single {@link RequestHeadersBuilder}.
+ */
+abstract class AbstractRequestHeadersFunction implements Function<HttpRequest, HttpRequest> {
+
+    @Override
+    public final HttpRequest apply(HttpRequest req) {
+        final ServiceRequestContext ctx = requiresContext() ? ServiceRequestContext.currentOrNull() : null;
+        return req.mapHeaders(headers -> {
+            final RequestHeadersBuilder builder = headers.toBuilder();
+            transform(ctx, builder);
+            return builder.build();
+        });
+    }
+
+    /**
+     * Transforms the {@link RequestHeaders} being built by the given {@link RequestHeadersBuilder}.
+     */
+    abstract void transform(@Nullable ServiceRequestContext ctx, RequestHeadersBuilder builder);
+
+    /**
+     * Returns whether {@link #transform(ServiceRequestContext, RequestHeadersBuilder)} requires the current
+     * {@link ServiceRequestContext}.
+     */
+    boolean requiresContext() {
+        return false;
+    }
+}
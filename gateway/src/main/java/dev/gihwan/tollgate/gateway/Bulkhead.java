@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpResponse;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * A bulkhead built from a {@link BulkheadPolicy}, which caps the concurrent requests with a bounded queue of
+ * the waiting requests.
+ *
+ * <p>The counters are updated with CAS loops and the waiting requests are kept in a lock-free deque, so that
+ * a request under the cap costs a CAS only. Every waiting request is enqueued before the permits are drained
+ * into the queue, and every permit is released before the permits are drained, so that a waiting request is
+ * never left behind a free permit.
+ */
+final class Bulkhead {
+
+    private final int maxConcurrentRequests;
+    private final int maxQueueSize;
+    private final long maxWaitNanos;
+    private final boolean lifo;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Deque<CompletableFuture<Boolean>> waiters = new ConcurrentLinkedDeque<>();
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    Bulkhead(BulkheadPolicy policy) {
+        maxConcurrentRequests = policy.maxConcurrentRequests();
+        maxQueueSize = policy.maxQueueSize();
+        maxWaitNanos = policy.maxWait().toNanos();
+        lifo = policy.queueOrder() == BulkheadQueueOrder.LIFO;
+    }
+
+    /**
+     * Executes the given {@code action} once a permit is acquired, releasing the permit when its response
+     * is completed. If a permit is not acquired, the response of the given {@code rejection} is returned.
+     */
+    HttpResponse execute(ScheduledExecutorService executor, Supplier<HttpResponse> action,
+                         Function<Throwable, HttpResponse> rejection) {
+        if (tryAcquire()) {
+            return executeAndRelease(action);
+        }
+
+        @Nullable
+        final CompletableFuture<Boolean> waiter = enqueue(executor);
+        if (waiter == null) {
+            rejectedRequests.increment();
+            return rejection.apply(BulkheadFullException.get());
+        }
+        // The permit may be handed over by another thread, so the action is executed by the given executor.
+        return HttpResponse.from(waiter.thenApplyAsync(acquired -> {
+            if (acquired) {
+                return executeAndRelease(action);
+            }
+            rejectedRequests.increment();
+            return rejection.apply(BulkheadFullException.get());
+        }, executor));
+    }
+
+    private HttpResponse executeAndRelease(Supplier<HttpResponse> action) {
+        final HttpResponse res;
+        try {
+            res = action.get();
+        } catch (Throwable cause) {
+            release();
+            throw cause;
+        }
+        res.whenComplete().handle((unused, cause) -> {
+            release();
+            return null;
+        });
+        return res;
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            final int current = inFlight.get();
+            if (current >= maxConcurrentRequests) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Nullable
+    private CompletableFuture<Boolean> enqueue(ScheduledExecutorService executor) {
+        for (;;) {
+            final int current = queued.get();
+            if (current >= maxQueueSize) {
+                return null;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        final CompletableFuture<Boolean> waiter = new CompletableFuture<>();
+        if (lifo) {
+            waiters.addFirst(waiter);
+        } else {
+            waiters.addLast(waiter);
+        }
+        executor.schedule(() -> {
+            if (waiter.complete(false)) {
+                queued.decrementAndGet();
+                waiters.remove(waiter);
+            }
+        }, maxWaitNanos, TimeUnit.NANOSECONDS);
+        drain();
+        return waiter;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Hands the free permits over to the waiting requests.
+     */
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquire()) {
+            boolean handedOver = false;
+            for (;;) {
+                @Nullable
+                final CompletableFuture<Boolean> waiter = waiters.pollFirst();
+                if (waiter == null) {
+                    break;
+                }
+                // A waiter which has timed out is skipped.
+                if (waiter.complete(true)) {
+                    queued.decrementAndGet();
+                    handedOver = true;
+                    break;
+                }
+            }
+            if (!handedOver) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Registers the metrics of this bulkhead to the given {@link MeterRegistry}, whose names start with the
+     * given {@code prefix}.
+     */
+    void bindTo(MeterRegistry registry, String prefix, Tags tags) {
+        Gauge.builder(prefix + ".in.flight", inFlight, AtomicInteger::get)
+             .description("The number of the requests in flight through the bulkhead")
+             .tags(tags)
+             .register(registry);
+        Gauge.builder(prefix + ".queued", queued, AtomicInteger::get)
+             .description("The number of the requests waiting for the bulkhead")
+             .tags(tags)
+             .register(registry);
+        FunctionCounter.builder(prefix + ".rejected.requests", rejectedRequests, LongAdder::sum)
+                       .description("The number of the requests rejected by the bulkhead")
+                       .tags(tags)
+                       .register(registry);
+    }
+}
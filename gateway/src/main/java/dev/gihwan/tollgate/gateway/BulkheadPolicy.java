@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A policy of a bulkhead, which caps the concurrent requests to an {@link Upstream} or of a route.
+ *
+ * <p>A request over the maximum concurrent requests waits in a bounded queue until another request completes,
+ * up to the maximum wait time. A request which cannot wait because the queue is full, or which has waited for
+ * the maximum wait time, is responded with {@code 503 Service Unavailable}.
+ *
+ * @see BulkheadPolicyBuilder
+ */
+public final class BulkheadPolicy {
+
+    /**
+     * Returns a new {@link BulkheadPolicyBuilder}.
+     */
+    public static BulkheadPolicyBuilder builder() {
+        return new BulkheadPolicyBuilder();
+    }
+
+    private final int maxConcurrentRequests;
+    private final int maxQueueSize;
+    private final Duration maxWait;
+    private final BulkheadQueueOrder queueOrder;
+
+    BulkheadPolicy(int maxConcurrentRequests, int maxQueueSize, Duration maxWait,
+                   BulkheadQueueOrder queueOrder) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueueSize = maxQueueSize;
+        this.maxWait = maxWait;
+        this.queueOrder = queueOrder;
+    }
+
+    int maxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    int maxQueueSize() {
+        return maxQueueSize;
+    }
+
+    Duration maxWait() {
+        return maxWait;
+    }
+
+    BulkheadQueueOrder queueOrder() {
+        return queueOrder;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("maxConcurrentRequests", maxConcurrentRequests)
+                          .add("maxQueueSize", maxQueueSize)
+                          .add("maxWait", maxWait)
+                          .add("queueOrder", queueOrder)
+                          .toString();
+    }
+}
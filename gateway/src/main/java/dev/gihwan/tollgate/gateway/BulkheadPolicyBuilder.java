@@ -0,0 +1,92 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * A builder for {@link BulkheadPolicy}.
+ */
+public final class BulkheadPolicyBuilder {
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 256;
+    private static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private int maxQueueSize;
+    private Duration maxWait = DEFAULT_MAX_WAIT;
+    private BulkheadQueueOrder queueOrder = BulkheadQueueOrder.FIFO;
+
+    BulkheadPolicyBuilder() {}
+
+    /**
+     * Sets the maximum number of the concurrent requests. By default, {@code 256} is used.
+     */
+    public BulkheadPolicyBuilder maxConcurrentRequests(int maxConcurrentRequests) {
+        checkArgument(maxConcurrentRequests > 0,
+                      "maxConcurrentRequests: %s (expected: > 0)", maxConcurrentRequests);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the requests waiting for the other requests to complete. By default,
+     * {@code 0} is used, i.e. the requests over the maximum concurrent requests are rejected immediately.
+     */
+    public BulkheadPolicyBuilder maxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize >= 0, "maxQueueSize: %s (expected: >= 0)", maxQueueSize);
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time for which a request waits in the queue. By default, {@code 1} second is used.
+     */
+    public BulkheadPolicyBuilder maxWait(Duration maxWait) {
+        requireNonNull(maxWait, "maxWait");
+        checkArgument(!maxWait.isNegative() && !maxWait.isZero(), "maxWait: %s (expected: > 0)", maxWait);
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    /**
+     * Sets the {@link BulkheadQueueOrder} of the waiting requests.
+     * By default, {@link BulkheadQueueOrder#FIFO} is used.
+     */
+    public BulkheadPolicyBuilder queueOrder(BulkheadQueueOrder queueOrder) {
+        this.queueOrder = requireNonNull(queueOrder, "queueOrder");
+        return this;
+    }
+
+    /**
+     * Builds a new {@link BulkheadPolicy} based on the properties of this builder.
+     */
+    public BulkheadPolicy build() {
+        return new BulkheadPolicy(maxConcurrentRequests, maxQueueSize, maxWait, queueOrder);
+    }
+}
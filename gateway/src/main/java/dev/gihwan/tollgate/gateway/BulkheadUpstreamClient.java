@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.SimpleDecoratingHttpClient;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+
+/**
+ * A decorator of the client of an {@link Upstream} which sends the requests through a {@link Bulkhead}.
+ * A rejected request fails with a {@link BulkheadFullException}.
+ */
+final class BulkheadUpstreamClient extends SimpleDecoratingHttpClient {
+
+    private final Bulkhead bulkhead;
+
+    BulkheadUpstreamClient(HttpClient delegate, Bulkhead bulkhead) {
+        super(delegate);
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) {
+        return bulkhead.execute(ctx.eventLoop().withoutContext(),
+                                () -> executeDelegate(ctx, req),
+                                cause -> fail(ctx, cause));
+    }
+
+    private HttpResponse executeDelegate(ClientRequestContext ctx, HttpRequest req) {
+        try {
+            return unwrap().execute(ctx, req);
+        } catch (Throwable cause) {
+            return fail(ctx, cause);
+        }
+    }
+
+    private static HttpResponse fail(ClientRequestContext ctx, Throwable cause) {
+        ctx.logBuilder().endRequest(cause);
+        ctx.logBuilder().endResponse(cause);
+        return HttpResponse.ofFailure(cause);
+    }
+}
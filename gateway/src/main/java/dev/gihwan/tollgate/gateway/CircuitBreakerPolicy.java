@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpStatus;
+
+/**
+ * A policy of the circuit breaker of an {@link Upstream}.
+ *
+ * The circuit is opened when the rate of the failed requests in a sliding window exceeds the threshold.
+ * A request fails if the upstream server responds with a {@code 5xx} status, the request fails with an
+ * exception, or it takes longer than the slow call threshold to receive the response headers. While the
+ * circuit is open, the requests to the upstream fail fast with the configured status. After the open window,
+ * the circuit becomes half-open and sends a trial request once per trial request interval, closing the circuit
+ * if the trial request succeeds.
+ *
+ * @see CircuitBreakerPolicyBuilder
+ */
+public final class CircuitBreakerPolicy {
+
+    /**
+     * Returns a new {@link CircuitBreakerPolicy} with the default settings.
+     */
+    public static CircuitBreakerPolicy ofDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a new {@link CircuitBreakerPolicyBuilder}.
+     */
+    public static CircuitBreakerPolicyBuilder builder() {
+        return new CircuitBreakerPolicyBuilder();
+    }
+
+    private final double failureRateThreshold;
+    private final long minimumRequestThreshold;
+    private final Duration slidingWindow;
+    @Nullable
+    private final Duration slowCallThreshold;
+    private final Duration openWindow;
+    private final Duration trialRequestInterval;
+    private final HttpStatus failFastStatus;
+
+    CircuitBreakerPolicy(double failureRateThreshold, long minimumRequestThreshold, Duration slidingWindow,
+                         @Nullable Duration slowCallThreshold, Duration openWindow,
+                         Duration trialRequestInterval, HttpStatus failFastStatus) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumRequestThreshold = minimumRequestThreshold;
+        this.slidingWindow = slidingWindow;
+        this.slowCallThreshold = slowCallThreshold;
+        this.openWindow = openWindow;
+        this.trialRequestInterval = trialRequestInterval;
+        this.failFastStatus = failFastStatus;
+    }
+
+    double failureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    long minimumRequestThreshold() {
+        return minimumRequestThreshold;
+    }
+
+    Duration slidingWindow() {
+        return slidingWindow;
+    }
+
+    @Nullable
+    Duration slowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    Duration openWindow() {
+        return openWindow;
+    }
+
+    Duration trialRequestInterval() {
+        return trialRequestInterval;
+    }
+
+    HttpStatus failFastStatus() {
+        return failFastStatus;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .omitNullValues()
+                          .add("failureRateThreshold", failureRateThreshold)
+                          .add("minimumRequestThreshold", minimumRequestThreshold)
+                          .add("slidingWindow", slidingWindow)
+                          .add("slowCallThreshold", slowCallThreshold)
+                          .add("openWindow", openWindow)
+                          .add("trialRequestInterval", trialRequestInterval)
+                          .add("failFastStatus", failFastStatus)
+                          .toString();
+    }
+}
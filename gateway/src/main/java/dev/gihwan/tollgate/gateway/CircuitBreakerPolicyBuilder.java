@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpStatus;
+
+/**
+ * A builder for {@link CircuitBreakerPolicy}.
+ */
+public final class CircuitBreakerPolicyBuilder {
+
+    private static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    private static final long DEFAULT_MINIMUM_REQUEST_THRESHOLD = 10;
+    private static final Duration DEFAULT_SLIDING_WINDOW = Duration.ofSeconds(20);
+    private static final Duration DEFAULT_OPEN_WINDOW = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_TRIAL_REQUEST_INTERVAL = Duration.ofSeconds(3);
+
+    private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+    private long minimumRequestThreshold = DEFAULT_MINIMUM_REQUEST_THRESHOLD;
+    private Duration slidingWindow = DEFAULT_SLIDING_WINDOW;
+    @Nullable
+    private Duration slowCallThreshold;
+    private Duration openWindow = DEFAULT_OPEN_WINDOW;
+    private Duration trialRequestInterval = DEFAULT_TRIAL_REQUEST_INTERVAL;
+    private HttpStatus failFastStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+    CircuitBreakerPolicyBuilder() {}
+
+    /**
+     * Sets the rate of the failed requests in the sliding window which opens the circuit.
+     * By default, {@code 0.5} is used.
+     */
+    public CircuitBreakerPolicyBuilder failureRateThreshold(double failureRateThreshold) {
+        checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 1,
+                      "failureRateThreshold: %s (expected: 0 < failureRateThreshold <= 1)",
+                      failureRateThreshold);
+        this.failureRateThreshold = failureRateThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of the requests in the sliding window to evaluate the failure rate.
+     * By default, {@code 10} is used.
+     */
+    public CircuitBreakerPolicyBuilder minimumRequestThreshold(long minimumRequestThreshold) {
+        checkArgument(minimumRequestThreshold >= 0,
+                      "minimumRequestThreshold: %s (expected: >= 0)", minimumRequestThreshold);
+        this.minimumRequestThreshold = minimumRequestThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the length of the sliding window in which the failure rate is evaluated.
+     * By default, {@code 20} seconds is used.
+     */
+    public CircuitBreakerPolicyBuilder slidingWindow(Duration slidingWindow) {
+        this.slidingWindow = positive(slidingWindow, "slidingWindow");
+        return this;
+    }
+
+    /**
+     * Sets the time to receive the response headers after which a request is regarded as failed.
+     * By default, slow requests are not regarded as failed.
+     */
+    public CircuitBreakerPolicyBuilder slowCallThreshold(Duration slowCallThreshold) {
+        this.slowCallThreshold = positive(slowCallThreshold, "slowCallThreshold");
+        return this;
+    }
+
+    /**
+     * Sets the time to keep the circuit open before sending a trial request.
+     * By default, {@code 10} seconds is used.
+     */
+    public CircuitBreakerPolicyBuilder openWindow(Duration openWindow) {
+        this.openWindow = positive(openWindow, "openWindow");
+        return this;
+    }
+
+    /**
+     * Sets the interval between the trial requests while the circuit is half-open.
+     * By default, {@code 3} seconds is used.
+     */
+    public CircuitBreakerPolicyBuilder trialRequestInterval(Duration trialRequestInterval) {
+        this.trialRequestInterval = positive(trialRequestInterval, "trialRequestInterval");
+        return this;
+    }
+
+    /**
+     * Sets the status of the responses to the requests which fail fast while the circuit is open.
+     * By default, {@link HttpStatus#SERVICE_UNAVAILABLE} is used.
+     */
+    public CircuitBreakerPolicyBuilder failFastStatus(HttpStatus failFastStatus) {
+        this.failFastStatus = requireNonNull(failFastStatus, "failFastStatus");
+        return this;
+    }
+
+    /**
+     * Sets the status code of the responses to the requests which fail fast while the circuit is open.
+     * By default, {@code 503} is used.
+     */
+    public CircuitBreakerPolicyBuilder failFastStatus(int failFastStatus) {
+        return failFastStatus(HttpStatus.valueOf(failFastStatus));
+    }
+
+    private static Duration positive(Duration duration, String name) {
+        requireNonNull(duration, name);
+        checkArgument(!duration.isNegative() && !duration.isZero(), "%s: %s (expected: > 0)", name, duration);
+        return duration;
+    }
+
+    /**
+     * Builds a new {@link CircuitBreakerPolicy} based on the properties of this builder.
+     */
+    public CircuitBreakerPolicy build() {
+        return new CircuitBreakerPolicy(failureRateThreshold, minimumRequestThreshold, slidingWindow,
+                                        slowCallThreshold, openWindow, trialRequestInterval, failFastStatus);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+/**
+ * A concurrency limit which is adjusted from the latencies of the requests, i.e. the samples.
+ * The samples are applied one at a time, while the limit is read without a lock.
+ */
+abstract class ConcurrencyLimit {
+
+    static ConcurrencyLimit of(ConcurrencyLimitPolicy policy) {
+        switch (policy.algorithm()) {
+            case GRADIENT2:
+                return new Gradient2Limit(policy.initialLimit(), policy.minLimit(), policy.maxLimit());
+            case VEGAS:
+                return new VegasLimit(policy.initialLimit(), policy.minLimit(), policy.maxLimit());
+            default:
+                throw new Error(); // Should never reach here.
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+
+    ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        limit = initialLimit;
+    }
+
+    /**
+     * Returns the current limit.
+     */
+    final int limit() {
+        return limit;
+    }
+
+    /**
+     * Adjusts the limit with the latency of a request.
+     *
+     * @param latencyNanos the latency of the request.
+     * @param inFlight the number of the in-flight requests when the request was sent.
+     * @param dropped whether the request has failed, e.g. timed out.
+     */
+    final synchronized void onSample(long latencyNanos, int inFlight, boolean dropped) {
+        limit = (int) clamp(update(limit, latencyNanos, inFlight, dropped));
+    }
+
+    /**
+     * Returns the given {@code limit} clamped to the range of the limit.
+     */
+    final double clamp(double limit) {
+        return Math.max(minLimit, Math.min(maxLimit, limit));
+    }
+
+    /**
+     * Returns the new limit, which is clamped to the range of the limit by the caller.
+     * It is called with the lock of this {@link ConcurrencyLimit} held.
+     */
+    abstract double update(int limit, long latencyNanos, int inFlight, boolean dropped);
+}
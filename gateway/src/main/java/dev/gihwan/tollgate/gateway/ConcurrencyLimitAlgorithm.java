@@ -0,0 +1,42 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+/**
+ * An algorithm which adjusts the concurrency limit of an {@link Upstream} from the observed latencies.
+ */
+public enum ConcurrencyLimitAlgorithm {
+    /**
+     * Compares the latency of each request with the long-term average latency, and shrinks the limit by the
+     * ratio of them when the latency grows, like the {@code Gradient2Limit} of Netflix concurrency-limits.
+     * It tolerates the latencies up to {@code 1.5} times the average without shrinking the limit.
+     */
+    GRADIENT2,
+    /**
+     * Estimates the number of the queued requests from the ratio of the latency of each request to the minimum
+     * latency, and grows or shrinks the limit to keep the queue short, like TCP Vegas.
+     */
+    VEGAS
+}
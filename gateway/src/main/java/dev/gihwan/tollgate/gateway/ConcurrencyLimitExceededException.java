@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+/**
+ * A {@link RuntimeException} raised when a request to an {@link Upstream} exceeds its concurrency limit.
+ */
+final class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 5391822735447209146L;
+
+    private static final ConcurrencyLimitExceededException INSTANCE = new ConcurrencyLimitExceededException();
+
+    /**
+     * Returns a singleton {@link ConcurrencyLimitExceededException}, which does not have a stack trace.
+     */
+    static ConcurrencyLimitExceededException get() {
+        return INSTANCE;
+    }
+
+    private ConcurrencyLimitExceededException() {
+        super(null, null, false, false);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpStatus;
+
+/**
+ * A policy to limit the concurrent requests to an {@link Upstream} adaptively.
+ *
+ * <p>The limit starts from the initial limit and is adjusted between the minimum and the maximum limit by the
+ * {@link ConcurrencyLimitAlgorithm} from the latency of each request. A request over the limit is rejected
+ * immediately with the reject status, rather than queued in the client, so that the latency of the gateway is
+ * bounded when the upstream servers are saturated.
+ *
+ * @see ConcurrencyLimitPolicyBuilder
+ */
+public final class ConcurrencyLimitPolicy {
+
+    /**
+     * Returns a new {@link ConcurrencyLimitPolicy} with the default settings.
+     */
+    public static ConcurrencyLimitPolicy ofDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a new {@link ConcurrencyLimitPolicyBuilder}.
+     */
+    public static ConcurrencyLimitPolicyBuilder builder() {
+        return new ConcurrencyLimitPolicyBuilder();
+    }
+
+    private final ConcurrencyLimitAlgorithm algorithm;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final HttpStatus rejectStatus;
+
+    ConcurrencyLimitPolicy(ConcurrencyLimitAlgorithm algorithm, int initialLimit, int minLimit, int maxLimit,
+                           HttpStatus rejectStatus) {
+        this.algorithm = algorithm;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rejectStatus = rejectStatus;
+    }
+
+    ConcurrencyLimitAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    int initialLimit() {
+        return initialLimit;
+    }
+
+    int minLimit() {
+        return minLimit;
+    }
+
+    int maxLimit() {
+        return maxLimit;
+    }
+
+    HttpStatus rejectStatus() {
+        return rejectStatus;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("algorithm", algorithm)
+                          .add("initialLimit", initialLimit)
+                          .add("minLimit", minLimit)
+                          .add("maxLimit", maxLimit)
+                          .add("rejectStatus", rejectStatus)
+                          .toString();
+    }
+}
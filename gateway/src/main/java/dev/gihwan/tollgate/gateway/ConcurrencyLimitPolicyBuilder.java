@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import com.linecorp.armeria.common.HttpStatus;
+
+/**
+ * A builder for {@link ConcurrencyLimitPolicy}.
+ */
+public final class ConcurrencyLimitPolicyBuilder {
+
+    private static final int DEFAULT_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 1000;
+
+    private ConcurrencyLimitAlgorithm algorithm = ConcurrencyLimitAlgorithm.GRADIENT2;
+    private int initialLimit = DEFAULT_INITIAL_LIMIT;
+    private int minLimit = DEFAULT_MIN_LIMIT;
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+    private HttpStatus rejectStatus = HttpStatus.SERVICE_UNAVAILABLE;
+
+    ConcurrencyLimitPolicyBuilder() {}
+
+    /**
+     * Sets the {@link ConcurrencyLimitAlgorithm} which adjusts the limit.
+     * By default, {@link ConcurrencyLimitAlgorithm#GRADIENT2} is used.
+     */
+    public ConcurrencyLimitPolicyBuilder algorithm(ConcurrencyLimitAlgorithm algorithm) {
+        this.algorithm = requireNonNull(algorithm, "algorithm");
+        return this;
+    }
+
+    /**
+     * Sets the limit before any latency is observed. By default, {@code 20} is used.
+     */
+    public ConcurrencyLimitPolicyBuilder initialLimit(int initialLimit) {
+        checkArgument(initialLimit > 0, "initialLimit: %s (expected: > 0)", initialLimit);
+        this.initialLimit = initialLimit;
+        return this;
+    }
+
+    /**
+     * Sets the range of the limit. By default, {@code 1} and {@code 1000} are used.
+     */
+    public ConcurrencyLimitPolicyBuilder limit(int minLimit, int maxLimit) {
+        checkArgument(minLimit > 0, "minLimit: %s (expected: > 0)", minLimit);
+        checkArgument(maxLimit >= minLimit, "maxLimit: %s (expected: >= minLimit)", maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        return this;
+    }
+
+    /**
+     * Sets the status of the responses to the requests which are rejected by the limit.
+     * By default, {@link HttpStatus#SERVICE_UNAVAILABLE} is used.
+     */
+    public ConcurrencyLimitPolicyBuilder rejectStatus(HttpStatus rejectStatus) {
+        this.rejectStatus = requireNonNull(rejectStatus, "rejectStatus");
+        return this;
+    }
+
+    /**
+     * Sets the status code of the responses to the requests which are rejected by the limit.
+     * By default, {@code 503} is used.
+     */
+    public ConcurrencyLimitPolicyBuilder rejectStatus(int rejectStatus) {
+        return rejectStatus(HttpStatus.valueOf(rejectStatus));
+    }
+
+    /**
+     * Builds a new {@link ConcurrencyLimitPolicy} based on the properties of this builder.
+     *
+     * @throws IllegalStateException if the initial limit is out of the range of the limit.
+     */
+    public ConcurrencyLimitPolicy build() {
+        checkState(initialLimit >= minLimit && initialLimit <= maxLimit,
+                   "initialLimit: %s (expected: %s <= initialLimit <= %s)", initialLimit, minLimit, maxLimit);
+        return new ConcurrencyLimitPolicy(algorithm, initialLimit, minLimit, maxLimit, rejectStatus);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.SimpleDecoratingHttpClient;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+
+/**
+ * A decorator of the client of an {@link Upstream} which rejects the requests over the limit of
+ * {@link UpstreamConcurrencyLimiter} with a {@link ConcurrencyLimitExceededException}.
+ */
+final class ConcurrencyLimitingUpstreamClient extends SimpleDecoratingHttpClient {
+
+    private final UpstreamConcurrencyLimiter limiter;
+
+    ConcurrencyLimitingUpstreamClient(HttpClient delegate, UpstreamConcurrencyLimiter limiter) {
+        super(delegate);
+        this.limiter = limiter;
+    }
+
+    @Override
+    public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) throws Exception {
+        final int inFlight = limiter.tryAcquire();
+        if (inFlight < 0) {
+            throw ConcurrencyLimitExceededException.get();
+        }
+
+        final long startNanos = System.nanoTime();
+        final HttpResponse res;
+        try {
+            res = unwrap().execute(ctx, req);
+        } catch (Throwable cause) {
+            limiter.release(System.nanoTime() - startNanos, inFlight, true);
+            throw cause;
+        }
+        // The permit is released when the response is completed, aborted or failed, which always happens.
+        res.whenComplete().handle((unused, cause) -> {
+            limiter.release(System.nanoTime() - startNanos, inFlight, cause != null);
+            return null;
+        });
+        return res;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A policy of the consistent hashing of the requests to the endpoints of an {@link Upstream}, which sends the
+ * requests with the same key to the same endpoint as long as the endpoint remains.
+ *
+ * <p>The key is read from a header, a cookie, a query parameter or a path parameter of the request of a user.
+ * Each endpoint is placed on a hash ring at the points of its virtual nodes, in proportion to its weight, and a
+ * key is sent to the endpoint of the first point after the hash of the key. When an endpoint is added or
+ * removed, only the keys around its points are remapped. The requests without the key are sent to the
+ * endpoints in turn.
+ *
+ * @see ConsistentHashPolicyBuilder
+ */
+public final class ConsistentHashPolicy {
+
+    /**
+     * Returns a new {@link ConsistentHashPolicyBuilder}.
+     */
+    public static ConsistentHashPolicyBuilder builder() {
+        return new ConsistentHashPolicyBuilder();
+    }
+
+    private final KeyType keyType;
+    private final String keyName;
+    private final int virtualNodes;
+
+    ConsistentHashPolicy(KeyType keyType, String keyName, int virtualNodes) {
+        this.keyType = keyType;
+        this.keyName = keyName;
+        this.virtualNodes = virtualNodes;
+    }
+
+    KeyType keyType() {
+        return keyType;
+    }
+
+    String keyName() {
+        return keyName;
+    }
+
+    int virtualNodes() {
+        return virtualNodes;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("keyType", keyType)
+                          .add("keyName", keyName)
+                          .add("virtualNodes", virtualNodes)
+                          .toString();
+    }
+
+    /**
+     * The part of a request which the key of the consistent hashing is read from.
+     */
+    enum KeyType {
+        HEADER,
+        COOKIE,
+        QUERY_PARAM,
+        PATH_PARAM
+    }
+}
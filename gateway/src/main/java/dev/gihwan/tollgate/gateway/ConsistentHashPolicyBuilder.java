@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import javax.annotation.Nullable;
+
+import dev.gihwan.tollgate.gateway.ConsistentHashPolicy.KeyType;
+
+/**
+ * A builder for {@link ConsistentHashPolicy}. One of {@link #header(String)}, {@link #cookie(String)},
+ * {@link #queryParam(String)} and {@link #pathParam(String)} must be set.
+ */
+public final class ConsistentHashPolicyBuilder {
+
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    @Nullable
+    private KeyType keyType;
+    @Nullable
+    private String keyName;
+    private int virtualNodes = DEFAULT_VIRTUAL_NODES;
+
+    ConsistentHashPolicyBuilder() {}
+
+    /**
+     * Reads the key from the header of the given {@code name}.
+     */
+    public ConsistentHashPolicyBuilder header(String name) {
+        return key(KeyType.HEADER, name);
+    }
+
+    /**
+     * Reads the key from the cookie of the given {@code name}.
+     */
+    public ConsistentHashPolicyBuilder cookie(String name) {
+        return key(KeyType.COOKIE, name);
+    }
+
+    /**
+     * Reads the key from the query parameter of the given {@code name}.
+     */
+    public ConsistentHashPolicyBuilder queryParam(String name) {
+        return key(KeyType.QUERY_PARAM, name);
+    }
+
+    /**
+     * Reads the key from the path parameter of the given {@code name} of the matched route, e.g.
+     * {@code idOrName} of {@code /api/v2/berry/{idOrName}}.
+     */
+    public ConsistentHashPolicyBuilder pathParam(String name) {
+        return key(KeyType.PATH_PARAM, name);
+    }
+
+    private ConsistentHashPolicyBuilder key(KeyType keyType, String name) {
+        requireNonNull(name, "name");
+        checkArgument(!name.isEmpty(), "name should not be empty");
+        checkState(this.keyType == null, "key is already set: %s %s", this.keyType, keyName);
+        this.keyType = keyType;
+        keyName = name;
+        return this;
+    }
+
+    /**
+     * Sets the number of the virtual nodes of an endpoint of the mean weight on the hash ring. The more
+     * virtual nodes, the more evenly the keys are spread. By default, {@code 160} is used.
+     */
+    public ConsistentHashPolicyBuilder virtualNodes(int virtualNodes) {
+        checkArgument(virtualNodes > 0, "virtualNodes: %s (expected: > 0)", virtualNodes);
+        this.virtualNodes = virtualNodes;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link ConsistentHashPolicy} based on the properties of this builder.
+     */
+    public ConsistentHashPolicy build() {
+        checkState(keyType != null, "one of header, cookie, queryParam and pathParam should be set");
+        return new ConsistentHashPolicy(keyType, keyName, virtualNodes);
+    }
+}
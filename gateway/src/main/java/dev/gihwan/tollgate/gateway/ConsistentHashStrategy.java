@@ -0,0 +1,142 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.AbstractEndpointSelector;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointSelectionStrategy;
+import com.linecorp.armeria.client.endpoint.EndpointSelector;
+import com.linecorp.armeria.common.Cookie;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.QueryParams;
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * An {@link EndpointSelectionStrategy} of a {@link ConsistentHashPolicy} which selects an {@link Endpoint} from
+ * a {@link HashRing} by the key of a request.
+ */
+final class ConsistentHashStrategy implements EndpointSelectionStrategy {
+
+    private final ConsistentHashPolicy policy;
+
+    ConsistentHashStrategy(ConsistentHashPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new ConsistentHashSelector(endpointGroup);
+    }
+
+    @Nullable
+    private String hashKey(ClientRequestContext ctx) {
+        // Read from the request of a user rather than the request to the upstream, whose headers and path may
+        // have been changed.
+        @Nullable
+        final ServiceRequestContext root = ctx.root();
+        final RequestContext reqCtx = root != null ? root : ctx;
+        final String name = policy.keyName();
+        switch (policy.keyType()) {
+            case HEADER:
+                return header(reqCtx, name);
+            case COOKIE:
+                final String cookieHeader = header(reqCtx, HttpHeaderNames.COOKIE.toString());
+                if (cookieHeader == null) {
+                    return null;
+                }
+                return Cookie.fromCookieHeader(cookieHeader).stream()
+                             .filter(cookie -> name.equals(cookie.name()))
+                             .map(Cookie::value)
+                             .findFirst()
+                             .orElse(null);
+            case QUERY_PARAM:
+                @Nullable
+                final String query = reqCtx.query();
+                return query != null ? QueryParams.fromQueryString(query).get(name) : null;
+            case PATH_PARAM:
+                return root != null ? root.pathParam(name) : null;
+            default:
+                throw new Error(); // Should never reach here.
+        }
+    }
+
+    @Nullable
+    private static String header(RequestContext ctx, String name) {
+        @Nullable
+        final HttpRequest req = ctx.request();
+        return req != null ? req.headers().get(name) : null;
+    }
+
+    private final class ConsistentHashSelector extends AbstractEndpointSelector {
+
+        private volatile HashRing ring = HashRing.EMPTY;
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        ConsistentHashSelector(EndpointGroup endpointGroup) {
+            super(endpointGroup);
+            endpointGroup.addListener(unused -> updateRing());
+            updateRing();
+        }
+
+        private synchronized void updateRing() {
+            // Always built from the latest endpoints, even if the listener is notified out of order.
+            ring = ring.update(group().endpoints(), policy.virtualNodes());
+        }
+
+        @Nullable
+        @Override
+        public Endpoint selectNow(ClientRequestContext ctx) {
+            final List<Endpoint> endpoints = group().endpoints();
+            final int size = endpoints.size();
+            if (size == 0) {
+                return null;
+            }
+            if (size == 1) {
+                return endpoints.get(0);
+            }
+
+            @Nullable
+            final String key = hashKey(ctx);
+            if (key != null) {
+                @Nullable
+                final Endpoint endpoint = ring.select(HashRing.hash(key));
+                if (endpoint != null) {
+                    return endpoint;
+                }
+            }
+            // The requests without the key are spread in turn.
+            return endpoints.get(Math.floorMod(sequence.getAndIncrement(), size));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A policy of the deadline propagation of a route, which bounds the request to the {@link Upstream} by the time
+ * remaining until the request from a user times out.
+ *
+ * <p>The remaining time replaces the response timeout of the request to the upstream server if shorter, and the
+ * shorter one is forwarded in milliseconds in the deadline header, so that the upstream server can give up in
+ * time as well. The request to the upstream server is cancelled as soon as the request from the user is
+ * cancelled, e.g. because the user has disconnected. A request whose remaining time is not more than the
+ * minimum remaining time, e.g. after waiting for a bulkhead, is responded with {@code 504 Gateway Timeout}
+ * without being forwarded.
+ *
+ * <p>If the request from the user has no timeout, the response timeout of the upstream still applies. So a
+ * route of infinite streaming responses has to disable both the request timeout of the server and the response
+ * timeout of the {@link Upstream}.
+ *
+ * @see DeadlinePolicyBuilder
+ */
+public final class DeadlinePolicy {
+
+    /**
+     * Returns a new {@link DeadlinePolicyBuilder}.
+     */
+    public static DeadlinePolicyBuilder builder() {
+        return new DeadlinePolicyBuilder();
+    }
+
+    private final AsciiString header;
+    private final boolean honorHeader;
+    private final Duration minRemaining;
+
+    DeadlinePolicy(AsciiString header, boolean honorHeader, Duration minRemaining) {
+        this.header = header;
+        this.honorHeader = honorHeader;
+        this.minRemaining = minRemaining;
+    }
+
+    AsciiString header() {
+        return header;
+    }
+
+    boolean honorHeader() {
+        return honorHeader;
+    }
+
+    Duration minRemaining() {
+        return minRemaining;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("header", header)
+                          .add("honorHeader", honorHeader)
+                          .add("minRemaining", minRemaining)
+                          .toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A builder for {@link DeadlinePolicy}.
+ */
+public final class DeadlinePolicyBuilder {
+
+    private static final AsciiString DEFAULT_HEADER = HttpHeaderNames.of("x-tollgate-timeout-ms");
+
+    private AsciiString header = DEFAULT_HEADER;
+    private boolean honorHeader = true;
+    private Duration minRemaining = Duration.ZERO;
+
+    DeadlinePolicyBuilder() {}
+
+    /**
+     * Sets the name of the header which tells the remaining time in milliseconds. By default,
+     * {@code x-tollgate-timeout-ms} is used.
+     */
+    public DeadlinePolicyBuilder header(CharSequence header) {
+        requireNonNull(header, "header");
+        checkArgument(header.length() > 0, "header is empty.");
+        this.header = HttpHeaderNames.of(header);
+        return this;
+    }
+
+    /**
+     * Sets whether the deadline header of the request from a user shortens the request timeout, so that the
+     * deadline set by a gateway or a client in front of this gateway is kept. A longer time than the request
+     * timeout is ignored. It is enabled by default.
+     */
+    public DeadlinePolicyBuilder honorHeader(boolean honorHeader) {
+        this.honorHeader = honorHeader;
+        return this;
+    }
+
+    /**
+     * Sets the minimum remaining time of a request to forward it to the {@link Upstream}. A request with no
+     * more time left is responded with {@code 504 Gateway Timeout}. By default, {@code 0} is used, i.e. only
+     * the requests which have no time left are not forwarded.
+     */
+    public DeadlinePolicyBuilder minRemaining(Duration minRemaining) {
+        requireNonNull(minRemaining, "minRemaining");
+        checkArgument(!minRemaining.isNegative(), "minRemaining: %s (expected: >= 0)", minRemaining);
+        this.minRemaining = minRemaining;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link DeadlinePolicy} based on the properties of this builder.
+     */
+    public DeadlinePolicy build() {
+        return new DeadlinePolicy(header, honorHeader, minRemaining);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.primitives.Longs;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.util.SafeCloseable;
+import com.linecorp.armeria.common.util.TimeoutMode;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The deadline propagation of a route, which is built from a {@link DeadlinePolicy}.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.route.deadline.exceeded.requests} which are not forwarded for lack of time.</li>
+ *   <li>{@code tollgate.route.deadline.cancelled.requests} to the upstream servers which are cancelled
+ *       because the requests from users are cancelled or time out.</li>
+ * </ul>
+ */
+final class DeadlinePropagation {
+
+    private static final String PREFIX = "tollgate.route.deadline";
+
+    private final DeadlinePolicy policy;
+    private final LongAdder exceededRequests = new LongAdder();
+    private final LongAdder cancelledRequests = new LongAdder();
+
+    DeadlinePropagation(DeadlinePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Forwards the request of the given {@link ServiceRequestContext} with the given {@code forwarder}, which
+     * must send the request to the upstream server synchronously, within the remaining time of the request.
+     */
+    HttpResponse forward(ServiceRequestContext ctx, HttpRequest req, Supplier<HttpResponse> forwarder) {
+        final long remainingMillis = remainingMillis(ctx, req);
+        final boolean hasDeadline = remainingMillis != Long.MAX_VALUE;
+        if (hasDeadline && remainingMillis <= policy.minRemaining().toMillis()) {
+            exceededRequests.increment();
+            return HttpResponse.of(HttpStatus.GATEWAY_TIMEOUT);
+        }
+
+        final long deadlineNanos = hasDeadline ? System.nanoTime() + MILLISECONDS.toNanos(remainingMillis) : 0;
+        try (SafeCloseable ignored = Clients.withContextCustomizer(upstreamCtx -> {
+            // The response timeout of the upstream is kept if shorter than the remaining time, or if the
+            // request from the user has no timeout.
+            long timeoutMillis = upstreamCtx.responseTimeoutMillis();
+            if (hasDeadline) {
+                // At least 1 millisecond, because 0 disables the timeout.
+                final long remainingMillisNow =
+                        Math.max(NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()), 1);
+                if (timeoutMillis == 0 || remainingMillisNow < timeoutMillis) {
+                    timeoutMillis = remainingMillisNow;
+                    upstreamCtx.setResponseTimeoutMillis(TimeoutMode.SET_FROM_NOW, timeoutMillis);
+                }
+            }
+            if (timeoutMillis > 0) {
+                upstreamCtx.setAdditionalRequestHeader(policy.header(), timeoutMillis);
+            }
+            cancelWith(ctx, upstreamCtx);
+        })) {
+            return forwarder.get();
+        }
+    }
+
+    /**
+     * Returns the remaining time of the request of the given {@link ServiceRequestContext} in milliseconds, or
+     * {@link Long#MAX_VALUE} if it has no timeout. The request timeout is shortened by the deadline header of
+     * the request if honored.
+     */
+    private long remainingMillis(ServiceRequestContext ctx, HttpRequest req) {
+        long remainingMillis = Long.MAX_VALUE;
+        final long timeoutMillis = ctx.requestTimeoutMillis();
+        if (timeoutMillis > 0) {
+            final long elapsedNanos = System.nanoTime() - ctx.log().partial().requestStartTimeNanos();
+            remainingMillis = Math.max(timeoutMillis - NANOSECONDS.toMillis(elapsedNanos), 0);
+        }
+        if (policy.honorHeader()) {
+            final Long headerMillis = parseMillis(req.headers().get(policy.header()));
+            if (headerMillis != null && headerMillis < remainingMillis) {
+                remainingMillis = headerMillis;
+                if (remainingMillis > 0) {
+                    ctx.setRequestTimeout(TimeoutMode.SET_FROM_NOW, Duration.ofMillis(remainingMillis));
+                }
+            }
+        }
+        return remainingMillis;
+    }
+
+    @Nullable
+    private static Long parseMillis(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        final Long millis = Longs.tryParse(value.trim());
+        return millis != null && millis >= 0 ? millis : null;
+    }
+
+    private void cancelWith(ServiceRequestContext ctx, ClientRequestContext upstreamCtx) {
+        ctx.whenRequestCancelling().thenAccept(cause -> {
+            if (!upstreamCtx.log().isComplete()) {
+                cancelledRequests.increment();
+                upstreamCtx.cancel(cause);
+            }
+        });
+    }
+
+    void bindTo(MeterRegistry registry, Tags tags) {
+        FunctionCounter.builder(PREFIX + ".exceeded.requests", exceededRequests, LongAdder::sum)
+                       .description("The number of the requests not forwarded for lack of time")
+                       .tags(tags)
+                       .register(registry);
+        FunctionCounter.builder(PREFIX + ".cancelled.requests", cancelledRequests, LongAdder::sum)
+                       .description("The number of the requests to the upstream servers cancelled because " +
+                                    "the requests from users are cancelled")
+                       .tags(tags)
+                       .register(registry);
+    }
+}
@@ -28,19 +28,70 @@ import java.util.function.Predicate;
 
 import com.linecorp.armeria.common.HttpStatus;
 
+/**
+ * A {@link HttpStatusFunction} which is compiled into a table indexed by status code, so that mapping a
+ * {@link HttpStatus} costs a single array read.
+ */
 final class DefaultHttpStatusFunction implements HttpStatusFunction {
 
-    private final Predicate<HttpStatus> predicate;
-    private final HttpStatus to;
+    // HttpStatus.valueOf(int) caches the statuses in the range of [0, 1000).
+    private static final int TABLE_SIZE = 1000;
+
+    /**
+     * Returns a {@link HttpStatusFunction} which applies the {@code first} and then the {@code second}.
+     * If both are {@link DefaultHttpStatusFunction}s, they are compiled into a single table.
+     */
+    static HttpStatusFunction compose(HttpStatusFunction first, HttpStatusFunction second) {
+        if (!(first instanceof DefaultHttpStatusFunction) || !(second instanceof DefaultHttpStatusFunction)) {
+            return status -> second.apply(first.apply(status));
+        }
+
+        final HttpStatus[] table = new HttpStatus[TABLE_SIZE];
+        for (int code = 0; code < TABLE_SIZE; code++) {
+            final HttpStatus status = HttpStatus.valueOf(code);
+            final HttpStatus to = second.apply(first.apply(status));
+            if (!to.equals(status)) {
+                table[code] = to;
+            }
+        }
+        final HttpStatusFunction firstFallback = ((DefaultHttpStatusFunction) first).fallback;
+        final HttpStatusFunction secondFallback = ((DefaultHttpStatusFunction) second).fallback;
+        return new DefaultHttpStatusFunction(table,
+                                             status -> secondFallback.apply(firstFallback.apply(status)));
+    }
+
+    private final HttpStatus[] table;
+    // Applied to the statuses which are out of the table.
+    private final HttpStatusFunction fallback;
 
     DefaultHttpStatusFunction(Predicate<HttpStatus> predicate, HttpStatus to) {
-        this.predicate = predicate;
-        this.to = to;
+        this(newTable(predicate, to), status -> predicate.test(status) ? to : status);
+    }
+
+    private DefaultHttpStatusFunction(HttpStatus[] table, HttpStatusFunction fallback) {
+        this.table = table;
+        this.fallback = fallback;
+    }
+
+    private static HttpStatus[] newTable(Predicate<HttpStatus> predicate, HttpStatus to) {
+        final HttpStatus[] table = new HttpStatus[TABLE_SIZE];
+        for (int code = 0; code < TABLE_SIZE; code++) {
+            if (predicate.test(HttpStatus.valueOf(code))) {
+                table[code] = to;
+            }
+        }
+        return table;
     }
 
     @Override
     public HttpStatus apply(HttpStatus status) {
-        if (predicate.test(status)) {
+        final int code = status.code();
+        if (code < 0 || code >= TABLE_SIZE) {
+            return fallback.apply(status);
+        }
+
+        final HttpStatus to = table[code];
+        if (to != null) {
             return to;
         } else {
             return status;
@@ -26,11 +26,23 @@ package dev.gihwan.tollgate.gateway;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
 import com.linecorp.armeria.client.WebClient;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerListener;
+import com.linecorp.armeria.server.healthcheck.HealthChecker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 
 /**
  * The default implementation of {@link Upstream}.
@@ -42,12 +54,18 @@ final class DefaultUpstream implements Upstream {
     private final Function<HttpRequest, HttpRequest> requestFunction;
     private final Function<HttpResponse, HttpResponse> responseFunction;
 
+    private final List<UpstreamComponent> components;
+
+    private final AtomicBoolean bound = new AtomicBoolean();
+
     DefaultUpstream(WebClient client,
                     Function<HttpRequest, HttpRequest> requestFunction,
-                    Function<HttpResponse, HttpResponse> responseFunction) {
+                    Function<HttpResponse, HttpResponse> responseFunction,
+                    List<UpstreamComponent> components) {
         this.client = client;
         this.requestFunction = requestFunction;
         this.responseFunction = responseFunction;
+        this.components = components;
     }
 
     @Override
@@ -55,9 +73,64 @@ final class DefaultUpstream implements Upstream {
         final HttpRequest newReq = requestFunction.apply(req);
         requireNonNull(newReq, "transformed request should not be null");
 
-        final HttpResponse res = client.execute(newReq);
+        HttpResponse res = client.execute(newReq);
+        for (UpstreamComponent component : components) {
+            res = component.recover(res);
+        }
         final HttpResponse newRes = responseFunction.apply(res);
         requireNonNull(newRes, "transformed response should not be null");
         return newRes;
     }
+
+    /**
+     * Binds this {@link Upstream} to the given {@link Server}, registering its metrics to the
+     * {@link MeterRegistry} of the {@link Server} with the given {@link Tags} of a route and releasing its
+     * resources when the {@link Server} stops. An {@link Upstream} shared by more than one route is bound only
+     * once, with the {@link Tags} of the first route.
+     */
+    void bindTo(Server server, Tags tags) {
+        if (!bound.compareAndSet(false, true)) {
+            return;
+        }
+        bindTo(server.meterRegistry(), tags);
+        server.addListener(ServerListener.builder()
+                                         .whenStopped(unused -> close())
+                                         .build());
+    }
+
+    /**
+     * Registers the metrics of this {@link Upstream} to the given {@link MeterRegistry} with the given
+     * {@link Tags} of a route.
+     */
+    void bindTo(MeterRegistry registry, Tags tags) {
+        for (UpstreamComponent component : components) {
+            component.bindTo(registry, tags);
+        }
+    }
+
+    /**
+     * Returns the {@link HealthChecker}s which affect the health of a {@link Gateway}.
+     */
+    List<HealthChecker> gatewayHealthCheckers() {
+        final ImmutableList.Builder<HealthChecker> healthCheckers = ImmutableList.builder();
+        for (UpstreamComponent component : components) {
+            if (component instanceof UpstreamHealthCheck) {
+                @Nullable
+                final HealthChecker healthChecker = ((UpstreamHealthCheck) component).gatewayHealthChecker();
+                if (healthChecker != null) {
+                    healthCheckers.add(healthChecker);
+                }
+            }
+        }
+        return healthCheckers.build();
+    }
+
+    /**
+     * Releases the resources of the components of this {@link Upstream}.
+     */
+    void close() {
+        for (UpstreamComponent component : components) {
+            component.close();
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.primitives.Ints;
+
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.dns.DnsAddressEndpointGroup;
+import com.linecorp.armeria.client.endpoint.dns.DnsAddressEndpointGroupBuilder;
+import com.linecorp.armeria.client.endpoint.dns.DnsServiceEndpointGroup;
+import com.linecorp.armeria.client.endpoint.dns.DnsServiceEndpointGroupBuilder;
+import com.linecorp.armeria.client.retry.Backoff;
+
+/**
+ * A discovery of the endpoints of an {@link Upstream} from the DNS records of a hostname, which are either
+ * {@code A} and {@code AAAA} records or {@code SRV} records.
+ *
+ * <p>The records are queried again once their TTL expires, within the minimum and maximum TTL. A failed query
+ * is retried with an exponential backoff, and the endpoints of the last successful query are kept until a
+ * query succeeds again. An answer without any valid record is a failure as well.
+ *
+ * @see DnsDiscoveryBuilder
+ */
+public final class DnsDiscovery {
+
+    // The jitter rate of the backoff, which keeps the gateways from querying at the same time.
+    private static final double BACKOFF_JITTER_RATE = 0.2;
+
+    /**
+     * Returns a new {@link DnsDiscoveryBuilder} which discovers the endpoints from the {@code A} and
+     * {@code AAAA} records of the given {@code hostname}, listening on the given {@code port}.
+     */
+    public static DnsDiscoveryBuilder address(String hostname, int port) {
+        checkArgument(port > 0 && port <= 65535, "port: %s (expected: 1-65535)", port);
+        return new DnsDiscoveryBuilder(requireNonNull(hostname, "hostname"), port);
+    }
+
+    /**
+     * Returns a new {@link DnsDiscoveryBuilder} which discovers the endpoints from the {@code SRV} records of
+     * the given {@code serviceName}. The ports and the weights of the endpoints are read from the records.
+     */
+    public static DnsDiscoveryBuilder service(String serviceName) {
+        return new DnsDiscoveryBuilder(requireNonNull(serviceName, "serviceName"), 0);
+    }
+
+    private final String hostname;
+    // 0 if the endpoints are discovered from the SRV records.
+    private final int port;
+    private final Duration minTtl;
+    private final Duration maxTtl;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration queryTimeout;
+    private final List<InetSocketAddress> serverAddresses;
+
+    DnsDiscovery(String hostname, int port, Duration minTtl, Duration maxTtl, Duration initialBackoff,
+                 Duration maxBackoff, Duration queryTimeout, List<InetSocketAddress> serverAddresses) {
+        this.hostname = hostname;
+        this.port = port;
+        this.minTtl = minTtl;
+        this.maxTtl = maxTtl;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.queryTimeout = queryTimeout;
+        this.serverAddresses = serverAddresses;
+    }
+
+    /**
+     * Returns a new {@link LastKnownGoodEndpointGroup} which starts querying the records, and which must be
+     * closed once it is not used anymore.
+     */
+    LastKnownGoodEndpointGroup newEndpointGroup() {
+        final int minTtlSeconds = Ints.saturatedCast(minTtl.getSeconds());
+        final int maxTtlSeconds = Ints.saturatedCast(maxTtl.getSeconds());
+        final Backoff backoff = Backoff.exponential(initialBackoff.toMillis(), maxBackoff.toMillis())
+                                       .withJitter(BACKOFF_JITTER_RATE);
+        final EndpointGroup delegate;
+        if (port > 0) {
+            final DnsAddressEndpointGroupBuilder builder =
+                    DnsAddressEndpointGroup.builder(hostname)
+                                           .port(port)
+                                           .ttl(minTtlSeconds, maxTtlSeconds)
+                                           .backoff(backoff)
+                                           .queryTimeout(queryTimeout);
+            if (!serverAddresses.isEmpty()) {
+                builder.serverAddresses(serverAddresses);
+            }
+            delegate = builder.build();
+        } else {
+            final DnsServiceEndpointGroupBuilder builder =
+                    DnsServiceEndpointGroup.builder(hostname)
+                                           .ttl(minTtlSeconds, maxTtlSeconds)
+                                           .backoff(backoff)
+                                           .queryTimeout(queryTimeout);
+            if (!serverAddresses.isEmpty()) {
+                builder.serverAddresses(serverAddresses);
+            }
+            delegate = builder.build();
+        }
+        return new LastKnownGoodEndpointGroup(delegate);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("hostname", hostname)
+                          .add("port", port > 0 ? port : null)
+                          .add("minTtl", minTtl)
+                          .add("maxTtl", maxTtl)
+                          .add("initialBackoff", initialBackoff)
+                          .add("maxBackoff", maxBackoff)
+                          .add("queryTimeout", queryTimeout)
+                          .add("serverAddresses", serverAddresses)
+                          .omitNullValues()
+                          .toString();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A builder for {@link DnsDiscovery}.
+ */
+public final class DnsDiscoveryBuilder {
+
+    private static final Duration DEFAULT_MIN_TTL = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_MAX_TTL = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(32);
+    private static final Duration DEFAULT_QUERY_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String hostname;
+    private final int port;
+    private Duration minTtl = DEFAULT_MIN_TTL;
+    private Duration maxTtl = DEFAULT_MAX_TTL;
+    private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+    private Duration queryTimeout = DEFAULT_QUERY_TIMEOUT;
+    private List<InetSocketAddress> serverAddresses = ImmutableList.of();
+
+    DnsDiscoveryBuilder(String hostname, int port) {
+        checkArgument(!hostname.isEmpty(), "hostname is empty.");
+        this.hostname = hostname;
+        this.port = port;
+    }
+
+    /**
+     * Sets the minimum and the maximum time for which the records are cached, overriding the TTL of the
+     * records out of the range. By default, {@code 1} second and {@code 1} minute are used.
+     */
+    public DnsDiscoveryBuilder ttl(Duration minTtl, Duration maxTtl) {
+        requireNonNull(minTtl, "minTtl");
+        requireNonNull(maxTtl, "maxTtl");
+        checkArgument(minTtl.getSeconds() > 0, "minTtl: %s (expected: >= 1s)", minTtl);
+        checkArgument(maxTtl.compareTo(minTtl) >= 0, "maxTtl: %s (expected: >= minTtl)", maxTtl);
+        this.minTtl = minTtl;
+        this.maxTtl = maxTtl;
+        return this;
+    }
+
+    /**
+     * Sets the delay before querying again after the first failure, and the maximum delay it doubles up to
+     * after the consecutive failures. By default, {@code 1} second and {@code 32} seconds are used.
+     */
+    public DnsDiscoveryBuilder backoff(Duration initialBackoff, Duration maxBackoff) {
+        requireNonNull(initialBackoff, "initialBackoff");
+        requireNonNull(maxBackoff, "maxBackoff");
+        checkArgument(!initialBackoff.isNegative() && !initialBackoff.isZero(),
+                      "initialBackoff: %s (expected: > 0)", initialBackoff);
+        checkArgument(maxBackoff.compareTo(initialBackoff) >= 0,
+                      "maxBackoff: %s (expected: >= initialBackoff)", maxBackoff);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * Sets the timeout of a query. By default, {@code 5} seconds is used.
+     */
+    public DnsDiscoveryBuilder queryTimeout(Duration queryTimeout) {
+        requireNonNull(queryTimeout, "queryTimeout");
+        checkArgument(!queryTimeout.isNegative() && !queryTimeout.isZero(),
+                      "queryTimeout: %s (expected: > 0)", queryTimeout);
+        this.queryTimeout = queryTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the addresses of the DNS servers to query. By default, the DNS servers of the system are used.
+     */
+    public DnsDiscoveryBuilder serverAddresses(InetSocketAddress... serverAddresses) {
+        return serverAddresses(ImmutableList.copyOf(requireNonNull(serverAddresses, "serverAddresses")));
+    }
+
+    /**
+     * Sets the addresses of the DNS servers to query. By default, the DNS servers of the system are used.
+     */
+    public DnsDiscoveryBuilder serverAddresses(Iterable<InetSocketAddress> serverAddresses) {
+        this.serverAddresses = ImmutableList.copyOf(requireNonNull(serverAddresses, "serverAddresses"));
+        return this;
+    }
+
+    /**
+     * Builds a new {@link DnsDiscovery} based on the properties of this builder.
+     */
+    public DnsDiscovery build() {
+        return new DnsDiscovery(hostname, port, minTtl, maxTtl, initialBackoff, maxBackoff, queryTimeout,
+                                serverAddresses);
+    }
+}
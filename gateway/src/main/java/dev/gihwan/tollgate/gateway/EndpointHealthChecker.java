@@ -0,0 +1,138 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.client.endpoint.healthcheck.HealthCheckerContext;
+import com.linecorp.armeria.common.util.AsyncCloseable;
+
+/**
+ * Probes an endpoint according to a {@link HealthCheckPolicy}, updating the health of the endpoint with the
+ * thresholds of the consecutive results. The probes and their results are handled by the executor of the
+ * {@link HealthCheckerContext}, so that the state is not shared between threads.
+ */
+final class EndpointHealthChecker implements AsyncCloseable {
+
+    private static final double HEALTHY = 1;
+    private static final double UNHEALTHY = 0;
+
+    private final HealthCheckerContext ctx;
+    private final HealthCheckPolicy policy;
+    private final WebClient client;
+
+    private boolean checked;
+    private boolean healthy;
+    private int consecutiveSuccesses;
+    private int consecutiveFailures;
+
+    @Nullable
+    private ScheduledFuture<?> scheduledProbe;
+    private volatile boolean closed;
+
+    EndpointHealthChecker(HealthCheckerContext ctx, HealthCheckPolicy policy) {
+        this.ctx = ctx;
+        this.policy = policy;
+        client = WebClient.builder(ctx.protocol(), ctx.endpoint())
+                          .options(ctx.clientOptions())
+                          .responseTimeout(policy.timeout())
+                          .build();
+    }
+
+    /**
+     * Starts probing the endpoint.
+     */
+    void start() {
+        ctx.executor().execute(this::probe);
+    }
+
+    private void probe() {
+        if (closed) {
+            return;
+        }
+        client.get(policy.path()).aggregate().handleAsync((res, cause) -> {
+            onResult(cause == null && res.status().isSuccess());
+            scheduleProbe();
+            return null;
+        }, ctx.executor());
+    }
+
+    private void onResult(boolean success) {
+        if (closed) {
+            return;
+        }
+        if (success) {
+            consecutiveFailures = 0;
+            consecutiveSuccesses++;
+            if (!checked || !healthy && consecutiveSuccesses >= policy.healthyThreshold()) {
+                updateHealth(true);
+            }
+        } else {
+            consecutiveSuccesses = 0;
+            consecutiveFailures++;
+            if (!checked || healthy && consecutiveFailures >= policy.unhealthyThreshold()) {
+                updateHealth(false);
+            }
+        }
+    }
+
+    private void updateHealth(boolean healthy) {
+        checked = true;
+        this.healthy = healthy;
+        ctx.updateHealth(healthy ? HEALTHY : UNHEALTHY);
+    }
+
+    private void scheduleProbe() {
+        if (closed) {
+            return;
+        }
+        final long intervalNanos = policy.interval().toNanos();
+        final double jitter = policy.jitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        final long delayNanos = (long) (intervalNanos * (1 + jitter));
+        scheduledProbe = ctx.executor().schedule(this::probe, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public CompletableFuture<?> closeAsync() {
+        closed = true;
+        ctx.executor().execute(() -> {
+            if (scheduledProbe != null) {
+                scheduledProbe.cancel(false);
+            }
+        });
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void close() {
+        closeAsync().join();
+    }
+}
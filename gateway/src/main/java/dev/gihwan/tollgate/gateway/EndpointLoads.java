@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * The loads of the endpoints of an {@link Upstream}, i.e. the outstanding requests and the peak EWMA of the
+ * latencies of each {@link Endpoint}.
+ */
+final class EndpointLoads {
+
+    // The time for the weight of a latency to decay to 1/e, which is the default of Finagle and Linkerd.
+    @VisibleForTesting
+    static final long DECAY_NANOS = 10_000_000_000L;
+
+    // The cost of an endpoint with outstanding requests but no latencies, which keeps a new endpoint from
+    // taking every request until its first response.
+    private static final double PENALTY_NANOS = 1_000_000_000.0;
+
+    private final ConcurrentMap<Endpoint, Load> loads = new ConcurrentHashMap<>();
+    private final LongSupplier ticker;
+
+    EndpointLoads() {
+        this(System::nanoTime);
+    }
+
+    EndpointLoads(LongSupplier ticker) {
+        this.ticker = ticker;
+    }
+
+    /**
+     * Returns the {@link Load} of the given {@link Endpoint}.
+     */
+    Load get(Endpoint endpoint) {
+        final Load load = loads.get(endpoint);
+        if (load != null) {
+            return load;
+        }
+        return loads.computeIfAbsent(endpoint, unused -> new Load(ticker));
+    }
+
+    /**
+     * Forgets the loads of the endpoints which are not one of the given {@code endpoints}.
+     */
+    void retainAll(Collection<Endpoint> endpoints) {
+        loads.keySet().retainAll(endpoints);
+    }
+
+    /**
+     * The load of an {@link Endpoint}.
+     */
+    static final class Load {
+
+        private final LongSupplier ticker;
+
+        private volatile int outstanding;
+        private double ewmaNanos;
+        private long lastUpdateNanos;
+
+        private Load(LongSupplier ticker) {
+            this.ticker = ticker;
+            lastUpdateNanos = ticker.getAsLong();
+        }
+
+        /**
+         * Returns the number of the outstanding requests.
+         */
+        int outstanding() {
+            return outstanding;
+        }
+
+        /**
+         * Returns the cost of sending a request, i.e. the peak EWMA of the latencies multiplied by the number
+         * of the outstanding requests including the request.
+         */
+        synchronized double cost() {
+            final int outstanding = this.outstanding;
+            // Decays the average toward zero while no response is observed, so that a slow endpoint is tried
+            // again after a while.
+            final double ewmaNanos = update(0);
+            if (ewmaNanos == 0 && outstanding > 0) {
+                return PENALTY_NANOS + outstanding;
+            }
+            return ewmaNanos * (outstanding + 1);
+        }
+
+        /**
+         * Marks the start of a request.
+         */
+        synchronized void onStart() {
+            outstanding++;
+        }
+
+        /**
+         * Marks the end of a request which took the given {@code latencyNanos}.
+         */
+        synchronized void onEnd(long latencyNanos) {
+            outstanding--;
+            update(latencyNanos);
+        }
+
+        private double update(long latencyNanos) {
+            final long now = ticker.getAsLong();
+            final long elapsedNanos = Math.max(now - lastUpdateNanos, 0);
+            lastUpdateNanos = now;
+            if (latencyNanos > ewmaNanos) {
+                // Jumps to a peak immediately rather than averaging it.
+                ewmaNanos = latencyNanos;
+            } else {
+                final double weight = Math.exp((double) -elapsedNanos / DECAY_NANOS);
+                ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+            }
+            return ewmaNanos;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+/**
+ * Selects an {@link Endpoint} for another attempt of a request, e.g. a retry or a hedged request.
+ */
+final class EndpointSelection {
+
+    /**
+     * Selects an {@link Endpoint} of the {@link EndpointGroup} of the given {@link ClientRequestContext} which
+     * is not one of the given {@code triedEndpoints}. If all endpoints have been tried, any {@link Endpoint}
+     * selected by the {@link EndpointGroup} is returned.
+     */
+    static Endpoint selectUntried(ClientRequestContext ctx, Collection<Endpoint> triedEndpoints) {
+        @Nullable
+        final EndpointGroup endpointGroup = ctx.endpointGroup();
+        if (endpointGroup == null) {
+            return ctx.endpoint();
+        }
+        final List<Endpoint> endpoints = endpointGroup.endpoints();
+        // Respects the selection strategy of the group first, e.g. the weights of the endpoints.
+        for (int i = 0; i < endpoints.size(); i++) {
+            @Nullable
+            final Endpoint endpoint = endpointGroup.selectNow(ctx);
+            if (endpoint != null && !triedEndpoints.contains(endpoint)) {
+                return endpoint;
+            }
+        }
+        for (Endpoint endpoint : endpoints) {
+            if (!triedEndpoints.contains(endpoint)) {
+                return endpoint;
+            }
+        }
+        // All endpoints have been tried.
+        @Nullable
+        final Endpoint endpoint = endpointGroup.selectNow(ctx);
+        return endpoint != null ? endpoint : ctx.endpoint();
+    }
+
+    private EndpointSelection() {}
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * A discovery of the endpoints of an {@link Upstream} from a local file, which is usually written by another
+ * process such as a sidecar of the orchestration.
+ *
+ * <p>The file is read again once it has not changed for the debounce delay, and its endpoints replace the
+ * current ones at once, so that the requests in flight are not affected. The file is expected to be replaced
+ * atomically, e.g. by renaming a temporary file, but a partially written file is not a problem either because
+ * the file is rejected unless it is parsed into enough valid endpoints. The endpoints of the last accepted file
+ * are kept until a valid file is written again.
+ *
+ * <p>By default, the file is parsed as JSON as follows:
+ * <pre>{@code
+ * {
+ *   "endpoints": [
+ *     { "host": "10.0.0.1", "port": 8080 },
+ *     { "host": "10.0.0.2", "port": 8080, "weight": 500 }
+ *   ]
+ * }
+ * }</pre>
+ *
+ * @see FileDiscoveryBuilder
+ */
+public final class FileDiscovery {
+
+    /**
+     * Returns a new {@link FileDiscoveryBuilder} which discovers the endpoints from the file at the given
+     * {@code path}.
+     */
+    public static FileDiscoveryBuilder builder(Path path) {
+        return new FileDiscoveryBuilder(requireNonNull(path, "path"));
+    }
+
+    private final Path path;
+    private final Duration debounce;
+    private final int minEndpoints;
+    private final Function<? super String, ? extends List<Endpoint>> parser;
+
+    FileDiscovery(Path path, Duration debounce, int minEndpoints,
+                  Function<? super String, ? extends List<Endpoint>> parser) {
+        this.path = path;
+        this.debounce = debounce;
+        this.minEndpoints = minEndpoints;
+        this.parser = parser;
+    }
+
+    /**
+     * Returns a new {@link FileWatchingEndpointGroup} which starts watching the file, and which must be closed
+     * once it is not used anymore. The file is read by the given {@code executor}.
+     */
+    FileWatchingEndpointGroup newEndpointGroup(ScheduledExecutorService executor) {
+        return new FileWatchingEndpointGroup(path, debounce, minEndpoints, parser, executor);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("path", path)
+                          .add("debounce", debounce)
+                          .add("minEndpoints", minEndpoints)
+                          .toString();
+    }
+}
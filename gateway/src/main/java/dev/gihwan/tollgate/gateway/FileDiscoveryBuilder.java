@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * A builder for {@link FileDiscovery}.
+ */
+public final class FileDiscoveryBuilder {
+
+    private static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+    private static final int DEFAULT_MIN_ENDPOINTS = 1;
+
+    private final Path path;
+    private Duration debounce = DEFAULT_DEBOUNCE;
+    private int minEndpoints = DEFAULT_MIN_ENDPOINTS;
+    private Function<? super String, ? extends List<Endpoint>> parser = JsonEndpointsParser.INSTANCE;
+
+    FileDiscoveryBuilder(Path path) {
+        checkArgument(path.getFileName() != null, "path: %s (expected: a file)", path);
+        this.path = path;
+    }
+
+    /**
+     * Sets the time for which the file must not change before it is read, so that a burst of writes is read
+     * only once. By default, {@code 500} milliseconds is used.
+     */
+    public FileDiscoveryBuilder debounce(Duration debounce) {
+        requireNonNull(debounce, "debounce");
+        checkArgument(!debounce.isNegative(), "debounce: %s (expected: >= 0)", debounce);
+        this.debounce = debounce;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of the endpoints in the file, below which the file is rejected. By default,
+     * {@code 1} is used so that the file without any endpoint is rejected.
+     */
+    public FileDiscoveryBuilder minEndpoints(int minEndpoints) {
+        checkArgument(minEndpoints > 0, "minEndpoints: %s (expected: > 0)", minEndpoints);
+        this.minEndpoints = minEndpoints;
+        return this;
+    }
+
+    /**
+     * Sets the {@link Function} which parses the content of the file into the endpoints. The file is rejected
+     * if the {@code parser} throws an exception. By default, the file is parsed as JSON.
+     */
+    public FileDiscoveryBuilder parser(Function<? super String, ? extends List<Endpoint>> parser) {
+        this.parser = requireNonNull(parser, "parser");
+        return this;
+    }
+
+    /**
+     * Builds a new {@link FileDiscovery} based on the properties of this builder.
+     */
+    public FileDiscovery build() {
+        return new FileDiscovery(path, debounce, minEndpoints, parser);
+    }
+}
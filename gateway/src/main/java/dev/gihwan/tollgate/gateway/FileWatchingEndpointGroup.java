@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+
+/**
+ * A {@link DynamicEndpointGroup} of the endpoints in a file, which is read again once the directory of the file
+ * has not changed for the debounce delay. The file is rejected, keeping the last endpoints, if it cannot be
+ * read or parsed, or if it has fewer endpoints than the minimum.
+ */
+final class FileWatchingEndpointGroup extends DynamicEndpointGroup {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileWatchingEndpointGroup.class);
+
+    private final Path path;
+    private final Duration debounce;
+    private final int minEndpoints;
+    private final Function<? super String, ? extends List<Endpoint>> parser;
+    private final ScheduledExecutorService executor;
+    private final WatchService watchService;
+    private final LongAdder rejectedUpdates = new LongAdder();
+
+    // Guarded by this.
+    @Nullable
+    private ScheduledFuture<?> pendingReload;
+    // Guarded by this.
+    private boolean closed;
+
+    FileWatchingEndpointGroup(Path path, Duration debounce, int minEndpoints,
+                              Function<? super String, ? extends List<Endpoint>> parser,
+                              ScheduledExecutorService executor) {
+        this.path = path.toAbsolutePath();
+        this.debounce = debounce;
+        this.minEndpoints = minEndpoints;
+        this.parser = parser;
+        this.executor = executor;
+
+        // Watches the directory rather than the file, so that the file replaced by renaming another file or by
+        // switching a symbolic link is noticed as well.
+        final Path directory = this.path.getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch " + directory, e);
+        }
+        reload();
+
+        final Thread watcher = new Thread(this::watch, "tollgate-file-discovery-" + this.path.getFileName());
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void watch() {
+        try {
+            for (;;) {
+                final WatchKey key = watchService.take();
+                // Any change in the directory is read, which is cheap, because the file may be replaced by a
+                // file of another name. The endpoints are not updated unless they have changed.
+                key.pollEvents();
+                scheduleReload();
+                if (!key.reset()) {
+                    logger.warn("Stopped watching {} which is no longer accessible.", path.getParent());
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException ignored) {
+            // Closed together with this group.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void scheduleReload() {
+        if (closed) {
+            return;
+        }
+        if (pendingReload != null) {
+            pendingReload.cancel(false);
+        }
+        pendingReload = executor.schedule(this::reload, debounce.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Synchronized so that the file read later is never overwritten by the file read earlier.
+    private synchronized void reload() {
+        if (closed) {
+            return;
+        }
+        final List<Endpoint> endpoints;
+        try {
+            final String content = new String(Files.readAllBytes(path), UTF_8);
+            endpoints = ImmutableList.copyOf(parser.apply(content));
+        } catch (Exception cause) {
+            rejectedUpdates.increment();
+            logger.warn("Rejected the endpoints in {}, keeping the last {} endpoints.",
+                        path, endpoints().size(), cause);
+            return;
+        }
+        if (endpoints.size() < minEndpoints) {
+            rejectedUpdates.increment();
+            logger.warn("Rejected the {} endpoints in {} (expected: >= {}), keeping the last {} endpoints.",
+                        endpoints.size(), path, minEndpoints, endpoints().size());
+            return;
+        }
+        setEndpoints(endpoints);
+    }
+
+    /**
+     * Returns the number of the rejected updates of the file.
+     */
+    long rejectedUpdates() {
+        return rejectedUpdates.sum();
+    }
+
+    @Override
+    protected void doCloseAsync(CompletableFuture<?> future) {
+        synchronized (this) {
+            closed = true;
+            if (pendingReload != null) {
+                pendingReload.cancel(false);
+            }
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Failed to stop watching {}.", path.getParent(), e);
+        }
+        future.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{path=" + path + ", endpoints=" + endpoints() + '}';
+    }
+}
@@ -24,49 +24,56 @@
 
 package dev.gihwan.tollgate.gateway;
 
-import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.isRequestPseudoHeader;
+import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.isPseudoHeader;
 
 import java.util.Set;
-import java.util.function.BiPredicate;
-import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
 
-import com.linecorp.armeria.common.HttpRequest;
-import com.linecorp.armeria.common.RequestHeaders;
 import com.linecorp.armeria.common.RequestHeadersBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
 
 import io.netty.util.AsciiString;
 
-final class FilteringRequestHeadersFunction implements Function<HttpRequest, HttpRequest> {
+/**
+ * Transforms the headers of a request with a {@link HeaderPolicy}.
+ */
+final class FilteringRequestHeadersFunction extends AbstractRequestHeadersFunction {
 
     static FilteringRequestHeadersFunction ofAllowedSet(Set<AsciiString> allowedRequestHeaders) {
-        return new FilteringRequestHeadersFunction((name, value) -> !allowedRequestHeaders.contains(name));
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .allow(withoutPseudoHeaders(allowedRequestHeaders))
+                                                .build();
+        return new FilteringRequestHeadersFunction(policy);
     }
 
     static FilteringRequestHeadersFunction ofDisallowedSet(Set<AsciiString> disallowedRequestHeaders) {
-        return new FilteringRequestHeadersFunction((name, value) -> disallowedRequestHeaders.contains(name));
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .remove(withoutPseudoHeaders(disallowedRequestHeaders))
+                                                .build();
+        return new FilteringRequestHeadersFunction(policy);
     }
 
-    private final BiPredicate<AsciiString, String> predicate;
+    private static Set<AsciiString> withoutPseudoHeaders(Set<AsciiString> names) {
+        return names.stream()
+                    .filter(name -> !isPseudoHeader(name))
+                    .collect(Collectors.toUnmodifiableSet());
+    }
 
-    private FilteringRequestHeadersFunction(BiPredicate<AsciiString, String> predicate) {
-        this.predicate = predicate;
+    private final HeaderPolicy policy;
+
+    FilteringRequestHeadersFunction(HeaderPolicy policy) {
+        this.policy = policy;
     }
 
     @Override
-    public HttpRequest apply(HttpRequest req) {
-        return req.mapHeaders(this::filterRequestHeaders);
+    void transform(@Nullable ServiceRequestContext ctx, RequestHeadersBuilder builder) {
+        policy.apply(ctx, builder);
     }
 
-    private RequestHeaders filterRequestHeaders(RequestHeaders headers) {
-        final RequestHeadersBuilder builder = headers.toBuilder();
-        headers.forEach((name, value) -> {
-            if (isRequestPseudoHeader(name)) {
-                return;
-            }
-            if (predicate.test(name, value)) {
-                builder.remove(name);
-            }
-        });
-        return builder.build();
+    @Override
+    boolean requiresContext() {
+        return policy.requiresContext();
     }
 }
@@ -24,49 +24,48 @@
 
 package dev.gihwan.tollgate.gateway;
 
-import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.isResponsePseudoHeader;
+import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.isPseudoHeader;
 
 import java.util.Set;
-import java.util.function.BiPredicate;
-import java.util.function.Function;
+import java.util.stream.Collectors;
 
-import com.linecorp.armeria.common.HttpResponse;
-import com.linecorp.armeria.common.ResponseHeaders;
 import com.linecorp.armeria.common.ResponseHeadersBuilder;
 
 import io.netty.util.AsciiString;
 
-final class FilteringResponseHeadersFunction implements Function<HttpResponse, HttpResponse> {
+/**
+ * Transforms the headers of a response with a {@link HeaderPolicy}.
+ */
+final class FilteringResponseHeadersFunction extends AbstractResponseHeadersFunction {
 
     static FilteringResponseHeadersFunction ofAllowedSet(Set<AsciiString> allowedResponseHeaders) {
-        return new FilteringResponseHeadersFunction((name, value) -> !allowedResponseHeaders.contains(name));
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .allow(withoutPseudoHeaders(allowedResponseHeaders))
+                                                .build();
+        return new FilteringResponseHeadersFunction(policy);
     }
 
     static FilteringResponseHeadersFunction ofDisallowedSet(Set<AsciiString> disallowedResponseHeaders) {
-        return new FilteringResponseHeadersFunction((name, value) -> disallowedResponseHeaders.contains(name));
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .remove(withoutPseudoHeaders(disallowedResponseHeaders))
+                                                .build();
+        return new FilteringResponseHeadersFunction(policy);
     }
 
-    private final BiPredicate<AsciiString, String> predicate;
-
-    private FilteringResponseHeadersFunction(BiPredicate<AsciiString, String> predicate) {
-        this.predicate = predicate;
+    private static Set<AsciiString> withoutPseudoHeaders(Set<AsciiString> names) {
+        return names.stream()
+                    .filter(name -> !isPseudoHeader(name))
+                    .collect(Collectors.toUnmodifiableSet());
     }
 
-    @Override
-    public HttpResponse apply(HttpResponse res) {
-        return res.mapHeaders(this::filterResponseHeaders);
+    private final HeaderPolicy policy;
+
+    FilteringResponseHeadersFunction(HeaderPolicy policy) {
+        this.policy = policy;
     }
 
-    private ResponseHeaders filterResponseHeaders(ResponseHeaders headers) {
-        final ResponseHeadersBuilder builder = headers.toBuilder();
-        headers.forEach((name, value) -> {
-            if (isResponsePseudoHeader(name)) {
-                return;
-            }
-            if (predicate.test(name, value)) {
-                builder.remove(name);
-            }
-        });
-        return builder.build();
+    @Override
+    void transform(ResponseHeadersBuilder builder) {
+        policy.apply(null, builder);
     }
 }
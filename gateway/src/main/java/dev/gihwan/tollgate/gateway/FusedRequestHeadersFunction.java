@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeadersBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * An {@link AbstractRequestHeadersFunction} which applies the specified {@link AbstractRequestHeadersFunction}s
+ * in order with a single {@link RequestHeadersBuilder}.
+ */
+final class FusedRequestHeadersFunction extends AbstractRequestHeadersFunction {
+
+    /**
+     * Composes the given {@code functions} in order, fusing the consecutive
+     * {@link AbstractRequestHeadersFunction}s. The other {@link Function}s are applied as they are.
+     */
+    static Function<HttpRequest, HttpRequest> compose(
+            List<? extends Function<? super HttpRequest, ? extends HttpRequest>> functions) {
+        final List<Function<? super HttpRequest, ? extends HttpRequest>> stages = new ArrayList<>();
+        final List<AbstractRequestHeadersFunction> fusible = new ArrayList<>();
+        for (Function<? super HttpRequest, ? extends HttpRequest> function : functions) {
+            if (function instanceof AbstractRequestHeadersFunction) {
+                fusible.add((AbstractRequestHeadersFunction) function);
+            } else {
+                addFused(stages, fusible);
+                stages.add(function);
+            }
+        }
+        addFused(stages, fusible);
+
+        Function<HttpRequest, HttpRequest> composed = Function.identity();
+        for (Function<? super HttpRequest, ? extends HttpRequest> stage : stages) {
+            final Function<HttpRequest, HttpRequest> previous = composed;
+            composed = req -> stage.apply(previous.apply(req));
+        }
+        return composed;
+    }
+
+    private static void addFused(List<Function<? super HttpRequest, ? extends HttpRequest>> stages,
+                                 List<AbstractRequestHeadersFunction> fusible) {
+        if (fusible.isEmpty()) {
+            return;
+        }
+        if (fusible.size() == 1) {
+            stages.add(fusible.get(0));
+        } else {
+            stages.add(new FusedRequestHeadersFunction(fusible));
+        }
+        fusible.clear();
+    }
+
+    private final AbstractRequestHeadersFunction[] functions;
+    private final boolean requiresContext;
+
+    private FusedRequestHeadersFunction(List<AbstractRequestHeadersFunction> functions) {
+        this.functions = functions.toArray(new AbstractRequestHeadersFunction[0]);
+
+        boolean requiresContext = false;
+        for (AbstractRequestHeadersFunction function : functions) {
+            requiresContext |= function.requiresContext();
+        }
+        this.requiresContext = requiresContext;
+    }
+
+    @Override
+    void transform(@Nullable ServiceRequestContext ctx, RequestHeadersBuilder builder) {
+        for (AbstractRequestHeadersFunction function : functions) {
+            function.transform(ctx, builder);
+        }
+    }
+
+    @Override
+    boolean requiresContext() {
+        return requiresContext;
+    }
+}
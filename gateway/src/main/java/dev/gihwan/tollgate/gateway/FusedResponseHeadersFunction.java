@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.ResponseHeadersBuilder;
+
+/**
+ * An {@link AbstractResponseHeadersFunction} which applies the specified
+ * {@link AbstractResponseHeadersFunction}s in order with a single {@link ResponseHeadersBuilder}.
+ */
+final class FusedResponseHeadersFunction extends AbstractResponseHeadersFunction {
+
+    /**
+     * Composes the given {@code functions} in order, fusing the consecutive
+     * {@link AbstractResponseHeadersFunction}s. The other {@link Function}s are applied as they are.
+     */
+    static Function<HttpResponse, HttpResponse> compose(
+            List<? extends Function<? super HttpResponse, ? extends HttpResponse>> functions) {
+        final List<Function<? super HttpResponse, ? extends HttpResponse>> stages = new ArrayList<>();
+        final List<AbstractResponseHeadersFunction> fusible = new ArrayList<>();
+        for (Function<? super HttpResponse, ? extends HttpResponse> function : functions) {
+            if (function instanceof AbstractResponseHeadersFunction) {
+                fusible.add((AbstractResponseHeadersFunction) function);
+            } else {
+                addFused(stages, fusible);
+                stages.add(function);
+            }
+        }
+        addFused(stages, fusible);
+
+        Function<HttpResponse, HttpResponse> composed = Function.identity();
+        for (Function<? super HttpResponse, ? extends HttpResponse> stage : stages) {
+            final Function<HttpResponse, HttpResponse> previous = composed;
+            composed = res -> stage.apply(previous.apply(res));
+        }
+        return composed;
+    }
+
+    private static void addFused(List<Function<? super HttpResponse, ? extends HttpResponse>> stages,
+                                 List<AbstractResponseHeadersFunction> fusible) {
+        if (fusible.isEmpty()) {
+            return;
+        }
+        if (fusible.size() == 1) {
+            stages.add(fusible.get(0));
+        } else {
+            stages.add(new FusedResponseHeadersFunction(fusible));
+        }
+        fusible.clear();
+    }
+
+    private final AbstractResponseHeadersFunction[] functions;
+
+    private FusedResponseHeadersFunction(List<AbstractResponseHeadersFunction> functions) {
+        this.functions = functions.toArray(new AbstractResponseHeadersFunction[0]);
+    }
+
+    @Override
+    void transform(ResponseHeadersBuilder builder) {
+        for (AbstractResponseHeadersFunction function : functions) {
+            function.transform(builder);
+        }
+    }
+}
@@ -26,19 +26,36 @@ package dev.gihwan.tollgate.gateway;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.ImmutableList;
 
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
 import com.linecorp.armeria.server.HttpService;
 import com.linecorp.armeria.server.Server;
 import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerListener;
 import com.linecorp.armeria.server.healthcheck.HealthCheckService;
+import com.linecorp.armeria.server.healthcheck.HealthChecker;
+import com.linecorp.armeria.server.metric.PrometheusExpositionService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
 
 public final class GatewayBuilder {
 
     private final ServerBuilder serverBuilder = Server.builder();
+    private final List<HealthChecker> healthCheckers = new ArrayList<>();
+    @Nullable
+    private String healthCheckPath;
+    @Nullable
+    private LoadSheddingPolicy loadSheddingPolicy;
 
     GatewayBuilder() {}
 
@@ -54,8 +71,16 @@ public final class GatewayBuilder {
         return this;
     }
 
+    /**
+     * Serves the health check of a {@link Gateway} at the given {@code healthCheckPath}. The {@link Gateway} is
+     * unhealthy while an {@link Upstream} whose {@link HealthCheckPolicy} fails the health check of a
+     * {@link Gateway} has no healthy endpoint.
+     *
+     * @see HealthCheckPolicyBuilder#failGatewayHealthCheck(boolean)
+     */
     public GatewayBuilder healthCheck(String healthCheckPath) {
-        return healthCheck(healthCheckPath, HealthCheckService.of());
+        this.healthCheckPath = requireNonNull(healthCheckPath, "healthCheckPath");
+        return this;
     }
 
     public GatewayBuilder healthCheck(String healthCheckPath, HealthCheckService healthCheckService) {
@@ -64,6 +89,35 @@ public final class GatewayBuilder {
         return this;
     }
 
+    /**
+     * Exposes the metrics of the routes and the upstreams at the given {@code metricsPath} in the Prometheus
+     * text format.
+     *
+     * The metrics of the routes and the upstreams are always recorded into the {@link MeterRegistry} of the
+     * {@link Server}, which is {@link Metrics#globalRegistry} by default. This method replaces it with a new
+     * {@link PrometheusMeterRegistry}.
+     */
+    public GatewayBuilder metrics(String metricsPath) {
+        requireNonNull(metricsPath, "metricsPath");
+        final PrometheusMeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+        serverBuilder.meterRegistry(registry);
+        serverBuilder.service(metricsPath, PrometheusExpositionService.of(registry.getPrometheusRegistry()));
+        return this;
+    }
+
+    /**
+     * Sheds the requests to a {@link Gateway} by their priorities with the given {@link LoadSheddingPolicy}
+     * when it is overloaded. It applies to all the services of a {@link Gateway}, so the health check and the
+     * metrics may need a high priority as well.
+     *
+     * <p>The metrics of the load shedding, e.g. {@code tollgate.load.shedding.shed.requests} tagged with the
+     * {@code priority}, are recorded into the {@link MeterRegistry} of the {@link Server}.
+     */
+    public GatewayBuilder loadShedding(LoadSheddingPolicy loadSheddingPolicy) {
+        this.loadSheddingPolicy = requireNonNull(loadSheddingPolicy, "loadSheddingPolicy");
+        return this;
+    }
+
     public UpstreamBindingBuilder route() {
         return new UpstreamBindingBuilder(this, serverBuilder.route());
     }
@@ -95,7 +149,28 @@ public final class GatewayBuilder {
         return route().path(pathPattern).decorators(decorators).build(upstream);
     }
 
+    /**
+     * Adds the given {@link HealthChecker} of an {@link Upstream} to the health check of a {@link Gateway}.
+     */
+    void healthChecker(HealthChecker healthChecker) {
+        healthCheckers.add(healthChecker);
+    }
+
     public Gateway build() {
+        if (healthCheckPath != null) {
+            // Built here rather than in healthCheck(), so that the upstreams bound after it are checked too.
+            serverBuilder.service(healthCheckPath, HealthCheckService.builder()
+                                                                    .checkers(healthCheckers)
+                                                                    .build());
+        }
+        if (loadSheddingPolicy != null) {
+            final LoadShedder loadShedder = new LoadShedder(loadSheddingPolicy);
+            serverBuilder.decorator(delegate -> new LoadSheddingService(delegate, loadShedder));
+            serverBuilder.serverListener(ServerListener.builder()
+                                                       .whenStarting(server -> loadShedder.bindTo(
+                                                               server.meterRegistry()))
+                                                       .build());
+        }
         return new Gateway(serverBuilder.build());
     }
 }
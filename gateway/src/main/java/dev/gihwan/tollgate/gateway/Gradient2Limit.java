@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+/**
+ * A {@link ConcurrencyLimit} of {@link ConcurrencyLimitAlgorithm#GRADIENT2}.
+ *
+ * <p>The long-term latency is an exponential moving average of the samples. The gradient, i.e. the ratio of the
+ * long-term latency to the latency of a sample, shrinks the limit when the latency grows, while a small queue
+ * is added to the limit so that the limit grows while the latency is stable.
+ */
+final class Gradient2Limit extends ConcurrencyLimit {
+
+    private static final int WARM_UP_SAMPLES = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final int QUEUE_SIZE = 4;
+
+    // The estimated limit keeps the fraction which is dropped by the limit.
+    private double estimatedLimit;
+    private double longLatencyNanos;
+    private int samples;
+
+    Gradient2Limit(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+        estimatedLimit = initialLimit;
+    }
+
+    @Override
+    double update(int limit, long latencyNanos, int inFlight, boolean dropped) {
+        final double shortLatencyNanos = Math.max(latencyNanos, 1);
+        if (samples < WARM_UP_SAMPLES) {
+            samples++;
+            longLatencyNanos += (shortLatencyNanos - longLatencyNanos) / samples;
+        } else {
+            longLatencyNanos += (shortLatencyNanos - longLatencyNanos) / LONG_WINDOW;
+        }
+
+        // Lets the long-term latency recover quickly after a period of high latencies.
+        if (longLatencyNanos / shortLatencyNanos > 2) {
+            longLatencyNanos *= 0.95;
+        }
+
+        // Does not grow the limit while the upstream is not fully used.
+        if (inFlight < estimatedLimit / 2) {
+            return estimatedLimit;
+        }
+
+        final double gradient = Math.max(MIN_GRADIENT,
+                                         Math.min(1.0, RTT_TOLERANCE * longLatencyNanos / shortLatencyNanos));
+        final double newLimit = estimatedLimit * gradient + QUEUE_SIZE;
+        estimatedLimit = clamp(estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+        return estimatedLimit;
+    }
+}
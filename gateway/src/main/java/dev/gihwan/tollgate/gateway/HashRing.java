@@ -0,0 +1,212 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * An immutable consistent hash ring of the {@link Endpoint}s. Each endpoint is placed at the points of its
+ * virtual nodes, and a hash is mapped to the endpoint of the first point at or after the hash.
+ *
+ * <p>The number of the points of an endpoint is in proportion to its weight, normalized so that an endpoint of
+ * the mean weight has the configured number of the virtual nodes. The ring is therefore bounded by the number
+ * of the endpoints whatever their weights are, e.g. the weights rescaled by {@link ZoneAwareEndpointGroup}.
+ *
+ * <p>A ring is updated incrementally. The points of the remaining endpoints are kept in place and merged with
+ * the points of the added endpoints, so that only the points of the added endpoints are hashed and only the
+ * keys around the points of the added or removed endpoints are remapped. An endpoint whose number of the points
+ * changes with its weight, e.g. while it slowly starts, keeps its first points and gains or loses its last ones.
+ */
+final class HashRing {
+
+    static final HashRing EMPTY =
+            new HashRing(new long[0], new Endpoint[0], new int[0], ImmutableMap.of());
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * Returns the hash of the given {@code key} on a ring.
+     */
+    static long hash(String key) {
+        return HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+    // The hashes of the points in ascending order, and the endpoints and the indexes of the points.
+    private final long[] hashes;
+    private final Endpoint[] endpoints;
+    private final int[] indexes;
+    // The number of the points of each endpoint. Note that Endpoint.equals() ignores the weight.
+    private final Map<Endpoint, Integer> numPoints;
+
+    private HashRing(long[] hashes, Endpoint[] endpoints, int[] indexes, Map<Endpoint, Integer> numPoints) {
+        this.hashes = hashes;
+        this.endpoints = endpoints;
+        this.indexes = indexes;
+        this.numPoints = numPoints;
+    }
+
+    /**
+     * Returns the {@link Endpoint} of the given {@code hash}, or {@code null} if this ring is empty.
+     */
+    @Nullable
+    Endpoint select(long hash) {
+        if (hashes.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(hashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == hashes.length) {
+                // Wraps around the ring.
+                index = 0;
+            }
+        }
+        return endpoints[index];
+    }
+
+    /**
+     * Returns the number of the points on this ring.
+     */
+    int size() {
+        return hashes.length;
+    }
+
+    /**
+     * Returns a new {@link HashRing} of the given {@link Endpoint}s, reusing the points of the endpoints of
+     * this ring.
+     */
+    HashRing update(List<Endpoint> newEndpoints, int virtualNodes) {
+        final Map<Endpoint, Integer> newNumPoints = numPoints(newEndpoints, virtualNodes);
+        if (newNumPoints.equals(numPoints)) {
+            return this;
+        }
+
+        final List<Point> addedPoints = new ArrayList<>();
+        newNumPoints.forEach((endpoint, count) -> {
+            final String prefix = pointPrefix(endpoint);
+            for (int i = numPoints.getOrDefault(endpoint, 0); i < count; i++) {
+                addedPoints.add(new Point(hash(prefix + i), endpoint, i));
+            }
+        });
+        addedPoints.sort(Comparator.comparingLong(point -> point.hash));
+
+        int keptPoints = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            if (isKept(newNumPoints, i)) {
+                keptPoints++;
+            }
+        }
+
+        // Merges the kept points, which are sorted already, and the added points.
+        final int size = keptPoints + addedPoints.size();
+        final long[] mergedHashes = new long[size];
+        final Endpoint[] mergedEndpoints = new Endpoint[size];
+        final int[] mergedIndexes = new int[size];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < size; k++) {
+            while (i < endpoints.length && !isKept(newNumPoints, i)) {
+                i++;
+            }
+            if (j == addedPoints.size() || i < endpoints.length && hashes[i] <= addedPoints.get(j).hash) {
+                mergedHashes[k] = hashes[i];
+                mergedEndpoints[k] = endpoints[i];
+                mergedIndexes[k] = indexes[i];
+                i++;
+            } else {
+                final Point point = addedPoints.get(j++);
+                mergedHashes[k] = point.hash;
+                mergedEndpoints[k] = point.endpoint;
+                mergedIndexes[k] = point.index;
+            }
+        }
+        return new HashRing(mergedHashes, mergedEndpoints, mergedIndexes, newNumPoints);
+    }
+
+    private boolean isKept(Map<Endpoint, Integer> newNumPoints, int i) {
+        return indexes[i] < newNumPoints.getOrDefault(endpoints[i], 0);
+    }
+
+    private static Map<Endpoint, Integer> numPoints(List<Endpoint> endpoints, int virtualNodes) {
+        final Map<Endpoint, Endpoint> distinct = new LinkedHashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            distinct.putIfAbsent(endpoint, endpoint);
+        }
+        long totalWeight = 0;
+        int weighted = 0;
+        for (Endpoint endpoint : distinct.values()) {
+            if (endpoint.weight() > 0) {
+                totalWeight += endpoint.weight();
+                weighted++;
+            }
+        }
+
+        final long totalPoints = (long) virtualNodes * weighted;
+        final ImmutableMap.Builder<Endpoint, Integer> numPoints = ImmutableMap.builder();
+        for (Endpoint endpoint : distinct.values()) {
+            // Rounded up so that an endpoint of a small weight has a point, while an endpoint of a zero weight
+            // has no point and is never selected.
+            final long count = endpoint.weight() > 0 ? (totalPoints * endpoint.weight() + totalWeight - 1) /
+                                                       totalWeight : 0;
+            numPoints.put(endpoint, (int) count);
+        }
+        return numPoints.build();
+    }
+
+    private static String pointPrefix(Endpoint endpoint) {
+        final String ipAddr = endpoint.ipAddr();
+        if (ipAddr == null || endpoint.isIpAddrOnly()) {
+            return endpoint.authority() + '#';
+        }
+        return endpoint.authority() + '/' + ipAddr + '#';
+    }
+
+    private static final class Point {
+
+        private final long hash;
+        private final Endpoint endpoint;
+        private final int index;
+
+        Point(long hash, Endpoint endpoint, int index) {
+            this.hash = hash;
+            this.endpoint = endpoint;
+            this.index = index;
+        }
+    }
+}
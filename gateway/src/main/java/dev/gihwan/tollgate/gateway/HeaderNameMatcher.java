@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A compiled lookup table of header names.
+ *
+ * The header names are normalized by {@link HttpHeaderNames#of(CharSequence)}, which returns the same
+ * {@link AsciiString} instance for a well-known header name as the one decoded from a request or a response.
+ * So most lookups hit the identity-keyed table without comparing the contents of header names, and only the
+ * other names fall back to a lookup by value.
+ */
+final class HeaderNameMatcher<V> {
+
+    private static final HeaderNameMatcher<?> EMPTY = new HeaderNameMatcher<>(ImmutableMap.of());
+
+    @SuppressWarnings("unchecked")
+    static <V> HeaderNameMatcher<V> of(Map<AsciiString, V> map) {
+        if (map.isEmpty()) {
+            return (HeaderNameMatcher<V>) EMPTY;
+        }
+        return new HeaderNameMatcher<>(map);
+    }
+
+    private final IdentityHashMap<AsciiString, V> identityMap;
+    private final Map<AsciiString, V> map;
+
+    private HeaderNameMatcher(Map<AsciiString, V> map) {
+        identityMap = new IdentityHashMap<>(map.size());
+        final ImmutableMap.Builder<AsciiString, V> builder = ImmutableMap.builderWithExpectedSize(map.size());
+        map.forEach((name, value) -> {
+            final AsciiString normalized = HttpHeaderNames.of(name);
+            identityMap.put(normalized, value);
+            builder.put(normalized, value);
+        });
+        this.map = builder.build();
+    }
+
+    /**
+     * Returns whether this matcher has no header names.
+     */
+    boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /**
+     * Returns the value mapped to the given header {@code name}, or {@code null} if not found.
+     */
+    @Nullable
+    V get(AsciiString name) {
+        final V value = identityMap.get(name);
+        if (value != null) {
+            return value;
+        }
+        return map.get(name);
+    }
+}
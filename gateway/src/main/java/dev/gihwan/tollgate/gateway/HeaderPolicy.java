@@ -0,0 +1,297 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.HOP_BY_HOP_HEADERS;
+import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.isPseudoHeader;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeadersBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A policy which transforms the headers of a request to an {@link Upstream} or a response from an
+ * {@link Upstream}.
+ *
+ * All rules about header names, i.e. allowing, removing, renaming and stripping hop-by-hop headers, are
+ * compiled into a single {@link HeaderNameMatcher}, so a policy walks the headers only once regardless of the
+ * number of its rules. Pseudo headers, e.g. {@code :path}, are never transformed.
+ *
+ * @see HeaderPolicyBuilder
+ */
+public final class HeaderPolicy {
+
+    private static final Splitter CONNECTION_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final String TRAILERS = "trailers";
+
+    /**
+     * Returns a new {@link HeaderPolicyBuilder}.
+     */
+    public static HeaderPolicyBuilder builder() {
+        return new HeaderPolicyBuilder();
+    }
+
+    private final HeaderNameMatcher<Rule> matcher;
+    // Applied to the headers which are not matched.
+    private final Rule defaultRule;
+    private final boolean stripHopByHopHeaders;
+    private final List<Map.Entry<AsciiString, String>> setHeaders;
+    private final List<Map.Entry<AsciiString, String>> addHeaders;
+    private final boolean xForwardedHeaders;
+    private final boolean forwardedHeader;
+    private final boolean trustForwardedHeaders;
+
+    HeaderPolicy(@Nullable Set<AsciiString> allowedHeaders, Set<AsciiString> removedHeaders,
+                 Map<AsciiString, AsciiString> renamedHeaders, boolean stripHopByHopHeaders,
+                 List<Map.Entry<AsciiString, String>> setHeaders,
+                 List<Map.Entry<AsciiString, String>> addHeaders,
+                 boolean xForwardedHeaders, boolean forwardedHeader, boolean trustForwardedHeaders) {
+        // The latter rule takes precedence over the former one for the same header name.
+        final Map<AsciiString, Rule> rules = new HashMap<>();
+        if (allowedHeaders != null) {
+            allowedHeaders.forEach(name -> rules.put(name, Rule.KEEP));
+        }
+        removedHeaders.forEach(name -> rules.put(name, Rule.REMOVE));
+        renamedHeaders.forEach((from, to) -> rules.put(from, Rule.rename(to)));
+        if (stripHopByHopHeaders) {
+            HOP_BY_HOP_HEADERS.forEach(name -> rules.put(name, Rule.HOP_BY_HOP));
+        }
+
+        matcher = HeaderNameMatcher.of(rules);
+        defaultRule = allowedHeaders != null ? Rule.REMOVE : Rule.KEEP;
+        this.stripHopByHopHeaders = stripHopByHopHeaders;
+        this.setHeaders = ImmutableList.copyOf(setHeaders);
+        this.addHeaders = ImmutableList.copyOf(addHeaders);
+        this.xForwardedHeaders = xForwardedHeaders;
+        this.forwardedHeader = forwardedHeader;
+        this.trustForwardedHeaders = trustForwardedHeaders;
+    }
+
+    /**
+     * Returns whether this policy requires the current {@link ServiceRequestContext} to add forwarding headers.
+     */
+    boolean requiresContext() {
+        return xForwardedHeaders || forwardedHeader;
+    }
+
+    /**
+     * Applies this policy to the headers being built by the given {@link HttpHeadersBuilder}. The forwarding
+     * headers are added only if the given {@code ctx} is not {@code null}.
+     */
+    void apply(@Nullable ServiceRequestContext ctx, HttpHeadersBuilder builder) {
+        if (!matcher.isEmpty() || defaultRule != Rule.KEEP) {
+            applyRules(builder);
+        }
+        for (Map.Entry<AsciiString, String> header : setHeaders) {
+            builder.set(header.getKey(), header.getValue());
+        }
+        for (Map.Entry<AsciiString, String> header : addHeaders) {
+            builder.add(header.getKey(), header.getValue());
+        }
+        if (ctx != null) {
+            if (xForwardedHeaders) {
+                addXForwardedHeaders(ctx, builder);
+            }
+            if (forwardedHeader) {
+                addForwardedHeader(ctx, builder);
+            }
+        }
+    }
+
+    private void applyRules(HttpHeadersBuilder builder) {
+        // The headers nominated by the Connection header are hop-by-hop headers as well.
+        final String connection = stripHopByHopHeaders ? builder.get(HttpHeaderNames.CONNECTION) : null;
+
+        // Allocated lazily because most requests and responses do not have a header to transform.
+        List<AsciiString> removed = null;
+        List<Map.Entry<AsciiString, String>> renamed = null;
+        for (Map.Entry<AsciiString, String> header : builder) {
+            final AsciiString name = header.getKey();
+            if (isPseudoHeader(name)) {
+                continue;
+            }
+
+            Rule rule = matcher.get(name);
+            if (rule == null) {
+                rule = defaultRule;
+            }
+            switch (rule.kind) {
+                case Rule.KEEP_KIND:
+                    break;
+                case Rule.HOP_BY_HOP_KIND:
+                    // 'TE: trailers' is allowed in HTTP/2 and required by gRPC.
+                    if (HttpHeaderNames.TE.equals(name) && TRAILERS.equalsIgnoreCase(header.getValue())) {
+                        break;
+                    }
+                    // fall through
+                case Rule.REMOVE_KIND:
+                    if (removed == null) {
+                        removed = new ArrayList<>();
+                    }
+                    removed.add(name);
+                    break;
+                case Rule.RENAME_KIND:
+                    if (removed == null) {
+                        removed = new ArrayList<>();
+                    }
+                    if (renamed == null) {
+                        renamed = new ArrayList<>();
+                    }
+                    removed.add(name);
+                    renamed.add(Maps.immutableEntry(rule.renameTo, header.getValue()));
+                    break;
+                default:
+                    throw new Error(); // Should never reach here.
+            }
+        }
+
+        if (removed != null) {
+            for (AsciiString name : removed) {
+                builder.remove(name);
+            }
+        }
+        if (renamed != null) {
+            for (Map.Entry<AsciiString, String> header : renamed) {
+                builder.add(header.getKey(), header.getValue());
+            }
+        }
+        if (connection != null) {
+            for (String name : CONNECTION_SPLITTER.split(connection)) {
+                builder.remove(name);
+            }
+        }
+    }
+
+    private void addXForwardedHeaders(ServiceRequestContext ctx, HttpHeadersBuilder builder) {
+        // The forwarding headers from an untrusted user are replaced, so that a user cannot fake them.
+        final InetAddress remoteAddress = remoteAddress(ctx);
+        final String forwardedFor = trustForwardedHeaders ? builder.get(HttpHeaderNames.X_FORWARDED_FOR) : null;
+        if (remoteAddress != null) {
+            final String address = hostAddress(remoteAddress);
+            builder.set(HttpHeaderNames.X_FORWARDED_FOR,
+                        forwardedFor != null ? forwardedFor + ", " + address : address);
+        } else if (!trustForwardedHeaders) {
+            builder.remove(HttpHeaderNames.X_FORWARDED_FOR);
+        }
+        // Keep the values of the first proxy if trusted.
+        if (!trustForwardedHeaders || !builder.contains(HttpHeaderNames.X_FORWARDED_PROTO)) {
+            builder.set(HttpHeaderNames.X_FORWARDED_PROTO, proto(ctx));
+        }
+        final String host = ctx.request().authority();
+        if (!trustForwardedHeaders || !builder.contains(HttpHeaderNames.X_FORWARDED_HOST)) {
+            if (host != null) {
+                builder.set(HttpHeaderNames.X_FORWARDED_HOST, host);
+            } else {
+                builder.remove(HttpHeaderNames.X_FORWARDED_HOST);
+            }
+        }
+    }
+
+    // https://datatracker.ietf.org/doc/html/rfc7239#section-4
+    private void addForwardedHeader(ServiceRequestContext ctx, HttpHeadersBuilder builder) {
+        final StringBuilder buf = new StringBuilder();
+        final InetAddress remoteAddress = remoteAddress(ctx);
+        if (remoteAddress != null) {
+            buf.append("for=");
+            if (remoteAddress instanceof Inet6Address) {
+                buf.append("\"[").append(hostAddress(remoteAddress)).append("]\"");
+            } else {
+                buf.append(hostAddress(remoteAddress));
+            }
+            buf.append(';');
+        }
+        buf.append("proto=").append(proto(ctx));
+        final String host = ctx.request().authority();
+        if (host != null) {
+            buf.append(";host=\"").append(host).append('"');
+        }
+
+        final String forwarded = trustForwardedHeaders ? builder.get(HttpHeaderNames.FORWARDED) : null;
+        builder.set(HttpHeaderNames.FORWARDED, forwarded != null ? forwarded + ", " + buf : buf.toString());
+    }
+
+    @Nullable
+    private static InetAddress remoteAddress(ServiceRequestContext ctx) {
+        final SocketAddress remoteAddress = ctx.remoteAddress();
+        if (remoteAddress instanceof InetSocketAddress) {
+            return ((InetSocketAddress) remoteAddress).getAddress();
+        }
+        return null;
+    }
+
+    private static String hostAddress(InetAddress address) {
+        final String hostAddress = address.getHostAddress();
+        // Strip the scope of an IPv6 address, which is meaningless to the other hosts.
+        final int scopeStart = hostAddress.indexOf('%');
+        return scopeStart < 0 ? hostAddress : hostAddress.substring(0, scopeStart);
+    }
+
+    private static String proto(ServiceRequestContext ctx) {
+        return ctx.sessionProtocol().isTls() ? "https" : "http";
+    }
+
+    private static final class Rule {
+
+        static final int KEEP_KIND = 0;
+        static final int REMOVE_KIND = 1;
+        static final int RENAME_KIND = 2;
+        static final int HOP_BY_HOP_KIND = 3;
+
+        static final Rule KEEP = new Rule(KEEP_KIND, null);
+        static final Rule REMOVE = new Rule(REMOVE_KIND, null);
+        static final Rule HOP_BY_HOP = new Rule(HOP_BY_HOP_KIND, null);
+
+        static Rule rename(AsciiString to) {
+            return new Rule(RENAME_KIND, to);
+        }
+
+        private final int kind;
+        @Nullable
+        private final AsciiString renameTo;
+
+        private Rule(int kind, @Nullable AsciiString renameTo) {
+            this.kind = kind;
+            this.renameTo = renameTo;
+        }
+    }
+}
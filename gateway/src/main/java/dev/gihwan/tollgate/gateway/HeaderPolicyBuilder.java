@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static dev.gihwan.tollgate.gateway.HttpHeaderUtil.isPseudoHeader;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+
+import io.netty.util.AsciiString;
+
+/**
+ * A builder for {@link HeaderPolicy}.
+ *
+ * The rules about header names are applied in the following order. If a header name is specified by more than
+ * one rule, the latter one takes precedence.
+ * <ol>
+ *   <li>{@link #allow(CharSequence...)}</li>
+ *   <li>{@link #remove(CharSequence...)}</li>
+ *   <li>{@link #rename(CharSequence, CharSequence)}</li>
+ *   <li>{@link #stripHopByHopHeaders(boolean)}</li>
+ * </ol>
+ * And then, {@link #set(CharSequence, String)}, {@link #add(CharSequence, String)} and the forwarding headers
+ * are applied in order.
+ */
+public final class HeaderPolicyBuilder {
+
+    @Nullable
+    private Set<AsciiString> allowedHeaders;
+    private final Set<AsciiString> removedHeaders = new HashSet<>();
+    private final Map<AsciiString, AsciiString> renamedHeaders = new LinkedHashMap<>();
+    private boolean stripHopByHopHeaders;
+    private final List<Map.Entry<AsciiString, String>> setHeaders = new ArrayList<>();
+    private final List<Map.Entry<AsciiString, String>> addHeaders = new ArrayList<>();
+    private boolean xForwardedHeaders;
+    private boolean forwardedHeader;
+    private boolean trustForwardedHeaders;
+
+    HeaderPolicyBuilder() {}
+
+    /**
+     * Allows only the given {@code headers}. The other headers are removed.
+     */
+    public HeaderPolicyBuilder allow(CharSequence... headers) {
+        return allow(ImmutableList.copyOf(requireNonNull(headers, "headers")));
+    }
+
+    /**
+     * Allows only the given {@code headers}. The other headers are removed.
+     */
+    public HeaderPolicyBuilder allow(Iterable<? extends CharSequence> headers) {
+        requireNonNull(headers, "headers");
+        if (allowedHeaders == null) {
+            allowedHeaders = new HashSet<>();
+        }
+        for (CharSequence header : headers) {
+            allowedHeaders.add(headerName(header));
+        }
+        return this;
+    }
+
+    /**
+     * Removes the given {@code headers}.
+     */
+    public HeaderPolicyBuilder remove(CharSequence... headers) {
+        return remove(ImmutableList.copyOf(requireNonNull(headers, "headers")));
+    }
+
+    /**
+     * Removes the given {@code headers}.
+     */
+    public HeaderPolicyBuilder remove(Iterable<? extends CharSequence> headers) {
+        requireNonNull(headers, "headers");
+        for (CharSequence header : headers) {
+            removedHeaders.add(headerName(header));
+        }
+        return this;
+    }
+
+    /**
+     * Renames the {@code from} header to the {@code to} header.
+     */
+    public HeaderPolicyBuilder rename(CharSequence from, CharSequence to) {
+        renamedHeaders.put(headerName(requireNonNull(from, "from")), headerName(requireNonNull(to, "to")));
+        return this;
+    }
+
+    /**
+     * Sets whether to remove the hop-by-hop headers defined in
+     * <a href="https://datatracker.ietf.org/doc/html/rfc7230#section-6.1">RFC 7230</a> and the headers
+     * nominated by the {@code Connection} header. {@code TE: trailers} is kept because it is allowed in HTTP/2.
+     */
+    public HeaderPolicyBuilder stripHopByHopHeaders(boolean stripHopByHopHeaders) {
+        this.stripHopByHopHeaders = stripHopByHopHeaders;
+        return this;
+    }
+
+    /**
+     * Sets the {@code name} header to the given {@code value}, replacing the existing values.
+     */
+    public HeaderPolicyBuilder set(CharSequence name, String value) {
+        setHeaders.add(Maps.immutableEntry(headerName(requireNonNull(name, "name")),
+                                           requireNonNull(value, "value")));
+        return this;
+    }
+
+    /**
+     * Adds the given {@code value} to the {@code name} header.
+     */
+    public HeaderPolicyBuilder add(CharSequence name, String value) {
+        addHeaders.add(Maps.immutableEntry(headerName(requireNonNull(name, "name")),
+                                           requireNonNull(value, "value")));
+        return this;
+    }
+
+    /**
+     * Sets whether to add the {@code X-Forwarded-For}, {@code X-Forwarded-Proto} and {@code X-Forwarded-Host}
+     * headers to a request. The existing headers are replaced with the ones seen by this gateway, unless
+     * {@link #trustForwardedHeaders(boolean)} is set.
+     */
+    public HeaderPolicyBuilder xForwardedHeaders(boolean xForwardedHeaders) {
+        this.xForwardedHeaders = xForwardedHeaders;
+        return this;
+    }
+
+    /**
+     * Sets whether to add an element for this gateway to the {@code Forwarded} header of a request, which is
+     * defined in <a href="https://datatracker.ietf.org/doc/html/rfc7239">RFC 7239</a>. The existing header is
+     * replaced, unless {@link #trustForwardedHeaders(boolean)} is set.
+     */
+    public HeaderPolicyBuilder forwardedHeader(boolean forwardedHeader) {
+        this.forwardedHeader = forwardedHeader;
+        return this;
+    }
+
+    /**
+     * Sets whether to trust the forwarding headers of a request, which is {@code false} by default, so that a
+     * user connecting to this gateway directly cannot fake the scheme and the host seen by the upstream
+     * servers. If trusted, the address of a user is appended to the existing {@code X-Forwarded-For} header
+     * and an element is appended to the existing {@code Forwarded} header, while the existing
+     * {@code X-Forwarded-Proto} and {@code X-Forwarded-Host} headers are kept. Set this only if this gateway
+     * is only reachable through another proxy which sets the forwarding headers.
+     */
+    public HeaderPolicyBuilder trustForwardedHeaders(boolean trustForwardedHeaders) {
+        this.trustForwardedHeaders = trustForwardedHeaders;
+        return this;
+    }
+
+    private static AsciiString headerName(CharSequence name) {
+        final AsciiString headerName = HttpHeaderNames.of(name);
+        checkArgument(!isPseudoHeader(headerName), "pseudo header is not allowed: %s", name);
+        return headerName;
+    }
+
+    /**
+     * Builds a new {@link HeaderPolicy} based on the properties of this builder.
+     */
+    public HeaderPolicy build() {
+        return new HeaderPolicy(allowedHeaders, removedHeaders, renamedHeaders, stripHopByHopHeaders,
+                                setHeaders, addHeaders, xForwardedHeaders, forwardedHeader,
+                                trustForwardedHeaders);
+    }
+}
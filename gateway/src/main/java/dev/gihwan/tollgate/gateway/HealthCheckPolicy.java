@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A policy of the active health checking of the endpoints of an {@link Upstream}.
+ *
+ * <p>Each endpoint is probed with a {@code GET} request to the health check path at the interval with a random
+ * jitter. The result of the first probe decides whether an endpoint is healthy. After that, an endpoint becomes
+ * unhealthy after the consecutive failed probes of the unhealthy threshold, and becomes healthy again after the
+ * consecutive successful probes of the healthy threshold. A probe fails if it is not responded with a
+ * {@code 2xx} status within the timeout. The unhealthy endpoints are not selected until they recover.
+ *
+ * @see HealthCheckPolicyBuilder
+ */
+public final class HealthCheckPolicy {
+
+    /**
+     * Returns a new {@link HealthCheckPolicyBuilder} which probes the given {@code path}.
+     */
+    public static HealthCheckPolicyBuilder builder(String path) {
+        return new HealthCheckPolicyBuilder(requireNonNull(path, "path"));
+    }
+
+    /**
+     * Returns a new {@link HealthCheckPolicy} which probes the given {@code path} with the default properties.
+     */
+    public static HealthCheckPolicy of(String path) {
+        return builder(path).build();
+    }
+
+    private final String path;
+    private final Duration interval;
+    private final double jitter;
+    private final Duration timeout;
+    private final int healthyThreshold;
+    private final int unhealthyThreshold;
+    private final boolean failGatewayHealthCheck;
+
+    HealthCheckPolicy(String path, Duration interval, double jitter, Duration timeout, int healthyThreshold,
+                      int unhealthyThreshold, boolean failGatewayHealthCheck) {
+        this.path = path;
+        this.interval = interval;
+        this.jitter = jitter;
+        this.timeout = timeout;
+        this.healthyThreshold = healthyThreshold;
+        this.unhealthyThreshold = unhealthyThreshold;
+        this.failGatewayHealthCheck = failGatewayHealthCheck;
+    }
+
+    String path() {
+        return path;
+    }
+
+    Duration interval() {
+        return interval;
+    }
+
+    double jitter() {
+        return jitter;
+    }
+
+    Duration timeout() {
+        return timeout;
+    }
+
+    int healthyThreshold() {
+        return healthyThreshold;
+    }
+
+    int unhealthyThreshold() {
+        return unhealthyThreshold;
+    }
+
+    boolean failGatewayHealthCheck() {
+        return failGatewayHealthCheck;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("path", path)
+                          .add("interval", interval)
+                          .add("jitter", jitter)
+                          .add("timeout", timeout)
+                          .add("healthyThreshold", healthyThreshold)
+                          .add("unhealthyThreshold", unhealthyThreshold)
+                          .add("failGatewayHealthCheck", failGatewayHealthCheck)
+                          .toString();
+    }
+}
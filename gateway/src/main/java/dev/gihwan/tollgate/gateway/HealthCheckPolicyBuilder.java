@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * A builder for {@link HealthCheckPolicy}.
+ */
+public final class HealthCheckPolicyBuilder {
+
+    private static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(3);
+    private static final double DEFAULT_JITTER = 0.2;
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(1);
+    private static final int DEFAULT_HEALTHY_THRESHOLD = 2;
+    private static final int DEFAULT_UNHEALTHY_THRESHOLD = 3;
+
+    private final String path;
+    private Duration interval = DEFAULT_INTERVAL;
+    private double jitter = DEFAULT_JITTER;
+    private Duration timeout = DEFAULT_TIMEOUT;
+    private int healthyThreshold = DEFAULT_HEALTHY_THRESHOLD;
+    private int unhealthyThreshold = DEFAULT_UNHEALTHY_THRESHOLD;
+    private boolean failGatewayHealthCheck;
+
+    HealthCheckPolicyBuilder(String path) {
+        checkArgument(path.startsWith("/"), "path: %s (expected: an absolute path)", path);
+        this.path = path;
+    }
+
+    /**
+     * Sets the interval between the probes of an endpoint. By default, {@code 3} seconds is used.
+     */
+    public HealthCheckPolicyBuilder interval(Duration interval) {
+        requireNonNull(interval, "interval");
+        checkArgument(!interval.isNegative() && !interval.isZero(), "interval: %s (expected: > 0)", interval);
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * Sets the rate of the random jitter of the interval, e.g. {@code 0.2} for an interval between {@code 80%}
+     * and {@code 120%}, which keeps the probes of the gateways from arriving at the same time. By default,
+     * {@code 0.2} is used.
+     */
+    public HealthCheckPolicyBuilder jitter(double jitter) {
+        checkArgument(jitter >= 0 && jitter <= 1, "jitter: %s (expected: 0 <= jitter <= 1)", jitter);
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Sets the time to wait for the response of a probe. By default, {@code 1} second is used.
+     */
+    public HealthCheckPolicyBuilder timeout(Duration timeout) {
+        requireNonNull(timeout, "timeout");
+        checkArgument(!timeout.isNegative() && !timeout.isZero(), "timeout: %s (expected: > 0)", timeout);
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Sets the number of the consecutive successful probes which make an unhealthy endpoint healthy.
+     * By default, {@code 2} is used.
+     */
+    public HealthCheckPolicyBuilder healthyThreshold(int healthyThreshold) {
+        checkArgument(healthyThreshold > 0, "healthyThreshold: %s (expected: > 0)", healthyThreshold);
+        this.healthyThreshold = healthyThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the number of the consecutive failed probes which make a healthy endpoint unhealthy.
+     * By default, {@code 3} is used.
+     */
+    public HealthCheckPolicyBuilder unhealthyThreshold(int unhealthyThreshold) {
+        checkArgument(unhealthyThreshold > 0, "unhealthyThreshold: %s (expected: > 0)", unhealthyThreshold);
+        this.unhealthyThreshold = unhealthyThreshold;
+        return this;
+    }
+
+    /**
+     * Sets whether the health check service of a {@link Gateway} responds that the {@link Gateway} is
+     * unhealthy while the {@link Upstream} has no healthy endpoint. It is disabled by default, so that an
+     * {@link Upstream} does not take the other routes of the {@link Gateway} out of service.
+     *
+     * @see GatewayBuilder#healthCheck(String)
+     */
+    public HealthCheckPolicyBuilder failGatewayHealthCheck(boolean failGatewayHealthCheck) {
+        this.failGatewayHealthCheck = failGatewayHealthCheck;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link HealthCheckPolicy} based on the properties of this builder.
+     */
+    public HealthCheckPolicy build() {
+        return new HealthCheckPolicy(path, interval, jitter, timeout, healthyThreshold, unhealthyThreshold,
+                                     failGatewayHealthCheck);
+    }
+}
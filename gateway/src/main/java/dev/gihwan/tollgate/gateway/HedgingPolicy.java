@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpMethod;
+
+/**
+ * A policy to hedge the slow requests to an {@link Upstream}.
+ *
+ * <p>If no response has arrived within the hedge delay, the same request is sent to another endpoint of the
+ * {@link Upstream} and the first response wins. The other requests are cancelled. The hedge delay is either
+ * fixed or the given percentile of the recent latencies of the {@link Upstream}, e.g. {@code p95}, which is not
+ * shorter than the minimum delay.
+ *
+ * <p>Only the requests of the given idempotent methods are hedged, e.g. {@code GET}. The hedged requests
+ * are limited to {@code maxHedgeRatio} of the requests to the {@link Upstream}, so that the hedges do not
+ * double the load when the upstream servers slow down altogether. The content of a request is kept in memory
+ * to be sent again, only if its {@code content-length} is known and does not exceed the maximum replayable
+ * content length.
+ *
+ * @see HedgingPolicyBuilder
+ */
+public final class HedgingPolicy {
+
+    /**
+     * Returns a new {@link HedgingPolicy} with the default settings.
+     */
+    public static HedgingPolicy ofDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a new {@link HedgingPolicyBuilder}.
+     */
+    public static HedgingPolicyBuilder builder() {
+        return new HedgingPolicyBuilder();
+    }
+
+    @Nullable
+    private final Duration delay;
+    private final double percentile;
+    private final Duration minDelay;
+    private final int maxHedges;
+    private final Set<HttpMethod> methods;
+    private final double maxHedgeRatio;
+    private final int maxReplayableContentLength;
+
+    HedgingPolicy(@Nullable Duration delay, double percentile, Duration minDelay, int maxHedges,
+                  Set<HttpMethod> methods, double maxHedgeRatio, int maxReplayableContentLength) {
+        this.delay = delay;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.maxHedges = maxHedges;
+        this.methods = methods;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.maxReplayableContentLength = maxReplayableContentLength;
+    }
+
+    /**
+     * Returns the fixed hedge delay, or {@code null} if the hedge delay is a percentile of the latencies.
+     */
+    @Nullable
+    Duration delay() {
+        return delay;
+    }
+
+    double percentile() {
+        return percentile;
+    }
+
+    Duration minDelay() {
+        return minDelay;
+    }
+
+    int maxHedges() {
+        return maxHedges;
+    }
+
+    Set<HttpMethod> methods() {
+        return methods;
+    }
+
+    double maxHedgeRatio() {
+        return maxHedgeRatio;
+    }
+
+    int maxReplayableContentLength() {
+        return maxReplayableContentLength;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this);
+        if (delay != null) {
+            helper.add("delay", delay);
+        } else {
+            helper.add("percentile", percentile)
+                  .add("minDelay", minDelay);
+        }
+        return helper.add("maxHedges", maxHedges)
+                     .add("methods", methods)
+                     .add("maxHedgeRatio", maxHedgeRatio)
+                     .add("maxReplayableContentLength", maxReplayableContentLength)
+                     .toString();
+    }
+}
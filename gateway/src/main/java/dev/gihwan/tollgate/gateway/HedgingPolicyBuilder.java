@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Set;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+import com.linecorp.armeria.common.HttpMethod;
+
+/**
+ * A builder for {@link HedgingPolicy}.
+ */
+public final class HedgingPolicyBuilder {
+
+    private static final double DEFAULT_PERCENTILE = 0.95;
+    private static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(10);
+    private static final int DEFAULT_MAX_HEDGES = 1;
+    private static final Set<HttpMethod> DEFAULT_METHODS =
+            Sets.immutableEnumSet(HttpMethod.GET, HttpMethod.HEAD);
+    private static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+    private static final int DEFAULT_MAX_REPLAYABLE_CONTENT_LENGTH = 64 * 1024;
+
+    @Nullable
+    private Duration delay;
+    private double percentile = DEFAULT_PERCENTILE;
+    private Duration minDelay = DEFAULT_MIN_DELAY;
+    private int maxHedges = DEFAULT_MAX_HEDGES;
+    private Set<HttpMethod> methods = DEFAULT_METHODS;
+    private double maxHedgeRatio = DEFAULT_MAX_HEDGE_RATIO;
+    private int maxReplayableContentLength = DEFAULT_MAX_REPLAYABLE_CONTENT_LENGTH;
+
+    HedgingPolicyBuilder() {}
+
+    /**
+     * Sends a hedged request after the given fixed {@code delay}.
+     */
+    public HedgingPolicyBuilder delay(Duration delay) {
+        requireNonNull(delay, "delay");
+        checkArgument(!delay.isNegative() && !delay.isZero(), "delay: %s (expected: > 0)", delay);
+        this.delay = delay;
+        return this;
+    }
+
+    /**
+     * Sends a hedged request after the given {@code percentile} of the recent latencies of the
+     * {@link Upstream}, which is not shorter than the given {@code minDelay}. The {@code minDelay} is used
+     * until enough latencies are recorded as well. By default, {@code 0.95} and {@code 10} milliseconds are
+     * used.
+     */
+    public HedgingPolicyBuilder percentileDelay(double percentile, Duration minDelay) {
+        checkArgument(percentile > 0 && percentile < 1, "percentile: %s (expected: 0 < percentile < 1)",
+                      percentile);
+        requireNonNull(minDelay, "minDelay");
+        checkArgument(!minDelay.isNegative() && !minDelay.isZero(), "minDelay: %s (expected: > 0)", minDelay);
+        delay = null;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the hedged requests of a request. By default, {@code 1} is used.
+     */
+    public HedgingPolicyBuilder maxHedges(int maxHedges) {
+        checkArgument(maxHedges > 0, "maxHedges: %s (expected: > 0)", maxHedges);
+        this.maxHedges = maxHedges;
+        return this;
+    }
+
+    /**
+     * Sets the idempotent methods whose requests are hedged. By default, {@code GET} and {@code HEAD} are
+     * hedged.
+     */
+    public HedgingPolicyBuilder methods(HttpMethod... methods) {
+        return methods(ImmutableList.copyOf(requireNonNull(methods, "methods")));
+    }
+
+    /**
+     * Sets the idempotent methods whose requests are hedged. By default, {@code GET} and {@code HEAD} are
+     * hedged.
+     */
+    public HedgingPolicyBuilder methods(Iterable<HttpMethod> methods) {
+        this.methods = Sets.immutableEnumSet(requireNonNull(methods, "methods"));
+        return this;
+    }
+
+    /**
+     * Sets the maximum ratio of the hedged requests to the requests. By default, {@code 0.1} is used.
+     */
+    public HedgingPolicyBuilder maxHedgeRatio(double maxHedgeRatio) {
+        checkArgument(maxHedgeRatio > 0 && maxHedgeRatio <= 1,
+                      "maxHedgeRatio: %s (expected: 0 < maxHedgeRatio <= 1)", maxHedgeRatio);
+        this.maxHedgeRatio = maxHedgeRatio;
+        return this;
+    }
+
+    /**
+     * Sets the maximum length of the content of a request which is kept to be sent again. The requests with
+     * longer or unknown content length are not hedged. By default, {@code 65536} bytes is used.
+     */
+    public HedgingPolicyBuilder maxReplayableContentLength(int maxReplayableContentLength) {
+        checkArgument(maxReplayableContentLength >= 0,
+                      "maxReplayableContentLength: %s (expected: >= 0)", maxReplayableContentLength);
+        this.maxReplayableContentLength = maxReplayableContentLength;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link HedgingPolicy} based on the properties of this builder.
+     */
+    public HedgingPolicy build() {
+        return new HedgingPolicy(delay, percentile, minDelay, maxHedges, methods, maxHedgeRatio,
+                                 maxReplayableContentLength);
+    }
+}
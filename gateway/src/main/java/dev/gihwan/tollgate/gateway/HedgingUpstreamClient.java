@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.SimpleDecoratingHttpClient;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpRequestDuplicator;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogProperty;
+import com.linecorp.armeria.common.util.TimeoutMode;
+
+import io.netty.util.concurrent.EventExecutor;
+
+/**
+ * A decorator of the client of an {@link Upstream} which hedges the slow requests according to
+ * {@link UpstreamHedging}. Each attempt has its own {@link ClientRequestContext} derived from the original one,
+ * and the {@link RequestLog} of the winning attempt becomes the child of the original {@link RequestLog}.
+ */
+final class HedgingUpstreamClient extends SimpleDecoratingHttpClient {
+
+    private final UpstreamHedging hedging;
+
+    HedgingUpstreamClient(HttpClient delegate, UpstreamHedging hedging) {
+        super(delegate);
+        this.hedging = hedging;
+    }
+
+    @Override
+    public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) throws Exception {
+        hedging.onRequest();
+        if (!hedging.isHedgeable(req.method()) || !isReplayable(req)) {
+            recordLatency(ctx);
+            return unwrap().execute(ctx, req);
+        }
+
+        final CompletableFuture<HttpResponse> resFuture = new CompletableFuture<>();
+        final HttpResponse res = HttpResponse.from(resFuture, ctx.eventLoop());
+        final HttpRequestDuplicator duplicator =
+                req.toDuplicator(ctx.eventLoop().withoutContext(), hedging.maxReplayableContentLength());
+        final Attempts attempts = new Attempts(ctx, duplicator, res, resFuture);
+        ctx.eventLoop().withoutContext().execute(attempts::start);
+        return res;
+    }
+
+    private boolean isReplayable(HttpRequest req) {
+        if (req.isEmpty()) {
+            return true;
+        }
+        final long contentLength = req.headers().getLong(HttpHeaderNames.CONTENT_LENGTH, -1);
+        return contentLength >= 0 && contentLength <= hedging.maxReplayableContentLength();
+    }
+
+    private void recordLatency(ClientRequestContext ctx) {
+        ctx.log().whenAvailable(RequestLogProperty.RESPONSE_HEADERS).thenAccept(log -> {
+            if (!log.responseHeaders().status().equals(HttpStatus.UNKNOWN)) {
+                hedging.recordLatency(System.nanoTime() - log.requestStartTimeNanos());
+            }
+        });
+    }
+
+    /**
+     * The attempts of a request, which are accessed only by the event loop of the request.
+     */
+    private final class Attempts {
+
+        private final ClientRequestContext ctx;
+        private final EventExecutor eventLoop;
+        private final HttpRequestDuplicator duplicator;
+        private final HttpResponse res;
+        private final CompletableFuture<HttpResponse> resFuture;
+        private final long deadlineNanos;
+
+        private final List<Endpoint> triedEndpoints = new ArrayList<>();
+        private final List<HttpResponse> attemptResponses = new ArrayList<>();
+        private int inFlightAttempts;
+        @Nullable
+        private ScheduledFuture<?> hedgeFuture;
+        private boolean done;
+
+        Attempts(ClientRequestContext ctx, HttpRequestDuplicator duplicator, HttpResponse res,
+                 CompletableFuture<HttpResponse> resFuture) {
+            this.ctx = ctx;
+            eventLoop = ctx.eventLoop().withoutContext();
+            this.duplicator = duplicator;
+            this.res = res;
+            this.resFuture = resFuture;
+            final long responseTimeoutMillis = ctx.responseTimeoutMillis();
+            deadlineNanos = responseTimeoutMillis > 0 ? System.nanoTime() +
+                                                        TimeUnit.MILLISECONDS.toNanos(responseTimeoutMillis)
+                                                      : 0;
+        }
+
+        void start() {
+            res.whenComplete().exceptionally(cause -> {
+                // The response to a user has been aborted, so all attempts are cancelled.
+                eventLoop.execute(() -> cancel(cause));
+                return null;
+            });
+            send(ctx.endpoint());
+            scheduleHedge();
+        }
+
+        private void send(Endpoint endpoint) {
+            final HttpRequest attemptReq = duplicator.duplicate();
+            final ClientRequestContext attemptCtx =
+                    ctx.newDerivedContext(ctx.options().requestIdGenerator().get(), attemptReq, null, endpoint);
+            triedEndpoints.add(endpoint);
+            if (deadlineNanos != 0) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                attemptCtx.setResponseTimeoutMillis(TimeoutMode.SET_FROM_NOW, Math.max(remainingMillis, 1));
+            }
+
+            HttpResponse attemptRes;
+            try {
+                attemptRes = unwrap().execute(attemptCtx, attemptReq);
+            } catch (Throwable cause) {
+                attemptCtx.logBuilder().endRequest(cause);
+                attemptCtx.logBuilder().endResponse(cause);
+                attemptRes = HttpResponse.ofFailure(cause);
+            }
+            attemptResponses.add(attemptRes);
+            inFlightAttempts++;
+
+            final boolean hedged = triedEndpoints.size() > 1;
+            final HttpResponse finalAttemptRes = attemptRes;
+            attemptCtx.log().whenAvailable(RequestLogProperty.RESPONSE_HEADERS).thenAccept(log -> {
+                eventLoop.execute(() -> onResponseHeaders(attemptCtx, finalAttemptRes, hedged, log));
+            });
+        }
+
+        private void scheduleHedge() {
+            if (triedEndpoints.size() > hedging.maxHedges()) {
+                return;
+            }
+            final long delayMicros = hedging.delayMicros();
+            if (deadlineNanos != 0 &&
+                System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(delayMicros) >= deadlineNanos) {
+                return;
+            }
+            hedgeFuture = eventLoop.schedule(this::hedge, delayMicros, TimeUnit.MICROSECONDS);
+        }
+
+        private void hedge() {
+            hedgeFuture = null;
+            if (done || !hedging.tryHedge()) {
+                return;
+            }
+            send(EndpointSelection.selectUntried(ctx, triedEndpoints));
+            scheduleHedge();
+        }
+
+        private void onResponseHeaders(ClientRequestContext attemptCtx, HttpResponse attemptRes, boolean hedged,
+                                       RequestLog log) {
+            if (done) {
+                return;
+            }
+            inFlightAttempts--;
+            if (log.responseHeaders().status().equals(HttpStatus.UNKNOWN)) {
+                // The attempt has failed, which wins only if no other attempt is in flight.
+                if (inFlightAttempts > 0) {
+                    return;
+                }
+            } else {
+                hedging.recordLatency(System.nanoTime() - log.requestStartTimeNanos());
+                if (hedged) {
+                    hedging.onHedgeWon();
+                }
+            }
+
+            done = true;
+            cancelHedge();
+            for (HttpResponse otherRes : attemptResponses) {
+                if (otherRes != attemptRes) {
+                    otherRes.abort();
+                }
+            }
+            ctx.logBuilder().addChild(attemptCtx.log());
+            ctx.logBuilder().endResponseWithLastChild();
+            duplicator.close();
+            resFuture.complete(attemptRes);
+        }
+
+        private void cancel(Throwable cause) {
+            if (done) {
+                return;
+            }
+            done = true;
+            cancelHedge();
+            attemptResponses.forEach(HttpResponse::abort);
+            duplicator.abort(cause);
+            ctx.logBuilder().endRequest(cause);
+            ctx.logBuilder().endResponse(cause);
+        }
+
+        private void cancelHedge() {
+            if (hedgeFuture != null) {
+                hedgeFuture.cancel(false);
+                hedgeFuture = null;
+            }
+        }
+    }
+}
@@ -32,21 +32,20 @@ import io.netty.util.AsciiString;
 
 final class HttpHeaderUtil {
 
-    // https://datatracker.ietf.org/doc/html/rfc7540#section-8.1.2.3
-    private static final Set<AsciiString> REQUEST_PSEUDO_HEADERS = Set.of(HttpHeaderNames.METHOD,
-                                                                          HttpHeaderNames.SCHEME,
-                                                                          HttpHeaderNames.AUTHORITY,
-                                                                          HttpHeaderNames.PATH);
-
-    // https://datatracker.ietf.org/doc/html/rfc7540#section-8.1.2.4
-    private static final Set<AsciiString> RESPONSE_PSEUDO_HEADERS = Set.of(HttpHeaderNames.STATUS);
-
-    static boolean isRequestPseudoHeader(AsciiString name) {
-        return REQUEST_PSEUDO_HEADERS.contains(name);
-    }
-
-    static boolean isResponsePseudoHeader(AsciiString name) {
-        return RESPONSE_PSEUDO_HEADERS.contains(name);
+    // https://datatracker.ietf.org/doc/html/rfc7230#section-6.1
+    static final Set<AsciiString> HOP_BY_HOP_HEADERS = Set.of(HttpHeaderNames.CONNECTION,
+                                                              HttpHeaderNames.KEEP_ALIVE,
+                                                              HttpHeaderNames.of("proxy-connection"),
+                                                              HttpHeaderNames.PROXY_AUTHENTICATE,
+                                                              HttpHeaderNames.PROXY_AUTHORIZATION,
+                                                              HttpHeaderNames.TE,
+                                                              HttpHeaderNames.TRAILER,
+                                                              HttpHeaderNames.TRANSFER_ENCODING,
+                                                              HttpHeaderNames.UPGRADE);
+
+    // https://datatracker.ietf.org/doc/html/rfc7540#section-8.1.2.1
+    static boolean isPseudoHeader(AsciiString name) {
+        return !name.isEmpty() && name.byteAt(0) == ':';
     }
 
     private HttpHeaderUtil() {}
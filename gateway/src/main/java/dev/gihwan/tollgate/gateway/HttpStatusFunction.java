@@ -27,13 +27,17 @@ package dev.gihwan.tollgate.gateway;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
+import java.util.Arrays;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 
 import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.HttpStatusClass;
 
 /**
  * A {@link FunctionalInterface} for mapping a {@link HttpStatus} to another {@link HttpStatus}.
@@ -60,8 +64,32 @@ public interface HttpStatusFunction extends Function<HttpStatus, HttpStatus> {
         return when(new ContainsHttpStatusPredicate(ImmutableSet.copyOf(from)));
     }
 
+    /**
+     * Returns a new {@link HttpStatusFunctionBuilder} which produces only if a {@link HttpStatus} argument is
+     * in the given {@code from} {@link HttpStatusClass}es, e.g. {@code 5xx}.
+     */
+    static HttpStatusFunctionBuilder from(HttpStatusClass... from) {
+        requireNonNull(from, "from");
+        checkArgument(from.length > 0, "from should not be empty");
+        final Set<HttpStatusClass> classes = Sets.immutableEnumSet(Arrays.asList(from));
+        return when(status -> classes.contains(status.codeClass()));
+    }
+
+    /**
+     * Returns a new {@link HttpStatusFunctionBuilder} which produces only if the code of a {@link HttpStatus}
+     * argument is between the given {@code fromInclusive} and {@code toInclusive}.
+     */
+    static HttpStatusFunctionBuilder fromRange(int fromInclusive, int toInclusive) {
+        checkArgument(fromInclusive <= toInclusive, "fromInclusive: %s (expected: <= toInclusive: %s)",
+                      fromInclusive, toInclusive);
+        return when(status -> status.code() >= fromInclusive && status.code() <= toInclusive);
+    }
+
     /**
      * Returns a new {@link HttpStatusFunctionBuilder} with the given {@link Predicate}.
+     *
+     * The {@link HttpStatusFunction} built with the given {@link Predicate} is compiled into a table indexed by
+     * status code, so the {@link Predicate} should be stateless.
      */
     static HttpStatusFunctionBuilder when(Predicate<HttpStatus> predicate) {
         requireNonNull(predicate, "predicate");
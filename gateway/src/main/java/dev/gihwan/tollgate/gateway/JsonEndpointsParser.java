@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * Parses the endpoints of a {@link FileDiscovery} from JSON, which has the {@code endpoints} array of the
+ * objects with {@code host}, {@code port} and optionally {@code weight}.
+ */
+final class JsonEndpointsParser implements Function<String, List<Endpoint>> {
+
+    static final JsonEndpointsParser INSTANCE = new JsonEndpointsParser();
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    @Override
+    public List<Endpoint> apply(String content) {
+        final JsonNode root;
+        try {
+            root = mapper.readTree(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkArgument(root != null && root.path("endpoints").isArray(), "endpoints array is missing.");
+        final ImmutableList.Builder<Endpoint> endpoints = ImmutableList.builder();
+        for (JsonNode node : root.get("endpoints")) {
+            final JsonNode host = node.path("host");
+            final JsonNode port = node.path("port");
+            checkArgument(host.isTextual(), "host: %s (expected: a string)", host);
+            checkArgument(port.isInt(), "port: %s (expected: an integer)", port);
+            Endpoint endpoint = Endpoint.of(host.asText(), port.asInt());
+            if (node.has("weight")) {
+                final JsonNode weight = node.get("weight");
+                checkArgument(weight.isInt(), "weight: %s (expected: an integer)", weight);
+                endpoint = endpoint.withWeight(weight.asInt());
+            }
+            endpoints.add(endpoint);
+        }
+        return endpoints.build();
+    }
+
+    private JsonEndpointsParser() {}
+}
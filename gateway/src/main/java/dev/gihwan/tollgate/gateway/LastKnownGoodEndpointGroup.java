@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+/**
+ * A {@link DynamicEndpointGroup} of the endpoints of the delegate {@link EndpointGroup} which keeps the last
+ * endpoints when the delegate has no endpoints, e.g. when none of the DNS records is valid. The delegate is
+ * closed together with this group.
+ */
+final class LastKnownGoodEndpointGroup extends DynamicEndpointGroup {
+
+    private final EndpointGroup delegate;
+    private final Consumer<List<Endpoint>> listener = this::onDelegateUpdate;
+
+    LastKnownGoodEndpointGroup(EndpointGroup delegate) {
+        super(delegate.selectionStrategy());
+        this.delegate = delegate;
+        delegate.addListener(listener);
+        final List<Endpoint> endpoints = delegate.endpoints();
+        if (!endpoints.isEmpty()) {
+            setEndpoints(endpoints);
+        }
+    }
+
+    private void onDelegateUpdate(List<Endpoint> endpoints) {
+        if (!endpoints.isEmpty()) {
+            setEndpoints(endpoints);
+        }
+    }
+
+    @Override
+    protected void doCloseAsync(CompletableFuture<?> future) {
+        delegate.removeListener(listener);
+        delegate.closeAsync().handle((unused, cause) -> future.complete(null));
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{delegate=" + delegate + ", endpoints=" + endpoints() + '}';
+    }
+}
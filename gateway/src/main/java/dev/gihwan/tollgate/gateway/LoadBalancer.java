@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Ascii;
+
+/**
+ * A strategy which selects an endpoint of an {@link Upstream} for each request.
+ *
+ * <p>Every strategy respects the weights of the endpoints. {@link #ROUND_ROBIN} selects the endpoints in
+ * proportion to their weights, and the others divide the load of an endpoint by its weight.
+ */
+public enum LoadBalancer {
+    /**
+     * Selects the endpoints in turn, which is the default selection strategy of an
+     * {@link com.linecorp.armeria.client.endpoint.EndpointGroup}.
+     */
+    ROUND_ROBIN,
+    /**
+     * Selects the endpoint with the fewest outstanding requests, breaking ties randomly.
+     */
+    LEAST_OUTSTANDING,
+    /**
+     * Selects the endpoint with fewer outstanding requests of two random endpoints, which is the power of two
+     * choices.
+     */
+    P2C,
+    /**
+     * Selects the endpoint with the lower cost of two random endpoints, where the cost of an endpoint is the
+     * peak exponentially weighted moving average of its latencies multiplied by its outstanding requests.
+     * A slow endpoint is avoided as soon as a slow response is observed, and is tried again as its average
+     * decays.
+     */
+    P2C_EWMA;
+
+    /**
+     * Returns the {@link LoadBalancer} of the given {@code name}, which is either the name of the constant or
+     * its lower hyphen form, e.g. {@code P2C_EWMA} or {@code p2c-ewma}.
+     *
+     * @throws IllegalArgumentException if there is no {@link LoadBalancer} of the given {@code name}.
+     */
+    public static LoadBalancer of(String name) {
+        requireNonNull(name, "name");
+        return valueOf(Ascii.toUpperCase(name).replace('-', '_'));
+    }
+}
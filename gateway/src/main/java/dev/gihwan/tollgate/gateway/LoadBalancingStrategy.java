@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.AbstractEndpointSelector;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointSelectionStrategy;
+import com.linecorp.armeria.client.endpoint.EndpointSelector;
+
+/**
+ * An {@link EndpointSelectionStrategy} of a {@link LoadBalancer} which selects an {@link Endpoint} from the
+ * {@link EndpointLoads} of an {@link Upstream}.
+ */
+final class LoadBalancingStrategy implements EndpointSelectionStrategy {
+
+    private final LoadBalancer loadBalancer;
+    private final EndpointLoads loads;
+
+    LoadBalancingStrategy(LoadBalancer loadBalancer, EndpointLoads loads) {
+        this.loadBalancer = loadBalancer;
+        this.loads = loads;
+    }
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        // Forgets the loads of the removed endpoints, e.g. of a group refreshed from a service discovery.
+        endpointGroup.addListener(loads::retainAll);
+        return new LoadBalancingSelector(endpointGroup);
+    }
+
+    /**
+     * Returns the given {@code load} of the given {@link Endpoint} relative to its weight, so that an endpoint
+     * of a smaller weight, e.g. one warming up, takes fewer requests.
+     */
+    private static double weighted(double load, Endpoint endpoint) {
+        final int weight = endpoint.weight();
+        return weight > 0 ? load / weight : Double.MAX_VALUE;
+    }
+
+    private final class LoadBalancingSelector extends AbstractEndpointSelector {
+
+        LoadBalancingSelector(EndpointGroup endpointGroup) {
+            super(endpointGroup);
+        }
+
+        @Nullable
+        @Override
+        public Endpoint selectNow(ClientRequestContext ctx) {
+            final List<Endpoint> endpoints = group().endpoints();
+            final int size = endpoints.size();
+            if (size == 0) {
+                return null;
+            }
+            if (size == 1) {
+                return endpoints.get(0);
+            }
+
+            switch (loadBalancer) {
+                case LEAST_OUTSTANDING:
+                    return selectLeastOutstanding(endpoints);
+                case P2C:
+                case P2C_EWMA:
+                    return selectOfTwo(endpoints);
+                default:
+                    throw new Error(); // Should never reach here.
+            }
+        }
+
+        private Endpoint selectLeastOutstanding(List<Endpoint> endpoints) {
+            final int size = endpoints.size();
+            // Starts from a random endpoint so that the ties are broken randomly.
+            final int start = ThreadLocalRandom.current().nextInt(size);
+            Endpoint selected = endpoints.get(start);
+            double minLoad = Double.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                final Endpoint endpoint = endpoints.get((start + i) % size);
+                final double load = weighted(loads.get(endpoint).outstanding() + 1, endpoint);
+                if (load < minLoad) {
+                    selected = endpoint;
+                    minLoad = load;
+                }
+            }
+            return selected;
+        }
+
+        private Endpoint selectOfTwo(List<Endpoint> endpoints) {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int size = endpoints.size();
+            final int i = random.nextInt(size);
+            int j = random.nextInt(size - 1);
+            if (j >= i) {
+                j++;
+            }
+            final Endpoint first = endpoints.get(i);
+            final Endpoint second = endpoints.get(j);
+            if (loadBalancer == LoadBalancer.P2C) {
+                return weighted(loads.get(first).outstanding() + 1, first) <=
+                       weighted(loads.get(second).outstanding() + 1, second) ? first : second;
+            }
+            return weighted(loads.get(first).cost(), first) <=
+                   weighted(loads.get(second).cost(), second) ? first : second;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.SimpleDecoratingHttpClient;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+
+/**
+ * A decorator of the client of an {@link Upstream} which records the outstanding requests and the latencies
+ * of each endpoint to the {@link EndpointLoads}.
+ */
+final class LoadBalancingUpstreamClient extends SimpleDecoratingHttpClient {
+
+    private final EndpointLoads loads;
+
+    LoadBalancingUpstreamClient(HttpClient delegate, EndpointLoads loads) {
+        super(delegate);
+        this.loads = loads;
+    }
+
+    @Override
+    public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) throws Exception {
+        @Nullable
+        final Endpoint endpoint = ctx.endpoint();
+        if (endpoint == null) {
+            return unwrap().execute(ctx, req);
+        }
+        final EndpointLoads.Load load = loads.get(endpoint);
+        load.onStart();
+
+        final long startNanos = System.nanoTime();
+        final HttpResponse res;
+        try {
+            res = unwrap().execute(ctx, req);
+        } catch (Throwable cause) {
+            load.onEnd(System.nanoTime() - startNanos);
+            throw cause;
+        }
+        res.whenComplete().handle((unused, cause) -> {
+            load.onEnd(System.nanoTime() - startNanos);
+            return null;
+        });
+        return res;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import dev.gihwan.tollgate.gateway.LoadSheddingPolicy.PriorityRule;
+
+/**
+ * A load shedder built from a {@link LoadSheddingPolicy}, which caps the concurrent requests with a queue per
+ * priority and sheds the requests of the lowest priorities while the queue delay stays above the target.
+ *
+ * <p>Like {@link Bulkhead}, the counters are updated with CAS loops and the waiting requests are kept in
+ * lock-free deques, so that it never blocks an event loop. The minimum queue delay of the current interval is
+ * kept with a CAS as well, and the interval is closed by the first request or release after it ends.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.load.shedding.in.flight} requests.</li>
+ *   <li>{@code tollgate.load.shedding.queued} requests.</li>
+ *   <li>{@code tollgate.load.shedding.level}, the number of the lowest priorities being shed.</li>
+ *   <li>{@code tollgate.load.shedding.shed.requests}, tagged with the {@code priority}, which are rejected
+ *       for their priority, because the queue is full, or because they have waited too long.</li>
+ * </ul>
+ */
+final class LoadShedder {
+
+    private static final String PREFIX = "tollgate.load.shedding";
+
+    private final LoadSheddingPolicy policy;
+    private final int maxConcurrentRequests;
+    private final int maxQueueSize;
+    private final long targetNanos;
+    private final long intervalNanos;
+    private final LongSupplier ticker;
+
+    // The distinct priorities in ascending order, whose indexes are the levels of the priorities.
+    private final int[] priorities;
+    private final Deque<Waiter>[] waiters;
+    private final LongAdder[] shedRequests;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong intervalStartNanos;
+    private final AtomicLong minQueueDelayNanos = new AtomicLong(Long.MAX_VALUE);
+    // Updated only by the request which closes an interval.
+    private volatile boolean overloaded;
+    // The requests of the levels below this are shed.
+    private volatile int shedLevel;
+
+    LoadShedder(LoadSheddingPolicy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    LoadShedder(LoadSheddingPolicy policy, LongSupplier ticker) {
+        this.policy = policy;
+        maxConcurrentRequests = policy.maxConcurrentRequests();
+        maxQueueSize = policy.maxQueueSize();
+        targetNanos = policy.target().toNanos();
+        intervalNanos = policy.interval().toNanos();
+        this.ticker = ticker;
+
+        priorities = IntStream.concat(policy.rules().stream().mapToInt(PriorityRule::priority),
+                                      IntStream.of(policy.defaultPriority()))
+                              .distinct()
+                              .sorted()
+                              .toArray();
+        waiters = new Deque[priorities.length];
+        shedRequests = new LongAdder[priorities.length];
+        for (int i = 0; i < priorities.length; i++) {
+            waiters[i] = new ConcurrentLinkedDeque<>();
+            shedRequests[i] = new LongAdder();
+        }
+        intervalStartNanos = new AtomicLong(ticker.getAsLong());
+    }
+
+    /**
+     * Executes the given {@code action} for the request of the given {@link ServiceRequestContext} once it is
+     * admitted, or responds with {@code 503 Service Unavailable} if it is shed.
+     */
+    HttpResponse execute(ServiceRequestContext ctx, Supplier<HttpResponse> action) {
+        // The event loop of the context runs a waiting request with the context.
+        return execute(policy.priority(ctx), ctx.eventLoop(), action);
+    }
+
+    /**
+     * Executes the given {@code action} of the given {@code priority} once it is admitted, releasing the permit
+     * when its response is completed, or responds with {@code 503 Service Unavailable} if it is shed.
+     */
+    HttpResponse execute(int priority, ScheduledExecutorService executor, Supplier<HttpResponse> action) {
+        final long nowNanos = ticker.getAsLong();
+        maybeCloseInterval(nowNanos);
+
+        final int level = Arrays.binarySearch(priorities, priority);
+        if (level < shedLevel) {
+            return shed(level);
+        }
+        // A request does not jump the queue, so that the waiting requests of higher priorities go first.
+        if (queued.get() == 0 && tryAcquire()) {
+            recordQueueDelay(0);
+            return executeAndRelease(action);
+        }
+
+        @Nullable
+        final Waiter waiter = enqueue(level, nowNanos, executor);
+        if (waiter == null) {
+            return shed(level);
+        }
+        // The permit may be handed over by another thread, so the action is executed by the given executor.
+        return HttpResponse.from(waiter.thenApplyAsync(admitted -> admitted ? executeAndRelease(action)
+                                                                            : shed(level), executor));
+    }
+
+    private HttpResponse shed(int level) {
+        shedRequests[level].increment();
+        return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private HttpResponse executeAndRelease(Supplier<HttpResponse> action) {
+        final HttpResponse res;
+        try {
+            res = action.get();
+        } catch (Throwable cause) {
+            release();
+            throw cause;
+        }
+        res.whenComplete().handle((unused, cause) -> {
+            release();
+            return null;
+        });
+        return res;
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            final int current = inFlight.get();
+            if (current >= maxConcurrentRequests) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    @Nullable
+    private Waiter enqueue(int level, long nowNanos, ScheduledExecutorService executor) {
+        for (;;) {
+            final int current = queued.get();
+            if (current >= maxQueueSize) {
+                return null;
+            }
+            if (queued.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        final Waiter waiter = new Waiter(nowNanos);
+        waiters[level].addLast(waiter);
+        executor.schedule(() -> {
+            if (waiter.complete(false)) {
+                queued.decrementAndGet();
+                waiters[level].remove(waiter);
+            }
+        }, intervalNanos, TimeUnit.NANOSECONDS);
+        drain();
+        return waiter;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Hands the free permits over to the waiting requests of the highest priorities.
+     */
+    private void drain() {
+        while (hasWaiters() && tryAcquire()) {
+            if (!handOver()) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean hasWaiters() {
+        for (Deque<Waiter> deque : waiters) {
+            if (!deque.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean handOver() {
+        final long nowNanos = ticker.getAsLong();
+        maybeCloseInterval(nowNanos);
+        for (int level = waiters.length - 1; level >= 0; level--) {
+            for (;;) {
+                @Nullable
+                final Waiter waiter = waiters[level].pollFirst();
+                if (waiter == null) {
+                    break;
+                }
+                final long queueDelayNanos = nowNanos - waiter.enqueuedNanos;
+                // While overloaded, a request which has waited longer than the target is dropped like CoDel.
+                final boolean admitted = level >= shedLevel && (!overloaded || queueDelayNanos <= targetNanos);
+                // A waiter which has timed out is skipped.
+                if (waiter.complete(admitted)) {
+                    queued.decrementAndGet();
+                    if (admitted) {
+                        recordQueueDelay(queueDelayNanos);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void recordQueueDelay(long queueDelayNanos) {
+        for (;;) {
+            final long current = minQueueDelayNanos.get();
+            if (queueDelayNanos >= current || minQueueDelayNanos.compareAndSet(current, queueDelayNanos)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the current interval if it has ended, shedding one more priority if the minimum queue delay in
+     * the interval is above the target, or one less priority otherwise.
+     */
+    private void maybeCloseInterval(long nowNanos) {
+        final long startNanos = intervalStartNanos.get();
+        if (nowNanos - startNanos < intervalNanos || !intervalStartNanos.compareAndSet(startNanos, nowNanos)) {
+            return;
+        }
+        final long minQueueDelayNanos = this.minQueueDelayNanos.getAndSet(Long.MAX_VALUE);
+        // No request admitted in the interval while the requests are waiting is the worst overload.
+        final boolean overloaded = minQueueDelayNanos == Long.MAX_VALUE ? queued.get() > 0
+                                                                        : minQueueDelayNanos > targetNanos;
+        this.overloaded = overloaded;
+        final int shedLevel = this.shedLevel;
+        if (overloaded && shedLevel < priorities.length - 1) {
+            this.shedLevel = shedLevel + 1;
+            // Sheds the waiting requests of the priority as well.
+            for (;;) {
+                @Nullable
+                final Waiter waiter = waiters[shedLevel].pollFirst();
+                if (waiter == null) {
+                    break;
+                }
+                if (waiter.complete(false)) {
+                    queued.decrementAndGet();
+                }
+            }
+        } else if (!overloaded && shedLevel > 0) {
+            this.shedLevel = shedLevel - 1;
+        }
+    }
+
+    /**
+     * Returns the number of the lowest priorities being shed.
+     */
+    int shedLevel() {
+        return shedLevel;
+    }
+
+    /**
+     * Registers the metrics of this load shedder to the given {@link MeterRegistry}.
+     */
+    void bindTo(MeterRegistry registry) {
+        Gauge.builder(PREFIX + ".in.flight", inFlight, AtomicInteger::get)
+             .description("The number of the requests in flight through the load shedder")
+             .register(registry);
+        Gauge.builder(PREFIX + ".queued", queued, AtomicInteger::get)
+             .description("The number of the requests waiting for the load shedder")
+             .register(registry);
+        Gauge.builder(PREFIX + ".level", this, LoadShedder::shedLevel)
+             .description("The number of the lowest priorities being shed")
+             .register(registry);
+        for (int i = 0; i < priorities.length; i++) {
+            FunctionCounter.builder(PREFIX + ".shed.requests", shedRequests[i], LongAdder::sum)
+                           .description("The number of the requests shed by the load shedder")
+                           .tag("priority", String.valueOf(priorities[i]))
+                           .register(registry);
+        }
+    }
+
+    private static final class Waiter extends CompletableFuture<Boolean> {
+
+        private final long enqueuedNanos;
+
+        Waiter(long enqueuedNanos) {
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
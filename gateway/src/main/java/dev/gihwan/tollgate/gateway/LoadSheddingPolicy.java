@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Predicate;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A policy of the load shedding of a {@link Gateway}, which admits the requests by their priorities when the
+ * gateway is overloaded.
+ *
+ * <p>A request over the maximum concurrent requests waits in a queue, from which the requests of higher
+ * priorities are served first. The gateway is considered overloaded when the queue delay has stayed above the
+ * target for an interval, as CoDel does, i.e. when even the request which waited the least in the interval
+ * waited longer than the target. Then the requests of the lowest priority are shed with
+ * {@code 503 Service Unavailable}, and one more priority is shed for each interval the gateway stays
+ * overloaded. The requests of the highest priority are never shed for their priority. Once the queue delay
+ * falls below the target, one less priority is shed for each interval.
+ *
+ * <p>A waiting request gives up after the interval, and after the target while the gateway is overloaded, so
+ * that the queue never stands for long.
+ *
+ * <p>A request is given the priority of the first matching rule, e.g. of its path or of its API key header, or
+ * the default priority. The greater the priority is, the more important the request is.
+ *
+ * @see LoadSheddingPolicyBuilder
+ */
+public final class LoadSheddingPolicy {
+
+    /**
+     * Returns a new {@link LoadSheddingPolicyBuilder}.
+     */
+    public static LoadSheddingPolicyBuilder builder() {
+        return new LoadSheddingPolicyBuilder();
+    }
+
+    private final int maxConcurrentRequests;
+    private final int maxQueueSize;
+    private final Duration target;
+    private final Duration interval;
+    private final List<PriorityRule> rules;
+    private final int defaultPriority;
+
+    LoadSheddingPolicy(int maxConcurrentRequests, int maxQueueSize, Duration target, Duration interval,
+                       List<PriorityRule> rules, int defaultPriority) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueueSize = maxQueueSize;
+        this.target = target;
+        this.interval = interval;
+        this.rules = rules;
+        this.defaultPriority = defaultPriority;
+    }
+
+    int maxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    int maxQueueSize() {
+        return maxQueueSize;
+    }
+
+    Duration target() {
+        return target;
+    }
+
+    Duration interval() {
+        return interval;
+    }
+
+    List<PriorityRule> rules() {
+        return rules;
+    }
+
+    int defaultPriority() {
+        return defaultPriority;
+    }
+
+    /**
+     * Returns the priority of the request of the given {@link ServiceRequestContext}.
+     */
+    int priority(ServiceRequestContext ctx) {
+        for (PriorityRule rule : rules) {
+            if (rule.predicate.test(ctx)) {
+                return rule.priority;
+            }
+        }
+        return defaultPriority;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("maxConcurrentRequests", maxConcurrentRequests)
+                          .add("maxQueueSize", maxQueueSize)
+                          .add("target", target)
+                          .add("interval", interval)
+                          .add("rules", rules)
+                          .add("defaultPriority", defaultPriority)
+                          .toString();
+    }
+
+    /**
+     * A rule which gives a priority to the matching requests.
+     */
+    static final class PriorityRule {
+
+        private final String description;
+        private final Predicate<? super ServiceRequestContext> predicate;
+        private final int priority;
+
+        PriorityRule(String description, Predicate<? super ServiceRequestContext> predicate, int priority) {
+            this.description = description;
+            this.predicate = predicate;
+            this.priority = priority;
+        }
+
+        int priority() {
+            return priority;
+        }
+
+        @Override
+        public String toString() {
+            return description + '=' + priority;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+
+import io.netty.util.AsciiString;
+
+import dev.gihwan.tollgate.gateway.LoadSheddingPolicy.PriorityRule;
+
+/**
+ * A builder for {@link LoadSheddingPolicy}.
+ */
+public final class LoadSheddingPolicyBuilder {
+
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 1024;
+    private static final int DEFAULT_MAX_QUEUE_SIZE = 1024;
+    private static final Duration DEFAULT_TARGET = Duration.ofMillis(5);
+    private static final Duration DEFAULT_INTERVAL = Duration.ofMillis(100);
+
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private Duration target = DEFAULT_TARGET;
+    private Duration interval = DEFAULT_INTERVAL;
+    private final ImmutableList.Builder<PriorityRule> rules = ImmutableList.builder();
+    private int defaultPriority;
+
+    LoadSheddingPolicyBuilder() {}
+
+    /**
+     * Sets the maximum number of the concurrent requests. By default, {@code 1024} is used.
+     */
+    public LoadSheddingPolicyBuilder maxConcurrentRequests(int maxConcurrentRequests) {
+        checkArgument(maxConcurrentRequests > 0,
+                      "maxConcurrentRequests: %s (expected: > 0)", maxConcurrentRequests);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of the requests waiting for the other requests to complete. By default,
+     * {@code 1024} is used.
+     */
+    public LoadSheddingPolicyBuilder maxQueueSize(int maxQueueSize) {
+        checkArgument(maxQueueSize >= 0, "maxQueueSize: %s (expected: >= 0)", maxQueueSize);
+        this.maxQueueSize = maxQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets the target queue delay, above which the gateway is considered overloaded if it stays for the
+     * interval. By default, {@code 5} milliseconds is used.
+     */
+    public LoadSheddingPolicyBuilder target(Duration target) {
+        requireNonNull(target, "target");
+        checkArgument(!target.isNegative() && !target.isZero(), "target: %s (expected: > 0)", target);
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * Sets the interval in which the minimum queue delay is compared with the target, which is also the maximum
+     * time for which a request waits in the queue. By default, {@code 100} milliseconds is used.
+     */
+    public LoadSheddingPolicyBuilder interval(Duration interval) {
+        requireNonNull(interval, "interval");
+        checkArgument(!interval.isNegative() && !interval.isZero(), "interval: %s (expected: > 0)", interval);
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * Gives the given {@code priority} to the requests whose path starts with the given {@code pathPrefix},
+     * e.g. {@code /internal/health}.
+     */
+    public LoadSheddingPolicyBuilder path(String pathPrefix, int priority) {
+        requireNonNull(pathPrefix, "pathPrefix");
+        checkArgument(pathPrefix.startsWith("/"), "pathPrefix: %s (expected: an absolute path)", pathPrefix);
+        rules.add(new PriorityRule("path:" + pathPrefix, ctx -> ctx.path().startsWith(pathPrefix), priority));
+        return this;
+    }
+
+    /**
+     * Gives the given {@code priority} to the requests whose header of the given {@code name} has the given
+     * {@code value}, e.g. the API key of a paying customer.
+     */
+    public LoadSheddingPolicyBuilder header(CharSequence name, String value, int priority) {
+        requireNonNull(name, "name");
+        requireNonNull(value, "value");
+        final AsciiString headerName = HttpHeaderNames.of(name);
+        rules.add(new PriorityRule("header:" + headerName,
+                                   ctx -> value.equals(ctx.request().headers().get(headerName)), priority));
+        return this;
+    }
+
+    /**
+     * Sets the priority of the requests which match none of the rules. By default, {@code 0} is used.
+     */
+    public LoadSheddingPolicyBuilder defaultPriority(int defaultPriority) {
+        this.defaultPriority = defaultPriority;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link LoadSheddingPolicy} based on the properties of this builder.
+     *
+     * @throws IllegalStateException if the interval is not longer than the target.
+     */
+    public LoadSheddingPolicy build() {
+        checkState(interval.compareTo(target) > 0,
+                   "interval: %s (expected: > target: %s)", interval, target);
+        return new LoadSheddingPolicy(maxConcurrentRequests, maxQueueSize, target, interval, rules.build(),
+                                      defaultPriority);
+    }
+}
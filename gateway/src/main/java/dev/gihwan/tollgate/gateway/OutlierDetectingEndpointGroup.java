@@ -0,0 +1,286 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import com.google.common.math.LongMath;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+/**
+ * A {@link DynamicEndpointGroup} of the endpoints of the delegate {@link EndpointGroup} except the ones ejected
+ * by the passive outlier detection of an {@link OutlierDetectionPolicy}.
+ *
+ * <p>The consecutive errors are detected as soon as a response is recorded, while the latency outliers are
+ * detected and the ejected endpoints are returned by a sweep at each interval.
+ */
+final class OutlierDetectingEndpointGroup extends DynamicEndpointGroup {
+
+    // The latencies of fewer endpoints have no meaningful median.
+    private static final int MINIMUM_LATENCY_CANDIDATES = 3;
+
+    private final EndpointGroup delegate;
+    private final int consecutiveErrors;
+    private final double latencyFactor;
+    private final int minimumRequests;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final int maxEjectionPercent;
+    private final LongSupplier ticker;
+
+    private final Map<Endpoint, EndpointState> states = new ConcurrentHashMap<>();
+    private final Consumer<List<Endpoint>> listener = this::onDelegateUpdate;
+    @Nullable
+    private final ScheduledFuture<?> sweepFuture;
+
+    // Guarded by this.
+    private int ejectedEndpoints;
+    private final LongAdder consecutiveErrorEjections = new LongAdder();
+    private final LongAdder latencyEjections = new LongAdder();
+
+    /**
+     * Creates a new instance which sweeps at each interval on the given {@code executor}, or only when
+     * {@link #sweep()} is called if the {@code executor} is {@code null}.
+     */
+    OutlierDetectingEndpointGroup(EndpointGroup delegate, OutlierDetectionPolicy policy, LongSupplier ticker,
+                                  @Nullable ScheduledExecutorService executor) {
+        super(delegate.selectionStrategy());
+        this.delegate = delegate;
+        consecutiveErrors = policy.consecutiveErrors();
+        latencyFactor = policy.latencyFactor();
+        minimumRequests = policy.minimumRequests();
+        baseEjectionNanos = policy.baseEjectionTime().toNanos();
+        maxEjectionNanos = policy.maxEjectionTime().toNanos();
+        maxEjectionPercent = policy.maxEjectionPercent();
+        this.ticker = ticker;
+
+        delegate.addListener(listener);
+        onDelegateUpdate(delegate.endpoints());
+
+        if (executor != null) {
+            final long intervalNanos = policy.interval().toNanos();
+            sweepFuture = executor.scheduleWithFixedDelay(this::sweep, intervalNanos, intervalNanos,
+                                                          TimeUnit.NANOSECONDS);
+        } else {
+            sweepFuture = null;
+        }
+    }
+
+    private synchronized void onDelegateUpdate(List<Endpoint> endpoints) {
+        states.keySet().retainAll(endpoints);
+        endpoints.forEach(endpoint -> states.computeIfAbsent(endpoint, unused -> new EndpointState()));
+        ejectedEndpoints = (int) states.values().stream().filter(state -> state.ejected).count();
+        updateEndpoints();
+    }
+
+    private void updateEndpoints() {
+        setEndpoints(delegate.endpoints().stream()
+                             .filter(endpoint -> {
+                                 @Nullable
+                                 final EndpointState state = states.get(endpoint);
+                                 return state == null || !state.ejected;
+                             })
+                             .collect(Collectors.toUnmodifiableList()));
+    }
+
+    /**
+     * Records the response of a request to the given {@link Endpoint}, ejecting the endpoint if it reaches the
+     * consecutive errors.
+     */
+    void onResponse(Endpoint endpoint, boolean error, long latencyNanos) {
+        @Nullable
+        final EndpointState state = states.get(endpoint);
+        if (state == null) {
+            // Removed from the delegate.
+            return;
+        }
+        if (state.onResponse(error, latencyNanos, consecutiveErrors)) {
+            eject(state, consecutiveErrorEjections);
+        }
+    }
+
+    private synchronized void eject(EndpointState state, LongAdder ejections) {
+        if (state.ejected || ejectedEndpoints >= maxEjectedEndpoints()) {
+            return;
+        }
+        final long multiplier = 1L << Math.min(state.ejections, Long.SIZE - 2);
+        final long ejectionNanos = Math.min(LongMath.saturatedMultiply(baseEjectionNanos, multiplier),
+                                            maxEjectionNanos);
+        state.ejected = true;
+        state.ejectedUntilNanos = ticker.getAsLong() + ejectionNanos;
+        state.ejections++;
+        ejectedEndpoints++;
+        ejections.increment();
+        updateEndpoints();
+    }
+
+    private int maxEjectedEndpoints() {
+        final int size = states.size();
+        final int maxEjectedEndpoints = size * maxEjectionPercent / 100;
+        return Math.min(Math.max(maxEjectedEndpoints, 1), size - 1);
+    }
+
+    /**
+     * Returns the ejected endpoints whose ejection time elapsed, and ejects the endpoints whose mean latency in
+     * the last interval is an outlier.
+     */
+    synchronized void sweep() {
+        final long nowNanos = ticker.getAsLong();
+        boolean returned = false;
+        final List<EndpointState> candidates = new ArrayList<>();
+        for (EndpointState state : states.values()) {
+            final double meanLatencyNanos = state.resetMeanLatency(minimumRequests);
+            if (state.ejected) {
+                if (nowNanos - state.ejectedUntilNanos >= 0) {
+                    state.ejected = false;
+                    ejectedEndpoints--;
+                    returned = true;
+                }
+                continue;
+            }
+            if (state.ejections > 0) {
+                // Halves the next ejection time for each interval without an ejection.
+                state.ejections--;
+            }
+            if (!Double.isNaN(meanLatencyNanos)) {
+                candidates.add(state);
+            }
+        }
+        if (returned) {
+            updateEndpoints();
+        }
+
+        if (candidates.size() < MINIMUM_LATENCY_CANDIDATES) {
+            return;
+        }
+        final double[] meanLatencies = candidates.stream().mapToDouble(state -> state.meanLatencyNanos)
+                                                 .sorted().toArray();
+        final int middle = meanLatencies.length / 2;
+        final double median;
+        if (meanLatencies.length % 2 == 1) {
+            median = meanLatencies[middle];
+        } else {
+            median = (meanLatencies[middle - 1] + meanLatencies[middle]) / 2;
+        }
+        for (EndpointState state : candidates) {
+            if (state.meanLatencyNanos > median * latencyFactor) {
+                eject(state, latencyEjections);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the endpoints which are ejected now.
+     */
+    synchronized int ejectedEndpoints() {
+        return ejectedEndpoints;
+    }
+
+    /**
+     * Returns the number of the ejections by the consecutive errors.
+     */
+    long consecutiveErrorEjections() {
+        return consecutiveErrorEjections.sum();
+    }
+
+    /**
+     * Returns the number of the ejections by the latency outliers.
+     */
+    long latencyEjections() {
+        return latencyEjections.sum();
+    }
+
+    @Override
+    protected void doCloseAsync(CompletableFuture<?> future) {
+        delegate.removeListener(listener);
+        if (sweepFuture != null) {
+            sweepFuture.cancel(false);
+        }
+        future.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{delegate=" + delegate + ", endpoints=" + endpoints() + '}';
+    }
+
+    private static final class EndpointState {
+
+        // Guarded by this.
+        private int consecutiveErrors;
+        private int requests;
+        private long latencyNanos;
+
+        // Guarded by the OutlierDetectingEndpointGroup.
+        private boolean ejected;
+        private long ejectedUntilNanos;
+        private int ejections;
+        private double meanLatencyNanos = Double.NaN;
+
+        /**
+         * Records a response, returning {@code true} if the consecutive errors reach the given threshold.
+         */
+        synchronized boolean onResponse(boolean error, long latencyNanos, int threshold) {
+            requests++;
+            this.latencyNanos += latencyNanos;
+            if (!error) {
+                consecutiveErrors = 0;
+                return false;
+            }
+            if (++consecutiveErrors < threshold) {
+                return false;
+            }
+            consecutiveErrors = 0;
+            return true;
+        }
+
+        /**
+         * Starts a new interval, returning the mean latency of the last interval, or {@link Double#NaN} if
+         * there were fewer requests than the given {@code minimumRequests}.
+         */
+        synchronized double resetMeanLatency(int minimumRequests) {
+            meanLatencyNanos = requests >= minimumRequests ? (double) latencyNanos / requests : Double.NaN;
+            requests = 0;
+            latencyNanos = 0;
+            return meanLatencyNanos;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A policy of the passive outlier detection of the endpoints of an {@link Upstream}, which ejects the endpoints
+ * misbehaving on the live traffic.
+ *
+ * <p>An endpoint is ejected when:
+ * <ul>
+ *   <li>its requests fail with a {@code 5xx} status or an exception for the consecutive errors, or</li>
+ *   <li>the mean latency of its requests in an interval is longer than the median of the endpoints
+ *       multiplied by the latency factor. Only the endpoints with the minimum number of the requests in the
+ *       interval are compared, and at least three of them are required.</li>
+ * </ul>
+ * An ejected endpoint is not selected for the base ejection time, which doubles whenever the endpoint is
+ * ejected again up to the maximum ejection time, and is halved back for each interval the endpoint is not
+ * ejected. At most the maximum ejection percentage of the endpoints are ejected at the same time, although
+ * one endpoint may always be ejected as long as another endpoint remains.
+ *
+ * @see OutlierDetectionPolicyBuilder
+ */
+public final class OutlierDetectionPolicy {
+
+    /**
+     * Returns a new {@link OutlierDetectionPolicy} with the default settings.
+     */
+    public static OutlierDetectionPolicy ofDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a new {@link OutlierDetectionPolicyBuilder}.
+     */
+    public static OutlierDetectionPolicyBuilder builder() {
+        return new OutlierDetectionPolicyBuilder();
+    }
+
+    private final int consecutiveErrors;
+    private final double latencyFactor;
+    private final int minimumRequests;
+    private final Duration interval;
+    private final Duration baseEjectionTime;
+    private final Duration maxEjectionTime;
+    private final int maxEjectionPercent;
+
+    OutlierDetectionPolicy(int consecutiveErrors, double latencyFactor, int minimumRequests, Duration interval,
+                           Duration baseEjectionTime, Duration maxEjectionTime, int maxEjectionPercent) {
+        this.consecutiveErrors = consecutiveErrors;
+        this.latencyFactor = latencyFactor;
+        this.minimumRequests = minimumRequests;
+        this.interval = interval;
+        this.baseEjectionTime = baseEjectionTime;
+        this.maxEjectionTime = maxEjectionTime;
+        this.maxEjectionPercent = maxEjectionPercent;
+    }
+
+    int consecutiveErrors() {
+        return consecutiveErrors;
+    }
+
+    double latencyFactor() {
+        return latencyFactor;
+    }
+
+    int minimumRequests() {
+        return minimumRequests;
+    }
+
+    Duration interval() {
+        return interval;
+    }
+
+    Duration baseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    Duration maxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    int maxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("consecutiveErrors", consecutiveErrors)
+                          .add("latencyFactor", latencyFactor)
+                          .add("minimumRequests", minimumRequests)
+                          .add("interval", interval)
+                          .add("baseEjectionTime", baseEjectionTime)
+                          .add("maxEjectionTime", maxEjectionTime)
+                          .add("maxEjectionPercent", maxEjectionPercent)
+                          .toString();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * A builder for {@link OutlierDetectionPolicy}.
+ */
+public final class OutlierDetectionPolicyBuilder {
+
+    private static final int DEFAULT_CONSECUTIVE_ERRORS = 5;
+    private static final double DEFAULT_LATENCY_FACTOR = 3;
+    private static final int DEFAULT_MINIMUM_REQUESTS = 20;
+    private static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration DEFAULT_BASE_EJECTION_TIME = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_MAX_EJECTION_TIME = Duration.ofMinutes(5);
+    private static final int DEFAULT_MAX_EJECTION_PERCENT = 10;
+
+    private int consecutiveErrors = DEFAULT_CONSECUTIVE_ERRORS;
+    private double latencyFactor = DEFAULT_LATENCY_FACTOR;
+    private int minimumRequests = DEFAULT_MINIMUM_REQUESTS;
+    private Duration interval = DEFAULT_INTERVAL;
+    private Duration baseEjectionTime = DEFAULT_BASE_EJECTION_TIME;
+    private Duration maxEjectionTime = DEFAULT_MAX_EJECTION_TIME;
+    private int maxEjectionPercent = DEFAULT_MAX_EJECTION_PERCENT;
+
+    OutlierDetectionPolicyBuilder() {}
+
+    /**
+     * Sets the number of the consecutive errors, i.e. {@code 5xx} statuses or exceptions, which ejects an
+     * endpoint. By default, {@code 5} is used.
+     */
+    public OutlierDetectionPolicyBuilder consecutiveErrors(int consecutiveErrors) {
+        checkArgument(consecutiveErrors > 0, "consecutiveErrors: %s (expected: > 0)", consecutiveErrors);
+        this.consecutiveErrors = consecutiveErrors;
+        return this;
+    }
+
+    /**
+     * Sets the factor of the median latency of the endpoints over which the mean latency of an endpoint in an
+     * interval ejects the endpoint. By default, {@code 3} is used.
+     */
+    public OutlierDetectionPolicyBuilder latencyFactor(double latencyFactor) {
+        checkArgument(latencyFactor > 1, "latencyFactor: %s (expected: > 1)", latencyFactor);
+        this.latencyFactor = latencyFactor;
+        return this;
+    }
+
+    /**
+     * Sets the minimum number of the requests to an endpoint in an interval to compare its latency with the
+     * other endpoints. By default, {@code 20} is used.
+     */
+    public OutlierDetectionPolicyBuilder minimumRequests(int minimumRequests) {
+        checkArgument(minimumRequests > 0, "minimumRequests: %s (expected: > 0)", minimumRequests);
+        this.minimumRequests = minimumRequests;
+        return this;
+    }
+
+    /**
+     * Sets the interval at which the latencies of the endpoints are compared and the ejected endpoints are
+     * returned once their ejection time elapses. By default, {@code 10} seconds is used.
+     */
+    public OutlierDetectionPolicyBuilder interval(Duration interval) {
+        requireNonNull(interval, "interval");
+        checkArgument(!interval.isNegative() && !interval.isZero(), "interval: %s (expected: > 0)", interval);
+        this.interval = interval;
+        return this;
+    }
+
+    /**
+     * Sets the time for which an endpoint is ejected for the first time, and the maximum time it grows to when
+     * the endpoint is ejected repeatedly. By default, {@code 30} seconds and {@code 5} minutes are used.
+     */
+    public OutlierDetectionPolicyBuilder ejectionTime(Duration baseEjectionTime, Duration maxEjectionTime) {
+        requireNonNull(baseEjectionTime, "baseEjectionTime");
+        requireNonNull(maxEjectionTime, "maxEjectionTime");
+        checkArgument(!baseEjectionTime.isNegative() && !baseEjectionTime.isZero(),
+                      "baseEjectionTime: %s (expected: > 0)", baseEjectionTime);
+        checkArgument(maxEjectionTime.compareTo(baseEjectionTime) >= 0,
+                      "maxEjectionTime: %s (expected: >= baseEjectionTime)", maxEjectionTime);
+        this.baseEjectionTime = baseEjectionTime;
+        this.maxEjectionTime = maxEjectionTime;
+        return this;
+    }
+
+    /**
+     * Sets the maximum percentage of the endpoints which are ejected at the same time. One endpoint may always
+     * be ejected as long as another endpoint remains. By default, {@code 10} is used.
+     */
+    public OutlierDetectionPolicyBuilder maxEjectionPercent(int maxEjectionPercent) {
+        checkArgument(maxEjectionPercent >= 0 && maxEjectionPercent <= 100,
+                      "maxEjectionPercent: %s (expected: 0 <= maxEjectionPercent <= 100)", maxEjectionPercent);
+        this.maxEjectionPercent = maxEjectionPercent;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link OutlierDetectionPolicy} based on the properties of this builder.
+     */
+    public OutlierDetectionPolicy build() {
+        return new OutlierDetectionPolicy(consecutiveErrors, latencyFactor, minimumRequests, interval,
+                                          baseEjectionTime, maxEjectionTime, maxEjectionPercent);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.SimpleDecoratingHttpClient;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogProperty;
+import com.linecorp.armeria.common.stream.AbortedStreamException;
+
+/**
+ * A decorator of the client of an {@link Upstream} which records the response of each request to its endpoint
+ * to the {@link OutlierDetectingEndpointGroup}.
+ */
+final class OutlierDetectionUpstreamClient extends SimpleDecoratingHttpClient {
+
+    private final OutlierDetectingEndpointGroup endpointGroup;
+
+    OutlierDetectionUpstreamClient(HttpClient delegate, OutlierDetectingEndpointGroup endpointGroup) {
+        super(delegate);
+        this.endpointGroup = endpointGroup;
+    }
+
+    @Override
+    public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) throws Exception {
+        @Nullable
+        final Endpoint endpoint = ctx.endpoint();
+        if (endpoint != null) {
+            // The response headers are available when they are received or the request fails.
+            ctx.log().whenAvailable(RequestLogProperty.RESPONSE_HEADERS).thenAccept(log -> {
+                @Nullable
+                final Throwable cause = responseCause(log);
+                if (cause instanceof AbortedStreamException) {
+                    // Aborted by a user or a hedged request, which says nothing about the endpoint.
+                    return;
+                }
+                final boolean error = cause != null || log.responseHeaders().status().isServerError();
+                endpointGroup.onResponse(endpoint, error, System.nanoTime() - log.requestStartTimeNanos());
+            });
+        }
+        return unwrap().execute(ctx, req);
+    }
+
+    @Nullable
+    private static Throwable responseCause(RequestLog log) {
+        return log.isAvailable(RequestLogProperty.RESPONSE_CAUSE) ? log.responseCause() : null;
+    }
+}
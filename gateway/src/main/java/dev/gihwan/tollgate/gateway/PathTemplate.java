@@ -0,0 +1,213 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Splitter;
+
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A path template which is parsed once and expanded into a request path for each request.
+ *
+ * <p>A template consists of the following segments:
+ * <ul>
+ *   <li>literal segments, e.g. {@code /foo}.</li>
+ *   <li>path parameters, e.g. {@code /{bar}} or {@code /:bar}, which are replaced with the path parameter of
+ *       the matched route. The named capturing groups of a {@code regex:} route and the wildcards of a
+ *       {@code glob:} route ({@code {0}}, {@code {1}}, ...) are path parameters as well.</li>
+ *   <li>a wildcard tail {@code /**} as the last segment, which is replaced with the mapped path of the
+ *       matched route, e.g. the remaining path after the prefix of a {@code prefix:} route.</li>
+ * </ul>
+ * The query string of the original request path is always preserved.
+ */
+final class PathTemplate {
+
+    private static final char PATH_SEPARATOR = '/';
+    private static final Splitter PATH_SPLITTER = Splitter.on(PATH_SEPARATOR);
+    private static final String WILDCARD_TAIL = "**";
+
+    // A rough guess of the length of a path parameter, used to pre-size the buffer of an expanded path.
+    private static final int ESTIMATED_DYNAMIC_SEGMENT_LENGTH = 16;
+
+    private static final int LITERAL = 0;
+    private static final int PATH_PARAM = 1;
+    private static final int TAIL = 2;
+
+    /**
+     * Parses the given {@code pathPattern} into a new {@link PathTemplate}.
+     *
+     * @throws IllegalArgumentException if the given {@code pathPattern} is malformed.
+     */
+    static PathTemplate of(String pathPattern) {
+        final List<Segment> segments = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+
+        final List<String> parts = PATH_SPLITTER.splitToList(pathPattern);
+        for (int i = 0; i < parts.size(); i++) {
+            final String part = parts.get(i);
+            if (WILDCARD_TAIL.equals(part)) {
+                checkArgument(i > 0 && i == parts.size() - 1,
+                              "wildcard tail should be the last segment: %s", pathPattern);
+                // The mapped path always starts with '/', so the separator in front of the tail is dropped.
+                flushLiteral(segments, literal);
+                segments.add(new Segment(TAIL, WILDCARD_TAIL));
+                continue;
+            }
+
+            if (i > 0) {
+                literal.append(PATH_SEPARATOR);
+            }
+
+            final String pathParamName = pathParamName(part);
+            if (pathParamName != null) {
+                checkArgument(!pathParamName.isEmpty(), "path parameter should have a name: %s", pathPattern);
+                flushLiteral(segments, literal);
+                segments.add(new Segment(PATH_PARAM, pathParamName));
+            } else {
+                literal.append(part);
+            }
+        }
+        flushLiteral(segments, literal);
+
+        return new PathTemplate(pathPattern, segments.toArray(new Segment[0]));
+    }
+
+    @Nullable
+    private static String pathParamName(String part) {
+        if (part.startsWith("{") && part.endsWith("}") && part.length() >= 2) {
+            return part.substring(1, part.length() - 1);
+        }
+        if (part.startsWith(":")) {
+            return part.substring(1);
+        }
+        return null;
+    }
+
+    private static void flushLiteral(List<Segment> segments, StringBuilder literal) {
+        if (literal.length() > 0) {
+            segments.add(new Segment(LITERAL, literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    private final String pathPattern;
+    private final Segment[] segments;
+    private final boolean isStatic;
+    private final int estimatedLength;
+
+    private PathTemplate(String pathPattern, Segment[] segments) {
+        this.pathPattern = pathPattern;
+        this.segments = segments;
+
+        boolean isStatic = true;
+        int estimatedLength = 0;
+        for (Segment segment : segments) {
+            if (segment.kind == LITERAL) {
+                estimatedLength += segment.value.length();
+            } else {
+                isStatic = false;
+                estimatedLength += ESTIMATED_DYNAMIC_SEGMENT_LENGTH;
+            }
+        }
+        this.isStatic = isStatic;
+        this.estimatedLength = estimatedLength;
+    }
+
+    /**
+     * Returns whether this template is expanded without a {@link ServiceRequestContext}.
+     */
+    boolean isStatic() {
+        return isStatic;
+    }
+
+    /**
+     * Expands this template into a new path, keeping the query string of the given {@code originalPath}.
+     *
+     * @throws IllegalStateException if a path parameter does not exist, or if this template is not static
+     *                               and {@code ctx} is {@code null}.
+     */
+    String expand(@Nullable ServiceRequestContext ctx, String originalPath) {
+        final int queryStart = originalPath.indexOf('?');
+        if (isStatic) {
+            if (queryStart < 0) {
+                return pathPattern;
+            }
+            return pathPattern.concat(originalPath.substring(queryStart));
+        }
+
+        if (ctx == null) {
+            throw new IllegalStateException("ServiceRequestContext is required to expand " + pathPattern);
+        }
+
+        final int queryLength = queryStart < 0 ? 0 : originalPath.length() - queryStart;
+        final StringBuilder buf = new StringBuilder(estimatedLength + queryLength);
+        for (Segment segment : segments) {
+            switch (segment.kind) {
+                case LITERAL:
+                    buf.append(segment.value);
+                    break;
+                case PATH_PARAM:
+                    final String pathParamValue = ctx.pathParam(segment.value);
+                    if (pathParamValue == null) {
+                        throw new IllegalStateException("pathParam " + segment.value + " does not exist");
+                    }
+                    buf.append(pathParamValue);
+                    break;
+                case TAIL:
+                    buf.append(ctx.mappedPath());
+                    break;
+                default:
+                    throw new Error(); // Should never reach here.
+            }
+        }
+        if (queryStart >= 0) {
+            buf.append(originalPath, queryStart, originalPath.length());
+        }
+        return buf.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pathPattern;
+    }
+
+    private static final class Segment {
+
+        private final int kind;
+        private final String value;
+
+        Segment(int kind, String value) {
+            this.kind = kind;
+            this.value = value;
+        }
+    }
+}
@@ -24,72 +24,26 @@
 
 package dev.gihwan.tollgate.gateway;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.function.Function;
+import javax.annotation.Nullable;
 
-import com.google.common.base.Splitter;
-
-import com.linecorp.armeria.common.HttpRequest;
-import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.RequestHeadersBuilder;
 import com.linecorp.armeria.server.ServiceRequestContext;
 
-final class RemappingPathFunction implements Function<HttpRequest, HttpRequest> {
-
-    private static final String PATH_SEPARATOR = "/";
-    private static final Splitter PATH_SPLITTER = Splitter.on(PATH_SEPARATOR);
+final class RemappingPathFunction extends AbstractRequestHeadersFunction {
 
-    private final String pathPattern;
-    private final boolean hasPathParams;
+    private final PathTemplate pathTemplate;
 
     RemappingPathFunction(String pathPattern) {
-        this.pathPattern = pathPattern;
-        this.hasPathParams = hasPathParams(pathPattern);
-    }
-
-    private static boolean hasPathParams(String pathPattern) {
-        for (String segment : PATH_SPLITTER.split(pathPattern)) {
-            if (segment.startsWith("{") && segment.endsWith("}")) {
-                return true;
-            }
-        }
-        return false;
+        pathTemplate = PathTemplate.of(pathPattern);
     }
 
     @Override
-    public HttpRequest apply(HttpRequest req) {
-        if (hasPathParams) {
-            final ServiceRequestContext ctx = ServiceRequestContext.current();
-            return req.mapHeaders(headers -> remapPathWithPathParams(ctx, headers));
-        } else {
-            return req.mapHeaders(this::remapPath);
-        }
+    void transform(@Nullable ServiceRequestContext ctx, RequestHeadersBuilder builder) {
+        builder.path(pathTemplate.expand(ctx, builder.path()));
     }
 
-    private RequestHeaders remapPathWithPathParams(ServiceRequestContext ctx, RequestHeaders headers) {
-        final List<String> segments = new ArrayList<>();
-        for (String segment : PATH_SPLITTER.split(pathPattern)) {
-            if (segment.startsWith("{") && segment.endsWith("}")) {
-                final String pathParamName = segment.substring(1, segment.length() - 1);
-                final String pathParamValue = ctx.pathParam(pathParamName);
-                if (pathParamValue == null) {
-                    throw new IllegalStateException("pathParam " + pathParamName + " does not exist");
-                }
-                segments.add(pathParamValue);
-            } else {
-                segments.add(segment);
-            }
-        }
-
-        final String remappedPath = String.join(PATH_SEPARATOR, segments);
-        return headers.toBuilder()
-                      .path(remappedPath)
-                      .build();
-    }
-
-    private RequestHeaders remapPath(RequestHeaders headers) {
-        return headers.toBuilder()
-                      .path(pathPattern)
-                      .build();
+    @Override
+    boolean requiresContext() {
+        return !pathTemplate.isStatic();
     }
 }
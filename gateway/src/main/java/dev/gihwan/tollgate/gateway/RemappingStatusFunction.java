@@ -26,15 +26,10 @@ package dev.gihwan.tollgate.gateway;
 
 import static java.util.Objects.requireNonNull;
 
-import java.util.function.Function;
-
-import com.linecorp.armeria.common.FilteredHttpResponse;
-import com.linecorp.armeria.common.HttpObject;
-import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
-import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.ResponseHeadersBuilder;
 
-final class RemappingStatusFunction implements Function<HttpResponse, HttpResponse> {
+final class RemappingStatusFunction extends AbstractResponseHeadersFunction {
 
     private final HttpStatusFunction statusFunction;
 
@@ -42,22 +37,18 @@ final class RemappingStatusFunction implements Function<HttpResponse, HttpRespon
         this.statusFunction = statusFunction;
     }
 
+    HttpStatusFunction statusFunction() {
+        return statusFunction;
+    }
+
     @Override
-    public HttpResponse apply(HttpResponse res) {
-        return new FilteredHttpResponse(res) {
-            @Override
-            protected HttpObject filter(HttpObject obj) {
-                if (!(obj instanceof ResponseHeaders)) {
-                    return obj;
-                }
-
-                final ResponseHeaders headers = (ResponseHeaders) obj;
-                final HttpStatus newStatus = statusFunction.apply(headers.status());
-                requireNonNull(newStatus, "transformed response status should not be null");
-                return headers.toBuilder()
-                              .status(newStatus)
-                              .build();
-            }
-        };
+    void transform(ResponseHeadersBuilder builder) {
+        final HttpStatus status = builder.status();
+        final HttpStatus newStatus = statusFunction.apply(status);
+        requireNonNull(newStatus, "transformed response status should not be null");
+        if (!newStatus.equals(status)) {
+            // Keep the original headers shared if the status is not changed.
+            builder.status(newStatus);
+        }
     }
 }
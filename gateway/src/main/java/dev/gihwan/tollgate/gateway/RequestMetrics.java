@@ -0,0 +1,110 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.linecorp.armeria.common.HttpStatusClass;
+import com.linecorp.armeria.common.logging.RequestLog;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The meters of the completed requests, which are registered once and looked up by the status class of
+ * a response so that recording a request does not allocate.
+ *
+ * <p>The latencies are recorded into fixed bucket histograms rather than client-side percentiles, which
+ * are cheap to record and can be aggregated with {@code histogram_quantile()} of Prometheus.
+ */
+final class RequestMetrics {
+
+    private static final HttpStatusClass[] STATUS_CLASSES = HttpStatusClass.values();
+
+    private static final Duration MINIMUM_EXPECTED_DURATION = Duration.ofMillis(1);
+    private static final Duration MAXIMUM_EXPECTED_DURATION = Duration.ofSeconds(30);
+
+    private final Timer[] durations = new Timer[STATUS_CLASSES.length];
+    private final DistributionSummary requestLength;
+    private final DistributionSummary responseLength;
+
+    /**
+     * Registers the meters whose names start with the given {@code prefix}, e.g.
+     * {@code <prefix>.duration}, {@code <prefix>.request.length} and {@code <prefix>.response.length}.
+     */
+    RequestMetrics(MeterRegistry registry, String prefix, Tags tags) {
+        for (HttpStatusClass statusClass : STATUS_CLASSES) {
+            durations[statusClass.ordinal()] =
+                    Timer.builder(prefix + ".duration")
+                         .description("The time taken to complete a request")
+                         .tags(tags)
+                         .tag("status", statusClassName(statusClass))
+                         .publishPercentileHistogram()
+                         .minimumExpectedValue(MINIMUM_EXPECTED_DURATION)
+                         .maximumExpectedValue(MAXIMUM_EXPECTED_DURATION)
+                         .register(registry);
+        }
+        requestLength = DistributionSummary.builder(prefix + ".request.length")
+                                           .description("The length of the content of a request")
+                                           .baseUnit("bytes")
+                                           .tags(tags)
+                                           .register(registry);
+        responseLength = DistributionSummary.builder(prefix + ".response.length")
+                                            .description("The length of the content of a response")
+                                            .baseUnit("bytes")
+                                            .tags(tags)
+                                            .register(registry);
+    }
+
+    /**
+     * Records the given completed {@link RequestLog}.
+     */
+    void record(RequestLog log) {
+        final HttpStatusClass statusClass = log.responseHeaders().status().codeClass();
+        durations[statusClass.ordinal()].record(log.totalDurationNanos(), TimeUnit.NANOSECONDS);
+        requestLength.record(log.requestLength());
+        responseLength.record(log.responseLength());
+    }
+
+    private static String statusClassName(HttpStatusClass statusClass) {
+        switch (statusClass) {
+            case INFORMATIONAL:
+                return "1xx";
+            case SUCCESS:
+                return "2xx";
+            case REDIRECTION:
+                return "3xx";
+            case CLIENT_ERROR:
+                return "4xx";
+            case SERVER_ERROR:
+                return "5xx";
+            default:
+                // A request which failed without a response.
+                return "unknown";
+        }
+    }
+}
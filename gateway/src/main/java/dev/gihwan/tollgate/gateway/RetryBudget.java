@@ -0,0 +1,128 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A token bucket which limits the retries to an {@link Upstream}. Every request deposits a fraction of a token
+ * and every retry withdraws a token. A fixed number of tokens is deposited every second as well, so that the
+ * retries are allowed at a minimum rate regardless of the traffic.
+ *
+ * <p>The bucket holds up to the tokens deposited in {@value #MAX_BURST_SECONDS} seconds at the minimum rate, or
+ * {@value #MAX_BURST_SECONDS} tokens if the minimum rate is zero, so that the tokens saved while the upstream
+ * server is healthy do not allow a burst of retries during an outage.
+ */
+final class RetryBudget {
+
+    // The balance is kept in milli-tokens to deposit a fraction of a token without a lock.
+    private static final long SCALE = 1000;
+    private static final int MAX_BURST_SECONDS = 10;
+
+    private final long depositPerRequest;
+    private final long depositPerSecond;
+    private final long capacity;
+    private final LongSupplier ticker;
+
+    private final AtomicLong balance;
+    private final AtomicLong lastDepositNanos;
+
+    RetryBudget(double ratio, int minRetriesPerSecond) {
+        this(ratio, minRetriesPerSecond, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    RetryBudget(double ratio, int minRetriesPerSecond, LongSupplier ticker) {
+        depositPerRequest = (long) (ratio * SCALE);
+        depositPerSecond = minRetriesPerSecond * SCALE;
+        capacity = Math.max(depositPerSecond, SCALE) * MAX_BURST_SECONDS;
+        this.ticker = ticker;
+        balance = new AtomicLong(depositPerSecond);
+        lastDepositNanos = new AtomicLong(ticker.getAsLong());
+    }
+
+    /**
+     * Deposits the tokens of a request.
+     */
+    void onRequest() {
+        if (depositPerRequest > 0) {
+            deposit(depositPerRequest);
+        }
+    }
+
+    /**
+     * Withdraws a token for a retry.
+     *
+     * @return {@code true} if a token is withdrawn, {@code false} if the budget is exhausted.
+     */
+    boolean tryRetry() {
+        depositPerSecond();
+        for (;;) {
+            final long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the retries which are allowed now.
+     */
+    long available() {
+        depositPerSecond();
+        return balance.get() / SCALE;
+    }
+
+    private void depositPerSecond() {
+        if (depositPerSecond == 0) {
+            return;
+        }
+        final long now = ticker.getAsLong();
+        final long last = lastDepositNanos.get();
+        // Limits the elapsed time to avoid an overflow, which fills the bucket anyway.
+        final long elapsedNanos = Math.min(now - last, TimeUnit.SECONDS.toNanos(MAX_BURST_SECONDS));
+        final long amount = depositPerSecond * elapsedNanos / TimeUnit.SECONDS.toNanos(1);
+        if (amount > 0 && lastDepositNanos.compareAndSet(last, now)) {
+            deposit(amount);
+        }
+    }
+
+    private void deposit(long amount) {
+        for (;;) {
+            final long current = balance.get();
+            final long next = Math.min(current + amount, capacity);
+            if (current == next || balance.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.util.Set;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+
+/**
+ * A policy to retry the failed requests to an {@link Upstream}.
+ *
+ * <p>A request is retried if its method is idempotent, e.g. {@code GET}, and the upstream server responds with
+ * a retryable status or the request fails with an exception. A request of any method is retried if it has not
+ * been sent to the upstream server at all, e.g. the connection could not be established. Each retry is sent to
+ * an endpoint of the {@link Upstream} which has not been tried yet, if any, after an exponential backoff with
+ * jitter.
+ *
+ * <p>The retries are limited by a retry budget, which is a token bucket shared by all requests to the
+ * {@link Upstream}. Every request deposits {@code budgetRatio} of a token and every retry withdraws a token,
+ * so that the retries do not exceed the ratio of the requests during an outage. {@code minRetriesPerSecond}
+ * tokens are deposited every second as well, so that an {@link Upstream} with little traffic can retry.
+ *
+ * <p>The content of a request is kept in memory to be sent again, only if its {@code content-length} is known
+ * and does not exceed the maximum replayable content length. The other requests are sent without retry.
+ *
+ * @see RetryPolicyBuilder
+ */
+public final class RetryPolicy {
+
+    /**
+     * Returns a new {@link RetryPolicy} with the default settings.
+     */
+    public static RetryPolicy ofDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a new {@link RetryPolicyBuilder}.
+     */
+    public static RetryPolicyBuilder builder() {
+        return new RetryPolicyBuilder();
+    }
+
+    private final int maxAttempts;
+    private final Set<HttpMethod> methods;
+    private final Set<HttpStatus> statuses;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final double budgetRatio;
+    private final int minRetriesPerSecond;
+    private final int maxReplayableContentLength;
+
+    RetryPolicy(int maxAttempts, Set<HttpMethod> methods, Set<HttpStatus> statuses, Duration initialBackoff,
+                Duration maxBackoff, double jitter, double budgetRatio, int minRetriesPerSecond,
+                int maxReplayableContentLength) {
+        this.maxAttempts = maxAttempts;
+        this.methods = methods;
+        this.statuses = statuses;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.jitter = jitter;
+        this.budgetRatio = budgetRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.maxReplayableContentLength = maxReplayableContentLength;
+    }
+
+    int maxAttempts() {
+        return maxAttempts;
+    }
+
+    Set<HttpMethod> methods() {
+        return methods;
+    }
+
+    Set<HttpStatus> statuses() {
+        return statuses;
+    }
+
+    Duration initialBackoff() {
+        return initialBackoff;
+    }
+
+    Duration maxBackoff() {
+        return maxBackoff;
+    }
+
+    double jitter() {
+        return jitter;
+    }
+
+    double budgetRatio() {
+        return budgetRatio;
+    }
+
+    int minRetriesPerSecond() {
+        return minRetriesPerSecond;
+    }
+
+    int maxReplayableContentLength() {
+        return maxReplayableContentLength;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("maxAttempts", maxAttempts)
+                          .add("methods", methods)
+                          .add("statuses", statuses)
+                          .add("initialBackoff", initialBackoff)
+                          .add("maxBackoff", maxBackoff)
+                          .add("jitter", jitter)
+                          .add("budgetRatio", budgetRatio)
+                          .add("minRetriesPerSecond", minRetriesPerSecond)
+                          .add("maxReplayableContentLength", maxReplayableContentLength)
+                          .toString();
+    }
+}
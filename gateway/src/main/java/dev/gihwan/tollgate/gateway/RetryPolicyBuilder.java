@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Set;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+
+/**
+ * A builder for {@link RetryPolicy}.
+ */
+public final class RetryPolicyBuilder {
+
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final Set<HttpMethod> DEFAULT_METHODS =
+            Sets.immutableEnumSet(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS, HttpMethod.TRACE,
+                                  HttpMethod.PUT, HttpMethod.DELETE);
+    private static final Set<HttpStatus> DEFAULT_STATUSES =
+            ImmutableSet.of(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT);
+    private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(50);
+    private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1);
+    private static final double DEFAULT_JITTER = 0.2;
+    private static final double DEFAULT_BUDGET_RATIO = 0.2;
+    private static final int DEFAULT_MIN_RETRIES_PER_SECOND = 10;
+    private static final int DEFAULT_MAX_REPLAYABLE_CONTENT_LENGTH = 64 * 1024;
+
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private Set<HttpMethod> methods = DEFAULT_METHODS;
+    private Set<HttpStatus> statuses = DEFAULT_STATUSES;
+    private Duration initialBackoff = DEFAULT_INITIAL_BACKOFF;
+    private Duration maxBackoff = DEFAULT_MAX_BACKOFF;
+    private double jitter = DEFAULT_JITTER;
+    private double budgetRatio = DEFAULT_BUDGET_RATIO;
+    private int minRetriesPerSecond = DEFAULT_MIN_RETRIES_PER_SECOND;
+    private int maxReplayableContentLength = DEFAULT_MAX_REPLAYABLE_CONTENT_LENGTH;
+
+    RetryPolicyBuilder() {}
+
+    /**
+     * Sets the maximum number of the attempts of a request, including the first attempt.
+     * By default, {@code 3} is used.
+     */
+    public RetryPolicyBuilder maxAttempts(int maxAttempts) {
+        checkArgument(maxAttempts > 0, "maxAttempts: %s (expected: > 0)", maxAttempts);
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * Sets the idempotent methods whose requests are retried after a response or a failure.
+     * By default, {@code GET}, {@code HEAD}, {@code OPTIONS}, {@code TRACE}, {@code PUT} and {@code DELETE}
+     * are idempotent.
+     */
+    public RetryPolicyBuilder methods(HttpMethod... methods) {
+        return methods(ImmutableList.copyOf(requireNonNull(methods, "methods")));
+    }
+
+    /**
+     * Sets the idempotent methods whose requests are retried after a response or a failure.
+     * By default, {@code GET}, {@code HEAD}, {@code OPTIONS}, {@code TRACE}, {@code PUT} and {@code DELETE}
+     * are idempotent.
+     */
+    public RetryPolicyBuilder methods(Iterable<HttpMethod> methods) {
+        this.methods = Sets.immutableEnumSet(requireNonNull(methods, "methods"));
+        return this;
+    }
+
+    /**
+     * Sets the statuses of the responses which are retried. By default, {@code 502}, {@code 503} and
+     * {@code 504} are retried.
+     */
+    public RetryPolicyBuilder statuses(HttpStatus... statuses) {
+        return statuses(ImmutableList.copyOf(requireNonNull(statuses, "statuses")));
+    }
+
+    /**
+     * Sets the statuses of the responses which are retried. By default, {@code 502}, {@code 503} and
+     * {@code 504} are retried.
+     */
+    public RetryPolicyBuilder statuses(Iterable<HttpStatus> statuses) {
+        this.statuses = ImmutableSet.copyOf(requireNonNull(statuses, "statuses"));
+        return this;
+    }
+
+    /**
+     * Sets the backoff before the first retry, which doubles for each retry up to the given {@code maxBackoff}.
+     * By default, {@code 50} milliseconds and {@code 1} second are used.
+     */
+    public RetryPolicyBuilder backoff(Duration initialBackoff, Duration maxBackoff) {
+        requireNonNull(initialBackoff, "initialBackoff");
+        requireNonNull(maxBackoff, "maxBackoff");
+        checkArgument(!initialBackoff.isNegative(), "initialBackoff: %s (expected: >= 0)", initialBackoff);
+        checkArgument(maxBackoff.compareTo(initialBackoff) >= 0,
+                      "maxBackoff: %s (expected: >= initialBackoff)", maxBackoff);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        return this;
+    }
+
+    /**
+     * Sets the rate of the random jitter of a backoff, e.g. {@code 0.2} for a backoff between {@code 80%} and
+     * {@code 120%}. By default, {@code 0.2} is used.
+     */
+    public RetryPolicyBuilder jitter(double jitter) {
+        checkArgument(jitter >= 0 && jitter <= 1, "jitter: %s (expected: 0 <= jitter <= 1)", jitter);
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Sets the retry budget, i.e. the ratio of the retries to the requests and the minimum number of the
+     * retries per second which are allowed regardless of the ratio. By default, {@code 0.2} and {@code 10} are
+     * used.
+     */
+    public RetryPolicyBuilder budget(double budgetRatio, int minRetriesPerSecond) {
+        checkArgument(budgetRatio >= 0 && budgetRatio <= 1,
+                      "budgetRatio: %s (expected: 0 <= budgetRatio <= 1)", budgetRatio);
+        checkArgument(minRetriesPerSecond >= 0,
+                      "minRetriesPerSecond: %s (expected: >= 0)", minRetriesPerSecond);
+        this.budgetRatio = budgetRatio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        return this;
+    }
+
+    /**
+     * Sets the maximum length of the content of a request which is kept to be sent again. The requests with
+     * longer or unknown content length are not retried. By default, {@code 65536} bytes is used.
+     */
+    public RetryPolicyBuilder maxReplayableContentLength(int maxReplayableContentLength) {
+        checkArgument(maxReplayableContentLength >= 0,
+                      "maxReplayableContentLength: %s (expected: >= 0)", maxReplayableContentLength);
+        this.maxReplayableContentLength = maxReplayableContentLength;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link RetryPolicy} based on the properties of this builder.
+     */
+    public RetryPolicy build() {
+        return new RetryPolicy(maxAttempts, methods, statuses, initialBackoff, maxBackoff, jitter,
+                               budgetRatio, minRetriesPerSecond, maxReplayableContentLength);
+    }
+}
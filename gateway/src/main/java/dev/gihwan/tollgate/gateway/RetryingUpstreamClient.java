@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.SimpleDecoratingHttpClient;
+import com.linecorp.armeria.client.UnprocessedRequestException;
+import com.linecorp.armeria.client.circuitbreaker.FailFastException;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpRequestDuplicator;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogProperty;
+import com.linecorp.armeria.common.stream.AbortedStreamException;
+import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.common.util.TimeoutMode;
+
+/**
+ * A decorator of the client of an {@link Upstream} which retries the failed requests according to
+ * {@link UpstreamRetry}. Each attempt has its own {@link ClientRequestContext} derived from the original one,
+ * whose {@link RequestLog} is the child of the original {@link RequestLog}.
+ */
+final class RetryingUpstreamClient extends SimpleDecoratingHttpClient {
+
+    private final UpstreamRetry retry;
+
+    RetryingUpstreamClient(HttpClient delegate, UpstreamRetry retry) {
+        super(delegate);
+        this.retry = retry;
+    }
+
+    @Override
+    public HttpResponse execute(ClientRequestContext ctx, HttpRequest req) throws Exception {
+        retry.onRequest();
+        if (retry.maxAttempts() == 1 || !isReplayable(req)) {
+            return unwrap().execute(ctx, req);
+        }
+
+        final CompletableFuture<HttpResponse> resFuture = new CompletableFuture<>();
+        final HttpResponse res = HttpResponse.from(resFuture, ctx.eventLoop());
+        final HttpRequestDuplicator duplicator =
+                req.toDuplicator(ctx.eventLoop().withoutContext(), retry.maxReplayableContentLength());
+        final Attempts attempts = new Attempts(ctx, duplicator, res, resFuture);
+        res.whenComplete().exceptionally(cause -> {
+            // Gives up the backoff as soon as the response to a user is aborted rather than when it is over.
+            ctx.eventLoop().withoutContext().execute(attempts::cancelBackoff);
+            return null;
+        });
+        attempts.next();
+        return res;
+    }
+
+    private boolean isReplayable(HttpRequest req) {
+        if (req.isEmpty()) {
+            return true;
+        }
+        final long contentLength = req.headers().getLong(HttpHeaderNames.CONTENT_LENGTH, -1);
+        return contentLength >= 0 && contentLength <= retry.maxReplayableContentLength();
+    }
+
+    private final class Attempts {
+
+        private final ClientRequestContext ctx;
+        private final HttpRequestDuplicator duplicator;
+        private final HttpResponse res;
+        private final CompletableFuture<HttpResponse> resFuture;
+        private final long deadlineNanos;
+        private final List<Endpoint> triedEndpoints = new ArrayList<>();
+        @Nullable
+        private ScheduledFuture<?> backoff;
+
+        Attempts(ClientRequestContext ctx, HttpRequestDuplicator duplicator, HttpResponse res,
+                 CompletableFuture<HttpResponse> resFuture) {
+            this.ctx = ctx;
+            this.duplicator = duplicator;
+            this.res = res;
+            this.resFuture = resFuture;
+            final long responseTimeoutMillis = ctx.responseTimeoutMillis();
+            deadlineNanos = responseTimeoutMillis > 0 ? System.nanoTime() +
+                                                        TimeUnit.MILLISECONDS.toNanos(responseTimeoutMillis)
+                                                      : 0;
+        }
+
+        void next() {
+            final boolean initialAttempt = triedEndpoints.isEmpty();
+            if (!initialAttempt && !res.isOpen()) {
+                // The response to a user has been aborted before the backoff is cancelled.
+                abort();
+                return;
+            }
+
+            final Endpoint endpoint = initialAttempt ? ctx.endpoint()
+                                                     : EndpointSelection.selectUntried(ctx, triedEndpoints);
+            final HttpRequest attemptReq = duplicator.duplicate();
+            final ClientRequestContext attemptCtx =
+                    ctx.newDerivedContext(ctx.options().requestIdGenerator().get(), attemptReq, null, endpoint);
+            ctx.logBuilder().addChild(attemptCtx.log());
+            triedEndpoints.add(endpoint);
+            if (deadlineNanos != 0) {
+                final long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+                attemptCtx.setResponseTimeoutMillis(TimeoutMode.SET_FROM_NOW, Math.max(remainingMillis, 1));
+            }
+
+            HttpResponse attemptRes;
+            try {
+                attemptRes = unwrap().execute(attemptCtx, attemptReq);
+            } catch (Throwable cause) {
+                attemptCtx.logBuilder().endRequest(cause);
+                attemptCtx.logBuilder().endResponse(cause);
+                attemptRes = HttpResponse.ofFailure(cause);
+            }
+
+            final HttpResponse finalAttemptRes = attemptRes;
+            attemptCtx.log().whenAvailable(RequestLogProperty.RESPONSE_HEADERS).thenAccept(log -> {
+                final HttpStatus status = log.responseHeaders().status();
+                if (!status.equals(HttpStatus.UNKNOWN)) {
+                    onResponse(finalAttemptRes, shouldRetry(status));
+                } else {
+                    // No response headers are received, so the request has failed.
+                    attemptCtx.log().whenComplete().thenAccept(completeLog -> onResponse(
+                            finalAttemptRes, shouldRetry(completeLog.responseCause())));
+                }
+            });
+        }
+
+        private boolean shouldRetry(HttpStatus status) {
+            return retry.isRetryable(status) && retry.isIdempotent(method());
+        }
+
+        private boolean shouldRetry(@Nullable Throwable cause) {
+            if (cause == null) {
+                return false;
+            }
+            if (UpstreamBulkhead.isRejected(cause)) {
+                // Retrying a request rejected by the bulkhead only adds load to the saturated bulkhead.
+                return false;
+            }
+            final Throwable peeled = Exceptions.peel(cause);
+            if (peeled instanceof UnprocessedRequestException) {
+                // The request has not been sent at all, so it is safe to retry regardless of its method.
+                return !(peeled.getCause() instanceof FailFastException);
+            }
+            return !(peeled instanceof FailFastException) && retry.isIdempotent(method());
+        }
+
+        private HttpMethod method() {
+            return duplicator.headers().method();
+        }
+
+        private void onResponse(HttpResponse attemptRes, boolean shouldRetry) {
+            if (!shouldRetry || triedEndpoints.size() >= retry.maxAttempts() || !res.isOpen()) {
+                complete(attemptRes);
+                return;
+            }
+
+            final long delayMillis = retry.nextDelayMillis(triedEndpoints.size());
+            if (deadlineNanos != 0 &&
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis) >= deadlineNanos) {
+                complete(attemptRes);
+                return;
+            }
+            if (!retry.tryRetry()) {
+                complete(attemptRes);
+                return;
+            }
+
+            attemptRes.abort();
+            backoff = ctx.eventLoop().withoutContext().schedule(this::next, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        void cancelBackoff() {
+            if (backoff != null && backoff.cancel(false)) {
+                abort();
+            }
+        }
+
+        /**
+         * Ends the log when the response to a user has been aborted while waiting for the backoff, because no
+         * attempt ends it with its log.
+         */
+        private void abort() {
+            final AbortedStreamException cause = AbortedStreamException.get();
+            duplicator.abort(cause);
+            ctx.logBuilder().endRequest(cause);
+            ctx.logBuilder().endResponse(cause);
+            resFuture.completeExceptionally(cause);
+        }
+
+        private void complete(HttpResponse attemptRes) {
+            ctx.logBuilder().endResponseWithLastChild();
+            duplicator.close();
+            resFuture.complete(attemptRes);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A percentile of the latencies recorded in the last {@value #INTERVALS} intervals of at least a second.
+ *
+ * <p>The latencies are recorded into a {@link Recorder} without a lock. The percentile is computed again at
+ * most once a second by the caller of {@link #valueMicros()}, which moves the latencies of the last interval
+ * into the window and drops the latencies of the oldest interval.
+ */
+final class RollingPercentile {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final int INTERVALS = 10;
+    private static final long INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // The minimum number of the latencies in the window which makes the percentile meaningful.
+    @VisibleForTesting
+    static final int MIN_SAMPLES = 20;
+
+    private final double percentile;
+    private final LongSupplier ticker;
+
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram window = new Histogram(MAX_LATENCY_MICROS, SIGNIFICANT_DIGITS);
+    private final Histogram[] intervals = new Histogram[INTERVALS];
+    private int nextInterval;
+
+    private final AtomicLong nextUpdateNanos;
+    private volatile long valueMicros = -1;
+
+    /**
+     * Creates a new instance for the given {@code percentile}, e.g. {@code 0.95}.
+     */
+    RollingPercentile(double percentile) {
+        this(percentile, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    RollingPercentile(double percentile, LongSupplier ticker) {
+        this.percentile = percentile * 100;
+        this.ticker = ticker;
+        nextUpdateNanos = new AtomicLong(ticker.getAsLong() + INTERVAL_NANOS);
+    }
+
+    /**
+     * Records the given latency.
+     */
+    void record(long latencyNanos) {
+        final long latencyMicros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        recorder.recordValue(Math.max(0, Math.min(latencyMicros, MAX_LATENCY_MICROS)));
+    }
+
+    /**
+     * Returns the percentile of the recent latencies in microseconds, or {@code -1} if there are not enough
+     * latencies in the window.
+     */
+    long valueMicros() {
+        final long now = ticker.getAsLong();
+        final long next = nextUpdateNanos.get();
+        if (now - next >= 0 && nextUpdateNanos.compareAndSet(next, now + INTERVAL_NANOS)) {
+            update();
+        }
+        return valueMicros;
+    }
+
+    private synchronized void update() {
+        @Nullable
+        final Histogram expired = intervals[nextInterval];
+        final Histogram interval;
+        if (expired != null) {
+            window.subtract(expired);
+            interval = recorder.getIntervalHistogram(expired);
+        } else {
+            interval = recorder.getIntervalHistogram();
+        }
+        window.add(interval);
+        intervals[nextInterval] = interval;
+        nextInterval = (nextInterval + 1) % INTERVALS;
+
+        valueMicros = window.getTotalCount() >= MIN_SAMPLES ? window.getValueAtPercentile(percentile) : -1;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.server.Route;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The metrics of a route and its upstream, which are tagged with the path pattern and the methods of the
+ * route. The metrics of the upstream are tagged with the authority of the {@link Endpoint} as well.
+ *
+ * <ul>
+ *   <li>{@code tollgate.route.duration}, {@code tollgate.route.request.length} and
+ *       {@code tollgate.route.response.length} of the requests from users. See {@link RequestMetrics}.</li>
+ *   <li>{@code tollgate.route.active.requests} of the requests from users in flight.</li>
+ *   <li>{@code tollgate.upstream.duration}, {@code tollgate.upstream.request.length} and
+ *       {@code tollgate.upstream.response.length} of the requests to the upstream servers.</li>
+ *   <li>{@code tollgate.upstream.active.requests} of the requests to the upstream servers in flight.</li>
+ *   <li>{@code tollgate.upstream.phase.duration} of the phases of the requests to the upstream servers.
+ *       See {@link UpstreamTimings}.</li>
+ *   <li>{@code tollgate.upstream.circuit.breaker.*} of the circuit breaker of the upstream if configured.
+ *       See {@link UpstreamCircuitBreaker}.</li>
+ *   <li>{@code tollgate.upstream.retries} and {@code tollgate.upstream.retry.budget.*} of the retries if
+ *       configured. See {@link UpstreamRetry}.</li>
+ *   <li>{@code tollgate.upstream.hedges*} and {@code tollgate.upstream.hedge.delay} of the hedged requests if
+ *       configured. See {@link UpstreamHedging}.</li>
+ *   <li>{@code tollgate.upstream.concurrency.*} of the adaptive concurrency limit if configured.
+ *       See {@link UpstreamConcurrencyLimiter}.</li>
+ *   <li>{@code tollgate.upstream.bulkhead.*} and {@code tollgate.route.bulkhead.*} of the bulkheads of the
+ *       upstream and the route if configured. See {@link Bulkhead}.</li>
+ *   <li>{@code tollgate.route.deadline.*} of the requests not forwarded or cancelled by the deadline
+ *       propagation if configured. See {@link DeadlinePropagation}.</li>
+ *   <li>{@code tollgate.upstream.health.count} and {@code tollgate.upstream.health.healthy} of the endpoints
+ *       of the upstream if the health check is configured.</li>
+ *   <li>{@code tollgate.upstream.outlier.*} of the ejected endpoints of the upstream if the outlier detection
+ *       is configured.</li>
+ *   <li>{@code tollgate.upstream.dns.endpoints} discovered from DNS if the DNS discovery is configured.</li>
+ *   <li>{@code tollgate.upstream.file.*} of the endpoints discovered from a file if the file discovery is
+ *       configured.</li>
+ *   <li>{@code tollgate.upstream.slow.start.endpoints} warming up if the slow start is configured.</li>
+ *   <li>{@code tollgate.upstream.zone.local.share} of the requests routed to the local zone if the zone-aware
+ *       routing is configured.</li>
+ * </ul>
+ */
+final class RouteMetrics {
+
+    private static final String ROUTE_PREFIX = "tollgate.route";
+    private static final String UPSTREAM_PREFIX = "tollgate.upstream";
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+    private final RequestMetrics routeMetrics;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger activeUpstreamRequests = new AtomicInteger();
+    private final ConcurrentMap<String, UpstreamMetrics> upstreamMetrics = new ConcurrentHashMap<>();
+
+    RouteMetrics(MeterRegistry registry, Route route) {
+        this.registry = registry;
+        tags = Tags.of("route", route.patternString(), "methods", methods(route.methods()));
+        routeMetrics = new RequestMetrics(registry, ROUTE_PREFIX, tags);
+        Gauge.builder(ROUTE_PREFIX + ".active.requests", activeRequests, AtomicInteger::get)
+             .description("The number of the requests in flight")
+             .tags(tags)
+             .register(registry);
+        Gauge.builder(UPSTREAM_PREFIX + ".active.requests", activeUpstreamRequests, AtomicInteger::get)
+             .description("The number of the requests to the upstream servers in flight")
+             .tags(tags)
+             .register(registry);
+    }
+
+    /**
+     * Returns the {@link Tags} of the route.
+     */
+    Tags tags() {
+        return tags;
+    }
+
+    private static String methods(Set<HttpMethod> methods) {
+        if (methods.containsAll(HttpMethod.knownMethods())) {
+            return "*";
+        }
+        return methods.stream().map(HttpMethod::name).sorted().collect(Collectors.joining(","));
+    }
+
+    /**
+     * Starts recording the request of the given {@link ServiceRequestContext}.
+     */
+    void onRequest(ServiceRequestContext ctx) {
+        activeRequests.incrementAndGet();
+        ctx.log().whenComplete().thenAccept(log -> {
+            activeRequests.decrementAndGet();
+            routeMetrics.record(log);
+        });
+    }
+
+    /**
+     * Starts recording the request to the upstream server of the given {@link ClientRequestContext}.
+     */
+    void onUpstreamRequest(ClientRequestContext ctx) {
+        activeUpstreamRequests.incrementAndGet();
+        ctx.log().whenComplete().thenAccept(log -> {
+            activeUpstreamRequests.decrementAndGet();
+            upstreamMetrics(log).record(log);
+        });
+    }
+
+    private UpstreamMetrics upstreamMetrics(RequestLog log) {
+        @Nullable
+        final Endpoint endpoint = ((ClientRequestContext) log.context()).endpoint();
+        final String authority = endpoint != null ? endpoint.authority() : UNKNOWN_ENDPOINT;
+        final UpstreamMetrics metrics = upstreamMetrics.get(authority);
+        if (metrics != null) {
+            return metrics;
+        }
+        return upstreamMetrics.computeIfAbsent(
+                authority, unused -> new UpstreamMetrics(registry, tags.and("endpoint", authority)));
+    }
+
+    private static final class UpstreamMetrics {
+
+        private final RequestMetrics requestMetrics;
+        private final UpstreamTimings timings;
+
+        UpstreamMetrics(MeterRegistry registry, Tags tags) {
+            requestMetrics = new RequestMetrics(registry, UPSTREAM_PREFIX, tags);
+            timings = new UpstreamTimings(registry, UPSTREAM_PREFIX + ".phase.duration", tags);
+        }
+
+        void record(RequestLog log) {
+            requestMetrics.record(log);
+            timings.record(log);
+        }
+    }
+}
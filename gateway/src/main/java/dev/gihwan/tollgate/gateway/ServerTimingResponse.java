@@ -0,0 +1,99 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.common.FilteredHttpResponse;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.logging.RequestLogAccess;
+import com.linecorp.armeria.common.logging.RequestLogProperty;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A {@link HttpResponse} which adds a {@code server-timing} header to the {@link ResponseHeaders} of the
+ * upstream server, e.g. {@code gateway;dur=0.215, upstream;dur=12.031}, where {@code upstream} is the time
+ * taken to receive the {@link ResponseHeaders} from the upstream server since sending the request, and
+ * {@code gateway} is the rest of the time taken since receiving the request from a user, in milliseconds.
+ */
+final class ServerTimingResponse extends FilteredHttpResponse {
+
+    private final ServiceRequestContext ctx;
+    private final ClientRequestContext upstreamCtx;
+
+    ServerTimingResponse(HttpResponse delegate, ServiceRequestContext ctx, ClientRequestContext upstreamCtx) {
+        super(delegate);
+        this.ctx = ctx;
+        this.upstreamCtx = upstreamCtx;
+    }
+
+    @Override
+    protected HttpObject filter(HttpObject obj) {
+        if (!(obj instanceof ResponseHeaders)) {
+            return obj;
+        }
+        final ResponseHeaders headers = (ResponseHeaders) obj;
+        if (headers.status().isInformational()) {
+            return obj;
+        }
+
+        final long nowNanos = System.nanoTime();
+        final long totalDurationNanos = durationNanos(ctx.log(), nowNanos);
+        final long upstreamDurationNanos = durationNanos(upstreamCtx.log(), nowNanos);
+        if (totalDurationNanos < 0 || upstreamDurationNanos < 0) {
+            return obj;
+        }
+
+        final StringBuilder buf = new StringBuilder(48);
+        buf.append("gateway;dur=");
+        appendMillis(buf, Math.max(totalDurationNanos - upstreamDurationNanos, 0));
+        buf.append(", upstream;dur=");
+        appendMillis(buf, upstreamDurationNanos);
+        return headers.toBuilder()
+                      .add(HttpHeaderNames.SERVER_TIMING, buf.toString())
+                      .build();
+    }
+
+    private static long durationNanos(RequestLogAccess log, long nowNanos) {
+        if (!log.isAvailable(RequestLogProperty.REQUEST_START_TIME)) {
+            return -1;
+        }
+        return nowNanos - log.partial().requestStartTimeNanos();
+    }
+
+    private static void appendMillis(StringBuilder buf, long nanos) {
+        final long micros = nanos / 1000;
+        final long fraction = micros % 1000;
+        buf.append(micros / 1000).append('.');
+        if (fraction < 100) {
+            buf.append('0');
+        }
+        if (fraction < 10) {
+            buf.append('0');
+        }
+        buf.append(fraction);
+    }
+}
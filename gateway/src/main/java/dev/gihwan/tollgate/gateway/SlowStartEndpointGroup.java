@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+/**
+ * A {@link DynamicEndpointGroup} of the endpoints of the delegate {@link EndpointGroup} whose weights are
+ * ramped up by a {@link SlowStartPolicy} while they warm up.
+ *
+ * <p>An endpoint warms up when it is added to the delegate, including when it returns after being removed by
+ * a health check or an outlier detection, unless the delegate had no endpoints, in which case there is no
+ * other endpoint to take its traffic.
+ */
+final class SlowStartEndpointGroup extends DynamicEndpointGroup {
+
+    // The number of the steps in which the weights ramp up over the window.
+    private static final int STEPS = 20;
+
+    private final EndpointGroup delegate;
+    private final long windowNanos;
+    private final double minWeightRatio;
+    private final double aggression;
+    private final LongSupplier ticker;
+    private final Consumer<List<Endpoint>> listener = unused -> update();
+    @Nullable
+    private final ScheduledFuture<?> updateFuture;
+
+    // Guarded by this.
+    private final Map<Endpoint, Long> warmingUpSince = new HashMap<>();
+    // Guarded by this.
+    private Set<Endpoint> knownEndpoints = Set.of();
+
+    private volatile int warmingUpEndpoints;
+
+    /**
+     * Creates a new instance which ramps the weights up at each step on the given {@code executor}, or only
+     * when {@link #update()} is called if the {@code executor} is {@code null}.
+     */
+    SlowStartEndpointGroup(EndpointGroup delegate, SlowStartPolicy policy, LongSupplier ticker,
+                           @Nullable ScheduledExecutorService executor) {
+        super(delegate.selectionStrategy());
+        this.delegate = delegate;
+        windowNanos = policy.window().toNanos();
+        minWeightRatio = policy.minWeightPercent() / 100.0;
+        aggression = policy.aggression();
+        this.ticker = ticker;
+
+        delegate.addListener(listener);
+        update();
+
+        if (executor != null) {
+            final long stepNanos = Math.max(windowNanos / STEPS, 1);
+            updateFuture = executor.scheduleWithFixedDelay(() -> {
+                if (warmingUpEndpoints > 0) {
+                    update();
+                }
+            }, stepNanos, stepNanos, TimeUnit.NANOSECONDS);
+        } else {
+            updateFuture = null;
+        }
+    }
+
+    /**
+     * Updates the endpoints of the delegate with their weights ramped up at this moment.
+     */
+    synchronized void update() {
+        final List<Endpoint> endpoints = delegate.endpoints();
+        final long now = ticker.getAsLong();
+
+        // Forgets the removed endpoints, so that they warm up again once they return.
+        warmingUpSince.keySet().retainAll(endpoints);
+        if (!knownEndpoints.isEmpty()) {
+            for (Endpoint endpoint : endpoints) {
+                if (!knownEndpoints.contains(endpoint)) {
+                    warmingUpSince.put(endpoint, now);
+                }
+            }
+        }
+        knownEndpoints = new HashSet<>(endpoints);
+
+        final ImmutableList.Builder<Endpoint> weighted =
+                ImmutableList.builderWithExpectedSize(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            @Nullable
+            final Long since = warmingUpSince.get(endpoint);
+            if (since == null) {
+                weighted.add(endpoint);
+                continue;
+            }
+            final long elapsedNanos = now - since;
+            if (elapsedNanos >= windowNanos) {
+                warmingUpSince.remove(endpoint);
+                weighted.add(endpoint);
+                continue;
+            }
+            weighted.add(endpoint.withWeight(rampedWeight(endpoint.weight(), elapsedNanos)));
+        }
+        warmingUpEndpoints = warmingUpSince.size();
+        setEndpoints(weighted.build());
+    }
+
+    private int rampedWeight(int weight, long elapsedNanos) {
+        if (weight == 0) {
+            return 0;
+        }
+        final double progress = Math.pow((double) elapsedNanos / windowNanos, 1 / aggression);
+        final double ratio = Math.max(progress, minWeightRatio);
+        return (int) Math.max(Math.round(weight * ratio), 1);
+    }
+
+    /**
+     * Returns the number of the endpoints warming up now.
+     */
+    int warmingUpEndpoints() {
+        return warmingUpEndpoints;
+    }
+
+    @Override
+    protected void doCloseAsync(CompletableFuture<?> future) {
+        delegate.removeListener(listener);
+        if (updateFuture != null) {
+            updateFuture.cancel(false);
+        }
+        future.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{delegate=" + delegate + ", endpoints=" + endpoints() + '}';
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A policy of the slow start of the endpoints of an {@link Upstream}, which ramps the traffic to a newly added
+ * or recovered endpoint up while it warms up, e.g. while its JIT compiler kicks in.
+ *
+ * <p>The effective weight of such an endpoint grows from the minimum weight percentage of its weight to its
+ * full weight over the window, following {@code (elapsed / window) ^ (1 / aggression)}. The endpoints which
+ * an {@link Upstream} starts with are not ramped up.
+ *
+ * @see SlowStartPolicyBuilder
+ */
+public final class SlowStartPolicy {
+
+    /**
+     * Returns a new {@link SlowStartPolicy} with the default settings.
+     */
+    public static SlowStartPolicy ofDefault() {
+        return builder().build();
+    }
+
+    /**
+     * Returns a new {@link SlowStartPolicyBuilder}.
+     */
+    public static SlowStartPolicyBuilder builder() {
+        return new SlowStartPolicyBuilder();
+    }
+
+    private final Duration window;
+    private final int minWeightPercent;
+    private final double aggression;
+
+    SlowStartPolicy(Duration window, int minWeightPercent, double aggression) {
+        this.window = window;
+        this.minWeightPercent = minWeightPercent;
+        this.aggression = aggression;
+    }
+
+    Duration window() {
+        return window;
+    }
+
+    int minWeightPercent() {
+        return minWeightPercent;
+    }
+
+    double aggression() {
+        return aggression;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("window", window)
+                          .add("minWeightPercent", minWeightPercent)
+                          .add("aggression", aggression)
+                          .toString();
+    }
+}
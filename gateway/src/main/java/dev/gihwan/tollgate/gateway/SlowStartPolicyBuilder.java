@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+/**
+ * A builder for {@link SlowStartPolicy}.
+ */
+public final class SlowStartPolicyBuilder {
+
+    private static final Duration DEFAULT_WINDOW = Duration.ofSeconds(30);
+    private static final int DEFAULT_MIN_WEIGHT_PERCENT = 10;
+    private static final double DEFAULT_AGGRESSION = 1;
+
+    private Duration window = DEFAULT_WINDOW;
+    private int minWeightPercent = DEFAULT_MIN_WEIGHT_PERCENT;
+    private double aggression = DEFAULT_AGGRESSION;
+
+    SlowStartPolicyBuilder() {}
+
+    /**
+     * Sets the time over which the weight of a new endpoint ramps up to its full weight. By default,
+     * {@code 30} seconds is used.
+     */
+    public SlowStartPolicyBuilder window(Duration window) {
+        requireNonNull(window, "window");
+        checkArgument(!window.isNegative() && !window.isZero(), "window: %s (expected: > 0)", window);
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * Sets the percentage of its weight which a new endpoint starts with. By default, {@code 10} is used.
+     */
+    public SlowStartPolicyBuilder minWeightPercent(int minWeightPercent) {
+        checkArgument(minWeightPercent > 0 && minWeightPercent <= 100,
+                      "minWeightPercent: %s (expected: 0 < minWeightPercent <= 100)", minWeightPercent);
+        this.minWeightPercent = minWeightPercent;
+        return this;
+    }
+
+    /**
+     * Sets how fast the weight of a new endpoint ramps up. The weight grows linearly with {@code 1}, and
+     * grows faster at the beginning of the window with a larger aggression. By default, {@code 1} is used.
+     */
+    public SlowStartPolicyBuilder aggression(double aggression) {
+        checkArgument(aggression > 0, "aggression: %s (expected: > 0)", aggression);
+        this.aggression = aggression;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link SlowStartPolicy} based on the properties of this builder.
+     */
+    public SlowStartPolicy build() {
+        return new SlowStartPolicy(window, minWeightPercent, aggression);
+    }
+}
@@ -114,6 +114,38 @@ public interface Upstream {
         return new UpstreamBuilder(protocol, endpointGroup, path);
     }
 
+    /**
+     * Returns a new {@link UpstreamBuilder} based on the endpoints discovered by the given {@link DnsDiscovery}
+     * with the given {@code protocol}.
+     */
+    static UpstreamBuilder builder(String protocol, DnsDiscovery dnsDiscovery) {
+        return builder(SessionProtocol.of(requireNonNull(protocol, "protocol")), dnsDiscovery);
+    }
+
+    /**
+     * Returns a new {@link UpstreamBuilder} based on the endpoints discovered by the given {@link DnsDiscovery}
+     * with the given {@link SessionProtocol}.
+     */
+    static UpstreamBuilder builder(SessionProtocol protocol, DnsDiscovery dnsDiscovery) {
+        return new UpstreamBuilder(protocol, dnsDiscovery);
+    }
+
+    /**
+     * Returns a new {@link UpstreamBuilder} based on the endpoints discovered by the given
+     * {@link FileDiscovery} with the given {@code protocol}.
+     */
+    static UpstreamBuilder builder(String protocol, FileDiscovery fileDiscovery) {
+        return builder(SessionProtocol.of(requireNonNull(protocol, "protocol")), fileDiscovery);
+    }
+
+    /**
+     * Returns a new {@link UpstreamBuilder} based on the endpoints discovered by the given
+     * {@link FileDiscovery} with the given {@link SessionProtocol}.
+     */
+    static UpstreamBuilder builder(SessionProtocol protocol, FileDiscovery fileDiscovery) {
+        return new UpstreamBuilder(protocol, fileDiscovery);
+    }
+
     /**
      * Sends the given {@link HttpRequest} to this upstream.
      */
@@ -29,6 +29,8 @@ import static java.util.Objects.requireNonNull;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.server.HttpService;
@@ -38,6 +40,11 @@ public final class UpstreamBindingBuilder {
 
     private final GatewayBuilder gatewayBuilder;
     private final ServiceBindingBuilder serviceBindingBuilder;
+    private boolean serverTiming;
+    @Nullable
+    private BulkheadPolicy bulkheadPolicy;
+    @Nullable
+    private DeadlinePolicy deadlinePolicy;
 
     UpstreamBindingBuilder(GatewayBuilder gatewayBuilder, ServiceBindingBuilder serviceBindingBuilder) {
         this.gatewayBuilder = gatewayBuilder;
@@ -259,8 +266,44 @@ public final class UpstreamBindingBuilder {
         return this;
     }
 
+    /**
+     * Sets whether to add a {@code server-timing} header to the responses, which tells the time taken by the
+     * gateway and the upstream server respectively, e.g. {@code gateway;dur=0.215, upstream;dur=12.031}.
+     * It is disabled by default.
+     */
+    public UpstreamBindingBuilder serverTiming(boolean serverTiming) {
+        this.serverTiming = serverTiming;
+        return this;
+    }
+
+    /**
+     * Caps the concurrent requests of this route with a bulkhead of the given {@link BulkheadPolicy}, which
+     * rejects the requests before they reach the {@link Upstream}.
+     */
+    public UpstreamBindingBuilder bulkhead(BulkheadPolicy policy) {
+        bulkheadPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Propagates the deadline of the requests of this route to the {@link Upstream} based on the given
+     * {@link DeadlinePolicy}, which bounds the requests to the upstream servers by the remaining time of the
+     * requests from users and cancels them once the requests from users are cancelled.
+     */
+    public UpstreamBindingBuilder deadline(DeadlinePolicy policy) {
+        deadlinePolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
     public GatewayBuilder build(Upstream upstream) {
-        serviceBindingBuilder.build(new UpstreamHttpService(requireNonNull(upstream, "upstream")));
+        requireNonNull(upstream, "upstream");
+        final Bulkhead bulkhead = bulkheadPolicy != null ? new Bulkhead(bulkheadPolicy) : null;
+        final DeadlinePropagation deadline =
+                deadlinePolicy != null ? new DeadlinePropagation(deadlinePolicy) : null;
+        serviceBindingBuilder.build(new UpstreamHttpService(upstream, serverTiming, bulkhead, deadline));
+        if (upstream instanceof DefaultUpstream) {
+            ((DefaultUpstream) upstream).gatewayHealthCheckers().forEach(gatewayBuilder::healthChecker);
+        }
         return gatewayBuilder;
     }
 }
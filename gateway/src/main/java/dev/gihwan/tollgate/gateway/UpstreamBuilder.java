@@ -25,14 +25,19 @@
 package dev.gihwan.tollgate.gateway;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
 
@@ -52,35 +57,103 @@ import io.netty.util.AsciiString;
  */
 public final class UpstreamBuilder {
 
-    private final WebClientBuilder clientBuilder;
+    @Nullable
+    private final URI uri;
+    @Nullable
+    private final SessionProtocol protocol;
+    @Nullable
+    private final EndpointGroup endpointGroup;
+    @Nullable
+    private final DnsDiscovery dnsDiscovery;
+    @Nullable
+    private final FileDiscovery fileDiscovery;
+    @Nullable
+    private final String path;
+
+    private final List<Consumer<? super WebClientBuilder>> clientConfigurators = new ArrayList<>();
+
+    private final List<Function<? super HttpRequest, ? extends HttpRequest>> requestFunctions =
+            new ArrayList<>();
+    private final List<Function<? super HttpResponse, ? extends HttpResponse>> responseFunctions =
+            new ArrayList<>();
 
-    private Function<HttpRequest, HttpRequest> requestFunction = Function.identity();
-    private Function<HttpResponse, HttpResponse> responseFunction = Function.identity();
+    @Nullable
+    private BulkheadPolicy bulkheadPolicy;
+    @Nullable
+    private CircuitBreakerPolicy circuitBreakerPolicy;
+    @Nullable
+    private RetryPolicy retryPolicy;
+    @Nullable
+    private HedgingPolicy hedgingPolicy;
+    @Nullable
+    private ConcurrencyLimitPolicy concurrencyLimitPolicy;
+    private LoadBalancer loadBalancer = LoadBalancer.ROUND_ROBIN;
+    @Nullable
+    private HealthCheckPolicy healthCheckPolicy;
+    @Nullable
+    private OutlierDetectionPolicy outlierDetectionPolicy;
+    @Nullable
+    private ConsistentHashPolicy consistentHashPolicy;
+    @Nullable
+    private ZoneAwarePolicy zoneAwarePolicy;
+    @Nullable
+    private SlowStartPolicy slowStartPolicy;
 
     UpstreamBuilder(URI uri) {
-        clientBuilder = WebClient.builder(requireNonNull(uri, "uri"));
+        this.uri = requireNonNull(uri, "uri");
+        protocol = null;
+        endpointGroup = null;
+        dnsDiscovery = null;
+        fileDiscovery = null;
+        path = null;
     }
 
     UpstreamBuilder(SessionProtocol protocol, EndpointGroup endpointGroup) {
-        clientBuilder = WebClient.builder(requireNonNull(protocol, "protocol"),
-                                          requireNonNull(endpointGroup, "endpointGroup"));
+        uri = null;
+        this.protocol = requireNonNull(protocol, "protocol");
+        this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+        dnsDiscovery = null;
+        fileDiscovery = null;
+        path = null;
     }
 
     UpstreamBuilder(SessionProtocol protocol, EndpointGroup endpointGroup, String path) {
-        clientBuilder = WebClient.builder(requireNonNull(protocol, "protocol"),
-                                          requireNonNull(endpointGroup, "endpointGroup"),
-                                          requireNonNull(path, "path"));
+        uri = null;
+        this.protocol = requireNonNull(protocol, "protocol");
+        this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+        dnsDiscovery = null;
+        fileDiscovery = null;
+        this.path = requireNonNull(path, "path");
+    }
+
+    UpstreamBuilder(SessionProtocol protocol, DnsDiscovery dnsDiscovery) {
+        uri = null;
+        this.protocol = requireNonNull(protocol, "protocol");
+        endpointGroup = null;
+        this.dnsDiscovery = requireNonNull(dnsDiscovery, "dnsDiscovery");
+        fileDiscovery = null;
+        path = null;
+    }
+
+    UpstreamBuilder(SessionProtocol protocol, FileDiscovery fileDiscovery) {
+        uri = null;
+        this.protocol = requireNonNull(protocol, "protocol");
+        endpointGroup = null;
+        dnsDiscovery = null;
+        this.fileDiscovery = requireNonNull(fileDiscovery, "fileDiscovery");
+        path = null;
     }
 
     /**
      * Configures a {@link WebClient} of this {@link Upstream} with the given {@code configurator}.
+     * The {@code configurator} is applied to a new {@link WebClientBuilder} whenever {@link #build()} is
+     * called.
      *
      * Please note that calling {@link WebClientBuilder#build()} inside {@code configurator} does not affect
      * building {@link Upstream}.
      */
     public UpstreamBuilder client(Consumer<? super WebClientBuilder> configurator) {
-        requireNonNull(configurator, "configurator");
-        configurator.accept(clientBuilder);
+        clientConfigurators.add(requireNonNull(configurator, "configurator"));
         return this;
     }
 
@@ -88,12 +161,16 @@ public final class UpstreamBuilder {
      * Transforms a request from a user using the given {@link Function}.
      */
     public UpstreamBuilder mapRequest(Function<? super HttpRequest, ? extends HttpRequest> function) {
-        requestFunction = requestFunction.andThen(function);
+        requestFunctions.add(requireNonNull(function, "function"));
         return this;
     }
 
     /**
      * Sets request path to this upstream with the given {@code pathPattern}.
+     *
+     * The {@code pathPattern} may contain path parameters of the route, e.g. {@code /foo/{bar}} or
+     * {@code /foo/:bar}, and a wildcard tail {@code /**} which is replaced with the mapped path of the route.
+     * The query string of a request from a user is kept as it is.
      */
     public UpstreamBuilder path(String pathPattern) {
         requireNonNull(pathPattern, "pathPattern");
@@ -138,19 +215,39 @@ public final class UpstreamBuilder {
         return mapRequest(FilteringRequestHeadersFunction.ofDisallowedSet(disallowedRequestHeaders));
     }
 
+    /**
+     * Transforms the headers of a request from a user to the upstream server with the given
+     * {@link HeaderPolicy}.
+     */
+    public UpstreamBuilder requestHeaderPolicy(HeaderPolicy policy) {
+        requireNonNull(policy, "policy");
+        return mapRequest(new FilteringRequestHeadersFunction(policy));
+    }
+
     /**
      * Transforms a response from the upstream server using the given {@link Function}.
      */
     public UpstreamBuilder mapResponse(Function<? super HttpResponse, ? extends HttpResponse> function) {
-        responseFunction = responseFunction.andThen(function);
+        responseFunctions.add(requireNonNull(function, "function"));
         return this;
     }
 
     /**
      * Sets response status from this upstream with the given {@link HttpStatusFunction}.
+     *
+     * The consecutive {@link HttpStatusFunction}s are applied in order. If they are built by the factory
+     * methods of {@link HttpStatusFunction}, they are compiled into a single table indexed by status code.
      */
     public UpstreamBuilder status(HttpStatusFunction statusFunction) {
         requireNonNull(statusFunction, "statusFunction");
+        final int last = responseFunctions.size() - 1;
+        if (last >= 0 && responseFunctions.get(last) instanceof RemappingStatusFunction) {
+            final HttpStatusFunction previous =
+                    ((RemappingStatusFunction) responseFunctions.get(last)).statusFunction();
+            responseFunctions.set(last, new RemappingStatusFunction(
+                    DefaultHttpStatusFunction.compose(previous, statusFunction)));
+            return this;
+        }
         return mapResponse(new RemappingStatusFunction(statusFunction));
     }
 
@@ -192,6 +289,18 @@ public final class UpstreamBuilder {
         return mapResponse(FilteringResponseHeadersFunction.ofDisallowedSet(disallowedResponseHeaders));
     }
 
+    /**
+     * Transforms the headers of a response from the upstream server to a user with the given
+     * {@link HeaderPolicy}.
+     *
+     * @throws IllegalArgumentException if the given {@link HeaderPolicy} adds forwarding headers.
+     */
+    public UpstreamBuilder responseHeaderPolicy(HeaderPolicy policy) {
+        requireNonNull(policy, "policy");
+        checkArgument(!policy.requiresContext(), "forwarding headers are not allowed in a response");
+        return mapResponse(new FilteringResponseHeadersFunction(policy));
+    }
+
     /**
      * Decorates a {@link WebClient} of this {@link Upstream} with the given {@code decorator}.
      *
@@ -199,14 +308,225 @@ public final class UpstreamBuilder {
      * which calls {@link WebClientBuilder#decorator(Function)}.
      */
     public UpstreamBuilder decorator(Function<? super HttpClient, ? extends HttpClient> decorator) {
-        clientBuilder.decorator(requireNonNull(decorator, "decorator"));
+        requireNonNull(decorator, "decorator");
+        return client(clientBuilder -> clientBuilder.decorator(decorator));
+    }
+
+    /**
+     * Selects the endpoints of this {@link Upstream} with the given {@link LoadBalancer}. Each {@link Upstream}
+     * built by this builder records its own loads of the endpoints. This has no effect on an {@link Upstream}
+     * of a single {@link URI}. By default, {@link LoadBalancer#ROUND_ROBIN} is used.
+     */
+    public UpstreamBuilder loadBalancer(LoadBalancer loadBalancer) {
+        this.loadBalancer = requireNonNull(loadBalancer, "loadBalancer");
+        return this;
+    }
+
+    /**
+     * Prefers the endpoints of this {@link Upstream} in the local zone according to the given
+     * {@link ZoneAwarePolicy}, spilling the requests over to the other zones when the local zone lacks the
+     * available endpoints. This has no effect on an {@link Upstream} of a single {@link URI}.
+     */
+    public UpstreamBuilder zoneAware(ZoneAwarePolicy policy) {
+        zoneAwarePolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Sends the requests with the same key to the same endpoint of this {@link Upstream} according to the given
+     * {@link ConsistentHashPolicy}, e.g. to keep the hit rates of the local caches of the upstream servers.
+     * This cannot be used with {@link #loadBalancer(LoadBalancer)}, and has no effect on an {@link Upstream}
+     * of a single {@link URI}.
+     */
+    public UpstreamBuilder consistentHash(ConsistentHashPolicy policy) {
+        consistentHashPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Probes the endpoints of this {@link Upstream} according to the given {@link HealthCheckPolicy}, so that
+     * only the healthy endpoints are selected. Each {@link Upstream} built by this builder probes the endpoints
+     * on its own. This has no effect on an {@link Upstream} of a single {@link URI}.
+     */
+    public UpstreamBuilder healthCheck(HealthCheckPolicy policy) {
+        healthCheckPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Ejects the endpoints of this {@link Upstream} which misbehave on the live traffic according to the given
+     * {@link OutlierDetectionPolicy}, so that they are not selected for a while. This has no effect on an
+     * {@link Upstream} of a single {@link URI}.
+     */
+    public UpstreamBuilder outlierDetection(OutlierDetectionPolicy policy) {
+        outlierDetectionPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Ramps the weights of the newly added or recovered endpoints of this {@link Upstream} up according to the
+     * given {@link SlowStartPolicy}, so that they are not flooded while they warm up. This has no effect on an
+     * {@link Upstream} of a single {@link URI}.
+     */
+    public UpstreamBuilder slowStart(SlowStartPolicy policy) {
+        slowStartPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Caps the concurrent requests to this {@link Upstream} with a bulkhead of the given
+     * {@link BulkheadPolicy}. Each {@link Upstream} built by this builder has its own bulkhead.
+     */
+    public UpstreamBuilder bulkhead(BulkheadPolicy policy) {
+        bulkheadPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Guards the requests to this {@link Upstream} with a circuit breaker of the given
+     * {@link CircuitBreakerPolicy}. Each {@link Upstream} built by this builder has its own circuit breaker.
+     */
+    public UpstreamBuilder circuitBreaker(CircuitBreakerPolicy policy) {
+        circuitBreakerPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Retries the failed requests to this {@link Upstream} according to the given {@link RetryPolicy}.
+     * Each {@link Upstream} built by this builder has its own retry budget.
+     */
+    public UpstreamBuilder retry(RetryPolicy policy) {
+        retryPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Hedges the slow requests to this {@link Upstream} according to the given {@link HedgingPolicy}.
+     * Each {@link Upstream} built by this builder records its own latencies to compute the hedge delay.
+     */
+    public UpstreamBuilder hedging(HedgingPolicy policy) {
+        hedgingPolicy = requireNonNull(policy, "policy");
+        return this;
+    }
+
+    /**
+     * Limits the concurrent requests to this {@link Upstream} adaptively according to the given
+     * {@link ConcurrencyLimitPolicy}. Each {@link Upstream} built by this builder has its own limit.
+     */
+    public UpstreamBuilder concurrencyLimit(ConcurrencyLimitPolicy policy) {
+        concurrencyLimitPolicy = requireNonNull(policy, "policy");
         return this;
     }
 
     /**
      * Builds a new {@link Upstream} based on the properties of this builder.
+     *
+     * The consecutive transformations which rewrite only request headers, e.g. {@link #path(String)} and
+     * {@link #allowRequestHeaders(CharSequence...)}, are fused so that the request headers are copied only
+     * once. Likewise, the consecutive transformations which rewrite only response headers, e.g.
+     * {@link #status(HttpStatusFunction)} and {@link #allowResponseHeaders(CharSequence...)}, are applied by a
+     * single filter of the response.
+     *
+     * @throws IllegalStateException if both {@link #loadBalancer(LoadBalancer)} and
+     *                               {@link #consistentHash(ConsistentHashPolicy)} are set.
      */
     public Upstream build() {
-        return new DefaultUpstream(clientBuilder.build(), requestFunction, responseFunction);
+        final ImmutableList.Builder<UpstreamComponent> components = ImmutableList.builder();
+        @Nullable
+        EndpointGroup configuredEndpointGroup = this.endpointGroup;
+        if (dnsDiscovery != null) {
+            // Each upstream queries on its own, so that it stops querying when its server stops.
+            final UpstreamDnsDiscovery discovery = new UpstreamDnsDiscovery(dnsDiscovery);
+            configuredEndpointGroup = discovery.endpointGroup();
+            components.add(discovery);
+        } else if (fileDiscovery != null) {
+            // Each upstream watches on its own, so that it stops watching when its server stops.
+            final UpstreamFileDiscovery discovery = new UpstreamFileDiscovery(fileDiscovery);
+            configuredEndpointGroup = discovery.endpointGroup();
+            components.add(discovery);
+        }
+        @Nullable
+        EndpointGroup endpointGroup = configuredEndpointGroup;
+        if (healthCheckPolicy != null && endpointGroup != null) {
+            final UpstreamHealthCheck healthCheck =
+                    new UpstreamHealthCheck(healthCheckPolicy, protocol, endpointGroup);
+            endpointGroup = healthCheck.endpointGroup();
+            components.add(healthCheck);
+        }
+        if (outlierDetectionPolicy != null && endpointGroup != null) {
+            // Ejects the endpoints among the healthy ones, so that the maximum ejection percentage is kept.
+            final UpstreamOutlierDetection outlierDetection =
+                    new UpstreamOutlierDetection(outlierDetectionPolicy, endpointGroup);
+            endpointGroup = outlierDetection.endpointGroup();
+            components.add(outlierDetection);
+        }
+        if (slowStartPolicy != null && endpointGroup != null) {
+            // Ramps up the endpoints returning from the health check and the outlier detection as well, and
+            // lets the zone-aware routing count the endpoints warming up as partial capacity.
+            final UpstreamSlowStart slowStart = new UpstreamSlowStart(slowStartPolicy, endpointGroup);
+            endpointGroup = slowStart.endpointGroup();
+            components.add(slowStart);
+        }
+        if (zoneAwarePolicy != null && endpointGroup != null) {
+            // Compares the available endpoints with the configured ones to tell the capacity of the local zone.
+            final UpstreamZoneAwareRouting zoneAwareRouting =
+                    new UpstreamZoneAwareRouting(zoneAwarePolicy, configuredEndpointGroup, endpointGroup);
+            endpointGroup = zoneAwareRouting.endpointGroup();
+            components.add(zoneAwareRouting);
+        }
+        if (consistentHashPolicy != null && endpointGroup != null) {
+            checkState(loadBalancer == LoadBalancer.ROUND_ROBIN,
+                       "loadBalancer and consistentHash are mutually exclusive");
+            endpointGroup = EndpointGroup.of(new ConsistentHashStrategy(consistentHashPolicy), endpointGroup);
+        } else if (loadBalancer != LoadBalancer.ROUND_ROBIN && endpointGroup != null) {
+            // Decorated only by the outlier detection, so that every request sent to the upstream servers is
+            // recorded to its endpoint.
+            final UpstreamLoadBalancer upstreamLoadBalancer = new UpstreamLoadBalancer(loadBalancer);
+            endpointGroup = upstreamLoadBalancer.newEndpointGroup(endpointGroup);
+            components.add(upstreamLoadBalancer);
+        }
+        if (bulkheadPolicy != null) {
+            // Decorates the load balancer and is decorated by the circuit breaker and the retry, so that every
+            // attempt sent to the upstream servers takes a permit.
+            components.add(new UpstreamBulkhead(bulkheadPolicy));
+        }
+        if (circuitBreakerPolicy != null) {
+            components.add(new UpstreamCircuitBreaker(circuitBreakerPolicy));
+        }
+        if (retryPolicy != null) {
+            // Decorates the circuit breaker so that every attempt is recorded by the circuit breaker.
+            components.add(new UpstreamRetry(retryPolicy));
+        }
+        if (hedgingPolicy != null) {
+            // Decorates the retry so that every hedged request is retried on its own.
+            components.add(new UpstreamHedging(hedgingPolicy));
+        }
+        if (concurrencyLimitPolicy != null) {
+            // Limits the requests from users rather than the attempts, so that the retries and the hedged
+            // requests do not take the permits of the other requests.
+            components.add(new UpstreamConcurrencyLimiter(concurrencyLimitPolicy));
+        }
+        final List<UpstreamComponent> builtComponents = components.build();
+
+        // A new client builder is configured for each build, so that building again does not stack the
+        // decorators of the components.
+        final WebClientBuilder clientBuilder = newClientBuilder(endpointGroup);
+        clientConfigurators.forEach(configurator -> configurator.accept(clientBuilder));
+        builtComponents.forEach(component -> clientBuilder.decorator(component.newDecorator()));
+
+        return new DefaultUpstream(clientBuilder.build(),
+                                   FusedRequestHeadersFunction.compose(requestFunctions),
+                                   FusedResponseHeadersFunction.compose(responseFunctions),
+                                   builtComponents);
+    }
+
+    private WebClientBuilder newClientBuilder(@Nullable EndpointGroup endpointGroup) {
+        if (endpointGroup == null) {
+            return WebClient.builder(uri);
+        }
+        if (path != null) {
+            return WebClient.builder(protocol, endpointGroup, path);
+        }
+        return WebClient.builder(protocol, endpointGroup);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The bulkhead of an {@link Upstream}, which is built from a {@link BulkheadPolicy}. It caps every request
+ * sent to the upstream servers, including the retries and the hedged requests.
+ *
+ * <p>It publishes {@code tollgate.upstream.bulkhead.in.flight}, {@code tollgate.upstream.bulkhead.queued} and
+ * {@code tollgate.upstream.bulkhead.rejected.requests} once bound to a {@link MeterRegistry}.
+ */
+final class UpstreamBulkhead implements UpstreamComponent {
+
+    private final Bulkhead bulkhead;
+
+    UpstreamBulkhead(BulkheadPolicy policy) {
+        bulkhead = new Bulkhead(policy);
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        return delegate -> new BulkheadUpstreamClient(delegate, bulkhead);
+    }
+
+    @Override
+    public HttpResponse recover(HttpResponse res) {
+        return res.recover(cause -> {
+            if (isRejected(cause)) {
+                return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return HttpResponse.ofFailure(cause);
+        });
+    }
+
+    /**
+     * Returns whether the given {@code cause} is the rejection of a bulkhead, which is a local overload rather
+     * than a failure of the upstream servers.
+     */
+    static boolean isRejected(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof BulkheadFullException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        bulkhead.bindTo(registry, "tollgate.upstream.bulkhead", tags);
+    }
+}
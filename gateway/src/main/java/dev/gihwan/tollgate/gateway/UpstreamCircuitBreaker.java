@@ -0,0 +1,196 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ascii;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreaker;
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreakerClient;
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreakerDecision;
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreakerListener;
+import com.linecorp.armeria.client.circuitbreaker.CircuitBreakerRule;
+import com.linecorp.armeria.client.circuitbreaker.CircuitState;
+import com.linecorp.armeria.client.circuitbreaker.EventCount;
+import com.linecorp.armeria.client.circuitbreaker.FailFastException;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The circuit breaker of an {@link Upstream}, which is built from a {@link CircuitBreakerPolicy}.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.circuit.breaker.state}, which is {@code 1} for the current state of the
+ *       circuit and {@code 0} for the other states, tagged with {@code state}.</li>
+ *   <li>{@code tollgate.upstream.circuit.breaker.failure.rate} in the sliding window.</li>
+ *   <li>{@code tollgate.upstream.circuit.breaker.rejected.requests} which failed fast.</li>
+ * </ul>
+ */
+final class UpstreamCircuitBreaker implements UpstreamComponent, CircuitBreakerListener {
+
+    private static final String PREFIX = "tollgate.upstream.circuit.breaker";
+    private static final Duration MAXIMUM_COUNTER_UPDATE_INTERVAL = Duration.ofSeconds(1);
+    private static final int MINIMUM_COUNTER_UPDATES_PER_WINDOW = 10;
+
+    private static final CompletionStage<CircuitBreakerDecision> FAILURE =
+            CompletableFuture.completedFuture(CircuitBreakerDecision.failure());
+    private static final CompletionStage<CircuitBreakerDecision> NEXT =
+            CompletableFuture.completedFuture(CircuitBreakerDecision.next());
+
+    private final CircuitBreaker circuitBreaker;
+    private final CircuitBreakerRule rule;
+    private final HttpStatus failFastStatus;
+
+    private volatile CircuitState state = CircuitState.CLOSED;
+    private volatile double failureRate;
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    UpstreamCircuitBreaker(CircuitBreakerPolicy policy) {
+        final Duration slidingWindow = policy.slidingWindow();
+        // The counter should be updated several times in the sliding window, even if the window is short.
+        final Duration counterUpdateInterval =
+                Collections.min(List.of(slidingWindow.dividedBy(MINIMUM_COUNTER_UPDATES_PER_WINDOW),
+                                        MAXIMUM_COUNTER_UPDATE_INTERVAL));
+        circuitBreaker = CircuitBreaker.builder()
+                                       .failureRateThreshold(policy.failureRateThreshold())
+                                       .minimumRequestThreshold(policy.minimumRequestThreshold())
+                                       .counterSlidingWindow(slidingWindow)
+                                       .counterUpdateInterval(counterUpdateInterval)
+                                       .circuitOpenWindow(policy.openWindow())
+                                       .trialRequestInterval(policy.trialRequestInterval())
+                                       .listener(this)
+                                       .build();
+
+        // The bulkhead is decorated by the circuit breaker, but its rejection is not a failure of the upstream.
+        final CircuitBreakerRule rejectionRule =
+                CircuitBreakerRule.builder()
+                                  .onException((ctx, cause) -> UpstreamBulkhead.isRejected(cause))
+                                  .thenIgnore();
+        final CircuitBreakerRule failureRule = CircuitBreakerRule.builder()
+                                                                 .onServerErrorStatus()
+                                                                 .onException()
+                                                                 .thenFailure();
+        final CircuitBreakerRule successRule = CircuitBreakerRule.builder().thenSuccess();
+        @Nullable
+        final Duration slowCallThreshold = policy.slowCallThreshold();
+        if (slowCallThreshold != null) {
+            rule = CircuitBreakerRule.of(rejectionRule, slowCallRule(slowCallThreshold.toNanos()), failureRule,
+                                         successRule);
+        } else {
+            rule = CircuitBreakerRule.of(rejectionRule, failureRule, successRule);
+        }
+        failFastStatus = policy.failFastStatus();
+    }
+
+    private static CircuitBreakerRule slowCallRule(long slowCallThresholdNanos) {
+        // A rule is evaluated when the response headers are received or the request fails.
+        return (ctx, cause) -> {
+            final long elapsedNanos = System.nanoTime() - ctx.log().partial().requestStartTimeNanos();
+            return elapsedNanos >= slowCallThresholdNanos ? FAILURE : NEXT;
+        };
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        return CircuitBreakerClient.newDecorator(circuitBreaker, rule);
+    }
+
+    /**
+     * Returns a {@link HttpResponse} which responds with the fail-fast status if the given {@link HttpResponse}
+     * fails because the circuit is open.
+     */
+    @Override
+    public HttpResponse recover(HttpResponse res) {
+        return res.recover(cause -> {
+            if (isFailFast(cause)) {
+                return HttpResponse.of(failFastStatus);
+            }
+            return HttpResponse.ofFailure(cause);
+        });
+    }
+
+    private static boolean isFailFast(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof FailFastException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        for (CircuitState state : CircuitState.values()) {
+            Gauge.builder(PREFIX + ".state", this, breaker -> breaker.state == state ? 1 : 0)
+                 .description("Whether the circuit of the upstream is in the state")
+                 .tags(tags)
+                 .tag("state", Ascii.toLowerCase(state.name()))
+                 .register(registry);
+        }
+        Gauge.builder(PREFIX + ".failure.rate", this, breaker -> breaker.failureRate)
+             .description("The rate of the failed requests to the upstream in the sliding window")
+             .tags(tags)
+             .register(registry);
+        FunctionCounter.builder(PREFIX + ".rejected.requests", rejectedRequests, LongAdder::sum)
+                       .description("The number of the requests to the upstream which failed fast")
+                       .tags(tags)
+                       .register(registry);
+    }
+
+    CircuitState state() {
+        return state;
+    }
+
+    @Override
+    public void onStateChanged(String circuitBreakerName, CircuitState state) {
+        this.state = state;
+    }
+
+    @Override
+    public void onEventCountUpdated(String circuitBreakerName, EventCount eventCount) {
+        failureRate = eventCount.total() > 0 ? eventCount.failureRate() : 0;
+    }
+
+    @Override
+    public void onRequestRejected(String circuitBreakerName) {
+        rejectedRequests.increment();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.HttpResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * A component of an {@link Upstream} which guards the requests to the upstream servers, e.g. a circuit breaker.
+ * The components of an {@link Upstream} decorate its client in the order of {@link UpstreamBuilder#build()},
+ * the first component being the innermost.
+ */
+interface UpstreamComponent {
+
+    /**
+     * Returns a decorator of the {@link HttpClient} of an {@link Upstream}.
+     */
+    Function<? super HttpClient, ? extends HttpClient> newDecorator();
+
+    /**
+     * Returns a {@link HttpResponse} which replaces the failure of the given {@link HttpResponse} caused by
+     * this component, e.g. a rejected request, with a response to a user.
+     */
+    default HttpResponse recover(HttpResponse res) {
+        return res;
+    }
+
+    /**
+     * Registers the metrics of this component to the given {@link MeterRegistry} with the given {@link Tags}
+     * of a route.
+     */
+    void bindTo(MeterRegistry registry, Tags tags);
+
+    /**
+     * Releases the resources of this component, e.g. the health checkers of the endpoints, when the server
+     * which the {@link Upstream} is bound to stops.
+     */
+    default void close() {}
+}
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The adaptive concurrency limiter of an {@link Upstream}, which is built from a
+ * {@link ConcurrencyLimitPolicy}.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.concurrency.limit}, the current limit.</li>
+ *   <li>{@code tollgate.upstream.concurrency.in.flight}, the number of the in-flight requests.</li>
+ *   <li>{@code tollgate.upstream.concurrency.rejected.requests} which exceeded the limit.</li>
+ * </ul>
+ */
+final class UpstreamConcurrencyLimiter implements UpstreamComponent {
+
+    private static final String PREFIX = "tollgate.upstream.concurrency";
+
+    private final ConcurrencyLimit limit;
+    private final HttpStatus rejectStatus;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejectedRequests = new LongAdder();
+
+    UpstreamConcurrencyLimiter(ConcurrencyLimitPolicy policy) {
+        limit = ConcurrencyLimit.of(policy);
+        rejectStatus = policy.rejectStatus();
+    }
+
+    /**
+     * Acquires a permit for a request.
+     *
+     * @return the number of the in-flight requests including the request, or {@code -1} if the request
+     *         exceeds the limit.
+     */
+    int tryAcquire() {
+        for (;;) {
+            final int current = inFlight.get();
+            if (current >= limit.limit()) {
+                rejectedRequests.increment();
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a request, adjusting the limit with its latency.
+     */
+    void release(long latencyNanos, int inFlight, boolean dropped) {
+        this.inFlight.decrementAndGet();
+        limit.onSample(latencyNanos, inFlight, dropped);
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        return delegate -> new ConcurrencyLimitingUpstreamClient(delegate, this);
+    }
+
+    @Override
+    public HttpResponse recover(HttpResponse res) {
+        return res.recover(cause -> {
+            if (isRejected(cause)) {
+                return HttpResponse.of(rejectStatus);
+            }
+            return HttpResponse.ofFailure(cause);
+        });
+    }
+
+    private static boolean isRejected(Throwable cause) {
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof ConcurrencyLimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        Gauge.builder(PREFIX + ".limit", limit, ConcurrencyLimit::limit)
+             .description("The concurrency limit of the upstream")
+             .tags(tags)
+             .register(registry);
+        Gauge.builder(PREFIX + ".in.flight", inFlight, AtomicInteger::get)
+             .description("The number of the in-flight requests to the upstream")
+             .tags(tags)
+             .register(registry);
+        FunctionCounter.builder(PREFIX + ".rejected.requests", rejectedRequests, LongAdder::sum)
+                       .description("The number of the requests rejected by the concurrency limit")
+                       .tags(tags)
+                       .register(registry);
+    }
+}
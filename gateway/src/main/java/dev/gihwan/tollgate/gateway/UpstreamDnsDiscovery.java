@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The DNS discovery of the endpoints of an {@link Upstream}, which is built from a {@link DnsDiscovery}. Its
+ * {@link EndpointGroup} stops querying once this component is closed.
+ *
+ * <p>It publishes {@code tollgate.upstream.dns.endpoints}, the number of the discovered endpoints, once
+ * bound to a {@link MeterRegistry}.
+ */
+final class UpstreamDnsDiscovery implements UpstreamComponent {
+
+    private final LastKnownGoodEndpointGroup endpointGroup;
+
+    UpstreamDnsDiscovery(DnsDiscovery discovery) {
+        endpointGroup = discovery.newEndpointGroup();
+    }
+
+    /**
+     * Returns the {@link EndpointGroup} of the discovered endpoints.
+     */
+    EndpointGroup endpointGroup() {
+        return endpointGroup;
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        // The endpoints are discovered by the endpoint group rather than by a decorator.
+        return Function.identity();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        Gauge.builder("tollgate.upstream.dns.endpoints", endpointGroup, group -> group.endpoints().size())
+             .description("The number of the endpoints of the upstream discovered from DNS")
+             .tags(tags)
+             .register(registry);
+    }
+
+    @Override
+    public void close() {
+        endpointGroup.close();
+    }
+}
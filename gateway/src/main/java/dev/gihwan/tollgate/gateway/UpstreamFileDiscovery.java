@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.CommonPools;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The file discovery of the endpoints of an {@link Upstream}, which is built from a {@link FileDiscovery}.
+ * Its {@link EndpointGroup} stops watching the file once this component is closed.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.file.endpoints} discovered from the file.</li>
+ *   <li>{@code tollgate.upstream.file.rejected.updates} of the file, which is invalid or has too few
+ *       endpoints.</li>
+ * </ul>
+ */
+final class UpstreamFileDiscovery implements UpstreamComponent {
+
+    private static final String PREFIX = "tollgate.upstream.file";
+
+    private final FileWatchingEndpointGroup endpointGroup;
+
+    UpstreamFileDiscovery(FileDiscovery discovery) {
+        // Reads the file in the blocking task executor, not to block the event loops.
+        endpointGroup = discovery.newEndpointGroup(CommonPools.blockingTaskExecutor());
+    }
+
+    /**
+     * Returns the {@link EndpointGroup} of the discovered endpoints.
+     */
+    EndpointGroup endpointGroup() {
+        return endpointGroup;
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        // The endpoints are discovered by the endpoint group rather than by a decorator.
+        return Function.identity();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        Gauge.builder(PREFIX + ".endpoints", endpointGroup, group -> group.endpoints().size())
+             .description("The number of the endpoints of the upstream discovered from the file")
+             .tags(tags)
+             .register(registry);
+        FunctionCounter.builder(PREFIX + ".rejected.updates", endpointGroup,
+                                FileWatchingEndpointGroup::rejectedUpdates)
+                       .description("The number of the rejected updates of the endpoints of the upstream")
+                       .tags(tags)
+                       .register(registry);
+    }
+
+    @Override
+    public void close() {
+        endpointGroup.close();
+    }
+}
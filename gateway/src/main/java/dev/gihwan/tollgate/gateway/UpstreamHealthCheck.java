@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.healthcheck.HealthCheckedEndpointGroup;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.server.healthcheck.HealthChecker;
+import com.linecorp.armeria.server.healthcheck.SettableHealthChecker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The active health checking of the endpoints of an {@link Upstream}, which is built from a
+ * {@link HealthCheckPolicy}. Only the healthy endpoints of its {@link EndpointGroup} are selected.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.health.count}, the number of the healthy and the unhealthy endpoints, which
+ *       is tagged with {@code state}.</li>
+ *   <li>{@code tollgate.upstream.health.healthy}, {@code 1} if an endpoint is healthy or {@code 0} otherwise,
+ *       which is tagged with the {@code authority} and the {@code ip} of the endpoint.</li>
+ * </ul>
+ */
+final class UpstreamHealthCheck implements UpstreamComponent {
+
+    private static final String PREFIX = "tollgate.upstream.health";
+
+    private final HealthCheckedEndpointGroup endpointGroup;
+    @Nullable
+    private final SettableHealthChecker gatewayHealthChecker;
+
+    UpstreamHealthCheck(HealthCheckPolicy policy, SessionProtocol protocol, EndpointGroup delegate) {
+        endpointGroup = new ThresholdHealthCheckedEndpointGroupBuilder(delegate, policy).protocol(protocol)
+                                                                                        .build();
+        if (policy.failGatewayHealthCheck()) {
+            final SettableHealthChecker gatewayHealthChecker = new SettableHealthChecker(false);
+            endpointGroup.addListener(endpoints -> gatewayHealthChecker.setHealthy(!endpoints.isEmpty()));
+            this.gatewayHealthChecker = gatewayHealthChecker;
+        } else {
+            gatewayHealthChecker = null;
+        }
+    }
+
+    /**
+     * Returns the {@link EndpointGroup} of the healthy endpoints.
+     */
+    EndpointGroup endpointGroup() {
+        return endpointGroup;
+    }
+
+    /**
+     * Returns the {@link HealthChecker} which is healthy while there is a healthy endpoint, or {@code null} if
+     * it does not affect the health of a {@link Gateway}.
+     */
+    @Nullable
+    HealthChecker gatewayHealthChecker() {
+        return gatewayHealthChecker;
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        // The unhealthy endpoints are removed from the endpoint group rather than by a decorator.
+        return Function.identity();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        endpointGroup.newMeterBinder(new MeterIdPrefix(PREFIX, tags)).bindTo(registry);
+    }
+
+    @Override
+    public void close() {
+        endpointGroup.close();
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.HttpMethod;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+
+/**
+ * The hedging of an {@link Upstream}, which is built from a {@link HedgingPolicy}. The latencies and the budget
+ * of the hedged requests are shared by all requests to the {@link Upstream}.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.hedges} which are sent to the upstream servers.</li>
+ *   <li>{@code tollgate.upstream.hedges.won}, the number of the hedged requests which responded first.</li>
+ *   <li>{@code tollgate.upstream.hedges.rejected}, the number of the hedged requests which are not sent
+ *       because of {@code maxHedgeRatio}.</li>
+ *   <li>{@code tollgate.upstream.hedge.delay}, the current hedge delay.</li>
+ * </ul>
+ */
+final class UpstreamHedging implements UpstreamComponent {
+
+    private static final String HEDGES = "tollgate.upstream.hedges";
+
+    private final long fixedDelayMicros;
+    @Nullable
+    private final RollingPercentile latencyPercentile;
+    private final long minDelayMicros;
+    private final int maxHedges;
+    private final Set<HttpMethod> methods;
+    private final int maxReplayableContentLength;
+    // The hedged requests are limited by a token bucket, just like the retries.
+    private final RetryBudget budget;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wonHedges = new LongAdder();
+    private final LongAdder rejectedHedges = new LongAdder();
+
+    UpstreamHedging(HedgingPolicy policy) {
+        if (policy.delay() != null) {
+            fixedDelayMicros = TimeUnit.NANOSECONDS.toMicros(policy.delay().toNanos());
+            latencyPercentile = null;
+        } else {
+            fixedDelayMicros = -1;
+            latencyPercentile = new RollingPercentile(policy.percentile());
+        }
+        minDelayMicros = TimeUnit.NANOSECONDS.toMicros(policy.minDelay().toNanos());
+        maxHedges = policy.maxHedges();
+        methods = policy.methods();
+        maxReplayableContentLength = policy.maxReplayableContentLength();
+        budget = new RetryBudget(policy.maxHedgeRatio(), 0);
+    }
+
+    int maxHedges() {
+        return maxHedges;
+    }
+
+    boolean isHedgeable(HttpMethod method) {
+        return methods.contains(method);
+    }
+
+    int maxReplayableContentLength() {
+        return maxReplayableContentLength;
+    }
+
+    /**
+     * Returns the delay in microseconds before sending a hedged request.
+     */
+    long delayMicros() {
+        if (latencyPercentile == null) {
+            return fixedDelayMicros;
+        }
+        return Math.max(latencyPercentile.valueMicros(), minDelayMicros);
+    }
+
+    void onRequest() {
+        budget.onRequest();
+    }
+
+    /**
+     * Records the latency of a response from the upstream server, which is used to compute the hedge delay.
+     */
+    void recordLatency(long latencyNanos) {
+        if (latencyPercentile != null) {
+            latencyPercentile.record(latencyNanos);
+        }
+    }
+
+    /**
+     * Returns whether a hedged request is allowed by {@code maxHedgeRatio}, counting it if allowed.
+     */
+    boolean tryHedge() {
+        if (budget.tryRetry()) {
+            hedges.increment();
+            return true;
+        }
+        rejectedHedges.increment();
+        return false;
+    }
+
+    void onHedgeWon() {
+        wonHedges.increment();
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        return delegate -> new HedgingUpstreamClient(delegate, this);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        FunctionCounter.builder(HEDGES, hedges, LongAdder::sum)
+                       .description("The number of the hedged requests to the upstream")
+                       .tags(tags)
+                       .register(registry);
+        FunctionCounter.builder(HEDGES + ".won", wonHedges, LongAdder::sum)
+                       .description("The number of the hedged requests which responded first")
+                       .tags(tags)
+                       .register(registry);
+        FunctionCounter.builder(HEDGES + ".rejected", rejectedHedges, LongAdder::sum)
+                       .description("The number of the hedged requests which are not sent because of the limit")
+                       .tags(tags)
+                       .register(registry);
+        TimeGauge.builder("tollgate.upstream.hedge.delay", this, TimeUnit.MICROSECONDS,
+                          UpstreamHedging::delayMicros)
+                 .description("The delay before sending a hedged request to the upstream")
+                 .tags(tags)
+                 .register(registry);
+    }
+}
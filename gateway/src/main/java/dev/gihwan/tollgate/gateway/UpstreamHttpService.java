@@ -24,24 +24,105 @@
 
 package dev.gihwan.tollgate.gateway;
 
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.ClientRequestContextCaptor;
+import com.linecorp.armeria.client.Clients;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.server.HttpService;
+import com.linecorp.armeria.server.ServiceConfig;
 import com.linecorp.armeria.server.ServiceRequestContext;
 
 /**
- * A {@link HttpService} which forwards {@link HttpRequest}s to the specified {@link Upstream}.
+ * A {@link HttpService} which forwards {@link HttpRequest}s to the specified {@link Upstream}, recording
+ * the {@link RouteMetrics} of the route which this service is bound to. It also adds a {@code server-timing}
+ * header to the responses if enabled. See {@link ServerTimingResponse}. The requests are sent through the
+ * {@link Bulkhead} of the route if configured, which responds with {@code 503 Service Unavailable} to the
+ * rejected requests. The deadline of the requests is propagated to the {@link Upstream} after the bulkhead if
+ * configured, so that the time waiting for the bulkhead is taken into account. See {@link DeadlinePolicy}.
  */
 final class UpstreamHttpService implements HttpService {
 
     private final Upstream upstream;
+    private final boolean serverTiming;
+    @Nullable
+    private final Bulkhead bulkhead;
+    @Nullable
+    private final DeadlinePropagation deadline;
+
+    @Nullable
+    private volatile RouteMetrics metrics;
 
-    UpstreamHttpService(Upstream upstream) {
+    UpstreamHttpService(Upstream upstream, boolean serverTiming, @Nullable Bulkhead bulkhead,
+                        @Nullable DeadlinePropagation deadline) {
         this.upstream = upstream;
+        this.serverTiming = serverTiming;
+        this.bulkhead = bulkhead;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void serviceAdded(ServiceConfig cfg) throws Exception {
+        // Called for each virtual host which this service is bound to, with the same route.
+        if (metrics == null) {
+            final RouteMetrics metrics = new RouteMetrics(cfg.server().meterRegistry(), cfg.route());
+            if (upstream instanceof DefaultUpstream) {
+                // Bound only by the first route if shared by more than one route.
+                ((DefaultUpstream) upstream).bindTo(cfg.server(), metrics.tags());
+            }
+            if (bulkhead != null) {
+                bulkhead.bindTo(cfg.server().meterRegistry(), "tollgate.route.bulkhead", metrics.tags());
+            }
+            if (deadline != null) {
+                deadline.bindTo(cfg.server().meterRegistry(), metrics.tags());
+            }
+            this.metrics = metrics;
+        }
     }
 
     @Override
     public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) {
-        return upstream.execute(req);
+        final RouteMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.onRequest(ctx);
+        }
+        if (bulkhead == null) {
+            return forward(ctx, req, metrics);
+        }
+        // The event loop of the context runs a waiting request with the context.
+        return bulkhead.execute(ctx.eventLoop(), () -> forward(ctx, req, metrics),
+                                cause -> HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE));
+    }
+
+    private HttpResponse forward(ServiceRequestContext ctx, HttpRequest req, @Nullable RouteMetrics metrics) {
+        if (deadline == null) {
+            return execute(ctx, req, metrics);
+        }
+        return deadline.forward(ctx, req, () -> execute(ctx, req, metrics));
+    }
+
+    private HttpResponse execute(ServiceRequestContext ctx, HttpRequest req, @Nullable RouteMetrics metrics) {
+        if (metrics == null && !serverTiming) {
+            return upstream.execute(req);
+        }
+
+        final HttpResponse res;
+        final ClientRequestContext upstreamCtx;
+        try (ClientRequestContextCaptor captor = Clients.newContextCaptor()) {
+            res = upstream.execute(req);
+            upstreamCtx = captor.getOrNull();
+        }
+        // A custom Upstream may not send a request with an Armeria client synchronously.
+        if (upstreamCtx == null) {
+            return res;
+        }
+
+        if (metrics != null) {
+            metrics.onUpstreamRequest(upstreamCtx);
+        }
+        return serverTiming ? new ServerTimingResponse(res, ctx, upstreamCtx) : res;
     }
 }
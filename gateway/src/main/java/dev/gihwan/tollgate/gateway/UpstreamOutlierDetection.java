@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.CommonPools;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The passive outlier detection of the endpoints of an {@link Upstream}, which is built from an
+ * {@link OutlierDetectionPolicy}. The ejected endpoints are removed from its {@link EndpointGroup}.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.outlier.ejected} endpoints now.</li>
+ *   <li>{@code tollgate.upstream.outlier.ejections} of the endpoints, tagged with the {@code reason}, which is
+ *       {@code consecutive-errors} or {@code latency}.</li>
+ * </ul>
+ */
+final class UpstreamOutlierDetection implements UpstreamComponent {
+
+    private static final String PREFIX = "tollgate.upstream.outlier";
+
+    private final OutlierDetectingEndpointGroup endpointGroup;
+
+    UpstreamOutlierDetection(OutlierDetectionPolicy policy, EndpointGroup delegate) {
+        endpointGroup = new OutlierDetectingEndpointGroup(delegate, policy, System::nanoTime,
+                                                          CommonPools.workerGroup().next());
+    }
+
+    /**
+     * Returns the {@link EndpointGroup} of the endpoints which are not ejected.
+     */
+    EndpointGroup endpointGroup() {
+        return endpointGroup;
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        return delegate -> new OutlierDetectionUpstreamClient(delegate, endpointGroup);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        Gauge.builder(PREFIX + ".ejected", endpointGroup, OutlierDetectingEndpointGroup::ejectedEndpoints)
+             .description("The number of the ejected endpoints of the upstream")
+             .tags(tags)
+             .register(registry);
+        FunctionCounter.builder(PREFIX + ".ejections", endpointGroup,
+                                OutlierDetectingEndpointGroup::consecutiveErrorEjections)
+                       .description("The number of the ejections of the endpoints of the upstream")
+                       .tags(tags)
+                       .tag("reason", "consecutive-errors")
+                       .register(registry);
+        FunctionCounter.builder(PREFIX + ".ejections", endpointGroup,
+                                OutlierDetectingEndpointGroup::latencyEjections)
+                       .description("The number of the ejections of the endpoints of the upstream")
+                       .tags(tags)
+                       .tag("reason", "latency")
+                       .register(registry);
+    }
+
+    @Override
+    public void close() {
+        endpointGroup.close();
+    }
+}
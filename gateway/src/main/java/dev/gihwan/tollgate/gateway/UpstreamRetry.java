@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.retry.Backoff;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The retries of an {@link Upstream}, which are built from a {@link RetryPolicy}. The {@link RetryBudget} is
+ * shared by all requests to the {@link Upstream}.
+ *
+ * <p>It publishes the following metrics once bound to a {@link MeterRegistry}:
+ * <ul>
+ *   <li>{@code tollgate.upstream.retries} which are sent to the upstream servers.</li>
+ *   <li>{@code tollgate.upstream.retry.budget.exhausted}, the number of the retries which are not sent
+ *       because the retry budget is exhausted.</li>
+ *   <li>{@code tollgate.upstream.retry.budget.available}, the number of the retries allowed now.</li>
+ * </ul>
+ */
+final class UpstreamRetry implements UpstreamComponent {
+
+    private static final String RETRIES = "tollgate.upstream.retries";
+    private static final String BUDGET_PREFIX = "tollgate.upstream.retry.budget";
+
+    private final int maxAttempts;
+    private final Set<HttpMethod> methods;
+    private final Set<HttpStatus> statuses;
+    private final Backoff backoff;
+    private final int maxReplayableContentLength;
+    private final RetryBudget budget;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhaustedRetries = new LongAdder();
+
+    UpstreamRetry(RetryPolicy policy) {
+        maxAttempts = policy.maxAttempts();
+        methods = policy.methods();
+        statuses = policy.statuses();
+        backoff = Backoff.exponential(policy.initialBackoff().toMillis(), policy.maxBackoff().toMillis())
+                         .withJitter(policy.jitter());
+        maxReplayableContentLength = policy.maxReplayableContentLength();
+        budget = new RetryBudget(policy.budgetRatio(), policy.minRetriesPerSecond());
+    }
+
+    int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Returns whether a request of the given {@link HttpMethod} is retried after a response or a failure.
+     */
+    boolean isIdempotent(HttpMethod method) {
+        return methods.contains(method);
+    }
+
+    /**
+     * Returns whether a response of the given {@link HttpStatus} is retried.
+     */
+    boolean isRetryable(HttpStatus status) {
+        return statuses.contains(status);
+    }
+
+    /**
+     * Returns the delay in milliseconds before the next attempt after the given number of attempts.
+     */
+    long nextDelayMillis(int attempts) {
+        return backoff.nextDelayMillis(attempts);
+    }
+
+    int maxReplayableContentLength() {
+        return maxReplayableContentLength;
+    }
+
+    void onRequest() {
+        budget.onRequest();
+    }
+
+    /**
+     * Returns whether a retry is allowed by the retry budget, withdrawing a token from it if allowed.
+     */
+    boolean tryRetry() {
+        if (budget.tryRetry()) {
+            retries.increment();
+            return true;
+        }
+        exhaustedRetries.increment();
+        return false;
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        return delegate -> new RetryingUpstreamClient(delegate, this);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        FunctionCounter.builder(RETRIES, retries, LongAdder::sum)
+                       .description("The number of the retries to the upstream")
+                       .tags(tags)
+                       .register(registry);
+        FunctionCounter.builder(BUDGET_PREFIX + ".exhausted", exhaustedRetries, LongAdder::sum)
+                       .description("The number of the retries which are not sent because of the retry budget")
+                       .tags(tags)
+                       .register(registry);
+        Gauge.builder(BUDGET_PREFIX + ".available", budget, RetryBudget::available)
+             .description("The number of the retries to the upstream which are allowed now")
+             .tags(tags)
+             .register(registry);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.function.Function;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.CommonPools;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * The slow start of the endpoints of an {@link Upstream}, which is built from a {@link SlowStartPolicy}.
+ *
+ * <p>It publishes {@code tollgate.upstream.slow.start.endpoints}, the number of the endpoints warming up, once
+ * bound to a {@link MeterRegistry}.
+ */
+final class UpstreamSlowStart implements UpstreamComponent {
+
+    private final SlowStartEndpointGroup endpointGroup;
+
+    UpstreamSlowStart(SlowStartPolicy policy, EndpointGroup delegate) {
+        endpointGroup = new SlowStartEndpointGroup(delegate, policy, System::nanoTime,
+                                                   CommonPools.workerGroup().next());
+    }
+
+    /**
+     * Returns the {@link EndpointGroup} of the endpoints whose weights are ramped up.
+     */
+    EndpointGroup endpointGroup() {
+        return endpointGroup;
+    }
+
+    @Override
+    public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+        // The endpoints are weighted by the endpoint group rather than by a decorator.
+        return Function.identity();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry, Tags tags) {
+        Gauge.builder("tollgate.upstream.slow.start.endpoints", endpointGroup,
+                      SlowStartEndpointGroup::warmingUpEndpoints)
+             .description("The number of the endpoints of the upstream warming up")
+             .tags(tags)
+             .register(registry);
+    }
+
+    @Override
+    public void close() {
+        endpointGroup.close();
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.logging.ClientConnectionTimings;
+import com.linecorp.armeria.common.logging.RequestLog;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The timers of the phases of the requests to an upstream server, which are recorded from the
+ * {@link RequestLog} of a client. Each phase is tagged with {@code phase}:
+ *
+ * <ul>
+ *   <li>{@code pool_wait} - waiting for a connection which is being opened by another request.</li>
+ *   <li>{@code dns} - resolving the address of the upstream server.</li>
+ *   <li>{@code connect} - connecting a socket.</li>
+ *   <li>{@code handshake} - the rest of opening a connection, i.e. the TLS handshake and the protocol
+ *       negotiation, e.g. HTTP/2 connection preface.</li>
+ *   <li>{@code request_write} - writing the request from its first byte.</li>
+ *   <li>{@code ttfb} - waiting for the first byte of the response after writing the request.</li>
+ *   <li>{@code response_body} - receiving the response from its first byte.</li>
+ * </ul>
+ *
+ * <p>The phases of opening a connection are recorded only for the requests which opened or waited for a new
+ * connection.
+ */
+final class UpstreamTimings {
+
+    private static final Duration MINIMUM_EXPECTED_DURATION = Duration.of(10, ChronoUnit.MICROS);
+    private static final Duration MAXIMUM_EXPECTED_DURATION = Duration.ofSeconds(30);
+
+    private final Timer poolWait;
+    private final Timer dns;
+    private final Timer connect;
+    private final Timer handshake;
+    private final Timer requestWrite;
+    private final Timer timeToFirstByte;
+    private final Timer responseBody;
+
+    UpstreamTimings(MeterRegistry registry, String name, Tags tags) {
+        poolWait = timer(registry, name, tags, "pool_wait");
+        dns = timer(registry, name, tags, "dns");
+        connect = timer(registry, name, tags, "connect");
+        handshake = timer(registry, name, tags, "handshake");
+        requestWrite = timer(registry, name, tags, "request_write");
+        timeToFirstByte = timer(registry, name, tags, "ttfb");
+        responseBody = timer(registry, name, tags, "response_body");
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, Tags tags, String phase) {
+        return Timer.builder(name)
+                    .description("The time taken by a phase of a request to an upstream server")
+                    .tags(tags)
+                    .tag("phase", phase)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(MINIMUM_EXPECTED_DURATION)
+                    .maximumExpectedValue(MAXIMUM_EXPECTED_DURATION)
+                    .register(registry);
+    }
+
+    /**
+     * Records the phases of the given completed {@link RequestLog} of a client.
+     */
+    void record(RequestLog log) {
+        @Nullable
+        final ClientConnectionTimings connectionTimings = log.connectionTimings();
+        if (connectionTimings != null) {
+            recordConnectionTimings(connectionTimings);
+        }
+
+        final long requestEndTimeNanos = log.requestEndTimeNanos();
+        @Nullable
+        final Long requestFirstBytesTransferredTimeNanos = log.requestFirstBytesTransferredTimeNanos();
+        if (requestFirstBytesTransferredTimeNanos != null) {
+            record(requestWrite, requestEndTimeNanos - requestFirstBytesTransferredTimeNanos);
+        }
+
+        @Nullable
+        final Long responseFirstBytesTransferredTimeNanos = log.responseFirstBytesTransferredTimeNanos();
+        if (responseFirstBytesTransferredTimeNanos != null) {
+            // A streaming upstream server may respond before the request ends.
+            record(timeToFirstByte, Math.max(responseFirstBytesTransferredTimeNanos - requestEndTimeNanos, 0));
+            record(responseBody, log.responseEndTimeNanos() - responseFirstBytesTransferredTimeNanos);
+        }
+    }
+
+    private void recordConnectionTimings(ClientConnectionTimings timings) {
+        // A duration is -1 if the phase did not happen.
+        final long pendingAcquisitionDurationNanos = timings.pendingAcquisitionDurationNanos();
+        final long dnsResolutionDurationNanos = timings.dnsResolutionDurationNanos();
+        final long socketConnectDurationNanos = timings.socketConnectDurationNanos();
+        record(poolWait, pendingAcquisitionDurationNanos);
+        record(dns, dnsResolutionDurationNanos);
+        record(connect, socketConnectDurationNanos);
+
+        if (socketConnectDurationNanos >= 0) {
+            final long handshakeDurationNanos = timings.connectionAcquisitionDurationNanos() -
+                                                Math.max(pendingAcquisitionDurationNanos, 0) -
+                                                Math.max(dnsResolutionDurationNanos, 0) -
+                                                socketConnectDurationNanos;
+            record(handshake, Math.max(handshakeDurationNanos, 0));
+        }
+    }
+
+    private static void record(Timer timer, long durationNanos) {
+        if (durationNanos >= 0) {
+            timer.record(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
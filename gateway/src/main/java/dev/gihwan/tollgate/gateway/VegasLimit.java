@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+/**
+ * A {@link ConcurrencyLimit} of {@link ConcurrencyLimitAlgorithm#VEGAS}.
+ *
+ * <p>The number of the queued requests is estimated as {@code limit * (1 - minLatency / latency)}. The
+ * limit grows quickly while the queue is shorter than {@code log10(limit)}, grows slowly while the queue is
+ * shorter than {@code 3 * log10(limit)} and shrinks while the queue is longer than {@code 6 * log10(limit)}.
+ * The minimum latency is probed again from time to time, so that it follows the changes of the upstream
+ * servers.
+ */
+final class VegasLimit extends ConcurrencyLimit {
+
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private long minLatencyNanos;
+    private long samplesUntilProbe;
+
+    VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        super(initialLimit, minLimit, maxLimit);
+        samplesUntilProbe = (long) PROBE_MULTIPLIER * initialLimit;
+    }
+
+    @Override
+    double update(int limit, long latencyNanos, int inFlight, boolean dropped) {
+        final long sampleNanos = Math.max(latencyNanos, 1);
+        if (--samplesUntilProbe <= 0) {
+            samplesUntilProbe = (long) PROBE_MULTIPLIER * limit;
+            minLatencyNanos = sampleNanos;
+            return limit;
+        }
+        if (minLatencyNanos == 0 || sampleNanos < minLatencyNanos) {
+            minLatencyNanos = sampleNanos;
+            return limit;
+        }
+
+        final double log10Limit = Math.max(1, Math.log10(limit));
+        if (dropped) {
+            return limit - log10Limit;
+        }
+        // Does not grow the limit while the upstream is not fully used.
+        if (inFlight * 2 < limit) {
+            return limit;
+        }
+
+        final double queueSize = Math.ceil(limit * (1 - (double) minLatencyNanos / sampleNanos));
+        if (queueSize <= log10Limit) {
+            return limit + 6 * log10Limit;
+        }
+        if (queueSize < 3 * log10Limit) {
+            return limit + log10Limit;
+        }
+        if (queueSize > 6 * log10Limit) {
+            return limit - log10Limit;
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+/**
+ * A {@link DynamicEndpointGroup} of the available endpoints of an {@link Upstream} which are weighted by a
+ * {@link ZoneAwarePolicy}.
+ *
+ * <p>While the local zone has enough capacity, only the endpoints in the local zone are exposed. Otherwise,
+ * the weights of the endpoints are rescaled so that the endpoints in the local zone and the other zones take
+ * the share of the requests decided by the policy, which composes with any weighted selection of the
+ * endpoints.
+ */
+final class ZoneAwareEndpointGroup extends DynamicEndpointGroup {
+
+    // The sum of the rescaled weights of the endpoints, large enough to keep the ratios of the weights. Only
+    // the ratios matter, e.g. a HashRing normalizes the weights to its number of the virtual nodes.
+    private static final long TOTAL_WEIGHT = 1_000_000;
+
+    private final EndpointGroup configured;
+    private final EndpointGroup available;
+    private final ZoneAwarePolicy policy;
+    private final Consumer<List<Endpoint>> listener = unused -> update();
+
+    private volatile double localShare;
+
+    /**
+     * Creates a new instance with the given {@code configured} {@link EndpointGroup}, whose endpoints in the
+     * local zone are the full capacity of the zone, and the given {@code available} {@link EndpointGroup},
+     * whose endpoints are selected.
+     */
+    ZoneAwareEndpointGroup(EndpointGroup configured, EndpointGroup available, ZoneAwarePolicy policy) {
+        super(available.selectionStrategy());
+        this.configured = configured;
+        this.available = available;
+        this.policy = policy;
+
+        configured.addListener(listener);
+        if (available != configured) {
+            available.addListener(listener);
+        }
+        update();
+    }
+
+    private synchronized void update() {
+        long configuredLocalWeight = 0;
+        for (Endpoint endpoint : configured.endpoints()) {
+            if (policy.isLocal(endpoint)) {
+                configuredLocalWeight += endpoint.weight();
+            }
+        }
+
+        final List<Endpoint> endpoints = available.endpoints();
+        final List<Endpoint> local = new ArrayList<>();
+        final List<Endpoint> remote = new ArrayList<>();
+        long localWeight = 0;
+        long remoteWeight = 0;
+        for (Endpoint endpoint : endpoints) {
+            if (policy.isLocal(endpoint)) {
+                local.add(endpoint);
+                localWeight += endpoint.weight();
+            } else {
+                remote.add(endpoint);
+                remoteWeight += endpoint.weight();
+            }
+        }
+
+        if (configuredLocalWeight == 0) {
+            // No preference without the endpoints in the local zone.
+            localShare = 0;
+            setEndpoints(endpoints);
+            return;
+        }
+
+        final double capacity = (double) localWeight / configuredLocalWeight;
+        final double share = Math.min(capacity / policy.spilloverThreshold(), 1);
+        if (remoteWeight == 0 || share >= 1) {
+            localShare = localWeight > 0 ? 1 : 0;
+            setEndpoints(localWeight > 0 ? local : endpoints);
+            return;
+        }
+        if (share <= 0) {
+            localShare = 0;
+            setEndpoints(remote);
+            return;
+        }
+
+        localShare = share;
+        final ImmutableList.Builder<Endpoint> weighted = ImmutableList.builder();
+        rescale(weighted, local, localWeight, share);
+        rescale(weighted, remote, remoteWeight, 1 - share);
+        setEndpoints(weighted.build());
+    }
+
+    private static void rescale(ImmutableList.Builder<Endpoint> weighted, List<Endpoint> endpoints,
+                                long weight, double share) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.weight() == 0) {
+                weighted.add(endpoint);
+                continue;
+            }
+            final long rescaled = Math.round(TOTAL_WEIGHT * share * endpoint.weight() / weight);
+            weighted.add(endpoint.withWeight((int) Math.max(rescaled, 1)));
+        }
+    }
+
+    /**
+     * Returns the share of the requests which are sent to the local zone.
+     */
+    double localShare() {
+        return localShare;
+    }
+
+    @Override
+    protected void doCloseAsync(CompletableFuture<?> future) {
+        configured.removeListener(listener);
+        available.removeListener(listener);
+        future.complete(null);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{policy=" + policy + ", endpoints=" + endpoints() + '}';
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * A policy of the zone-aware routing to the endpoints of an {@link Upstream}, which keeps the requests in the
+ * local zone of a {@link Gateway} to cut the latency and the cost of the cross-zone traffic.
+ *
+ * <p>The requests are sent only to the endpoints in the local zone while the weights of their available
+ * endpoints, e.g. the healthy and not ejected ones, are at least the spillover threshold of the weights of
+ * their configured endpoints. Below the threshold, the share of the requests sent to the local zone shrinks in
+ * proportion, and the rest spills over to the available endpoints in the other zones. An endpoint whose zone is
+ * unknown is considered to be in another zone.
+ *
+ * @see ZoneAwarePolicyBuilder
+ */
+public final class ZoneAwarePolicy {
+
+    /**
+     * Returns a new {@link ZoneAwarePolicyBuilder} which prefers the given {@code localZone}.
+     */
+    public static ZoneAwarePolicyBuilder builder(String localZone) {
+        return new ZoneAwarePolicyBuilder(requireNonNull(localZone, "localZone"));
+    }
+
+    private final String localZone;
+    private final Map<String, String> zones;
+    private final double spilloverThreshold;
+
+    ZoneAwarePolicy(String localZone, Map<String, String> zones, double spilloverThreshold) {
+        this.localZone = localZone;
+        this.zones = zones;
+        this.spilloverThreshold = spilloverThreshold;
+    }
+
+    /**
+     * Returns whether the given {@link Endpoint} is in the local zone.
+     */
+    boolean isLocal(Endpoint endpoint) {
+        // Looked up by the authority, so that an endpoint is found regardless of its weight and IP address.
+        return localZone.equals(zones.get(endpoint.authority()));
+    }
+
+    double spilloverThreshold() {
+        return spilloverThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("localZone", localZone)
+                          .add("zones", zones)
+                          .add("spilloverThreshold", spilloverThreshold)
+                          .toString();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * A builder for {@link ZoneAwarePolicy}.
+ */
+public final class ZoneAwarePolicyBuilder {
+
+    private static final double DEFAULT_SPILLOVER_THRESHOLD = 0.7;
+
+    private final String localZone;
+    private final Map<String, String> zones = new LinkedHashMap<>();
+    private double spilloverThreshold = DEFAULT_SPILLOVER_THRESHOLD;
+
+    ZoneAwarePolicyBuilder(String localZone) {
+        checkArgument(!localZone.isEmpty(), "localZone should not be empty");
+        this.localZone = localZone;
+    }
+
+    /**
+     * Sets the zone of the given {@link Endpoint}s as the given {@code zone}.
+     */
+    public ZoneAwarePolicyBuilder zone(String zone, Endpoint... endpoints) {
+        return zone(zone, ImmutableList.copyOf(requireNonNull(endpoints, "endpoints")));
+    }
+
+    /**
+     * Sets the zone of the given {@link Endpoint}s as the given {@code zone}.
+     */
+    public ZoneAwarePolicyBuilder zone(String zone, Iterable<Endpoint> endpoints) {
+        requireNonNull(zone, "zone");
+        requireNonNull(endpoints, "endpoints");
+        checkArgument(!zone.isEmpty(), "zone should not be empty");
+        endpoints.forEach(endpoint -> zones.put(endpoint.authority(), zone));
+        return this;
+    }
+
+    /**
+     * Sets the ratio of the weights of the available endpoints in the local zone to the weights of the
+     * configured ones, below which the requests spill over to the other zones. By default, {@code 0.7} is used.
+     */
+    public ZoneAwarePolicyBuilder spilloverThreshold(double spilloverThreshold) {
+        checkArgument(spilloverThreshold > 0 && spilloverThreshold <= 1,
+                      "spilloverThreshold: %s (expected: 0 < spilloverThreshold <= 1)", spilloverThreshold);
+        this.spilloverThreshold = spilloverThreshold;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link ZoneAwarePolicy} based on the properties of this builder.
+     */
+    public ZoneAwarePolicy build() {
+        return new ZoneAwarePolicy(localZone, ImmutableMap.copyOf(zones), spilloverThreshold);
+    }
+}
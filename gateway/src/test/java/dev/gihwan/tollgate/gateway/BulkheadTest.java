@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+
+class BulkheadTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final List<Integer> executed = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void rejectWhenQueueIsFull() {
+        final Bulkhead bulkhead = new Bulkhead(BulkheadPolicy.builder()
+                                                             .maxConcurrentRequests(1)
+                                                             .build());
+        final HttpResponseWriter first = HttpResponse.streaming();
+        final HttpResponse firstRes = bulkhead.execute(executor, () -> first, BulkheadTest::reject);
+        final HttpResponse second = bulkhead.execute(executor, () -> HttpResponse.of(HttpStatus.OK),
+                                                     BulkheadTest::reject);
+        assertThat(second.aggregate().join().status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        first.write(ResponseHeaders.of(HttpStatus.OK));
+        first.close();
+        firstRes.aggregate().join();
+        // The permit is released once the response is completed.
+        await().untilAsserted(() -> {
+            final HttpResponse third = bulkhead.execute(executor, () -> HttpResponse.of(HttpStatus.OK),
+                                                        BulkheadTest::reject);
+            assertThat(third.aggregate().join().status()).isEqualTo(HttpStatus.OK);
+        });
+    }
+
+    @Test
+    void fifo() {
+        assertThat(executionOrder(BulkheadQueueOrder.FIFO)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void lifo() {
+        assertThat(executionOrder(BulkheadQueueOrder.LIFO)).containsExactly(0, 2, 1);
+    }
+
+    @Test
+    void rejectAfterMaxWait() {
+        final Bulkhead bulkhead = new Bulkhead(BulkheadPolicy.builder()
+                                                             .maxConcurrentRequests(1)
+                                                             .maxQueueSize(1)
+                                                             .maxWait(Duration.ofMillis(100))
+                                                             .build());
+        bulkhead.execute(executor, HttpResponse::streaming, BulkheadTest::reject);
+        final HttpResponse second = bulkhead.execute(executor, () -> HttpResponse.of(HttpStatus.OK),
+                                                     BulkheadTest::reject);
+        assertThat(second.aggregate().join().status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private List<Integer> executionOrder(BulkheadQueueOrder queueOrder) {
+        final Bulkhead bulkhead = new Bulkhead(BulkheadPolicy.builder()
+                                                             .maxConcurrentRequests(1)
+                                                             .maxQueueSize(2)
+                                                             .queueOrder(queueOrder)
+                                                             .build());
+        final HttpResponseWriter first = HttpResponse.streaming();
+        final HttpResponse firstRes = bulkhead.execute(executor, () -> {
+            executed.add(0);
+            return first;
+        }, BulkheadTest::reject);
+        final HttpResponse second = bulkhead.execute(executor, () -> {
+            executed.add(1);
+            return HttpResponse.of(HttpStatus.OK);
+        }, BulkheadTest::reject);
+        final HttpResponse third = bulkhead.execute(executor, () -> {
+            executed.add(2);
+            return HttpResponse.of(HttpStatus.OK);
+        }, BulkheadTest::reject);
+        assertThat(executed).containsExactly(0);
+
+        first.write(ResponseHeaders.of(HttpStatus.OK));
+        first.close();
+        firstRes.aggregate().join();
+        final CompletableFuture<AggregatedHttpResponse> secondRes = second.aggregate();
+        final CompletableFuture<AggregatedHttpResponse> thirdRes = third.aggregate();
+        assertThat(secondRes.join().status()).isEqualTo(HttpStatus.OK);
+        assertThat(thirdRes.join().status()).isEqualTo(HttpStatus.OK);
+        await().untilAsserted(() -> assertThat(executed).hasSize(3));
+        return executed;
+    }
+
+    private static HttpResponse reject(Throwable cause) {
+        return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
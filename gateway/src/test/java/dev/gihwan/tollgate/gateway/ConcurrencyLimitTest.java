@@ -0,0 +1,96 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ConcurrencyLimitTest {
+
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyLimitAlgorithm.class)
+    void growWhileLatencyIsStable(ConcurrencyLimitAlgorithm algorithm) {
+        final ConcurrencyLimit limit = newLimit(algorithm);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(LATENCY_NANOS, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isGreaterThan(20);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyLimitAlgorithm.class)
+    void shrinkWhenLatencyGrows(ConcurrencyLimitAlgorithm algorithm) {
+        final ConcurrencyLimit limit = newLimit(algorithm);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(LATENCY_NANOS, limit.limit(), false);
+        }
+        final int limitBeforeSaturation = limit.limit();
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(LATENCY_NANOS * 10, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isLessThan(limitBeforeSaturation);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyLimitAlgorithm.class)
+    void doNotGrowWhileUpstreamIsNotFullyUsed(ConcurrencyLimitAlgorithm algorithm) {
+        final ConcurrencyLimit limit = newLimit(algorithm);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(LATENCY_NANOS, 1, false);
+        }
+        assertThat(limit.limit()).isEqualTo(20);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ConcurrencyLimitAlgorithm.class)
+    void keepLimitInRange(ConcurrencyLimitAlgorithm algorithm) {
+        final ConcurrencyLimit limit = ConcurrencyLimit.of(ConcurrencyLimitPolicy.builder()
+                                                                                 .algorithm(algorithm)
+                                                                                 .initialLimit(15)
+                                                                                 .limit(10, 20)
+                                                                                 .build());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(LATENCY_NANOS, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isEqualTo(20);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(LATENCY_NANOS * 10, limit.limit(), true);
+        }
+        assertThat(limit.limit()).isEqualTo(10);
+    }
+
+    private static ConcurrencyLimit newLimit(ConcurrencyLimitAlgorithm algorithm) {
+        return ConcurrencyLimit.of(ConcurrencyLimitPolicy.builder()
+                                                         .algorithm(algorithm)
+                                                         .initialLimit(20)
+                                                         .build());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static dev.gihwan.tollgate.testing.TestGateway.withTestGateway;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import dev.gihwan.tollgate.testing.TestGateway;
+
+class DeadlinePropagationTest {
+
+    private static final String HEADER = "x-tollgate-timeout-ms";
+
+    private static final AtomicReference<ServiceRequestContext> ctxCapture = new AtomicReference<>();
+
+    @RegisterExtension
+    static final ServerExtension serviceServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) {
+            sb.requestTimeoutMillis(0);
+            sb.service("/timeout", (ctx, req) -> HttpResponse.of(req.headers().get(HEADER, "none")));
+            sb.service("/slow", (ctx, req) -> HttpResponse.delayed(HttpResponse.of(HttpStatus.OK),
+                                                                   Duration.ofMillis(1500)));
+            sb.service("/never", (ctx, req) -> {
+                ctxCapture.set(ctx);
+                return HttpResponse.from(new CompletableFuture<>());
+            });
+        }
+    };
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void resetCapture() {
+        ctxCapture.set(null);
+    }
+
+    @Test
+    void forwardRemainingTime() {
+        try (TestGateway gateway = newGateway(10_000, DeadlinePolicy.builder().build())) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+
+            final long timeoutMillis = Long.parseLong(client.get("/timeout").aggregate().join().contentUtf8());
+            assertThat(timeoutMillis).isBetween(9_000L, 10_000L);
+
+            // The header of the request from the user shortens the timeout.
+            final AggregatedHttpResponse res =
+                    client.execute(RequestHeaders.of(HttpMethod.GET, "/timeout", HEADER, "500"))
+                          .aggregate().join();
+            assertThat(Long.parseLong(res.contentUtf8())).isBetween(1L, 500L);
+
+            // The header longer than the request timeout is ignored.
+            final AggregatedHttpResponse longRes =
+                    client.execute(RequestHeaders.of(HttpMethod.GET, "/timeout", HEADER, "60000"))
+                          .aggregate().join();
+            assertThat(Long.parseLong(longRes.contentUtf8())).isBetween(9_000L, 10_000L);
+        }
+    }
+
+    @Test
+    void ignoreHeaderIfNotHonored() {
+        final DeadlinePolicy policy = DeadlinePolicy.builder().header("x-deadline").honorHeader(false).build();
+        try (TestGateway gateway = newGateway(10_000, policy)) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            final AggregatedHttpResponse res =
+                    client.execute(RequestHeaders.of(HttpMethod.GET, "/slow", "x-deadline", "100"))
+                          .aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    @Test
+    void respondWithoutForwardingIfNoTimeLeft() {
+        final DeadlinePolicy policy = DeadlinePolicy.builder().minRemaining(Duration.ofMillis(100)).build();
+        try (TestGateway gateway = newGateway(10_000, policy)) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            final AggregatedHttpResponse res =
+                    client.execute(RequestHeaders.of(HttpMethod.GET, "/never", HEADER, "50"))
+                          .aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+            assertThat(ctxCapture.get()).isNull();
+            assertThat(registry.get("tollgate.route.deadline.exceeded.requests").functionCounter().count())
+                    .isOne();
+        }
+    }
+
+    @Test
+    void cancelUpstreamRequestOnTimeout() {
+        try (TestGateway gateway = newGateway(10_000, DeadlinePolicy.builder().build())) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            final AggregatedHttpResponse res =
+                    client.execute(RequestHeaders.of(HttpMethod.GET, "/never", HEADER, "300"))
+                          .aggregate().join();
+            assertThat(res.status().isServerError()).isTrue();
+
+            // The upstream server notices that the request to it is cancelled.
+            await().untilAsserted(() -> assertThat(ctxCapture.get()).isNotNull());
+            await().untilAsserted(() -> assertThat(ctxCapture.get().log().isComplete()).isTrue());
+        }
+    }
+
+    @Test
+    void cancelUpstreamRequestOnDisconnect() {
+        try (TestGateway gateway = newGateway(10_000, DeadlinePolicy.builder().build())) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            final HttpResponse res = client.get("/never");
+            await().untilAsserted(() -> assertThat(ctxCapture.get()).isNotNull());
+
+            res.abort();
+            await().untilAsserted(() -> assertThat(ctxCapture.get().log().isComplete()).isTrue());
+            await().untilAsserted(() -> assertThat(
+                    registry.get("tollgate.route.deadline.cancelled.requests").functionCounter().count())
+                    .isOne());
+        }
+    }
+
+    @Test
+    void keepShorterResponseTimeout() {
+        // The response timeout of the upstream is shorter than the request timeout.
+        try (TestGateway gateway = newGateway(10_000, 500, DeadlinePolicy.builder().build())) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            assertThat(client.get("/slow").aggregate().join().status().isServerError()).isTrue();
+            assertThat(Long.parseLong(client.get("/timeout").aggregate().join().contentUtf8())).isEqualTo(500);
+        }
+    }
+
+    @Test
+    void keepResponseTimeoutWithoutRequestTimeout() {
+        // The request timeout is disabled, but the response timeout of the upstream still applies.
+        try (TestGateway gateway = newGateway(0, 500, DeadlinePolicy.builder().build())) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            assertThat(client.get("/slow").aggregate().join().status().isServerError()).isTrue();
+            assertThat(Long.parseLong(client.get("/timeout").aggregate().join().contentUtf8())).isEqualTo(500);
+        }
+    }
+
+    @Test
+    void waitForeverWithoutTimeout() {
+        // Neither the request timeout nor the response timeout of the upstream is set.
+        try (TestGateway gateway = newGateway(0, 0, DeadlinePolicy.builder().build())) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            assertThat(client.get("/slow").aggregate().join().status()).isEqualTo(HttpStatus.OK);
+            assertThat(client.get("/timeout").aggregate().join().contentUtf8()).isEqualTo("none");
+        }
+    }
+
+    private TestGateway newGateway(long requestTimeoutMillis, DeadlinePolicy policy) {
+        return newGateway(requestTimeoutMillis, 10_000, policy);
+    }
+
+    private TestGateway newGateway(long requestTimeoutMillis, long responseTimeoutMillis,
+                                   DeadlinePolicy policy) {
+        return withTestGateway(builder -> {
+            builder.server(sb -> sb.requestTimeoutMillis(requestTimeoutMillis).meterRegistry(registry))
+                   .route()
+                   .path("/timeout")
+                   .path("/slow")
+                   .path("/never")
+                   .deadline(policy)
+                   .build(Upstream.builder(serviceServer.httpUri())
+                                  .client(cb -> cb.responseTimeoutMillis(responseTimeoutMillis))
+                                  .build());
+        });
+    }
+}
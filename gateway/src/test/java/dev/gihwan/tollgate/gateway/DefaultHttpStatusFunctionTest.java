@@ -29,6 +29,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.Test;
 
 import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.HttpStatusClass;
 
 class DefaultHttpStatusFunctionTest {
     @Test
@@ -48,4 +49,42 @@ class DefaultHttpStatusFunctionTest {
         final HttpStatus applied = function.apply(HttpStatus.BAD_REQUEST);
         assertThat(applied).isEqualTo(HttpStatus.BAD_REQUEST);
     }
+
+    @Test
+    void returnGivenStatusOutOfTable() {
+        final DefaultHttpStatusFunction function =
+                new DefaultHttpStatusFunction(status -> status.code() >= 1000, HttpStatus.BAD_GATEWAY);
+
+        assertThat(function.apply(HttpStatus.valueOf(1000))).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(function.apply(HttpStatus.valueOf(999))).isEqualTo(HttpStatus.valueOf(999));
+    }
+
+    @Test
+    void composeFunctions() {
+        final HttpStatusFunction function = DefaultHttpStatusFunction.compose(
+                HttpStatusFunction.from(HttpStatusClass.SERVER_ERROR).to(HttpStatus.BAD_GATEWAY),
+                HttpStatusFunction.from(HttpStatus.BAD_GATEWAY, HttpStatus.NOT_FOUND).to(HttpStatus.OK));
+        assertThat(function).isInstanceOf(DefaultHttpStatusFunction.class);
+
+        assertThat(function.apply(HttpStatus.INTERNAL_SERVER_ERROR)).isEqualTo(HttpStatus.OK);
+        assertThat(function.apply(HttpStatus.NOT_FOUND)).isEqualTo(HttpStatus.OK);
+        assertThat(function.apply(HttpStatus.BAD_REQUEST)).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void composeOpaqueFunction() {
+        final HttpStatusFunction function = DefaultHttpStatusFunction.compose(
+                HttpStatusFunction.fromRange(500, 502).to(HttpStatus.SERVICE_UNAVAILABLE),
+                status -> HttpStatus.valueOf(status.code() + 1));
+
+        assertThat(function.apply(HttpStatus.INTERNAL_SERVER_ERROR)).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(function.apply(HttpStatus.OK)).isEqualTo(HttpStatus.CREATED);
+    }
+
+    @Test
+    void keepGivenStatusIfNotMapped() {
+        final HttpStatus status = new HttpStatus(200, "Fine");
+        final HttpStatusFunction function = HttpStatusFunction.from(HttpStatus.CREATED).to(HttpStatus.OK);
+        assertThat(function.apply(status)).isSameAs(status);
+    }
 }
@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import static dev.gihwan.tollgate.testing.TestGateway.withTestGateway;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import dev.gihwan.tollgate.testing.TestGateway;
+
+class DefaultUpstreamTest {
+
+    @RegisterExtension
+    static final ServerExtension serviceServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder sb) {
+            sb.service("/foo", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+            sb.service("/bar", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+        }
+    };
+
+    @Test
+    void bindSharedUpstreamOnce() {
+        final CountingComponent component = new CountingComponent();
+        final Upstream upstream = new DefaultUpstream(WebClient.of(serviceServer.httpUri()),
+                                                      Function.identity(), Function.identity(),
+                                                      List.of(component));
+        final TestGateway gateway = withTestGateway(builder -> builder.upstream("/foo", upstream)
+                                                                      .upstream("/bar", upstream));
+        try {
+            final WebClient client = WebClient.of(gateway.httpUri());
+            assertThat(client.get("/foo").aggregate().join().status()).isEqualTo(HttpStatus.OK);
+            assertThat(client.get("/bar").aggregate().join().status()).isEqualTo(HttpStatus.OK);
+            assertThat(component.boundCount).hasValue(1);
+        } finally {
+            gateway.close();
+        }
+        assertThat(component.closedCount).hasValue(1);
+    }
+
+    private static final class CountingComponent implements UpstreamComponent {
+
+        private final AtomicInteger boundCount = new AtomicInteger();
+        private final AtomicInteger closedCount = new AtomicInteger();
+
+        @Override
+        public Function<? super HttpClient, ? extends HttpClient> newDecorator() {
+            return Function.identity();
+        }
+
+        @Override
+        public void bindTo(MeterRegistry registry, Tags tags) {
+            boundCount.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            closedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.Endpoint;
+
+class EndpointLoadsTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final EndpointLoads loads = new EndpointLoads(ticker::get);
+
+    @Test
+    void jumpToPeakLatency() {
+        final EndpointLoads.Load load = loads.get(Endpoint.of("foo"));
+        load.onStart();
+        load.onEnd(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(load.cost()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+
+        load.onStart();
+        load.onEnd(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(load.cost()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        // The cost grows with the outstanding requests.
+        load.onStart();
+        assertThat(load.outstanding()).isOne();
+        assertThat(load.cost()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void decayLatency() {
+        final EndpointLoads.Load load = loads.get(Endpoint.of("foo"));
+        load.onStart();
+        load.onEnd(TimeUnit.MILLISECONDS.toNanos(100));
+
+        ticker.addAndGet(EndpointLoads.DECAY_NANOS);
+        assertThat(load.cost()).isCloseTo(TimeUnit.MILLISECONDS.toNanos(100) / Math.E, within(1.0));
+
+        // A faster latency is averaged rather than replacing the peak.
+        ticker.addAndGet(EndpointLoads.DECAY_NANOS);
+        load.onStart();
+        load.onEnd(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(load.cost()).isBetween((double) TimeUnit.MILLISECONDS.toNanos(1),
+                                          TimeUnit.MILLISECONDS.toNanos(100) / Math.E);
+    }
+
+    @Test
+    void penalizeEndpointWithoutLatency() {
+        final EndpointLoads.Load load = loads.get(Endpoint.of("foo"));
+        assertThat(load.cost()).isZero();
+
+        load.onStart();
+        assertThat(load.cost()).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    void forgetRemovedEndpoints() {
+        final EndpointLoads.Load load = loads.get(Endpoint.of("foo"));
+        assertThat(loads.get(Endpoint.of("foo"))).isSameAs(load);
+
+        loads.retainAll(List.of(Endpoint.of("bar")));
+        assertThat(loads.get(Endpoint.of("foo"))).isNotSameAs(load);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeaders;
+
+class FusedRequestHeadersFunctionTest {
+    @Test
+    void fuseRequestHeadersFunctions() {
+        final Function<HttpRequest, HttpRequest> function = FusedRequestHeadersFunction.compose(List.of(
+                new RemappingPathFunction("/foo"),
+                FilteringRequestHeadersFunction.ofDisallowedSet(Set.of(HttpHeaderNames.of("bar"))),
+                FilteringRequestHeadersFunction.ofAllowedSet(Set.of(HttpHeaderNames.of("baz")))));
+
+        final HttpRequest req = HttpRequest.of(RequestHeaders.builder(HttpMethod.GET, "/?qux")
+                                                             .add("bar", "this is bar")
+                                                             .add("baz", "this is baz")
+                                                             .add("qux", "this is qux")
+                                                             .build());
+        final RequestHeaders headers = function.apply(req).headers();
+        assertThat(headers.path()).isEqualTo("/foo?qux");
+        assertThat(headers.get("bar")).isNull();
+        assertThat(headers.get("baz")).isEqualTo("this is baz");
+        assertThat(headers.get("qux")).isNull();
+    }
+
+    @Test
+    void shouldApplyOpaqueFunctionsInOrder() {
+        final Function<HttpRequest, HttpRequest> addHeaders =
+                req -> req.mapHeaders(headers -> headers.toBuilder()
+                                                        .add("bar", headers.path())
+                                                        .add("baz", "this is baz")
+                                                        .build());
+        final Function<HttpRequest, HttpRequest> function = FusedRequestHeadersFunction.compose(List.of(
+                new RemappingPathFunction("/foo"),
+                addHeaders,
+                FilteringRequestHeadersFunction.ofDisallowedSet(Set.of(HttpHeaderNames.of("baz"))),
+                new RemappingPathFunction("/qux")));
+
+        final RequestHeaders headers = function.apply(HttpRequest.of(HttpMethod.GET, "/")).headers();
+        assertThat(headers.path()).isEqualTo("/qux");
+        assertThat(headers.get("bar")).isEqualTo("/foo");
+        assertThat(headers.get("baz")).isNull();
+    }
+
+    @Test
+    void composeEmptyFunctions() {
+        final Function<HttpRequest, HttpRequest> function = FusedRequestHeadersFunction.compose(List.of());
+
+        final HttpRequest req = HttpRequest.of(HttpMethod.GET, "/");
+        assertThat(function.apply(req)).isSameAs(req);
+    }
+}
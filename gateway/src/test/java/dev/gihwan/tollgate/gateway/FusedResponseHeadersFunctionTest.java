@@ -0,0 +1,93 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+
+class FusedResponseHeadersFunctionTest {
+    @Test
+    void fuseResponseHeadersFunctions() {
+        final Function<HttpResponse, HttpResponse> function = FusedResponseHeadersFunction.compose(List.of(
+                new RemappingStatusFunction(HttpStatusFunction.from(HttpStatus.CREATED).to(HttpStatus.OK)),
+                FilteringResponseHeadersFunction.ofDisallowedSet(Set.of(HttpHeaderNames.of("foo"))),
+                FilteringResponseHeadersFunction.ofAllowedSet(Set.of(HttpHeaderNames.of("bar")))));
+
+        final HttpResponse res = HttpResponse.of(ResponseHeaders.builder(HttpStatus.CREATED)
+                                                                .add("foo", "this is foo")
+                                                                .add("bar", "this is bar")
+                                                                .add("baz", "this is baz")
+                                                                .build(),
+                                                 HttpData.ofUtf8("Hello, World!"));
+        final AggregatedHttpResponse applied = function.apply(res).aggregate().join();
+        assertThat(applied.status()).isEqualTo(HttpStatus.OK);
+        assertThat(applied.headers().get("foo")).isNull();
+        assertThat(applied.headers().get("bar")).isEqualTo("this is bar");
+        assertThat(applied.headers().get("baz")).isNull();
+        assertThat(applied.contentUtf8()).isEqualTo("Hello, World!");
+    }
+
+    @Test
+    void shouldApplyOpaqueFunctionsInOrder() {
+        final Function<HttpResponse, HttpResponse> addHeaders =
+                res -> res.mapHeaders(headers -> headers.toBuilder()
+                                                        .add("foo", headers.status().codeAsText())
+                                                        .add("bar", "this is bar")
+                                                        .build());
+        final HttpStatusFunction createdToAccepted =
+                HttpStatusFunction.from(HttpStatus.CREATED).to(HttpStatus.ACCEPTED);
+        final Function<HttpResponse, HttpResponse> function = FusedResponseHeadersFunction.compose(List.of(
+                new RemappingStatusFunction(createdToAccepted),
+                addHeaders,
+                FilteringResponseHeadersFunction.ofDisallowedSet(Set.of(HttpHeaderNames.of("bar"))),
+                new RemappingStatusFunction(HttpStatusFunction.from(HttpStatus.ACCEPTED).to(HttpStatus.OK))));
+
+        final AggregatedHttpResponse applied = function.apply(HttpResponse.of(HttpStatus.CREATED))
+                                                       .aggregate().join();
+        assertThat(applied.status()).isEqualTo(HttpStatus.OK);
+        assertThat(applied.headers().get("foo")).isEqualTo("202");
+        assertThat(applied.headers().get("bar")).isNull();
+    }
+
+    @Test
+    void composeEmptyFunctions() {
+        final Function<HttpResponse, HttpResponse> function = FusedResponseHeadersFunction.compose(List.of());
+
+        final HttpResponse res = HttpResponse.of(HttpStatus.OK);
+        assertThat(function.apply(res)).isSameAs(res);
+    }
+}
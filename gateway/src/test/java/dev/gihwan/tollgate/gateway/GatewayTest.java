@@ -26,6 +26,7 @@ package dev.gihwan.tollgate.gateway;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -86,4 +87,38 @@ class GatewayTest {
         assertThat(res.status()).isEqualTo(HttpStatus.OK);
         assertThat(res.contentUtf8()).isEqualTo("Hello, World!");
     }
+
+    @Test
+    void metrics() {
+        final Gateway gateway = Gateway.builder()
+                                       .server(builder -> builder.http(0))
+                                       .metrics("/metrics")
+                                       .upstream("/foo", Upstream.of(serviceServer.httpUri()))
+                                       .build();
+        gateway.start().join();
+        try {
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            assertThat(client.get("/foo").aggregate().join().status()).isEqualTo(HttpStatus.OK);
+
+            final String endpoint = "127.0.0.1:" + serviceServer.httpPort();
+            await().untilAsserted(() -> {
+                final String metrics = client.get("/metrics").aggregate().join().contentUtf8();
+                assertThat(metrics).contains(
+                        "tollgate_route_duration_seconds_count{methods=\"*\",route=\"/foo\"," +
+                        "status=\"2xx\",} 1.0",
+                        "tollgate_route_duration_seconds_bucket{",
+                        "tollgate_route_active_requests{methods=\"*\",route=\"/foo\",} 0.0",
+                        "tollgate_route_response_length_bytes_sum{methods=\"*\",route=\"/foo\",} 13.0",
+                        "tollgate_upstream_duration_seconds_count{endpoint=\"" + endpoint +
+                        "\",methods=\"*\",route=\"/foo\",status=\"2xx\",} 1.0",
+                        "tollgate_upstream_active_requests{methods=\"*\",route=\"/foo\",} 0.0",
+                        "tollgate_upstream_phase_duration_seconds_count{endpoint=\"" + endpoint +
+                        "\",methods=\"*\",phase=\"request_write\",route=\"/foo\",} 1.0",
+                        "tollgate_upstream_phase_duration_seconds_count{endpoint=\"" + endpoint +
+                        "\",methods=\"*\",phase=\"ttfb\",route=\"/foo\",} 1.0");
+            });
+        } finally {
+            gateway.stop().join();
+        }
+    }
 }
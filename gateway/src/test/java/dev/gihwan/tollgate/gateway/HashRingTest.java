@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.Endpoint;
+
+class HashRingTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 10000;
+
+    private static final Endpoint foo = Endpoint.of("foo");
+    private static final Endpoint bar = Endpoint.of("bar");
+    private static final Endpoint baz = Endpoint.of("baz");
+    private static final Endpoint qux = Endpoint.of("qux");
+
+    @Test
+    void empty() {
+        assertThat(HashRing.EMPTY.select(HashRing.hash("foo"))).isNull();
+        assertThat(HashRing.EMPTY.update(List.of(), VIRTUAL_NODES)).isSameAs(HashRing.EMPTY);
+    }
+
+    @Test
+    void spreadKeysEvenly() {
+        final HashRing ring = HashRing.EMPTY.update(List.of(foo, bar, baz, qux), VIRTUAL_NODES);
+        assertThat(ring.size()).isEqualTo(VIRTUAL_NODES * 4);
+
+        final Map<Endpoint, Long> counts = select(ring).values().stream()
+                                                       .collect(Collectors.groupingBy(Function.identity(),
+                                                                                      Collectors.counting()));
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 8L, KEYS * 3 / 8L));
+    }
+
+    @Test
+    void remapOnlyKeysOfRemovedEndpoint() {
+        final HashRing ring = HashRing.EMPTY.update(List.of(foo, bar, baz, qux), VIRTUAL_NODES);
+        final Map<String, Endpoint> before = select(ring);
+        final Map<String, Endpoint> after = select(ring.update(List.of(foo, bar, qux), VIRTUAL_NODES));
+
+        before.forEach((key, endpoint) -> {
+            if (endpoint.equals(baz)) {
+                assertThat(after.get(key)).isNotEqualTo(baz);
+            } else {
+                assertThat(after.get(key)).isEqualTo(endpoint);
+            }
+        });
+    }
+
+    @Test
+    void remapOnlyKeysToAddedEndpoint() {
+        final HashRing ring = HashRing.EMPTY.update(List.of(foo, bar, baz), VIRTUAL_NODES);
+        final Map<String, Endpoint> before = select(ring);
+        final Map<String, Endpoint> after = select(ring.update(List.of(foo, bar, baz, qux), VIRTUAL_NODES));
+
+        before.forEach((key, endpoint) -> assertThat(after.get(key)).isIn(endpoint, qux));
+        assertThat(after.values()).contains(qux);
+    }
+
+    @Test
+    void updateIncrementally() {
+        // A ring updated from another ring is the same as a ring built at once.
+        final HashRing updated = HashRing.EMPTY.update(List.of(foo, bar), VIRTUAL_NODES)
+                                               .update(List.of(bar, baz, qux), VIRTUAL_NODES);
+        final HashRing built = HashRing.EMPTY.update(List.of(qux, baz, bar), VIRTUAL_NODES);
+        assertThat(updated.size()).isEqualTo(built.size());
+        assertThat(select(updated)).isEqualTo(select(built));
+
+        assertThat(updated.update(List.of(qux, bar, baz), VIRTUAL_NODES)).isSameAs(updated);
+    }
+
+    @Test
+    void placePointsByWeight() {
+        final HashRing ring = HashRing.EMPTY.update(List.of(foo.withWeight(2000), bar.withWeight(1),
+                                                            baz.withWeight(0)), VIRTUAL_NODES);
+        assertThat(ring.size()).isEqualTo(VIRTUAL_NODES * 2 + 1);
+        assertThat(select(ring).values()).doesNotContain(baz.withWeight(0));
+    }
+
+    @Test
+    void replacePointsOfReweightedEndpoint() {
+        // Endpoint.equals() ignores the weight, so the ring must compare the weights on its own.
+        final HashRing ring = HashRing.EMPTY.update(List.of(foo.withWeight(100), bar, baz), VIRTUAL_NODES);
+        final HashRing reweighted = ring.update(List.of(foo, bar, baz), VIRTUAL_NODES);
+        assertThat(reweighted).isNotSameAs(ring);
+        assertThat(reweighted.size()).isEqualTo(VIRTUAL_NODES * 3);
+        assertThat(select(reweighted)).isEqualTo(select(HashRing.EMPTY.update(List.of(foo, bar, baz),
+                                                                              VIRTUAL_NODES)));
+    }
+
+    @Test
+    void boundPointsWhateverWeights() {
+        final HashRing ring = HashRing.EMPTY.update(List.of(foo.withWeight(500_000), bar.withWeight(500_000)),
+                                                    VIRTUAL_NODES);
+        assertThat(ring.size()).isEqualTo(VIRTUAL_NODES * 2);
+    }
+
+    private static Map<String, Endpoint> select(HashRing ring) {
+        final Map<String, Endpoint> selected = new HashMap<>();
+        IntStream.range(0, KEYS).mapToObj(i -> "key-" + i)
+                 .forEach(key -> selected.put(key, ring.select(HashRing.hash(key))));
+        return selected;
+    }
+}
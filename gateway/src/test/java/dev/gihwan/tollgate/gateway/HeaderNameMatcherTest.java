@@ -0,0 +1,59 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+
+import io.netty.util.AsciiString;
+
+class HeaderNameMatcherTest {
+    @Test
+    void matchWellKnownHeaderName() {
+        final HeaderNameMatcher<String> matcher = HeaderNameMatcher.of(Map.of(AsciiString.of("Content-Type"),
+                                                                              "foo"));
+        assertThat(matcher.get(HttpHeaderNames.CONTENT_TYPE)).isEqualTo("foo");
+        assertThat(matcher.get(HttpHeaderNames.ACCEPT)).isNull();
+    }
+
+    @Test
+    void matchCustomHeaderName() {
+        final HeaderNameMatcher<String> matcher = HeaderNameMatcher.of(Map.of(AsciiString.of("x-foo"), "foo"));
+        assertThat(matcher.get(AsciiString.of("x-foo"))).isEqualTo("foo");
+        assertThat(matcher.get(AsciiString.of("x-bar"))).isNull();
+    }
+
+    @Test
+    void emptyMatcher() {
+        final HeaderNameMatcher<String> matcher = HeaderNameMatcher.of(Map.of());
+        assertThat(matcher.isEmpty()).isTrue();
+        assertThat(matcher.get(HttpHeaderNames.CONTENT_TYPE)).isNull();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.net.InetSocketAddress;
+
+import javax.annotation.Nullable;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.RequestHeadersBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+class HeaderPolicyTest {
+    @Test
+    void applyRulesInOnePass() {
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .allow("foo", "bar", "baz")
+                                                .remove("bar")
+                                                .rename("baz", "qux")
+                                                .set("quux", "this is quux")
+                                                .add("foo", "this is another foo")
+                                                .build();
+
+        final RequestHeaders headers = apply(policy, null, RequestHeaders.builder(HttpMethod.GET, "/")
+                                                                         .add("foo", "this is foo")
+                                                                         .add("bar", "this is bar")
+                                                                         .add("baz", "this is baz")
+                                                                         .add("corge", "this is corge"));
+        assertThat(headers.path()).isEqualTo("/");
+        assertThat(headers.getAll("foo")).containsExactly("this is foo", "this is another foo");
+        assertThat(headers.get("bar")).isNull();
+        assertThat(headers.get("baz")).isNull();
+        assertThat(headers.get("qux")).isEqualTo("this is baz");
+        assertThat(headers.get("quux")).isEqualTo("this is quux");
+        assertThat(headers.get("corge")).isNull();
+    }
+
+    @Test
+    void stripHopByHopHeaders() {
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .stripHopByHopHeaders(true)
+                                                .build();
+
+        final RequestHeaders headers = apply(policy, null, RequestHeaders.builder(HttpMethod.GET, "/")
+                                                                         .add("connection", "keep-alive, foo")
+                                                                         .add("keep-alive", "timeout=5")
+                                                                         .add("proxy-authorization", "secret")
+                                                                         .add("te", "trailers")
+                                                                         .add("foo", "this is foo")
+                                                                         .add("bar", "this is bar"));
+        assertThat(headers.get("connection")).isNull();
+        assertThat(headers.get("keep-alive")).isNull();
+        assertThat(headers.get("proxy-authorization")).isNull();
+        assertThat(headers.get("te")).isEqualTo("trailers");
+        assertThat(headers.get("foo")).isNull();
+        assertThat(headers.get("bar")).isEqualTo("this is bar");
+    }
+
+    @Test
+    void replaceForwardingHeaders() {
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .xForwardedHeaders(true)
+                                                .forwardedHeader(true)
+                                                .build();
+        assertThat(policy.requiresContext()).isTrue();
+
+        // The forwarding headers faked by a user are replaced.
+        final HttpRequest req = HttpRequest.of(RequestHeaders.builder(HttpMethod.GET, "/")
+                                                             .authority("example.com")
+                                                             .add("x-forwarded-for", "192.168.0.1")
+                                                             .add("x-forwarded-proto", "https")
+                                                             .add("x-forwarded-host", "fake.com")
+                                                             .add("forwarded", "for=192.168.0.1")
+                                                             .build());
+        final ServiceRequestContext ctx =
+                ServiceRequestContext.builder(req)
+                                     .remoteAddress(new InetSocketAddress("10.0.0.1", 12345))
+                                     .build();
+        final RequestHeaders headers = apply(policy, ctx, req.headers().toBuilder());
+        assertThat(headers.getAll("x-forwarded-for")).containsExactly("10.0.0.1");
+        assertThat(headers.getAll("x-forwarded-proto")).containsExactly("http");
+        assertThat(headers.getAll("x-forwarded-host")).containsExactly("example.com");
+        assertThat(headers.getAll("forwarded")).containsExactly("for=10.0.0.1;proto=http;host=\"example.com\"");
+    }
+
+    @Test
+    void appendToTrustedForwardingHeaders() {
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .xForwardedHeaders(true)
+                                                .forwardedHeader(true)
+                                                .trustForwardedHeaders(true)
+                                                .build();
+
+        final HttpRequest req = HttpRequest.of(RequestHeaders.builder(HttpMethod.GET, "/")
+                                                             .authority("example.com")
+                                                             .add("x-forwarded-for", "192.168.0.1")
+                                                             .add("x-forwarded-proto", "https")
+                                                             .add("forwarded", "for=192.168.0.1")
+                                                             .build());
+        final ServiceRequestContext ctx =
+                ServiceRequestContext.builder(req)
+                                     .remoteAddress(new InetSocketAddress("10.0.0.1", 12345))
+                                     .build();
+        final RequestHeaders headers = apply(policy, ctx, req.headers().toBuilder());
+        assertThat(headers.get("x-forwarded-for")).isEqualTo("192.168.0.1, 10.0.0.1");
+        // The values of the first proxy are kept.
+        assertThat(headers.get("x-forwarded-proto")).isEqualTo("https");
+        assertThat(headers.get("x-forwarded-host")).isEqualTo("example.com");
+        assertThat(headers.get("forwarded"))
+                .isEqualTo("for=192.168.0.1, for=10.0.0.1;proto=http;host=\"example.com\"");
+    }
+
+    @Test
+    void addForwardedHeaderWithIpv6Address() {
+        final HeaderPolicy policy = HeaderPolicy.builder()
+                                                .forwardedHeader(true)
+                                                .build();
+
+        final HttpRequest req = HttpRequest.of(HttpMethod.GET, "/");
+        final ServiceRequestContext ctx =
+                ServiceRequestContext.builder(req)
+                                     .remoteAddress(new InetSocketAddress("::1", 12345))
+                                     .build();
+        final RequestHeaders headers = apply(policy, ctx, req.headers().toBuilder());
+        assertThat(headers.get("forwarded")).startsWith("for=\"[0:0:0:0:0:0:0:1]\";proto=http");
+    }
+
+    @Test
+    void shouldNotAllowPseudoHeaders() {
+        assertThatThrownBy(() -> HeaderPolicy.builder().remove(":path"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RequestHeaders apply(HeaderPolicy policy, @Nullable ServiceRequestContext ctx,
+                                        RequestHeadersBuilder builder) {
+        policy.apply(ctx, builder);
+        return builder.build();
+    }
+}
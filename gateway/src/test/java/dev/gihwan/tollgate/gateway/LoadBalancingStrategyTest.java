@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+
+class LoadBalancingStrategyTest {
+
+    private static final Endpoint busy = Endpoint.of("busy");
+    private static final Endpoint idle = Endpoint.of("idle");
+
+    private final ClientRequestContext ctx = ClientRequestContext.of(HttpRequest.of(HttpMethod.GET, "/"));
+    private final EndpointLoads loads = new EndpointLoads();
+
+    @ParameterizedTest
+    @EnumSource(value = LoadBalancer.class, names = { "LEAST_OUTSTANDING", "P2C", "P2C_EWMA" })
+    void selectEndpointWithFewerOutstandingRequests(LoadBalancer loadBalancer) {
+        loads.get(busy).onStart();
+        loads.get(busy).onStart();
+
+        final EndpointGroup group = newEndpointGroup(loadBalancer);
+        for (int i = 0; i < 10; i++) {
+            assertThat(group.selectNow(ctx)).isEqualTo(idle);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = LoadBalancer.class, names = { "LEAST_OUTSTANDING", "P2C" })
+    void selectEndpointWithFewerOutstandingRequestsPerWeight(LoadBalancer loadBalancer) {
+        loads.get(busy).onStart();
+        loads.get(busy).onStart();
+
+        // The idle endpoint is warming up with a tenth of the weight of the busy one.
+        final EndpointGroup group =
+                EndpointGroup.of(new LoadBalancingStrategy(loadBalancer, loads),
+                                 EndpointGroup.of(busy, idle.withWeight(busy.weight() / 10)));
+        for (int i = 0; i < 10; i++) {
+            assertThat(group.selectNow(ctx)).isEqualTo(busy);
+        }
+    }
+
+    @Test
+    void selectEndpointWithLowerLatency() {
+        loads.get(busy).onStart();
+        loads.get(busy).onEnd(TimeUnit.MILLISECONDS.toNanos(100));
+        loads.get(idle).onStart();
+        loads.get(idle).onEnd(TimeUnit.MILLISECONDS.toNanos(1));
+
+        final EndpointGroup group = newEndpointGroup(LoadBalancer.P2C_EWMA);
+        for (int i = 0; i < 10; i++) {
+            assertThat(group.selectNow(ctx)).isEqualTo(idle);
+        }
+    }
+
+    @Test
+    void loadBalancerOfName() {
+        assertThat(LoadBalancer.of("p2c-ewma")).isEqualTo(LoadBalancer.P2C_EWMA);
+        assertThat(LoadBalancer.of("LEAST_OUTSTANDING")).isEqualTo(LoadBalancer.LEAST_OUTSTANDING);
+        assertThatThrownBy(() -> LoadBalancer.of("random")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private EndpointGroup newEndpointGroup(LoadBalancer loadBalancer) {
+        return EndpointGroup.of(new LoadBalancingStrategy(loadBalancer, loads), EndpointGroup.of(busy, idle));
+    }
+}
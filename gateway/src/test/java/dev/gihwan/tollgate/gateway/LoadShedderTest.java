@@ -0,0 +1,167 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoadShedderTest {
+
+    private static final int LOW = 0;
+    private static final int HIGH = 10;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final AtomicLong ticker = new AtomicLong();
+    private final List<Integer> executed = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void serveHigherPriorityFirst() {
+        final LoadShedder loadShedder = newLoadShedder();
+        final HttpResponseWriter first = HttpResponse.streaming();
+        final HttpResponse firstRes = loadShedder.execute(LOW, executor, () -> first);
+        final HttpResponse low = execute(loadShedder, LOW);
+        final HttpResponse high = execute(loadShedder, HIGH);
+        assertThat(executed).isEmpty();
+
+        complete(first, firstRes);
+        assertThat(high.aggregate().join().status()).isEqualTo(HttpStatus.OK);
+        assertThat(low.aggregate().join().status()).isEqualTo(HttpStatus.OK);
+        await().untilAsserted(() -> assertThat(executed).containsExactly(HIGH, LOW));
+    }
+
+    @Test
+    void shedLowestPriorityWhileOverloaded() {
+        final LoadShedder loadShedder = newLoadShedder();
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        loadShedder.bindTo(registry);
+
+        final HttpResponseWriter first = HttpResponse.streaming();
+        final HttpResponse firstRes = loadShedder.execute(LOW, executor, () -> first);
+        final HttpResponseWriter second = HttpResponse.streaming();
+        final HttpResponse secondRes = loadShedder.execute(HIGH, executor, () -> second);
+
+        // The second request waits longer than the target in the next interval.
+        tick(Duration.ofSeconds(10));
+        complete(first, firstRes);
+        await().untilAsserted(() -> assertThat(registry.get("tollgate.load.shedding.in.flight").gauge().value())
+                .isOne());
+        tick(Duration.ofSeconds(10));
+        assertThat(execute(loadShedder, LOW).aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(loadShedder.shedLevel()).isOne();
+        assertThat(registry.get("tollgate.load.shedding.shed.requests").tag("priority", "0")
+                           .functionCounter().count()).isOne();
+        assertThat(registry.get("tollgate.load.shedding.shed.requests").tag("priority", "10")
+                           .functionCounter().count()).isZero();
+
+        // The highest priority is never shed for its priority.
+        final HttpResponse high = execute(loadShedder, HIGH);
+        complete(second, secondRes);
+        assertThat(high.aggregate().join().status()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void shedLessOnceQueueDelayFallsBelowTarget() {
+        final LoadShedder loadShedder = newLoadShedder();
+        final HttpResponseWriter first = HttpResponse.streaming();
+        final HttpResponse firstRes = loadShedder.execute(LOW, executor, () -> first);
+        final HttpResponse waiting = execute(loadShedder, HIGH);
+        tick(Duration.ofSeconds(10));
+        complete(first, firstRes);
+        assertThat(waiting.aggregate().join().status()).isEqualTo(HttpStatus.OK);
+        tick(Duration.ofSeconds(10));
+        assertThat(execute(loadShedder, LOW).aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(loadShedder.shedLevel()).isOne();
+
+        // The requests served without waiting in the next interval bring the queue delay below the target.
+        await().untilAsserted(() -> assertThat(execute(loadShedder, HIGH).aggregate().join().status())
+                .isEqualTo(HttpStatus.OK));
+        tick(Duration.ofSeconds(10));
+        assertThat(execute(loadShedder, LOW).aggregate().join().status()).isEqualTo(HttpStatus.OK);
+        assertThat(loadShedder.shedLevel()).isZero();
+    }
+
+    @Test
+    void shedWhenQueueIsFull() {
+        final LoadShedder loadShedder = new LoadShedder(LoadSheddingPolicy.builder()
+                                                                          .maxConcurrentRequests(1)
+                                                                          .maxQueueSize(0)
+                                                                          .build(), ticker::get);
+        loadShedder.execute(LOW, executor, HttpResponse::streaming);
+        assertThat(execute(loadShedder, LOW).aggregate().join().status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private LoadShedder newLoadShedder() {
+        return new LoadShedder(LoadSheddingPolicy.builder()
+                                                 .maxConcurrentRequests(1)
+                                                 .maxQueueSize(2)
+                                                 .target(Duration.ofSeconds(1))
+                                                 .interval(Duration.ofSeconds(10))
+                                                 .header("x-api-key", "premium", HIGH)
+                                                 .defaultPriority(LOW)
+                                                 .build(), ticker::get);
+    }
+
+    private HttpResponse execute(LoadShedder loadShedder, int priority) {
+        return loadShedder.execute(priority, executor, () -> {
+            executed.add(priority);
+            return HttpResponse.of(HttpStatus.OK);
+        });
+    }
+
+    private void tick(Duration duration) {
+        ticker.addAndGet(duration.toNanos());
+    }
+
+    private static void complete(HttpResponseWriter writer, HttpResponse res) {
+        writer.write(ResponseHeaders.of(HttpStatus.OK));
+        writer.close();
+        res.aggregate().join();
+    }
+}
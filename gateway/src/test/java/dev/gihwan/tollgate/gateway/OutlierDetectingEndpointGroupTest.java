@@ -0,0 +1,206 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+class OutlierDetectingEndpointGroupTest {
+
+    private static final Endpoint foo = Endpoint.of("foo");
+    private static final Endpoint bar = Endpoint.of("bar");
+    private static final Endpoint baz = Endpoint.of("baz");
+    private static final Endpoint qux = Endpoint.of("qux");
+
+    private static final long BASE_EJECTION_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void ejectConsecutiveErrors() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar), 100);
+        group.onResponse(foo, true, 0);
+        group.onResponse(foo, true, 0);
+        // A success resets the consecutive errors.
+        group.onResponse(foo, false, 0);
+        group.onResponse(foo, true, 0);
+        group.onResponse(foo, true, 0);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar);
+
+        group.onResponse(foo, true, 0);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(bar);
+        assertThat(group.ejectedEndpoints()).isOne();
+        assertThat(group.consecutiveErrorEjections()).isOne();
+    }
+
+    @Test
+    void growEjectionTimeExponentially() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar), 100);
+        eject(group, foo);
+
+        ticker.addAndGet(BASE_EJECTION_NANOS - 1);
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(bar);
+        ticker.incrementAndGet();
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar);
+
+        // Ejected again before the next sweep, so the ejection time is doubled.
+        eject(group, foo);
+        ticker.addAndGet(BASE_EJECTION_NANOS);
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(bar);
+        ticker.addAndGet(BASE_EJECTION_NANOS);
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar);
+
+        // Capped at the maximum ejection time.
+        eject(group, foo);
+        ticker.addAndGet(BASE_EJECTION_NANOS * 3);
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar);
+    }
+
+    @Test
+    void shrinkEjectionTimeWithoutEjection() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar), 100);
+        eject(group, foo);
+        ticker.addAndGet(BASE_EJECTION_NANOS);
+        group.sweep();
+        // An interval without an ejection halves the next ejection time back.
+        group.sweep();
+
+        eject(group, foo);
+        ticker.addAndGet(BASE_EJECTION_NANOS);
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar);
+    }
+
+    @Test
+    void limitEjectedEndpoints() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar, baz, qux), 50);
+        eject(group, foo);
+        eject(group, bar);
+        eject(group, baz);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(baz, qux);
+        assertThat(group.ejectedEndpoints()).isEqualTo(2);
+    }
+
+    @Test
+    void keepLastEndpoint() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar), 100);
+        eject(group, foo);
+        eject(group, bar);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(bar);
+
+        // One endpoint may be ejected even if the percentage allows none.
+        final OutlierDetectingEndpointGroup other = newGroup(EndpointGroup.of(foo, bar), 0);
+        eject(other, foo);
+        assertThat(other.endpoints()).containsExactlyInAnyOrder(bar);
+    }
+
+    @Test
+    void ejectLatencyOutlier() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar, baz, qux), 100);
+        for (int i = 0; i < 2; i++) {
+            group.onResponse(foo, false, TimeUnit.MILLISECONDS.toNanos(10));
+            group.onResponse(bar, false, TimeUnit.MILLISECONDS.toNanos(12));
+            group.onResponse(baz, false, TimeUnit.MILLISECONDS.toNanos(14));
+            group.onResponse(qux, false, TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar, baz);
+        assertThat(group.latencyEjections()).isOne();
+    }
+
+    @Test
+    void ignoreLatencyWithoutEnoughRequests() {
+        final OutlierDetectingEndpointGroup group = newGroup(EndpointGroup.of(foo, bar, baz, qux), 100);
+        for (int i = 0; i < 2; i++) {
+            group.onResponse(foo, false, TimeUnit.MILLISECONDS.toNanos(10));
+            group.onResponse(bar, false, TimeUnit.MILLISECONDS.toNanos(12));
+        }
+        group.onResponse(baz, false, TimeUnit.MILLISECONDS.toNanos(100));
+        group.onResponse(qux, false, TimeUnit.MILLISECONDS.toNanos(100));
+        group.sweep();
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar, baz, qux);
+    }
+
+    @Test
+    void followDelegate() {
+        final SettableEndpointGroup delegate = new SettableEndpointGroup();
+        delegate.set(foo, bar);
+        final OutlierDetectingEndpointGroup group = newGroup(delegate, 100);
+        eject(group, foo);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(bar);
+
+        delegate.set(foo, bar, baz);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(bar, baz);
+
+        // The state of a removed endpoint is dropped.
+        delegate.set(bar, baz);
+        delegate.set(foo, bar, baz);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar, baz);
+        assertThat(group.ejectedEndpoints()).isZero();
+
+        group.close();
+        delegate.set(foo);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(foo, bar, baz);
+    }
+
+    private OutlierDetectingEndpointGroup newGroup(EndpointGroup delegate, int maxEjectionPercent) {
+        final OutlierDetectionPolicy policy =
+                OutlierDetectionPolicy.builder()
+                                      .consecutiveErrors(3)
+                                      .minimumRequests(2)
+                                      .ejectionTime(Duration.ofNanos(BASE_EJECTION_NANOS),
+                                                    Duration.ofNanos(BASE_EJECTION_NANOS * 3))
+                                      .maxEjectionPercent(maxEjectionPercent)
+                                      .build();
+        return new OutlierDetectingEndpointGroup(delegate, policy, ticker::get, null);
+    }
+
+    private static void eject(OutlierDetectingEndpointGroup group, Endpoint endpoint) {
+        for (int i = 0; i < 3; i++) {
+            group.onResponse(endpoint, true, 0);
+        }
+    }
+
+    private static final class SettableEndpointGroup extends DynamicEndpointGroup {
+        void set(Endpoint... endpoints) {
+            setEndpoints(List.of(endpoints));
+        }
+    }
+}
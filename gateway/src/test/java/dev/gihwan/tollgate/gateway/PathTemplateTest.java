@@ -0,0 +1,135 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.server.RoutingResult;
+import com.linecorp.armeria.server.RoutingResultBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+class PathTemplateTest {
+    @Test
+    void expandStaticPath() {
+        final PathTemplate template = PathTemplate.of("/foo/bar");
+        assertThat(template.isStatic()).isTrue();
+        assertThat(template.expand(null, "/")).isEqualTo("/foo/bar");
+    }
+
+    @Test
+    void expandStaticPathWithQuery() {
+        final PathTemplate template = PathTemplate.of("/foo/bar");
+        assertThat(template.expand(null, "/baz?qux=quux&corge")).isEqualTo("/foo/bar?qux=quux&corge");
+    }
+
+    @Test
+    void expandPathParams() {
+        final PathTemplate template = PathTemplate.of("/foo/{bar}/baz/:qux");
+        assertThat(template.isStatic()).isFalse();
+
+        final ServiceRequestContext ctx = newContext("/a/b", "bar", "b", "qux", "q");
+        assertThat(template.expand(ctx, "/a/b?c=d")).isEqualTo("/foo/b/baz/q?c=d");
+    }
+
+    @Test
+    void expandGlobWildcards() {
+        final PathTemplate template = PathTemplate.of("/foo/{0}/{1}");
+
+        final ServiceRequestContext ctx = newContext("/a/b/c", "0", "a", "1", "b/c");
+        assertThat(template.expand(ctx, "/a/b/c")).isEqualTo("/foo/a/b/c");
+    }
+
+    @Test
+    void expandWildcardTail() {
+        final PathTemplate template = PathTemplate.of("/foo/**");
+
+        final HttpRequest req = HttpRequest.of(HttpMethod.GET, "/api/bar/baz?qux");
+        final ServiceRequestContext ctx =
+                ServiceRequestContext.builder(req)
+                                     .routingResult(RoutingResult.builder()
+                                                                 .path("/bar/baz")
+                                                                 .query("qux")
+                                                                 .build())
+                                     .build();
+        assertThat(template.expand(ctx, req.path())).isEqualTo("/foo/bar/baz?qux");
+    }
+
+    @Test
+    void expandWildcardTailWithPathParams() {
+        final PathTemplate template = PathTemplate.of("/{foo}/**");
+
+        final HttpRequest req = HttpRequest.of(HttpMethod.GET, "/bar/baz");
+        final ServiceRequestContext ctx =
+                ServiceRequestContext.builder(req)
+                                     .routingResult(RoutingResult.builder()
+                                                                 .path("/baz")
+                                                                 .decodedParam("foo", "qux")
+                                                                 .build())
+                                     .build();
+        assertThat(template.expand(ctx, req.path())).isEqualTo("/qux/baz");
+    }
+
+    @Test
+    void shouldThrowIllegalStateExceptionIfPathParamDoesNotExist() {
+        final PathTemplate template = PathTemplate.of("/foo/{bar}");
+
+        final ServiceRequestContext ctx = newContext("/baz", "baz", "qux");
+        assertThatThrownBy(() -> template.expand(ctx, "/baz"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("bar");
+    }
+
+    @Test
+    void shouldThrowIllegalStateExceptionWithoutContext() {
+        final PathTemplate template = PathTemplate.of("/foo/{bar}");
+        assertThatThrownBy(() -> template.expand(null, "/baz"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/foo/**/bar", "**", "/foo/{}", "/foo/:" })
+    void shouldThrowIllegalArgumentExceptionIfMalformed(String pathPattern) {
+        assertThatThrownBy(() -> PathTemplate.of(pathPattern))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ServiceRequestContext newContext(String path, String... pathParams) {
+        final HttpRequest req = HttpRequest.of(HttpMethod.GET, path);
+        final RoutingResultBuilder routingResultBuilder = RoutingResult.builder().path(req.path());
+        for (int i = 0; i < pathParams.length; i += 2) {
+            routingResultBuilder.decodedParam(pathParams[i], pathParams[i + 1]);
+        }
+        return ServiceRequestContext.builder(req)
+                                    .routingResult(routingResultBuilder.build())
+                                    .build();
+    }
+}
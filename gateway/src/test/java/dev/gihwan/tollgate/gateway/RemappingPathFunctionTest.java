@@ -63,6 +63,15 @@ class RemappingPathFunctionTest {
         }
     }
 
+    @Test
+    void remapPathShouldKeepQuery() {
+        final RemappingPathFunction function = new RemappingPathFunction("/foo/bar");
+
+        final HttpRequest req = HttpRequest.of(HttpMethod.GET, "/?baz=qux");
+        final HttpRequest applied = function.apply(req);
+        assertThat(applied.path()).isEqualTo("/foo/bar?baz=qux");
+    }
+
     @Test
     void shouldThrowIllegalStateExceptionIfPathParamDoesNotExist() {
         final RemappingPathFunction function = new RemappingPathFunction("/foo/{bar}");
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class RollingPercentileTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void percentileOfRecentLatencies() {
+        final RollingPercentile percentile = new RollingPercentile(0.95, ticker::get);
+        for (int i = 1; i <= 100; i++) {
+            percentile.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertThat(percentile.valueMicros()).isEqualTo(-1);
+
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(percentile.valueMicros()).isBetween(94_000L, 96_000L);
+    }
+
+    @Test
+    void notEnoughSamples() {
+        final RollingPercentile percentile = new RollingPercentile(0.95, ticker::get);
+        for (int i = 1; i < RollingPercentile.MIN_SAMPLES; i++) {
+            percentile.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(percentile.valueMicros()).isEqualTo(-1);
+    }
+
+    @Test
+    void dropOldLatencies() {
+        final RollingPercentile percentile = new RollingPercentile(0.5, ticker::get);
+        for (int i = 0; i < 100; i++) {
+            percentile.record(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(percentile.valueMicros()).isBetween(99_000L, 101_000L);
+
+        // The slow latencies of the first interval are dropped after 10 intervals.
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 100; j++) {
+                percentile.record(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            ticker.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            percentile.valueMicros();
+        }
+        assertThat(percentile.valueMicros()).isBetween(990L, 1010L);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.server.Route;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RouteMetricsTest {
+
+    @Test
+    void recordRoute() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final RouteMetrics metrics = new RouteMetrics(registry, Route.builder().path("/foo/{bar}").build());
+
+        final ServiceRequestContext ctx = ServiceRequestContext.of(HttpRequest.of(HttpMethod.GET, "/foo/1"));
+        metrics.onRequest(ctx);
+        assertThat(registry.get("tollgate.route.active.requests").gauge().value()).isOne();
+
+        complete(ctx, HttpStatus.NOT_FOUND);
+        assertThat(registry.get("tollgate.route.active.requests").gauge().value()).isZero();
+        assertThat(registry.get("tollgate.route.duration")
+                           .tags("route", "/foo/:bar", "methods", "*", "status", "4xx")
+                           .timer().count()).isOne();
+        assertThat(registry.get("tollgate.route.duration")
+                           .tags("status", "2xx")
+                           .timer().count()).isZero();
+        assertThat(registry.get("tollgate.route.response.length").summary().count()).isOne();
+    }
+
+    @Test
+    void recordUpstream() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final RouteMetrics metrics = new RouteMetrics(registry, Route.builder()
+                                                                     .path("/foo")
+                                                                     .methods(HttpMethod.POST, HttpMethod.GET)
+                                                                     .build());
+
+        final ClientRequestContext ctx = ClientRequestContext.of(HttpRequest.of(HttpMethod.GET, "/foo"));
+        metrics.onUpstreamRequest(ctx);
+        assertThat(registry.get("tollgate.upstream.active.requests").gauge().value()).isOne();
+
+        complete(ctx, HttpStatus.OK);
+        assertThat(registry.get("tollgate.upstream.active.requests").gauge().value()).isZero();
+        assertThat(registry.get("tollgate.upstream.duration")
+                           .tags("route", "/foo", "methods", "GET,POST", "status", "2xx",
+                                 "endpoint", ctx.endpoint().authority())
+                           .timer().count()).isOne();
+    }
+
+    @Test
+    void recordFailedUpstreamRequest() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final RouteMetrics metrics = new RouteMetrics(registry, Route.builder().path("/foo").build());
+
+        final ClientRequestContext ctx = ClientRequestContext.of(HttpRequest.of(HttpMethod.GET, "/foo"));
+        metrics.onUpstreamRequest(ctx);
+        ctx.logBuilder().endRequest();
+        ctx.logBuilder().endResponse(new IllegalStateException());
+
+        assertThat(registry.get("tollgate.upstream.duration")
+                           .tags("status", "unknown")
+                           .timer().count()).isOne();
+    }
+
+    private static void complete(RequestContext ctx, HttpStatus status) {
+        ctx.logBuilder().endRequest();
+        ctx.logBuilder().responseHeaders(ResponseHeaders.of(status));
+        ctx.logBuilder().endResponse();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointSelector;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.RequestHeaders;
+
+class SlowStartEndpointGroupTest {
+
+    private static final Endpoint foo = Endpoint.of("foo");
+    private static final Endpoint bar = Endpoint.of("bar");
+    private static final Endpoint baz = Endpoint.of("baz");
+
+    private static final int KEYS = 5000;
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final SettableEndpointGroup delegate = new SettableEndpointGroup();
+
+    @Test
+    void rampUpNewEndpoint() {
+        delegate.set(foo, bar);
+        final SlowStartEndpointGroup group = newGroup(1);
+        assertThat(weightOf(group, foo)).isEqualTo(1000);
+        assertThat(weightOf(group, bar)).isEqualTo(1000);
+
+        delegate.set(foo, bar, baz);
+        assertThat(weightOf(group, baz)).isEqualTo(100);
+        assertThat(group.warmingUpEndpoints()).isOne();
+
+        ticker.addAndGet(WINDOW_NANOS / 2);
+        group.update();
+        assertThat(weightOf(group, baz)).isEqualTo(500);
+
+        ticker.addAndGet(WINDOW_NANOS / 2);
+        group.update();
+        assertThat(weightOf(group, baz)).isEqualTo(1000);
+        assertThat(group.warmingUpEndpoints()).isZero();
+        assertThat(weightOf(group, foo)).isEqualTo(1000);
+    }
+
+    @Test
+    void rampUpRecoveredEndpoint() {
+        delegate.set(foo, bar);
+        final SlowStartEndpointGroup group = newGroup(1);
+
+        // Removed by a health check and returned afterwards.
+        delegate.set(bar);
+        ticker.addAndGet(WINDOW_NANOS);
+        delegate.set(foo, bar);
+        assertThat(weightOf(group, foo)).isEqualTo(100);
+        assertThat(weightOf(group, bar)).isEqualTo(1000);
+    }
+
+    @Test
+    void rampUpFasterWithAggression() {
+        delegate.set(foo);
+        final SlowStartEndpointGroup group = newGroup(2);
+
+        delegate.set(foo, bar);
+        ticker.addAndGet(WINDOW_NANOS / 4);
+        group.update();
+        assertThat(weightOf(group, bar)).isEqualTo(500);
+    }
+
+    @Test
+    void noRampUpWithoutOtherEndpoints() {
+        // E.g. the endpoints of an upstream become healthy for the first time.
+        final SlowStartEndpointGroup group = newGroup(1);
+        delegate.set(foo, bar);
+        assertThat(weightOf(group, foo)).isEqualTo(1000);
+        assertThat(weightOf(group, bar)).isEqualTo(1000);
+        assertThat(group.warmingUpEndpoints()).isZero();
+    }
+
+    @Test
+    void rampUpConsistentHashKeys() {
+        delegate.set(foo, bar);
+        final SlowStartEndpointGroup group = newGroup(1);
+        final EndpointSelector selector = new ConsistentHashStrategy(ConsistentHashPolicy.builder()
+                                                                                         .header("x-user")
+                                                                                         .build())
+                .newSelector(group);
+
+        delegate.set(foo, bar, baz);
+        assertThat(keyShare(selector, baz)).isCloseTo(100.0 / 2100, within(0.03));
+
+        // The points of the ramped endpoint grow with its weight.
+        ticker.addAndGet(WINDOW_NANOS);
+        group.update();
+        assertThat(keyShare(selector, baz)).isCloseTo(1.0 / 3, within(0.05));
+    }
+
+    @Test
+    void keepZeroWeight() {
+        delegate.set(foo);
+        final SlowStartEndpointGroup group = newGroup(1);
+        delegate.set(foo, bar.withWeight(0));
+        assertThat(weightOf(group, bar)).isZero();
+    }
+
+    private SlowStartEndpointGroup newGroup(double aggression) {
+        final SlowStartPolicy policy = SlowStartPolicy.builder()
+                                                      .window(Duration.ofNanos(WINDOW_NANOS))
+                                                      .minWeightPercent(10)
+                                                      .aggression(aggression)
+                                                      .build();
+        return new SlowStartEndpointGroup(delegate, policy, ticker::get, null);
+    }
+
+    private static double keyShare(EndpointSelector selector, Endpoint endpoint) {
+        final long selected =
+                IntStream.range(0, KEYS)
+                         .mapToObj(i -> ClientRequestContext.of(HttpRequest.of(
+                                 RequestHeaders.of(HttpMethod.GET, "/", "x-user", "user-" + i))))
+                         .map(selector::selectNow)
+                         .filter(endpoint::equals)
+                         .count();
+        return (double) selected / KEYS;
+    }
+
+    private static int weightOf(SlowStartEndpointGroup group, Endpoint endpoint) {
+        return group.endpoints().stream()
+                    .filter(endpoint::equals)
+                    .findFirst()
+                    .orElseThrow()
+                    .weight();
+    }
+
+    private static final class SettableEndpointGroup extends DynamicEndpointGroup {
+        void set(Endpoint... endpoints) {
+            setEndpoints(List.of(endpoints));
+        }
+    }
+}
@@ -34,6 +34,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.testing.junit5.server.ServerExtension;
@@ -96,4 +98,24 @@ class UpstreamBindingBuilderTest {
             assertThat(queue).containsExactly("decorator1", "decorator2");
         }
     }
+
+    @Test
+    void serverTiming() {
+        try (TestGateway gateway = withTestGateway(builder -> {
+            builder.route()
+                   .path("/foo")
+                   .serverTiming(true)
+                   .build(Upstream.of(serviceServer.httpUri()));
+            builder.upstream("/bar", Upstream.builder(serviceServer.httpUri()).path("/foo").build());
+        })) {
+            final WebClient client = WebClient.of(gateway.httpUri());
+
+            AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+            assertThat(res.headers().get(HttpHeaderNames.SERVER_TIMING))
+                    .matches("gateway;dur=\\d+\\.\\d{3}, upstream;dur=\\d+\\.\\d{3}");
+
+            res = client.get("/bar").aggregate().join();
+            assertThat(res.headers().contains(HttpHeaderNames.SERVER_TIMING)).isFalse();
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamBulkheadTest {
+
+    @RegisterExtension
+    static final ServerExtension serviceServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/slow", (ctx, req) -> HttpResponse.delayed(HttpResponse.of(HttpStatus.OK),
+                                                                          Duration.ofMillis(300)));
+        }
+    };
+
+    @Test
+    void rejectRequestsOverCap() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final BulkheadPolicy policy = BulkheadPolicy.builder()
+                                                    .maxConcurrentRequests(1)
+                                                    .maxQueueSize(1)
+                                                    .maxWait(Duration.ofSeconds(10))
+                                                    .build();
+        final Upstream upstream = Upstream.builder(serviceServer.httpUri())
+                                          .bulkhead(policy)
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+
+        final CompletableFuture<AggregatedHttpResponse> first = execute(upstream);
+        final CompletableFuture<AggregatedHttpResponse> second = execute(upstream);
+        assertThat(registry.get("tollgate.upstream.bulkhead.queued").gauge().value()).isOne();
+        assertThat(execute(upstream).join().status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(registry.get("tollgate.upstream.bulkhead.rejected.requests")
+                           .functionCounter().count()).isOne();
+
+        // The queued request is sent once the first request completes.
+        assertThat(first.join().status()).isEqualTo(HttpStatus.OK);
+        assertThat(second.join().status()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void rejectionsDoNotOpenCircuit() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final CircuitBreakerPolicy circuitBreakerPolicy =
+                CircuitBreakerPolicy.builder()
+                                    .minimumRequestThreshold(1)
+                                    .slidingWindow(Duration.ofSeconds(1))
+                                    .build();
+        final Upstream upstream = Upstream.builder(serviceServer.httpUri())
+                                          .bulkhead(BulkheadPolicy.builder()
+                                                                  .maxConcurrentRequests(1)
+                                                                  .maxQueueSize(1)
+                                                                  .maxWait(Duration.ofSeconds(10))
+                                                                  .build())
+                                          .circuitBreaker(circuitBreakerPolicy)
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+
+        final CompletableFuture<AggregatedHttpResponse> first = execute(upstream);
+        final CompletableFuture<AggregatedHttpResponse> second = execute(upstream);
+        for (int i = 0; i < 10; i++) {
+            assertThat(execute(upstream).join().status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        assertThat(first.join().status()).isEqualTo(HttpStatus.OK);
+        assertThat(second.join().status()).isEqualTo(HttpStatus.OK);
+
+        // The next slow requests outlast the update interval of the counter of the circuit breaker.
+        for (int i = 0; i < 5; i++) {
+            assertThat(execute(upstream).join().status()).isEqualTo(HttpStatus.OK);
+        }
+        assertThat(registry.get("tollgate.upstream.circuit.breaker.state").tag("state", "closed")
+                           .gauge().value()).isOne();
+    }
+
+    @Test
+    void doNotRetryRejections() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final Upstream upstream = Upstream.builder(serviceServer.httpUri())
+                                          .bulkhead(BulkheadPolicy.builder().maxConcurrentRequests(1).build())
+                                          .retry(RetryPolicy.builder().maxAttempts(3).build())
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+
+        final CompletableFuture<AggregatedHttpResponse> first = execute(upstream);
+        assertThat(execute(upstream).join().status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(registry.get("tollgate.upstream.bulkhead.rejected.requests")
+                           .functionCounter().count()).isOne();
+        assertThat(first.join().status()).isEqualTo(HttpStatus.OK);
+    }
+
+    private static CompletableFuture<AggregatedHttpResponse> execute(Upstream upstream) {
+        return upstream.execute(HttpRequest.of(HttpMethod.GET, "/slow")).aggregate();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamCircuitBreakerTest {
+
+    private static final AtomicReference<HttpStatus> status = new AtomicReference<>();
+
+    @RegisterExtension
+    static final ServerExtension serviceServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of(status.get()));
+            builder.service("/slow", (ctx, req) -> HttpResponse.delayed(HttpResponse.of(HttpStatus.OK),
+                                                                          Duration.ofMillis(200)));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        status.set(HttpStatus.OK);
+    }
+
+    @Test
+    void failFastWhenCircuitIsOpen() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final CircuitBreakerPolicy policy = CircuitBreakerPolicy.builder()
+                                                                .minimumRequestThreshold(1)
+                                                                .slidingWindow(Duration.ofSeconds(1))
+                                                                .openWindow(Duration.ofMillis(500))
+                                                                .trialRequestInterval(Duration.ofMillis(100))
+                                                                .failFastStatus(429)
+                                                                .build();
+        final Upstream upstream = newUpstream(registry, policy);
+        assertThat(state(registry, "closed")).isOne();
+
+        status.set(HttpStatus.INTERNAL_SERVER_ERROR);
+        await().untilAsserted(() -> {
+            assertThat(execute(upstream, "/").status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        });
+        assertThat(state(registry, "open")).isOne();
+        assertThat(state(registry, "closed")).isZero();
+        assertThat(registry.get("tollgate.upstream.circuit.breaker.rejected.requests")
+                           .functionCounter().count()).isPositive();
+
+        // A trial request closes the circuit after the open window once the upstream server recovers.
+        status.set(HttpStatus.OK);
+        await().untilAsserted(() -> {
+            assertThat(execute(upstream, "/").status()).isEqualTo(HttpStatus.OK);
+            assertThat(state(registry, "closed")).isOne();
+        });
+    }
+
+    @Test
+    void slowCallsOpenCircuit() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final CircuitBreakerPolicy policy = CircuitBreakerPolicy.builder()
+                                                                .minimumRequestThreshold(1)
+                                                                .slidingWindow(Duration.ofSeconds(1))
+                                                                .slowCallThreshold(Duration.ofMillis(50))
+                                                                .build();
+        final Upstream upstream = newUpstream(registry, policy);
+
+        await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(execute(upstream, "/slow").status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        });
+        assertThat(state(registry, "open")).isOne();
+    }
+
+    @Test
+    void clientErrorsDoNotOpenCircuit() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final CircuitBreakerPolicy policy = CircuitBreakerPolicy.builder()
+                                                                .minimumRequestThreshold(1)
+                                                                .slidingWindow(Duration.ofSeconds(1))
+                                                                .build();
+        final Upstream upstream = newUpstream(registry, policy);
+
+        status.set(HttpStatus.NOT_FOUND);
+        for (int i = 0; i < 20; i++) {
+            assertThat(execute(upstream, "/").status()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+        assertThat(state(registry, "closed")).isOne();
+    }
+
+    private static Upstream newUpstream(MeterRegistry registry, CircuitBreakerPolicy policy) {
+        final Upstream upstream = Upstream.builder(serviceServer.httpUri())
+                                          .circuitBreaker(policy)
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        return upstream;
+    }
+
+    private static AggregatedHttpResponse execute(Upstream upstream, String path) {
+        return upstream.execute(HttpRequest.of(HttpMethod.GET, path)).aggregate().join();
+    }
+
+    private static double state(MeterRegistry registry, String state) {
+        return registry.get("tollgate.upstream.circuit.breaker.state").tag("state", state).gauge().value();
+    }
+}
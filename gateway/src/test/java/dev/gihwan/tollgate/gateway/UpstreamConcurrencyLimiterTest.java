@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamConcurrencyLimiterTest {
+
+    @RegisterExtension
+    static final ServerExtension serviceServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/slow", (ctx, req) -> HttpResponse.delayed(HttpResponse.of(HttpStatus.OK),
+                                                                          Duration.ofMillis(500)));
+        }
+    };
+
+    @Test
+    void rejectRequestsOverLimit() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final ConcurrencyLimitPolicy policy = ConcurrencyLimitPolicy.builder()
+                                                                    .initialLimit(1)
+                                                                    .limit(1, 1)
+                                                                    .rejectStatus(429)
+                                                                    .build();
+        final Upstream upstream = Upstream.builder(serviceServer.httpUri())
+                                          .concurrencyLimit(policy)
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+
+        final HttpResponse first = upstream.execute(HttpRequest.of(HttpMethod.GET, "/slow"));
+        final AggregatedHttpResponse second = upstream.execute(HttpRequest.of(HttpMethod.GET, "/slow"))
+                                                      .aggregate().join();
+        assertThat(second.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(registry.get("tollgate.upstream.concurrency.rejected.requests")
+                           .functionCounter().count()).isOne();
+        assertThat(registry.get("tollgate.upstream.concurrency.in.flight").gauge().value()).isOne();
+
+        assertThat(first.aggregate().join().status()).isEqualTo(HttpStatus.OK);
+        await().untilAsserted(() -> assertThat(registry.get("tollgate.upstream.concurrency.in.flight")
+                                                       .gauge().value()).isZero());
+        assertThat(upstream.execute(HttpRequest.of(HttpMethod.GET, "/slow")).aggregate().join().status())
+                .isEqualTo(HttpStatus.OK);
+        assertThat(registry.get("tollgate.upstream.concurrency.limit").gauge().value()).isOne();
+    }
+}
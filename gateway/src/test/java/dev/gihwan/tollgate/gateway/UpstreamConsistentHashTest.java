@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+class UpstreamConsistentHashTest {
+
+    @RegisterExtension
+    static final ServerExtension fooServer = newServer("foo");
+
+    @RegisterExtension
+    static final ServerExtension barServer = newServer("bar");
+
+    @RegisterExtension
+    static final ServerExtension bazServer = newServer("baz");
+
+    private static ServerExtension newServer(String name) {
+        return new ServerExtension() {
+            @Override
+            protected void configure(ServerBuilder builder) {
+                builder.serviceUnder("/", (ctx, req) -> HttpResponse.of(name));
+            }
+        };
+    }
+
+    private static Gateway gateway;
+    private static WebClient client;
+
+    @BeforeAll
+    static void beforeAll() {
+        gateway = Gateway.builder()
+                         .server(builder -> builder.http(0))
+                         .upstream("/header", newUpstream(builder -> builder.header("x-user")))
+                         .upstream("/cookie", newUpstream(builder -> builder.cookie("user")))
+                         .upstream("/query", newUpstream(builder -> builder.queryParam("user")))
+                         .upstream("/users/{id}", newUpstream(builder -> builder.pathParam("id")))
+                         .build();
+        gateway.start().join();
+        client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+    }
+
+    @AfterAll
+    static void afterAll() {
+        gateway.stop().join();
+    }
+
+    private static Upstream newUpstream(Consumer<ConsistentHashPolicyBuilder> configurator) {
+        final ConsistentHashPolicyBuilder builder = ConsistentHashPolicy.builder();
+        configurator.accept(builder);
+        return Upstream.builder(SessionProtocol.HTTP, endpointGroup())
+                       .consistentHash(builder.build())
+                       .build();
+    }
+
+    private static EndpointGroup endpointGroup() {
+        return EndpointGroup.of(Endpoint.of("127.0.0.1", fooServer.httpPort()),
+                                Endpoint.of("127.0.0.1", barServer.httpPort()),
+                                Endpoint.of("127.0.0.1", bazServer.httpPort()));
+    }
+
+    @Test
+    void hashHeader() {
+        assertAffinity(key -> RequestHeaders.builder(HttpMethod.GET, "/header").add("x-user", key).build());
+    }
+
+    @Test
+    void hashCookie() {
+        assertAffinity(key -> RequestHeaders.builder(HttpMethod.GET, "/cookie")
+                                            .add(HttpHeaderNames.COOKIE, "foo=bar; user=" + key)
+                                            .build());
+    }
+
+    @Test
+    void hashQueryParam() {
+        assertAffinity(key -> RequestHeaders.of(HttpMethod.GET, "/query?foo=bar&user=" + key));
+    }
+
+    @Test
+    void hashPathParam() {
+        assertAffinity(key -> RequestHeaders.of(HttpMethod.GET, "/users/" + key));
+    }
+
+    @Test
+    void spreadRequestsWithoutKey() {
+        final Set<String> servers = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            servers.add(client.get("/header").aggregate().join().contentUtf8());
+        }
+        assertThat(servers).containsExactlyInAnyOrder("foo", "bar", "baz");
+    }
+
+    @Test
+    void disallowLoadBalancer() {
+        final UpstreamBuilder builder =
+                Upstream.builder(SessionProtocol.HTTP, endpointGroup())
+                        .loadBalancer(LoadBalancer.P2C)
+                        .consistentHash(ConsistentHashPolicy.builder().header("x-user").build());
+        assertThatThrownBy(builder::build).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void assertAffinity(Function<String, RequestHeaders> headersFactory) {
+        final Set<String> servers = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            final RequestHeaders headers = headersFactory.apply("user" + i);
+            final String server = client.execute(headers).aggregate().join().contentUtf8();
+            for (int j = 0; j < 3; j++) {
+                assertThat(client.execute(headers).aggregate().join().contentUtf8()).isEqualTo(server);
+            }
+            servers.add(server);
+        }
+        // The keys are spread over the endpoints.
+        assertThat(servers).hasSizeGreaterThan(1);
+    }
+}
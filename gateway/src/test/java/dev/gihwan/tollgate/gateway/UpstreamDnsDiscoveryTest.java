@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import dev.gihwan.tollgate.testing.TestDnsServer;
+
+class UpstreamDnsDiscoveryTest {
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+        }
+    };
+
+    private final TestDnsServer dnsServer = TestDnsServer.of();
+
+    @AfterEach
+    void closeDnsServer() {
+        dnsServer.close();
+    }
+
+    @Test
+    void refreshAddressesOnTtl() {
+        dnsServer.setAddresses("foo.test", 1, "127.0.0.1", "127.0.0.2");
+        try (LastKnownGoodEndpointGroup group = newAddressDiscovery().newEndpointGroup()) {
+            group.whenReady().join();
+            assertThat(ipAddrs(group)).containsExactlyInAnyOrder("127.0.0.1", "127.0.0.2");
+            assertThat(group.endpoints()).allSatisfy(endpoint -> assertThat(endpoint.port()).isEqualTo(8080));
+
+            dnsServer.setAddresses("foo.test", 1, "127.0.0.3");
+            await().untilAsserted(() -> assertThat(ipAddrs(group)).containsExactly("127.0.0.3"));
+        }
+    }
+
+    @Test
+    void keepLastEndpointsOnFailure() {
+        dnsServer.setAddresses("foo.test", 1, "127.0.0.1");
+        try (LastKnownGoodEndpointGroup group = newAddressDiscovery().newEndpointGroup()) {
+            group.whenReady().join();
+
+            dnsServer.failing(true);
+            final int queries = dnsServer.queries();
+            await().until(() -> dnsServer.queries() > queries + 2);
+            assertThat(ipAddrs(group)).containsExactly("127.0.0.1");
+
+            // The name exists without the address records, so the answers are empty.
+            dnsServer.setAddresses("foo.test", 1)
+                     .addService("foo.test", 1, 1, 8080, "127.0.0.2")
+                     .failing(false);
+            final int failedQueries = dnsServer.queries();
+            await().until(() -> dnsServer.queries() > failedQueries + 2);
+            assertThat(ipAddrs(group)).containsExactly("127.0.0.1");
+        }
+    }
+
+    @Test
+    void discoverServices() {
+        dnsServer.addService("http.foo.test", 1, 10, 8080, "127.0.0.1")
+                 .addService("http.foo.test", 1, 20, 8081, "127.0.0.1");
+        final DnsDiscovery discovery = DnsDiscovery.service("http.foo.test")
+                                                   .serverAddresses(dnsServer.address())
+                                                   .build();
+        try (LastKnownGoodEndpointGroup group = discovery.newEndpointGroup()) {
+            group.whenReady().join();
+            assertThat(group.endpoints()).containsExactlyInAnyOrder(Endpoint.of("127.0.0.1", 8080),
+                                                                    Endpoint.of("127.0.0.1", 8081));
+            assertThat(group.endpoints()).extracting(Endpoint::weight).containsExactlyInAnyOrder(10, 20);
+        }
+    }
+
+    @Test
+    void sendRequestToDiscoveredEndpoint() {
+        dnsServer.addService("http.foo.test", 1, 1, server.httpPort(), "127.0.0.1");
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final DnsDiscovery discovery = DnsDiscovery.service("http.foo.test")
+                                                   .serverAddresses(dnsServer.address())
+                                                   .build();
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, discovery).build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        try {
+            assertThat(upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join().status())
+                    .isEqualTo(HttpStatus.OK);
+            assertThat(registry.get("tollgate.upstream.dns.endpoints").gauge().value()).isOne();
+        } finally {
+            ((DefaultUpstream) upstream).close();
+        }
+    }
+
+    private DnsDiscovery newAddressDiscovery() {
+        return DnsDiscovery.address("foo.test", 8080)
+                           .serverAddresses(dnsServer.address())
+                           .ttl(Duration.ofSeconds(1), Duration.ofSeconds(1))
+                           .backoff(Duration.ofMillis(100), Duration.ofMillis(100))
+                           .build();
+    }
+
+    private static List<String> ipAddrs(LastKnownGoodEndpointGroup group) {
+        return group.endpoints().stream().map(Endpoint::ipAddr).collect(Collectors.toList());
+    }
+}
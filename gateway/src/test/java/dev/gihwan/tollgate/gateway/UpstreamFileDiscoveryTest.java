@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.CommonPools;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamFileDiscoveryTest {
+
+    @RegisterExtension
+    static final ServerExtension server = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+        }
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void swapEndpointsOnReplace() throws IOException {
+        final Path path = tempDir.resolve("endpoints.json");
+        write(path, endpoints(8080, 8081));
+        final FileDiscovery discovery = FileDiscovery.builder(path).debounce(Duration.ofMillis(100)).build();
+        try (FileWatchingEndpointGroup group = discovery.newEndpointGroup(CommonPools.blockingTaskExecutor())) {
+            assertThat(group.endpoints()).containsExactly(Endpoint.of("127.0.0.1", 8080),
+                                                          Endpoint.of("127.0.0.1", 8081));
+
+            replace(path, endpoints(8082));
+            await().untilAsserted(() -> assertThat(group.endpoints())
+                    .containsExactly(Endpoint.of("127.0.0.1", 8082)));
+        }
+    }
+
+    @Test
+    void keepLastEndpointsOnInvalidFile() throws IOException {
+        final Path path = tempDir.resolve("endpoints.json");
+        write(path, endpoints(8080));
+        final FileDiscovery discovery = FileDiscovery.builder(path)
+                                                     .debounce(Duration.ofMillis(100))
+                                                     .minEndpoints(1)
+                                                     .build();
+        try (FileWatchingEndpointGroup group = discovery.newEndpointGroup(CommonPools.blockingTaskExecutor())) {
+            // A partially written file.
+            write(path, "{\"endpoints\": [{\"host\": \"127.0.0.1\", \"po");
+            await().until(() -> group.rejectedUpdates() == 1);
+            assertThat(group.endpoints()).containsExactly(Endpoint.of("127.0.0.1", 8080));
+
+            write(path, "{\"endpoints\": []}");
+            await().until(() -> group.rejectedUpdates() == 2);
+            assertThat(group.endpoints()).containsExactly(Endpoint.of("127.0.0.1", 8080));
+
+            Files.delete(path);
+            await().until(() -> group.rejectedUpdates() == 3);
+            assertThat(group.endpoints()).containsExactly(Endpoint.of("127.0.0.1", 8080));
+
+            write(path, "{\"endpoints\": [{\"host\": \"127.0.0.1\", \"port\": 8080, \"weight\": 500}]}");
+            await().untilAsserted(() -> assertThat(group.endpoints())
+                    .singleElement().extracting(Endpoint::weight).isEqualTo(500));
+        }
+    }
+
+    @Test
+    void readBurstOfWritesOnce() throws IOException {
+        final Path path = tempDir.resolve("endpoints.json");
+        write(path, endpoints(8080));
+        final AtomicInteger reads = new AtomicInteger();
+        final FileDiscovery discovery = FileDiscovery.builder(path)
+                                                     .debounce(Duration.ofSeconds(1))
+                                                     .parser(content -> {
+                                                         reads.incrementAndGet();
+                                                         return JsonEndpointsParser.INSTANCE.apply(content);
+                                                     })
+                                                     .build();
+        try (FileWatchingEndpointGroup group = discovery.newEndpointGroup(CommonPools.blockingTaskExecutor())) {
+            assertThat(reads).hasValue(1);
+            for (int port = 8081; port <= 8085; port++) {
+                write(path, endpoints(port));
+            }
+            await().untilAsserted(() -> assertThat(group.endpoints())
+                    .containsExactly(Endpoint.of("127.0.0.1", 8085)));
+            assertThat(reads).hasValue(2);
+        }
+    }
+
+    @Test
+    void sendRequestToDiscoveredEndpoint() throws IOException {
+        final Path path = tempDir.resolve("endpoints.json");
+        write(path, endpoints(server.httpPort()));
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, FileDiscovery.builder(path).build())
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        try {
+            assertThat(upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join().status())
+                    .isEqualTo(HttpStatus.OK);
+            assertThat(registry.get("tollgate.upstream.file.endpoints").gauge().value()).isOne();
+            assertThat(registry.get("tollgate.upstream.file.rejected.updates").functionCounter().count())
+                    .isZero();
+        } finally {
+            ((DefaultUpstream) upstream).close();
+        }
+    }
+
+    private static String endpoints(int... ports) {
+        final StringBuilder json = new StringBuilder("{\"endpoints\": [");
+        for (int i = 0; i < ports.length; i++) {
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append("{\"host\": \"127.0.0.1\", \"port\": ").append(ports[i]).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void write(Path path, String content) throws IOException {
+        Files.writeString(path, content);
+    }
+
+    private void replace(Path path, String content) throws IOException {
+        final Path temp = Files.createTempFile(tempDir, "endpoints", ".tmp");
+        write(temp, content);
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamHealthCheckTest {
+
+    private static final AtomicBoolean fooHealthy = new AtomicBoolean();
+    private static final AtomicInteger fooRequests = new AtomicInteger();
+    private static final AtomicBoolean barHealthy = new AtomicBoolean();
+
+    @RegisterExtension
+    static final ServerExtension fooServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/health", (ctx, req) -> HttpResponse.of(
+                    fooHealthy.get() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE));
+            builder.service("/", (ctx, req) -> {
+                fooRequests.incrementAndGet();
+                return HttpResponse.of("foo");
+            });
+        }
+    };
+
+    @RegisterExtension
+    static final ServerExtension barServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/health", (ctx, req) -> HttpResponse.of(
+                    barHealthy.get() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE));
+            builder.service("/", (ctx, req) -> HttpResponse.of("bar"));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        fooHealthy.set(true);
+        fooRequests.set(0);
+        barHealthy.set(true);
+    }
+
+    @Test
+    void removeUnhealthyEndpoints() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, endpointGroup())
+                                          .healthCheck(newPolicy(false))
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        try {
+            await().untilAsserted(() -> assertThat(healthyCount(registry)).isEqualTo(2));
+
+            fooHealthy.set(false);
+            await().untilAsserted(() -> assertThat(healthyCount(registry)).isOne());
+            fooRequests.set(0);
+            for (int i = 0; i < 10; i++) {
+                assertThat(upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join()
+                                   .contentUtf8()).isEqualTo("bar");
+            }
+            assertThat(fooRequests).hasValue(0);
+
+            fooHealthy.set(true);
+            await().untilAsserted(() -> assertThat(healthyCount(registry)).isEqualTo(2));
+        } finally {
+            ((DefaultUpstream) upstream).close();
+        }
+    }
+
+    @Test
+    void failGatewayHealthCheck() {
+        final Gateway gateway = Gateway.builder()
+                                       .server(builder -> builder.http(0))
+                                       .healthCheck("/health")
+                                       .upstream("/", Upstream.builder(SessionProtocol.HTTP, endpointGroup())
+                                                              .healthCheck(newPolicy(true))
+                                                              .build())
+                                       .build();
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            await().untilAsserted(() -> assertThat(client.get("/health").aggregate().join().status())
+                    .isEqualTo(HttpStatus.OK));
+
+            fooHealthy.set(false);
+            barHealthy.set(false);
+            await().untilAsserted(() -> assertThat(client.get("/health").aggregate().join().status())
+                    .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+            barHealthy.set(true);
+            await().untilAsserted(() -> assertThat(client.get("/health").aggregate().join().status())
+                    .isEqualTo(HttpStatus.OK));
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    private static HealthCheckPolicy newPolicy(boolean failGatewayHealthCheck) {
+        return HealthCheckPolicy.builder("/health")
+                                .interval(Duration.ofMillis(100))
+                                .jitter(0)
+                                .healthyThreshold(2)
+                                .unhealthyThreshold(2)
+                                .failGatewayHealthCheck(failGatewayHealthCheck)
+                                .build();
+    }
+
+    private static double healthyCount(MeterRegistry registry) {
+        return registry.get("tollgate.upstream.health.count").tag("state", "healthy").gauge().value();
+    }
+
+    private static EndpointGroup endpointGroup() {
+        return EndpointGroup.of(Endpoint.of("127.0.0.1", fooServer.httpPort()),
+                                Endpoint.of("127.0.0.1", barServer.httpPort()));
+    }
+}
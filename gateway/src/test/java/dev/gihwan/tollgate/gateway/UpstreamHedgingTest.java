@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.base.Stopwatch;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamHedgingTest {
+
+    private static final Duration SLOW_LATENCY = Duration.ofSeconds(3);
+
+    private static final AtomicInteger slowServerRequests = new AtomicInteger();
+    private static final AtomicInteger cancelledSlowServerRequests = new AtomicInteger();
+
+    @RegisterExtension
+    static final ServerExtension slowServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> {
+                slowServerRequests.incrementAndGet();
+                ctx.log().whenComplete().thenAccept(log -> {
+                    if (log.responseCause() != null) {
+                        cancelledSlowServerRequests.incrementAndGet();
+                    }
+                });
+                return HttpResponse.delayed(HttpResponse.of("slow"), SLOW_LATENCY);
+            });
+        }
+    };
+
+    @RegisterExtension
+    static final ServerExtension fastServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of("fast"));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        slowServerRequests.set(0);
+        cancelledSlowServerRequests.set(0);
+    }
+
+    @Test
+    void hedgeSlowRequest() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final HedgingPolicy policy = HedgingPolicy.builder()
+                                                  .delay(Duration.ofMillis(50))
+                                                  .maxHedgeRatio(1)
+                                                  .build();
+        final Upstream upstream = newUpstream(registry, policy, slowServer, fastServer);
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        for (int i = 0; i < 4; i++) {
+            final AggregatedHttpResponse res = execute(upstream, HttpMethod.GET);
+            assertThat(res.contentUtf8()).isEqualTo("fast");
+        }
+        assertThat(stopwatch.elapsed()).isLessThan(SLOW_LATENCY);
+
+        final double hedges = registry.get("tollgate.upstream.hedges").functionCounter().count();
+        assertThat(hedges).isEqualTo(slowServerRequests.get());
+        assertThat(registry.get("tollgate.upstream.hedges.won").functionCounter().count()).isEqualTo(hedges);
+        // The slow requests which lost are cancelled.
+        await().untilAsserted(() -> assertThat(cancelledSlowServerRequests).hasValue(slowServerRequests.get()));
+    }
+
+    @Test
+    void doNotHedgeNonIdempotentMethod() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final HedgingPolicy policy = HedgingPolicy.builder()
+                                                  .delay(Duration.ofMillis(50))
+                                                  .maxHedgeRatio(1)
+                                                  .build();
+        final Upstream upstream = newUpstream(registry, policy, slowServer);
+
+        assertThat(execute(upstream, HttpMethod.POST).contentUtf8()).isEqualTo("slow");
+        assertThat(slowServerRequests).hasValue(1);
+        assertThat(registry.get("tollgate.upstream.hedges").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void limitHedgeRate() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final HedgingPolicy policy = HedgingPolicy.builder()
+                                                  .delay(Duration.ofMillis(50))
+                                                  .maxHedgeRatio(0.5)
+                                                  .build();
+        final Upstream upstream = newUpstream(registry, policy, slowServer);
+
+        // The first request does not deposit enough for a hedge.
+        assertThat(execute(upstream, HttpMethod.GET).contentUtf8()).isEqualTo("slow");
+        assertThat(slowServerRequests).hasValue(1);
+        assertThat(registry.get("tollgate.upstream.hedges.rejected").functionCounter().count()).isOne();
+
+        assertThat(execute(upstream, HttpMethod.GET).contentUtf8()).isEqualTo("slow");
+        assertThat(slowServerRequests).hasValue(3);
+        assertThat(registry.get("tollgate.upstream.hedges").functionCounter().count()).isOne();
+        assertThat(registry.get("tollgate.upstream.hedges.won").functionCounter().count()).isZero();
+    }
+
+    @Test
+    void percentileDelay() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final HedgingPolicy policy = HedgingPolicy.builder()
+                                                  .percentileDelay(0.95, Duration.ofMillis(30))
+                                                  .build();
+        final Upstream upstream = newUpstream(registry, policy, fastServer);
+
+        assertThat(execute(upstream, HttpMethod.GET).contentUtf8()).isEqualTo("fast");
+        // The minimum delay is used until enough latencies are recorded.
+        assertThat(registry.get("tollgate.upstream.hedge.delay").timeGauge().value())
+                .isEqualTo(0.03);
+    }
+
+    private static Upstream newUpstream(MeterRegistry registry, HedgingPolicy policy,
+                                        ServerExtension... servers) {
+        final Endpoint[] endpoints = new Endpoint[servers.length];
+        for (int i = 0; i < servers.length; i++) {
+            endpoints[i] = Endpoint.of("127.0.0.1", servers[i].httpPort());
+        }
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, EndpointGroup.of(endpoints))
+                                          .hedging(policy)
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        return upstream;
+    }
+
+    private static AggregatedHttpResponse execute(Upstream upstream, HttpMethod method) {
+        return upstream.execute(HttpRequest.of(method, "/")).aggregate().join();
+    }
+}
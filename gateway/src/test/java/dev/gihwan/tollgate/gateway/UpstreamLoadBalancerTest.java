@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+class UpstreamLoadBalancerTest {
+
+    private static final AtomicInteger slowServerRequests = new AtomicInteger();
+
+    @RegisterExtension
+    static final ServerExtension slowServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> {
+                slowServerRequests.incrementAndGet();
+                return HttpResponse.delayed(HttpResponse.of(HttpStatus.OK), Duration.ofMillis(200));
+            });
+        }
+    };
+
+    @RegisterExtension
+    static final ServerExtension fastServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        slowServerRequests.set(0);
+    }
+
+    @Test
+    void avoidSlowEndpoint() {
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, endpointGroup())
+                                          .loadBalancer(LoadBalancer.P2C_EWMA)
+                                          .build();
+        for (int i = 0; i < 20; i++) {
+            assertThat(upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join().status())
+                    .isEqualTo(HttpStatus.OK);
+        }
+        // The slow endpoint is avoided once its latency is observed, while the first requests may be slow on
+        // the fast endpoint as well to open a connection. Round-robin would send 10 requests to each endpoint.
+        assertThat(slowServerRequests).hasValueLessThan(5);
+    }
+
+    @Test
+    void roundRobinByDefault() {
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, endpointGroup()).build();
+        for (int i = 0; i < 20; i++) {
+            upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join();
+        }
+        assertThat(slowServerRequests).hasValue(10);
+    }
+
+    private static EndpointGroup endpointGroup() {
+        return EndpointGroup.of(Endpoint.of("127.0.0.1", slowServer.httpPort()),
+                                Endpoint.of("127.0.0.1", fastServer.httpPort()));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamOutlierDetectionTest {
+
+    @RegisterExtension
+    static final ServerExtension fooServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+    };
+
+    @RegisterExtension
+    static final ServerExtension barServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+        }
+    };
+
+    @Test
+    void ejectEndpointWithConsecutiveErrors() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final EndpointGroup endpointGroup = EndpointGroup.of(Endpoint.of("127.0.0.1", fooServer.httpPort()),
+                                                             Endpoint.of("127.0.0.1", barServer.httpPort()));
+        final Upstream upstream =
+                Upstream.builder(SessionProtocol.HTTP, endpointGroup)
+                        .outlierDetection(OutlierDetectionPolicy.builder()
+                                                                .consecutiveErrors(2)
+                                                                .maxEjectionPercent(50)
+                                                                .build())
+                        .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        try {
+            final List<HttpStatus> statuses = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                statuses.add(upstream.execute(HttpRequest.of(HttpMethod.GET, "/")).aggregate().join().status());
+            }
+            // The endpoints are selected in turn until the second error of the failing endpoint.
+            assertThat(statuses.subList(0, 4)).containsOnly(HttpStatus.OK, HttpStatus.INTERNAL_SERVER_ERROR);
+            assertThat(statuses.subList(4, 10)).containsOnly(HttpStatus.OK);
+
+            assertThat(registry.get("tollgate.upstream.outlier.ejected").gauge().value()).isOne();
+            assertThat(registry.get("tollgate.upstream.outlier.ejections")
+                               .tag("reason", "consecutive-errors")
+                               .functionCounter().count()).isOne();
+        } finally {
+            ((DefaultUpstream) upstream).close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import com.google.common.base.Strings;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.ClientRequestContextCaptor;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.stream.AbortedStreamException;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.junit5.server.ServerExtension;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamRetryTest {
+
+    private static final AtomicInteger unavailableServerRequests = new AtomicInteger();
+
+    @RegisterExtension
+    static final ServerExtension unavailableServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> {
+                unavailableServerRequests.incrementAndGet();
+                return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
+            });
+        }
+    };
+
+    @RegisterExtension
+    static final ServerExtension availableServer = new ServerExtension() {
+        @Override
+        protected void configure(ServerBuilder builder) {
+            builder.service("/", (ctx, req) -> HttpResponse.from(
+                    req.aggregate().thenApply(aggReq -> HttpResponse.of(aggReq.contentUtf8()))));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        unavailableServerRequests.set(0);
+    }
+
+    @Test
+    void retryToAnotherEndpoint() {
+        final Upstream upstream = newUpstream(new SimpleMeterRegistry(), RetryPolicy.builder().build(),
+                                              unavailableServer, availableServer);
+        for (int i = 0; i < 10; i++) {
+            final AggregatedHttpResponse res = execute(upstream, HttpMethod.PUT, "foo");
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.contentUtf8()).isEqualTo("foo");
+        }
+        // Every request is retried at most once because the retry goes to the available server.
+        assertThat(unavailableServerRequests).hasValueBetween(1, 10);
+    }
+
+    @Test
+    void doNotRetryNonIdempotentMethod() {
+        final Upstream upstream = newUpstream(new SimpleMeterRegistry(), RetryPolicy.builder().build(),
+                                              unavailableServer);
+        assertThat(execute(upstream, HttpMethod.POST, "foo").status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(unavailableServerRequests).hasValue(1);
+    }
+
+    @Test
+    void retryUntilMaxAttempts() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final RetryPolicy policy = RetryPolicy.builder().maxAttempts(4).build();
+        final Upstream upstream = newUpstream(registry, policy, unavailableServer);
+        assertThat(execute(upstream, HttpMethod.GET, "").status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(unavailableServerRequests).hasValue(4);
+        assertThat(registry.get("tollgate.upstream.retries").functionCounter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void doNotRetryWhenBudgetIsExhausted() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final RetryPolicy policy = RetryPolicy.builder()
+                                              .maxAttempts(10)
+                                              .budget(0, 2)
+                                              .build();
+        final Upstream upstream = newUpstream(registry, policy, unavailableServer);
+        assertThat(execute(upstream, HttpMethod.GET, "").status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(unavailableServerRequests).hasValue(3);
+        assertThat(registry.get("tollgate.upstream.retries").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("tollgate.upstream.retry.budget.exhausted").functionCounter().count())
+                .isOne();
+    }
+
+    @Test
+    void doNotRetryLargeContent() {
+        final RetryPolicy policy = RetryPolicy.builder().maxReplayableContentLength(16).build();
+        final Upstream upstream = newUpstream(new SimpleMeterRegistry(), policy, unavailableServer);
+        assertThat(execute(upstream, HttpMethod.PUT, Strings.repeat("a", 17)).status())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(unavailableServerRequests).hasValue(1);
+    }
+
+    @Test
+    void completeLogWhenAbortedDuringBackoff() {
+        final RetryPolicy policy = RetryPolicy.builder()
+                                              .backoff(Duration.ofSeconds(5), Duration.ofSeconds(5))
+                                              .build();
+        final Upstream upstream = newUpstream(new SimpleMeterRegistry(), policy, unavailableServer);
+        final HttpResponse res;
+        final ClientRequestContext ctx;
+        try (ClientRequestContextCaptor captor = Clients.newContextCaptor()) {
+            res = upstream.execute(HttpRequest.of(HttpMethod.GET, "/"));
+            ctx = captor.get();
+        }
+        await().untilAsserted(() -> assertThat(unavailableServerRequests).hasValue(1));
+
+        // Aborted while waiting for the backoff before the next attempt, which is cancelled right away.
+        res.abort();
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> assertThat(ctx.log().isComplete()).isTrue());
+        assertThat(ctx.log().ensureComplete().responseCause()).isInstanceOf(AbortedStreamException.class);
+        assertThat(unavailableServerRequests).hasValue(1);
+    }
+
+    private static Upstream newUpstream(MeterRegistry registry, RetryPolicy policy,
+                                        ServerExtension... servers) {
+        final Endpoint[] endpoints = new Endpoint[servers.length];
+        for (int i = 0; i < servers.length; i++) {
+            endpoints[i] = Endpoint.of("127.0.0.1", servers[i].httpPort());
+        }
+        final Upstream upstream = Upstream.builder(SessionProtocol.HTTP, EndpointGroup.of(endpoints))
+                                          .retry(policy)
+                                          .build();
+        ((DefaultUpstream) upstream).bindTo(registry, Tags.empty());
+        return upstream;
+    }
+
+    private static AggregatedHttpResponse execute(Upstream upstream, HttpMethod method, String content) {
+        final HttpRequest req = HttpRequest.of(method, "/", MediaType.PLAIN_TEXT_UTF_8, content);
+        return upstream.execute(req).aggregate().join();
+    }
+}
@@ -39,6 +39,7 @@ import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.HttpStatusClass;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.RequestHeaders;
 import com.linecorp.armeria.common.ResponseHeaders;
@@ -284,6 +285,19 @@ class UpstreamTest {
             final AggregatedHttpResponse res = client.get("/created").aggregate().join();
             assertThat(res.status()).isEqualTo(HttpStatus.OK);
         }
+
+        try (TestGateway gateway = withTestGateway(builder -> {
+            builder.upstream("/created", Upstream.builder(serviceServer.httpUri())
+                                                 .status(HttpStatusFunction.from(HttpStatusClass.SUCCESS)
+                                                                           .to(HttpStatus.ACCEPTED))
+                                                 .status(HttpStatusFunction.fromRange(202, 204)
+                                                                           .to(HttpStatus.OK))
+                                                 .build());
+        })) {
+            final WebClient client = WebClient.builder(gateway.httpUri()).build();
+            final AggregatedHttpResponse res = client.get("/created").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        }
     }
 
     @Test
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.annotation.Nullable;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.ClientRequestContextBuilder;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.ResponseHeaders;
+import com.linecorp.armeria.common.logging.ClientConnectionTimings;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UpstreamTimingsTest {
+
+    @Test
+    void recordNewConnection() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final UpstreamTimings timings = new UpstreamTimings(registry, "timings", Tags.empty());
+
+        final ClientConnectionTimings connectionTimings = ClientConnectionTimings.builder()
+                                                                                 .dnsResolutionEnd()
+                                                                                 .socketConnectStart()
+                                                                                 .socketConnectEnd()
+                                                                                 .build();
+        timings.record(completeLog(connectionTimings));
+
+        assertThat(count(registry, "pool_wait")).isZero();
+        assertThat(count(registry, "dns")).isOne();
+        assertThat(count(registry, "connect")).isOne();
+        assertThat(count(registry, "handshake")).isOne();
+        assertThat(count(registry, "request_write")).isOne();
+        assertThat(count(registry, "ttfb")).isOne();
+        assertThat(count(registry, "response_body")).isOne();
+    }
+
+    @Test
+    void recordPendingConnection() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final UpstreamTimings timings = new UpstreamTimings(registry, "timings", Tags.empty());
+
+        final ClientConnectionTimings connectionTimings = ClientConnectionTimings.builder()
+                                                                                 .pendingAcquisitionStart()
+                                                                                 .pendingAcquisitionEnd()
+                                                                                 .build();
+        timings.record(completeLog(connectionTimings));
+
+        assertThat(count(registry, "pool_wait")).isOne();
+        assertThat(count(registry, "connect")).isZero();
+        assertThat(count(registry, "handshake")).isZero();
+        assertThat(count(registry, "ttfb")).isOne();
+    }
+
+    @Test
+    void recordReusedConnection() {
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        final UpstreamTimings timings = new UpstreamTimings(registry, "timings", Tags.empty());
+
+        timings.record(completeLog(null));
+
+        assertThat(count(registry, "pool_wait")).isZero();
+        assertThat(count(registry, "dns")).isZero();
+        assertThat(count(registry, "connect")).isZero();
+        assertThat(count(registry, "handshake")).isZero();
+        assertThat(count(registry, "ttfb")).isOne();
+    }
+
+    private static RequestLog completeLog(@Nullable ClientConnectionTimings connectionTimings) {
+        final ClientRequestContextBuilder ctxBuilder =
+                ClientRequestContext.builder(HttpRequest.of(HttpMethod.GET, "/"));
+        if (connectionTimings != null) {
+            ctxBuilder.connectionTimings(connectionTimings);
+        }
+        final ClientRequestContext ctx = ctxBuilder.build();
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.requestFirstBytesTransferred();
+        logBuilder.endRequest();
+        logBuilder.responseFirstBytesTransferred();
+        logBuilder.responseHeaders(ResponseHeaders.of(HttpStatus.OK));
+        logBuilder.endResponse();
+        return ctx.log().ensureComplete();
+    }
+
+    private static long count(MeterRegistry registry, String phase) {
+        return registry.get("timings").tag("phase", phase).timer().count();
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+
+class ZoneAwareEndpointGroupTest {
+
+    private static final int VIRTUAL_NODES = 160;
+    private static final int KEYS = 20000;
+
+    private static final Endpoint localFoo = Endpoint.of("local-foo");
+    private static final Endpoint localBar = Endpoint.of("local-bar");
+    private static final Endpoint remoteFoo = Endpoint.of("remote-foo");
+    private static final Endpoint unknown = Endpoint.of("unknown");
+
+    private static final ZoneAwarePolicy policy = ZoneAwarePolicy.builder("a")
+                                                                 .zone("a", localFoo, localBar)
+                                                                 .zone("b", remoteFoo)
+                                                                 .build();
+
+    private final EndpointGroup configured = EndpointGroup.of(localFoo, localBar, remoteFoo, unknown);
+    private final SettableEndpointGroup available = new SettableEndpointGroup();
+
+    @Test
+    void preferLocalZone() {
+        available.set(localFoo, localBar, remoteFoo, unknown);
+        final ZoneAwareEndpointGroup group = new ZoneAwareEndpointGroup(configured, available, policy);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(localFoo, localBar);
+        assertThat(group.localShare()).isOne();
+    }
+
+    @Test
+    void spillOverBelowThreshold() {
+        available.set(localFoo, localBar, remoteFoo, unknown);
+        final ZoneAwareEndpointGroup group = new ZoneAwareEndpointGroup(configured, available, policy);
+
+        // Half of the local capacity is below the threshold of 0.7, so 0.5 / 0.7 of the requests stay local.
+        available.set(localFoo, remoteFoo, unknown);
+        assertThat(group.localShare()).isCloseTo(0.5 / 0.7, within(1e-9));
+        assertThat(weightOf(group, localFoo) / totalWeight(group)).isCloseTo(0.5 / 0.7, within(1e-5));
+        assertThat(weightOf(group, remoteFoo)).isEqualTo(weightOf(group, unknown));
+
+        available.set(remoteFoo, unknown);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(remoteFoo, unknown);
+        assertThat(group.localShare()).isZero();
+
+        available.set(localFoo, localBar, remoteFoo, unknown);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(localFoo, localBar);
+    }
+
+    @Test
+    void spreadConsistentHashKeysByShare() {
+        available.set(localFoo, localBar, remoteFoo, unknown);
+        final ZoneAwareEndpointGroup group = new ZoneAwareEndpointGroup(configured, available, policy);
+        HashRing ring = HashRing.EMPTY.update(group.endpoints(), VIRTUAL_NODES);
+
+        // The ring follows the rescaled weights of the endpoints which stay on it as well.
+        available.set(localFoo, remoteFoo, unknown);
+        ring = ring.update(group.endpoints(), VIRTUAL_NODES);
+        assertThat(ring.size()).isBetween(VIRTUAL_NODES * 3, VIRTUAL_NODES * 3 + 3);
+        assertThat(keyShare(ring, localFoo)).isCloseTo(0.5 / 0.7, within(0.05));
+        assertThat(keyShare(ring, remoteFoo)).isCloseTo(0.2 / 0.7 / 2, within(0.05));
+
+        available.set(localFoo, localBar, remoteFoo, unknown);
+        ring = ring.update(group.endpoints(), VIRTUAL_NODES);
+        assertThat(ring.size()).isEqualTo(VIRTUAL_NODES * 2);
+        // The same as a ring built at once.
+        assertThat(keyShare(ring, localFoo))
+                .isEqualTo(keyShare(HashRing.EMPTY.update(group.endpoints(), VIRTUAL_NODES), localFoo));
+    }
+
+    @Test
+    void measureCapacityByWeight() {
+        final Endpoint heavy = localFoo.withWeight(3000);
+        final EndpointGroup configured = EndpointGroup.of(heavy, localBar, remoteFoo);
+        available.set(heavy, remoteFoo);
+        final ZoneAwareEndpointGroup group = new ZoneAwareEndpointGroup(configured, available, policy);
+
+        // The local capacity is 3000 of 4000, above the threshold.
+        assertThat(group.endpoints()).containsExactly(heavy);
+
+        available.set(localBar, remoteFoo);
+        assertThat(group.localShare()).isCloseTo(0.25 / 0.7, within(1e-9));
+    }
+
+    @Test
+    void stayLocalWithoutOtherZones() {
+        final EndpointGroup configured = EndpointGroup.of(localFoo, localBar);
+        available.set(localFoo);
+        final ZoneAwareEndpointGroup group = new ZoneAwareEndpointGroup(configured, available, policy);
+        assertThat(group.endpoints()).containsExactly(localFoo);
+    }
+
+    @Test
+    void noPreferenceWithoutLocalZone() {
+        final EndpointGroup configured = EndpointGroup.of(remoteFoo, unknown);
+        final ZoneAwareEndpointGroup group = new ZoneAwareEndpointGroup(configured, configured, policy);
+        assertThat(group.endpoints()).containsExactlyInAnyOrder(remoteFoo, unknown);
+        assertThat(group.localShare()).isZero();
+    }
+
+    private static double keyShare(HashRing ring, Endpoint endpoint) {
+        final long selected = IntStream.range(0, KEYS)
+                                       .mapToObj(i -> ring.select(HashRing.hash("key-" + i)))
+                                       .filter(endpoint::equals)
+                                       .count();
+        return (double) selected / KEYS;
+    }
+
+    private static double weightOf(EndpointGroup group, Endpoint endpoint) {
+        return group.endpoints().stream()
+                    .filter(e -> e.authority().equals(endpoint.authority()))
+                    .mapToInt(Endpoint::weight)
+                    .sum();
+    }
+
+    private static double totalWeight(EndpointGroup group) {
+        return group.endpoints().stream().mapToInt(Endpoint::weight).sum();
+    }
+
+    private static final class SettableEndpointGroup extends DynamicEndpointGroup {
+        void set(Endpoint... endpoints) {
+            setEndpoints(List.of(endpoints));
+        }
+    }
+}
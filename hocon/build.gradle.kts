@@ -37,6 +37,7 @@ dependencies {
     api(Dependency.config)
     implementation(Dependency.guava)
 
+    testImplementation(project(":testing"))
     testImplementation(Dependency.junitApi)
     testImplementation(Dependency.assertj)
     testImplementation(Dependency.awaitility)
@@ -27,9 +27,13 @@ package dev.gihwan.tollgate.hocon;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+
+import javax.annotation.Nullable;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigObject;
@@ -45,15 +49,19 @@ import com.linecorp.armeria.server.logging.LoggingService;
 import com.linecorp.armeria.server.logging.LoggingServiceBuilder;
 
 import dev.gihwan.tollgate.gateway.GatewayBuilder;
+import dev.gihwan.tollgate.gateway.LoadBalancer;
 import dev.gihwan.tollgate.gateway.Upstream;
 import dev.gihwan.tollgate.gateway.UpstreamBindingBuilder;
 import dev.gihwan.tollgate.gateway.UpstreamBuilder;
+import dev.gihwan.tollgate.gateway.ZoneAwarePolicy;
+import dev.gihwan.tollgate.gateway.ZoneAwarePolicyBuilder;
 
 enum DefaultHoconGatewayConfigurator implements HoconGatewayConfigurator {
 
     INSTANCE;
 
-    private static void configureRouteConfig(GatewayBuilder builder, Config routeConfig) {
+    private static void configureRouteConfig(GatewayBuilder builder, Config routeConfig,
+                                             @Nullable String zone) {
         checkArgument(routeConfig.hasPath("method"), "Route config must have method.");
         checkArgument(routeConfig.hasPath("path"), "Route config must have path.");
         checkArgument(routeConfig.hasPath("upstream"), "Route config must have upstream.");
@@ -76,35 +84,94 @@ enum DefaultHoconGatewayConfigurator implements HoconGatewayConfigurator {
             routeBuilder.decorator(loggingBuilder.newDecorator());
         }
 
-        routeBuilder.build(configureUpstreamConfig(routeConfig.getObject("upstream").toConfig()));
+        if (routeConfig.hasPath("serverTiming")) {
+            routeBuilder.serverTiming(routeConfig.getBoolean("serverTiming"));
+        }
+
+        if (routeConfig.hasPath("bulkhead")) {
+            routeBuilder.bulkhead(HoconBulkheadPolicy.of(routeConfig.getObject("bulkhead").toConfig()));
+        }
+
+        if (routeConfig.hasPath("deadline")) {
+            routeBuilder.deadline(HoconDeadlinePolicy.of(routeConfig.getObject("deadline").toConfig()));
+        }
+
+        routeBuilder.build(configureUpstreamConfig(routeConfig.getObject("upstream").toConfig(), zone));
     }
 
-    private static Upstream configureUpstreamConfig(Config upstreamConfig) {
+    private static Upstream configureUpstreamConfig(Config upstreamConfig, @Nullable String zone) {
         final UpstreamBuilder builder;
         if (upstreamConfig.hasPath("uri")) {
             builder = Upstream.builder(upstreamConfig.getString("uri"));
+        } else if (upstreamConfig.hasPath("dns")) {
+            checkArgument(upstreamConfig.hasPath("scheme"),
+                          "Upstream config must have scheme when configure with dns.");
+            builder = Upstream.builder(upstreamConfig.getString("scheme"),
+                                       HoconDnsDiscovery.of(upstreamConfig.getObject("dns").toConfig()));
+        } else if (upstreamConfig.hasPath("file")) {
+            checkArgument(upstreamConfig.hasPath("scheme"),
+                          "Upstream config must have scheme when configure with file.");
+            builder = Upstream.builder(upstreamConfig.getString("scheme"),
+                                       HoconFileDiscovery.of(upstreamConfig.getObject("file").toConfig()));
         } else {
             checkArgument(upstreamConfig.hasPath("endpoints"),
-                          "Upstream config must have one of uri and endpoints.");
+                          "Upstream config must have one of uri, endpoints, dns and file.");
             checkArgument(upstreamConfig.hasPath("scheme"),
                           "Upstream config must have scheme when configure with endpoints.");
 
-            final List<Endpoint> endpoints = upstreamConfig.getObjectList("endpoints")
-                                                           .stream()
-                                                           .map(ConfigObject::toConfig)
-                                                           .map(config -> {
-                                                               final String host = config.getString("host");
-                                                               final int port = config.getInt("port");
-                                                               return Endpoint.of(host, port);
-                                                           })
-                                                           .collect(Collectors.toUnmodifiableList());
+            final List<Endpoint> endpoints = new ArrayList<>();
+            final Map<String, List<Endpoint>> zones = new LinkedHashMap<>();
+            for (ConfigObject endpointObject : upstreamConfig.getObjectList("endpoints")) {
+                final Config endpointConfig = endpointObject.toConfig();
+                final String host = endpointConfig.getString("host");
+                Endpoint endpoint = Endpoint.of(host, endpointConfig.getInt("port"));
+                if (endpointConfig.hasPath("weight")) {
+                    endpoint = endpoint.withWeight(endpointConfig.getInt("weight"));
+                }
+                if (endpointConfig.hasPath("zone")) {
+                    zones.computeIfAbsent(endpointConfig.getString("zone"), unused -> new ArrayList<>())
+                         .add(endpoint);
+                }
+                endpoints.add(endpoint);
+            }
             builder = Upstream.builder(upstreamConfig.getString("scheme"), EndpointGroup.of(endpoints));
+
+            if (zone != null && !zones.isEmpty()) {
+                final ZoneAwarePolicyBuilder zoneAwareBuilder = ZoneAwarePolicy.builder(zone);
+                zones.forEach(zoneAwareBuilder::zone);
+                if (upstreamConfig.hasPath("zoneSpilloverThreshold")) {
+                    zoneAwareBuilder.spilloverThreshold(upstreamConfig.getDouble("zoneSpilloverThreshold"));
+                }
+                builder.zoneAware(zoneAwareBuilder.build());
+            }
         }
 
         if (upstreamConfig.hasPath("path")) {
             builder.path(upstreamConfig.getString("path"));
         }
 
+        if (upstreamConfig.hasPath("loadBalancer")) {
+            builder.loadBalancer(LoadBalancer.of(upstreamConfig.getString("loadBalancer")));
+        }
+
+        if (upstreamConfig.hasPath("consistentHash")) {
+            builder.consistentHash(
+                    HoconConsistentHashPolicy.of(upstreamConfig.getObject("consistentHash").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("healthCheck")) {
+            builder.healthCheck(HoconHealthCheckPolicy.of(upstreamConfig.getObject("healthCheck").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("outlierDetection")) {
+            builder.outlierDetection(
+                    HoconOutlierDetectionPolicy.of(upstreamConfig.getObject("outlierDetection").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("slowStart")) {
+            builder.slowStart(HoconSlowStartPolicy.of(upstreamConfig.getObject("slowStart").toConfig()));
+        }
+
         if (upstreamConfig.hasPath("disallowRequestHeaders")) {
             final List<String> disallowRequestHeaders = upstreamConfig.getStringList("disallowRequestHeaders");
             if (!disallowRequestHeaders.isEmpty()) {
@@ -112,6 +179,11 @@ enum DefaultHoconGatewayConfigurator implements HoconGatewayConfigurator {
             }
         }
 
+        if (upstreamConfig.hasPath("requestHeaders")) {
+            builder.requestHeaderPolicy(
+                    HoconHeaderPolicy.of(upstreamConfig.getObject("requestHeaders").toConfig()));
+        }
+
         if (upstreamConfig.hasPath("status")) {
             upstreamConfig.getObjectList("status")
                           .stream()
@@ -128,6 +200,33 @@ enum DefaultHoconGatewayConfigurator implements HoconGatewayConfigurator {
             }
         }
 
+        if (upstreamConfig.hasPath("responseHeaders")) {
+            builder.responseHeaderPolicy(
+                    HoconHeaderPolicy.of(upstreamConfig.getObject("responseHeaders").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("circuitBreaker")) {
+            builder.circuitBreaker(
+                    HoconCircuitBreakerPolicy.of(upstreamConfig.getObject("circuitBreaker").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("retry")) {
+            builder.retry(HoconRetryPolicy.of(upstreamConfig.getObject("retry").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("hedging")) {
+            builder.hedging(HoconHedgingPolicy.of(upstreamConfig.getObject("hedging").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("concurrencyLimit")) {
+            builder.concurrencyLimit(
+                    HoconConcurrencyLimitPolicy.of(upstreamConfig.getObject("concurrencyLimit").toConfig()));
+        }
+
+        if (upstreamConfig.hasPath("bulkhead")) {
+            builder.bulkhead(HoconBulkheadPolicy.of(upstreamConfig.getObject("bulkhead").toConfig()));
+        }
+
         if (upstreamConfig.hasPath("logging")) {
             final Config loggingConfig = upstreamConfig.getObject("logging").toConfig();
 
@@ -176,12 +275,20 @@ enum DefaultHoconGatewayConfigurator implements HoconGatewayConfigurator {
         if (config.hasPath("tollgate.healthCheckPath")) {
             builder.healthCheck(config.getString("tollgate.healthCheckPath"));
         }
+        if (config.hasPath("tollgate.metricsPath")) {
+            builder.metrics(config.getString("tollgate.metricsPath"));
+        }
+        if (config.hasPath("tollgate.loadShedding")) {
+            builder.loadShedding(HoconLoadSheddingPolicy.of(config.getConfig("tollgate.loadShedding")));
+        }
+        @Nullable
+        final String zone = config.hasPath("tollgate.zone") ? config.getString("tollgate.zone") : null;
         if (config.hasPath("tollgate.routing")) {
             final Set<String> routes = config.getObject("tollgate.routing").keySet();
             routes.stream()
                   .map(route -> config.getObject("tollgate.routing." + route))
                   .map(ConfigObject::toConfig)
-                  .forEach(routeConfig -> configureRouteConfig(builder, routeConfig));
+                  .forEach(routeConfig -> configureRouteConfig(builder, routeConfig, zone));
         }
     }
 }
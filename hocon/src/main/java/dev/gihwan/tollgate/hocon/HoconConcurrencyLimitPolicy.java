@@ -0,0 +1,57 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.typesafe.config.Config;
+
+import dev.gihwan.tollgate.gateway.ConcurrencyLimitAlgorithm;
+import dev.gihwan.tollgate.gateway.ConcurrencyLimitPolicy;
+import dev.gihwan.tollgate.gateway.ConcurrencyLimitPolicyBuilder;
+
+final class HoconConcurrencyLimitPolicy {
+
+    static ConcurrencyLimitPolicy of(Config config) {
+        final ConcurrencyLimitPolicyBuilder builder = ConcurrencyLimitPolicy.builder();
+        if (config.hasPath("algorithm")) {
+            builder.algorithm(config.getEnum(ConcurrencyLimitAlgorithm.class, "algorithm"));
+        }
+        if (config.hasPath("initialLimit")) {
+            builder.initialLimit(config.getInt("initialLimit"));
+        }
+        if (config.hasPath("minLimit") || config.hasPath("maxLimit")) {
+            checkArgument(config.hasPath("minLimit") && config.hasPath("maxLimit"),
+                          "Concurrency limit config must have both minLimit and maxLimit.");
+            builder.limit(config.getInt("minLimit"), config.getInt("maxLimit"));
+        }
+        if (config.hasPath("rejectStatus")) {
+            builder.rejectStatus(config.getInt("rejectStatus"));
+        }
+        return builder.build();
+    }
+
+    private HoconConcurrencyLimitPolicy() {}
+}
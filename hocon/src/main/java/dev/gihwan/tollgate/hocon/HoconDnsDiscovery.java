@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.google.common.net.HostAndPort;
+import com.typesafe.config.Config;
+
+import dev.gihwan.tollgate.gateway.DnsDiscovery;
+import dev.gihwan.tollgate.gateway.DnsDiscoveryBuilder;
+
+final class HoconDnsDiscovery {
+
+    private static final int DEFAULT_DNS_PORT = 53;
+
+    static DnsDiscovery of(Config config) {
+        checkArgument(config.hasPath("address") != config.hasPath("service"),
+                      "DNS config must have one of address and service.");
+        final DnsDiscoveryBuilder builder;
+        if (config.hasPath("address")) {
+            checkArgument(config.hasPath("port"), "DNS config must have port when configure with address.");
+            builder = DnsDiscovery.address(config.getString("address"), config.getInt("port"));
+        } else {
+            builder = DnsDiscovery.service(config.getString("service"));
+        }
+
+        if (config.hasPath("minTtl") || config.hasPath("maxTtl")) {
+            checkArgument(config.hasPath("minTtl") && config.hasPath("maxTtl"),
+                          "DNS config must have both minTtl and maxTtl.");
+            builder.ttl(config.getDuration("minTtl"), config.getDuration("maxTtl"));
+        }
+        if (config.hasPath("initialBackoff") || config.hasPath("maxBackoff")) {
+            checkArgument(config.hasPath("initialBackoff") && config.hasPath("maxBackoff"),
+                          "DNS config must have both initialBackoff and maxBackoff.");
+            builder.backoff(config.getDuration("initialBackoff"), config.getDuration("maxBackoff"));
+        }
+        if (config.hasPath("queryTimeout")) {
+            builder.queryTimeout(config.getDuration("queryTimeout"));
+        }
+        if (config.hasPath("servers")) {
+            final List<InetSocketAddress> serverAddresses =
+                    config.getStringList("servers").stream()
+                          .map(HostAndPort::fromString)
+                          .map(server -> new InetSocketAddress(server.getHost(),
+                                                               server.getPortOrDefault(DEFAULT_DNS_PORT)))
+                          .collect(Collectors.toList());
+            builder.serverAddresses(serverAddresses);
+        }
+        return builder.build();
+    }
+
+    private HoconDnsDiscovery() {}
+}
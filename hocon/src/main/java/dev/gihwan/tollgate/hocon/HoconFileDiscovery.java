@@ -0,0 +1,69 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigObject;
+
+import com.linecorp.armeria.client.Endpoint;
+
+import dev.gihwan.tollgate.gateway.FileDiscovery;
+import dev.gihwan.tollgate.gateway.FileDiscoveryBuilder;
+
+final class HoconFileDiscovery {
+
+    static FileDiscovery of(Config config) {
+        final FileDiscoveryBuilder builder = FileDiscovery.builder(Paths.get(config.getString("path")))
+                                                          .parser(HoconFileDiscovery::parseEndpoints);
+        if (config.hasPath("debounce")) {
+            builder.debounce(config.getDuration("debounce"));
+        }
+        if (config.hasPath("minEndpoints")) {
+            builder.minEndpoints(config.getInt("minEndpoints"));
+        }
+        return builder.build();
+    }
+
+    // Parses HOCON, which is a superset of JSON, so that both of them can be written to the file.
+    private static List<Endpoint> parseEndpoints(String content) {
+        final ImmutableList.Builder<Endpoint> endpoints = ImmutableList.builder();
+        for (ConfigObject endpointObject : ConfigFactory.parseString(content).getObjectList("endpoints")) {
+            final Config endpointConfig = endpointObject.toConfig();
+            Endpoint endpoint = Endpoint.of(endpointConfig.getString("host"), endpointConfig.getInt("port"));
+            if (endpointConfig.hasPath("weight")) {
+                endpoint = endpoint.withWeight(endpointConfig.getInt("weight"));
+            }
+            endpoints.add(endpoint);
+        }
+        return endpoints.build();
+    }
+
+    private HoconFileDiscovery() {}
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigValue;
+
+import dev.gihwan.tollgate.gateway.HeaderPolicy;
+import dev.gihwan.tollgate.gateway.HeaderPolicyBuilder;
+
+final class HoconHeaderPolicy {
+
+    static HeaderPolicy of(Config config) {
+        final HeaderPolicyBuilder builder = HeaderPolicy.builder();
+        if (config.hasPath("allow")) {
+            builder.allow(config.getStringList("allow"));
+        }
+        if (config.hasPath("remove")) {
+            builder.remove(config.getStringList("remove"));
+        }
+        if (config.hasPath("rename")) {
+            forEachString(config, "rename", builder::rename);
+        }
+        if (config.hasPath("stripHopByHop")) {
+            builder.stripHopByHopHeaders(config.getBoolean("stripHopByHop"));
+        }
+        if (config.hasPath("set")) {
+            forEachString(config, "set", builder::set);
+        }
+        if (config.hasPath("add")) {
+            forEachString(config, "add", builder::add);
+        }
+        if (config.hasPath("xForwarded")) {
+            builder.xForwardedHeaders(config.getBoolean("xForwarded"));
+        }
+        if (config.hasPath("forwarded")) {
+            builder.forwardedHeader(config.getBoolean("forwarded"));
+        }
+        if (config.hasPath("trustForwarded")) {
+            builder.trustForwardedHeaders(config.getBoolean("trustForwarded"));
+        }
+        return builder.build();
+    }
+
+    // Header names are the keys of an object rather than paths, so that a header name may contain a dot.
+    private static void forEachString(Config config, String path, BiConsumer<String, String> action) {
+        for (Map.Entry<String, ConfigValue> entry : config.getObject(path).entrySet()) {
+            action.accept(entry.getKey(), String.valueOf(entry.getValue().unwrapped()));
+        }
+    }
+
+    private HoconHeaderPolicy() {}
+}
@@ -0,0 +1,65 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.typesafe.config.Config;
+
+import com.linecorp.armeria.common.HttpMethod;
+
+import dev.gihwan.tollgate.gateway.HedgingPolicy;
+import dev.gihwan.tollgate.gateway.HedgingPolicyBuilder;
+
+final class HoconHedgingPolicy {
+
+    static HedgingPolicy of(Config config) {
+        final HedgingPolicyBuilder builder = HedgingPolicy.builder();
+        if (config.hasPath("delay")) {
+            checkArgument(!config.hasPath("percentile") && !config.hasPath("minDelay"),
+                          "Hedging config must have either delay or percentile and minDelay.");
+            builder.delay(config.getDuration("delay"));
+        } else if (config.hasPath("percentile") || config.hasPath("minDelay")) {
+            checkArgument(config.hasPath("percentile") && config.hasPath("minDelay"),
+                          "Hedging config must have both percentile and minDelay.");
+            builder.percentileDelay(config.getDouble("percentile"), config.getDuration("minDelay"));
+        }
+        if (config.hasPath("maxHedges")) {
+            builder.maxHedges(config.getInt("maxHedges"));
+        }
+        if (config.hasPath("methods")) {
+            builder.methods(config.getEnumList(HttpMethod.class, "methods"));
+        }
+        if (config.hasPath("maxHedgeRatio")) {
+            builder.maxHedgeRatio(config.getDouble("maxHedgeRatio"));
+        }
+        if (config.hasPath("maxReplayableContentLength")) {
+            builder.maxReplayableContentLength(config.getBytes("maxReplayableContentLength").intValue());
+        }
+        return builder.build();
+    }
+
+    private HoconHedgingPolicy() {}
+}
@@ -24,8 +24,14 @@
 
 package dev.gihwan.tollgate.hocon;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigValue;
@@ -38,15 +44,48 @@ import dev.gihwan.tollgate.gateway.HttpStatusNames;
 
 final class HoconHttpStatusFunction {
 
+    // e.g. 5xx
+    private static final Pattern STATUS_CLASS_PATTERN =
+            Pattern.compile("^([1-5])xx$", Pattern.CASE_INSENSITIVE);
+    // e.g. 500-504
+    private static final Pattern STATUS_RANGE_PATTERN = Pattern.compile("^(\\d{3})-(\\d{3})$");
+    // e.g. 500
+    private static final Pattern STATUS_CODE_PATTERN = Pattern.compile("^\\d{3}$");
+
     static HttpStatusFunction of(Config config) {
         final Set<HttpStatus> from = config.getList("from")
                                            .stream()
-                                           .map(HoconHttpStatusFunction::toHttpStatus)
+                                           .flatMap(HoconHttpStatusFunction::toHttpStatuses)
                                            .collect(Collectors.toUnmodifiableSet());
         final HttpStatus to = toHttpStatus(config.getValue("to"));
         return HttpStatusFunction.from(from).to(to);
     }
 
+    private static Stream<HttpStatus> toHttpStatuses(ConfigValue value) {
+        if (value.valueType() == ConfigValueType.STRING) {
+            final String unwrapped = ((String) value.unwrapped()).trim();
+
+            final Matcher classMatcher = STATUS_CLASS_PATTERN.matcher(unwrapped);
+            if (classMatcher.matches()) {
+                final int start = Integer.parseInt(classMatcher.group(1)) * 100;
+                return statusRange(start, start + 99);
+            }
+
+            final Matcher rangeMatcher = STATUS_RANGE_PATTERN.matcher(unwrapped);
+            if (rangeMatcher.matches()) {
+                final int start = Integer.parseInt(rangeMatcher.group(1));
+                final int end = Integer.parseInt(rangeMatcher.group(2));
+                checkArgument(start <= end, "invalid HTTP status range: %s", unwrapped);
+                return statusRange(start, end);
+            }
+        }
+        return Stream.of(toHttpStatus(value));
+    }
+
+    private static Stream<HttpStatus> statusRange(int startInclusive, int endInclusive) {
+        return IntStream.rangeClosed(startInclusive, endInclusive).mapToObj(HttpStatus::valueOf);
+    }
+
     private static HttpStatus toHttpStatus(ConfigValue value) {
         if (value.valueType() == ConfigValueType.NUMBER) {
             final Number unwrapped = (Number) value.unwrapped();
@@ -54,6 +93,9 @@ final class HoconHttpStatusFunction {
         }
         if (value.valueType() == ConfigValueType.STRING) {
             final String unwrapped = (String) value.unwrapped();
+            if (STATUS_CODE_PATTERN.matcher(unwrapped).matches()) {
+                return HttpStatus.valueOf(Integer.parseInt(unwrapped));
+            }
             return HttpStatusNames.of(unwrapped);
         }
         throw new IllegalArgumentException("should be number or string type");
@@ -0,0 +1,70 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.hocon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.typesafe.config.Config;
+
+import dev.gihwan.tollgate.gateway.LoadSheddingPolicy;
+import dev.gihwan.tollgate.gateway.LoadSheddingPolicyBuilder;
+
+final class HoconLoadSheddingPolicy {
+
+    static LoadSheddingPolicy of(Config config) {
+        final LoadSheddingPolicyBuilder builder = LoadSheddingPolicy.builder();
+        if (config.hasPath("maxConcurrentRequests")) {
+            builder.maxConcurrentRequests(config.getInt("maxConcurrentRequests"));
+        }
+        if (config.hasPath("maxQueueSize")) {
+            builder.maxQueueSize(config.getInt("maxQueueSize"));
+        }
+        if (config.hasPath("target")) {
+            builder.target(config.getDuration("target"));
+        }
+        if (config.hasPath("interval")) {
+            builder.interval(config.getDuration("interval"));
+        }
+        if (config.hasPath("priorities")) {
+            for (Config priorityConfig : config.getConfigList("priorities")) {
+                checkArgument(priorityConfig.hasPath("priority"), "Priority config must have priority.");
+                final int priority = priorityConfig.getInt("priority");
+                if (priorityConfig.hasPath("path")) {
+                    builder.path(priorityConfig.getString("path"), priority);
+                } else {
+                    checkArgument(priorityConfig.hasPath("header") && priorityConfig.hasPath("value"),
+                                  "Priority config must have path, or header and value.");
+                    builder.header(priorityConfig.getString("header"), priorityConfig.getString("value"),
+                                   priority);
+                }
+            }
+        }
+        if (config.hasPath("defaultPriority")) {
+            builder.defaultPriority(config.getInt("defaultPriority"));
+        }
+        return builder.build();
+    }
+
+    private HoconLoadSheddingPolicy() {}
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.typesafe.config.Config;
+
+import dev.gihwan.tollgate.gateway.OutlierDetectionPolicy;
+import dev.gihwan.tollgate.gateway.OutlierDetectionPolicyBuilder;
+
+final class HoconOutlierDetectionPolicy {
+
+    static OutlierDetectionPolicy of(Config config) {
+        final OutlierDetectionPolicyBuilder builder = OutlierDetectionPolicy.builder();
+        if (config.hasPath("consecutiveErrors")) {
+            builder.consecutiveErrors(config.getInt("consecutiveErrors"));
+        }
+        if (config.hasPath("latencyFactor")) {
+            builder.latencyFactor(config.getDouble("latencyFactor"));
+        }
+        if (config.hasPath("minimumRequests")) {
+            builder.minimumRequests(config.getInt("minimumRequests"));
+        }
+        if (config.hasPath("interval")) {
+            builder.interval(config.getDuration("interval"));
+        }
+        if (config.hasPath("baseEjectionTime") || config.hasPath("maxEjectionTime")) {
+            checkArgument(config.hasPath("baseEjectionTime") && config.hasPath("maxEjectionTime"),
+                          "Outlier detection config must have both baseEjectionTime and maxEjectionTime.");
+            builder.ejectionTime(config.getDuration("baseEjectionTime"), config.getDuration("maxEjectionTime"));
+        }
+        if (config.hasPath("maxEjectionPercent")) {
+            builder.maxEjectionPercent(config.getInt("maxEjectionPercent"));
+        }
+        return builder.build();
+    }
+
+    private HoconOutlierDetectionPolicy() {}
+}
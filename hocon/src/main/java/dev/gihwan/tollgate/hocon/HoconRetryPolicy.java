@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.hocon;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.typesafe.config.Config;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+
+import dev.gihwan.tollgate.gateway.RetryPolicy;
+import dev.gihwan.tollgate.gateway.RetryPolicyBuilder;
+
+final class HoconRetryPolicy {
+
+    static RetryPolicy of(Config config) {
+        final RetryPolicyBuilder builder = RetryPolicy.builder();
+        if (config.hasPath("maxAttempts")) {
+            builder.maxAttempts(config.getInt("maxAttempts"));
+        }
+        if (config.hasPath("methods")) {
+            builder.methods(config.getEnumList(HttpMethod.class, "methods"));
+        }
+        if (config.hasPath("statuses")) {
+            final List<HttpStatus> statuses = config.getIntList("statuses")
+                                                    .stream()
+                                                    .map(HttpStatus::valueOf)
+                                                    .collect(Collectors.toList());
+            builder.statuses(statuses);
+        }
+        if (config.hasPath("initialBackoff") || config.hasPath("maxBackoff")) {
+            checkArgument(config.hasPath("initialBackoff") && config.hasPath("maxBackoff"),
+                          "Retry config must have both initialBackoff and maxBackoff.");
+            builder.backoff(config.getDuration("initialBackoff"), config.getDuration("maxBackoff"));
+        }
+        if (config.hasPath("jitter")) {
+            builder.jitter(config.getDouble("jitter"));
+        }
+        if (config.hasPath("budgetRatio") || config.hasPath("minRetriesPerSecond")) {
+            checkArgument(config.hasPath("budgetRatio") && config.hasPath("minRetriesPerSecond"),
+                          "Retry config must have both budgetRatio and minRetriesPerSecond.");
+            builder.budget(config.getDouble("budgetRatio"), config.getInt("minRetriesPerSecond"));
+        }
+        if (config.hasPath("maxReplayableContentLength")) {
+            builder.maxReplayableContentLength(config.getBytes("maxReplayableContentLength").intValue());
+        }
+        return builder.build();
+    }
+
+    private HoconRetryPolicy() {}
+}
@@ -28,19 +28,28 @@ import static com.typesafe.config.ConfigValueFactory.fromAnyRef;
 import static com.typesafe.config.ConfigValueFactory.fromIterable;
 import static com.typesafe.config.ConfigValueFactory.fromMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 
 import com.linecorp.armeria.client.WebClient;
 import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpRequest;
@@ -53,10 +62,12 @@ import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.testing.junit5.server.ServerExtension;
 
 import dev.gihwan.tollgate.gateway.Gateway;
+import dev.gihwan.tollgate.testing.TestDnsServer;
 
 class HoconGatewayBuilderTest {
 
     private static final AtomicReference<ServiceRequestContext> ctxCapture = new AtomicReference<>();
+    private static final AtomicInteger unavailableRequests = new AtomicInteger();
 
     @RegisterExtension
     static final ServerExtension serviceServer = new ServerExtension() {
@@ -69,6 +80,13 @@ class HoconGatewayBuilderTest {
                                        "public", "this is public",
                                        "private", "this is private")));
             builder.service("/created", (ctx, req) -> HttpResponse.of(HttpStatus.CREATED));
+            builder.service("/error", (ctx, req) -> HttpResponse.of(HttpStatus.INTERNAL_SERVER_ERROR));
+            builder.service("/slow", (ctx, req) -> HttpResponse.delayed(HttpResponse.of("slow"),
+                                                                          Duration.ofSeconds(1)));
+            builder.service("/unavailable", (ctx, req) -> {
+                unavailableRequests.incrementAndGet();
+                return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
+            });
 
             builder.decorator(((delegate, ctx, req) -> {
                 ctxCapture.set(ctx);
@@ -102,6 +120,51 @@ class HoconGatewayBuilderTest {
         }
     }
 
+    @Test
+    void metricsPath() {
+        final Config config =
+                ConfigFactory.load()
+                             .withValue("tollgate.metricsPath", fromAnyRef("/metrics"))
+                             .withValue("tollgate.routing.foo.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            assertThat(client.get("/foo").aggregate().join().status()).isEqualTo(HttpStatus.OK);
+
+            final AggregatedHttpResponse res = client.get("/metrics").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.contentUtf8())
+                    .contains("tollgate_route_active_requests{methods=\"GET\",route=\"/foo\",}");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void serverTiming() {
+        final Config config =
+                ConfigFactory.load()
+                             .withValue("tollgate.routing.foo.serverTiming", fromAnyRef(true))
+                             .withValue("tollgate.routing.foo.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.headers().get(HttpHeaderNames.SERVER_TIMING)).contains("upstream;dur=");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
     @Test
     void path() {
         final Config config =
@@ -157,6 +220,45 @@ class HoconGatewayBuilderTest {
         }
     }
 
+    @Test
+    void requestHeaders() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.foo.upstream.requestHeaders",
+                                        fromMap(Map.of("remove", List.of("private"),
+                                                       "rename", Map.of("public", "x-public"),
+                                                       "set", Map.of("x-set", "this is set"),
+                                                       "xForwarded", true,
+                                                       "trustForwarded", true)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final HttpRequest req = HttpRequest.of(RequestHeaders.of(HttpMethod.GET, "/foo",
+                                                                     "public", "this is public",
+                                                                     "private", "this is private",
+                                                                     "x-forwarded-for", "192.168.0.1"));
+            final AggregatedHttpResponse res = client.execute(req).aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+
+            final HttpHeaders headers = ctxCapture.get().request().headers();
+            assertThat(headers.get("public")).isNull();
+            assertThat(headers.get("x-public")).isEqualTo("this is public");
+            assertThat(headers.get("private")).isNull();
+            assertThat(headers.get("x-set")).isEqualTo("this is set");
+            assertThat(headers.get("x-forwarded-for")).isEqualTo("192.168.0.1, 127.0.0.1");
+            assertThat(headers.get("x-forwarded-proto")).isEqualTo("http");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
     @Test
     void status() {
         final Config config =
@@ -181,6 +283,472 @@ class HoconGatewayBuilderTest {
         }
     }
 
+    @Test
+    void circuitBreaker() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.error.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.error.path", fromAnyRef("/error"))
+                             .withValue("tollgate.routing.error.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.error.upstream.circuitBreaker",
+                                        fromMap(Map.of("minimumRequestThreshold", 1,
+                                                       "slidingWindow", "1s",
+                                                       "failFastStatus", 429)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            await().untilAsserted(() -> {
+                final AggregatedHttpResponse res = client.get("/error").aggregate().join();
+                assertThat(res.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            });
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void loadBalancer() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.endpoints",
+                                        fromIterable(List.of(Map.of("host", "127.0.0.1",
+                                                                    "port", serviceServer.httpPort()))))
+                             .withValue("tollgate.routing.foo.upstream.loadBalancer", fromAnyRef("p2c-ewma"));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.contentUtf8()).isEqualTo("foo");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void consistentHash() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.endpoints",
+                                        fromIterable(List.of(Map.of("host", "127.0.0.1",
+                                                                    "port", serviceServer.httpPort()))))
+                             .withValue("tollgate.routing.foo.upstream.consistentHash",
+                                        fromMap(Map.of("header", "x-user", "virtualNodes", 10)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final AggregatedHttpResponse res =
+                    client.execute(RequestHeaders.builder(HttpMethod.GET, "/foo").add("x-user", "bar").build())
+                          .aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.contentUtf8()).isEqualTo("foo");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void zoneAware() {
+        // Nothing listens on the port 1 in the other zone, so every request must stay in the local zone.
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.zone", fromAnyRef("a"))
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.endpoints",
+                                        fromIterable(List.of(Map.of("host", "127.0.0.1",
+                                                                    "port", serviceServer.httpPort(),
+                                                                    "weight", 10,
+                                                                    "zone", "a"),
+                                                             Map.of("host", "127.0.0.1",
+                                                                    "port", 1,
+                                                                    "weight", 1000,
+                                                                    "zone", "b"))))
+                             .withValue("tollgate.routing.foo.upstream.zoneSpilloverThreshold",
+                                        fromAnyRef(0.5));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            for (int i = 0; i < 4; i++) {
+                final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+                assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                assertThat(res.contentUtf8()).isEqualTo("foo");
+            }
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void healthCheck() {
+        // Nothing listens on the port 1, so the second endpoint never becomes healthy.
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.healthCheckPath", fromAnyRef("/health"))
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.endpoints",
+                                        fromIterable(List.of(Map.of("host", "127.0.0.1",
+                                                                    "port", serviceServer.httpPort()),
+                                                             Map.of("host", "127.0.0.1", "port", 1))))
+                             .withValue("tollgate.routing.foo.upstream.healthCheck",
+                                        fromMap(Map.of("path", "/foo",
+                                                       "interval", "100ms",
+                                                       "failGatewayHealthCheck", true)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            await().untilAsserted(() -> assertThat(client.get("/health").aggregate().join().status())
+                    .isEqualTo(HttpStatus.OK));
+            for (int i = 0; i < 4; i++) {
+                final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+                assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                assertThat(res.contentUtf8()).isEqualTo("foo");
+            }
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void outlierDetection() {
+        // Nothing listens on the port 1, so the second endpoint is ejected after its first error.
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.endpoints",
+                                        fromIterable(List.of(Map.of("host", "127.0.0.1",
+                                                                    "port", serviceServer.httpPort()),
+                                                             Map.of("host", "127.0.0.1", "port", 1))))
+                             .withValue("tollgate.routing.foo.upstream.outlierDetection",
+                                        fromMap(Map.of("consecutiveErrors", 1,
+                                                       "baseEjectionTime", "1m",
+                                                       "maxEjectionTime", "1m",
+                                                       "maxEjectionPercent", 50)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            for (int i = 0; i < 2; i++) {
+                client.get("/foo").aggregate().join();
+            }
+            for (int i = 0; i < 4; i++) {
+                final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+                assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                assertThat(res.contentUtf8()).isEqualTo("foo");
+            }
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void dns() {
+        try (TestDnsServer dnsServer = TestDnsServer.of()) {
+            dnsServer.addService("foo.test", 1, 1, serviceServer.httpPort(), "127.0.0.1");
+            final String server = "127.0.0.1:" + dnsServer.address().getPort();
+            final Config config =
+                    ConfigFactory.empty()
+                                 .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                                 .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                                 .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                                 .withValue("tollgate.routing.foo.upstream.dns",
+                                            fromMap(Map.of("service", "foo.test",
+                                                           "minTtl", "1s",
+                                                           "maxTtl", "10s",
+                                                           "servers", List.of(server))));
+
+            final Gateway gateway = HoconGatewayBuilder.of().build(config);
+            try {
+                gateway.start().join();
+
+                final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+                assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                assertThat(res.contentUtf8()).isEqualTo("foo");
+            } finally {
+                gateway.stop().join();
+            }
+        }
+    }
+
+    @Test
+    void file(@TempDir Path tempDir) throws IOException {
+        final Path path = tempDir.resolve("endpoints.conf");
+        Files.writeString(path, "endpoints = [{ host = 127.0.0.1, port = " + serviceServer.httpPort() + " }]");
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.file",
+                                        fromMap(Map.of("path", path.toString(),
+                                                       "debounce", "100ms",
+                                                       "minEndpoints", 1)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.contentUtf8()).isEqualTo("foo");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void slowStart() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.scheme", fromAnyRef("http"))
+                             .withValue("tollgate.routing.foo.upstream.endpoints",
+                                        fromIterable(List.of(Map.of("host", "127.0.0.1",
+                                                                    "port", serviceServer.httpPort()))))
+                             .withValue("tollgate.routing.foo.upstream.loadBalancer", fromAnyRef("p2c"))
+                             .withValue("tollgate.routing.foo.upstream.slowStart",
+                                        fromMap(Map.of("window", "1m",
+                                                       "minWeightPercent", 5,
+                                                       "aggression", 2)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.contentUtf8()).isEqualTo("foo");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void retry() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.unavailable.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.unavailable.path", fromAnyRef("/unavailable"))
+                             .withValue("tollgate.routing.unavailable.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.unavailable.upstream.retry",
+                                        fromMap(Map.of("maxAttempts", 4,
+                                                       "methods", List.of("GET"),
+                                                       "initialBackoff", "10ms",
+                                                       "maxBackoff", "10ms")));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            unavailableRequests.set(0);
+            final AggregatedHttpResponse res = client.get("/unavailable").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(unavailableRequests).hasValue(4);
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void hedging() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.metricsPath", fromAnyRef("/metrics"))
+                             .withValue("tollgate.routing.slow.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.slow.path", fromAnyRef("/slow"))
+                             .withValue("tollgate.routing.slow.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.slow.upstream.hedging",
+                                        fromMap(Map.of("delay", "100ms",
+                                                       "maxHedgeRatio", 1)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            assertThat(client.get("/slow").aggregate().join().contentUtf8()).isEqualTo("slow");
+            await().untilAsserted(() -> {
+                final String metrics = client.get("/metrics").aggregate().join().contentUtf8();
+                assertThat(metrics).contains("tollgate_upstream_hedges_total{")
+                                   .contains("tollgate_upstream_hedge_delay_seconds{");
+            });
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void concurrencyLimit() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.slow.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.slow.path", fromAnyRef("/slow"))
+                             .withValue("tollgate.routing.slow.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.slow.upstream.concurrencyLimit",
+                                        fromMap(Map.of("algorithm", "VEGAS",
+                                                       "initialLimit", 1,
+                                                       "minLimit", 1,
+                                                       "maxLimit", 1,
+                                                       "rejectStatus", 429)));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final CompletableFuture<AggregatedHttpResponse> first = client.get("/slow").aggregate();
+            final CompletableFuture<AggregatedHttpResponse> second = client.get("/slow").aggregate();
+            assertThat(List.of(first.join().status(), second.join().status()))
+                    .containsExactlyInAnyOrder(HttpStatus.OK, HttpStatus.TOO_MANY_REQUESTS);
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void bulkhead() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.slow.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.slow.path", fromAnyRef("/slow"))
+                             .withValue("tollgate.routing.slow.bulkhead",
+                                        fromMap(Map.of("maxConcurrentRequests", 2)))
+                             .withValue("tollgate.routing.slow.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.slow.upstream.bulkhead",
+                                        fromMap(Map.of("maxConcurrentRequests", 1,
+                                                       "maxQueueSize", 1,
+                                                       "maxWait", "10s",
+                                                       "queueOrder", "LIFO")));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            // The route lets two requests in, and the upstream sends one of them after the other.
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final List<CompletableFuture<AggregatedHttpResponse>> futures =
+                    List.of(client.get("/slow").aggregate(), client.get("/slow").aggregate(),
+                            client.get("/slow").aggregate());
+            assertThat(futures.stream().map(future -> future.join().status()))
+                    .containsExactlyInAnyOrder(HttpStatus.OK, HttpStatus.OK, HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void loadShedding() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.loadShedding",
+                                        fromMap(Map.of("maxConcurrentRequests", 1,
+                                                       "maxQueueSize", 1,
+                                                       "target", "5s",
+                                                       "interval", "10s",
+                                                       "priorities",
+                                                       List.of(Map.of("path", "/foo", "priority", 10),
+                                                               Map.of("header", "x-api-key",
+                                                                      "value", "premium",
+                                                                      "priority", 5)))))
+                             .withValue("tollgate.routing.slow.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.slow.path", fromAnyRef("/slow"))
+                             .withValue("tollgate.routing.slow.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.foo.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.foo.path", fromAnyRef("/foo"))
+                             .withValue("tollgate.routing.foo.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            // The gateway lets one request in and queues another, and the last one does not fit in the queue.
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final List<CompletableFuture<AggregatedHttpResponse>> futures =
+                    List.of(client.get("/slow").aggregate(), client.get("/slow").aggregate(),
+                            client.get("/slow").aggregate());
+            assertThat(futures.stream().map(future -> future.join().status()))
+                    .containsExactlyInAnyOrder(HttpStatus.OK, HttpStatus.OK, HttpStatus.SERVICE_UNAVAILABLE);
+
+            final AggregatedHttpResponse res = client.get("/foo").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
+    @Test
+    void deadline() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.slow.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.slow.path", fromAnyRef("/slow"))
+                             .withValue("tollgate.routing.slow.deadline",
+                                        fromMap(Map.of("header", "x-deadline",
+                                                       "honorHeader", true,
+                                                       "minRemaining", "100ms")))
+                             .withValue("tollgate.routing.slow.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            AggregatedHttpResponse res =
+                    client.execute(RequestHeaders.of(HttpMethod.GET, "/slow", "x-deadline", "50"))
+                          .aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+
+            res = client.execute(RequestHeaders.of(HttpMethod.GET, "/slow", "x-deadline", "5000"))
+                        .aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(Long.parseLong(ctxCapture.get().request().headers().get("x-deadline")))
+                    .isBetween(1L, 5000L);
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
     @Test
     void disallowResponseHeaders() {
         final Config config =
@@ -206,6 +774,33 @@ class HoconGatewayBuilderTest {
         }
     }
 
+    @Test
+    void responseHeaders() {
+        final Config config =
+                ConfigFactory.empty()
+                             .withValue("tollgate.routing.header.method", fromAnyRef("GET"))
+                             .withValue("tollgate.routing.header.path", fromAnyRef("/header"))
+                             .withValue("tollgate.routing.header.upstream.uri",
+                                        fromAnyRef(serviceServer.httpUri().toString()))
+                             .withValue("tollgate.routing.header.upstream.responseHeaders",
+                                        fromMap(Map.of("allow", List.of("public"),
+                                                       "add", Map.of("x-add", "this is add"))));
+
+        final Gateway gateway = HoconGatewayBuilder.of().build(config);
+        try {
+            gateway.start().join();
+
+            final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+            final AggregatedHttpResponse res = client.get("/header").aggregate().join();
+            assertThat(res.status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.headers().get("public")).isEqualTo("this is public");
+            assertThat(res.headers().get("private")).isNull();
+            assertThat(res.headers().get("x-add")).isEqualTo("this is add");
+        } finally {
+            gateway.stop().join();
+        }
+    }
+
     @Test
     void logging() {
         final Config config =
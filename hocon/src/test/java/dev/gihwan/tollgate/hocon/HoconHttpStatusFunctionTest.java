@@ -25,6 +25,7 @@
 package dev.gihwan.tollgate.hocon;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import org.junit.jupiter.api.Test;
 
@@ -65,4 +66,30 @@ class HoconHttpStatusFunctionTest {
         assertThat(function.apply(HttpStatus.NO_CONTENT)).isEqualTo(HttpStatus.OK);
         assertThat(function.apply(HttpStatus.BAD_REQUEST)).isEqualTo(HttpStatus.BAD_REQUEST);
     }
+
+    @Test
+    void parseWithStatusClass() {
+        final Config config = ConfigFactory.parseString("{from=[5xx], to=BAD_GATEWAY}");
+        final HttpStatusFunction function = HoconHttpStatusFunction.of(config);
+        assertThat(function.apply(HttpStatus.OK)).isEqualTo(HttpStatus.OK);
+        assertThat(function.apply(HttpStatus.INTERNAL_SERVER_ERROR)).isEqualTo(HttpStatus.BAD_GATEWAY);
+        assertThat(function.apply(HttpStatus.valueOf(599))).isEqualTo(HttpStatus.BAD_GATEWAY);
+    }
+
+    @Test
+    void parseWithStatusRange() {
+        final Config config = ConfigFactory.parseString("{from=[\"500-502\", \"404\"], to=503}");
+        final HttpStatusFunction function = HoconHttpStatusFunction.of(config);
+        assertThat(function.apply(HttpStatus.NOT_FOUND)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(function.apply(HttpStatus.INTERNAL_SERVER_ERROR)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(function.apply(HttpStatus.BAD_GATEWAY)).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(function.apply(HttpStatus.GATEWAY_TIMEOUT)).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionIfRangeIsReversed() {
+        final Config config = ConfigFactory.parseString("{from=[\"504-500\"], to=503}");
+        assertThatThrownBy(() -> HoconHttpStatusFunction.of(config))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
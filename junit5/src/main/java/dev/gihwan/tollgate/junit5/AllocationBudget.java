@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.junit5;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import dev.gihwan.tollgate.testing.TestGateway;
+
+/**
+ * Declares the maximum number of bytes which the {@link GatewayExtension} may allocate to proxy a
+ * {@code GET} request to the given {@link #path()}. The annotated test fails before it is executed if the
+ * allocations exceed the budget.
+ *
+ * <pre>{@code
+ * @Test
+ * @AllocationBudget(path = "/foo", maxBytesPerRequest = 32 * 1024)
+ * void foo() { ... }
+ * }</pre>
+ *
+ * <p>If {@link #baselinePath()} is set, the budget applies to the bytes allocated over the ones allocated to
+ * proxy a request to the baseline path on the same connections. A tight budget of the difference catches a
+ * small regression, e.g. copying the headers once more, which is hidden in the noise of the total allocations.
+ *
+ * <pre>{@code
+ * @Test
+ * @AllocationBudget(path = "/transformed/foo", baselinePath = "/foo", maxBytesPerRequest = 2 * 1024)
+ * void transformed() { ... }
+ * }</pre>
+ *
+ * @see TestGateway#allocatedBytesPerRequest(String, int, int)
+ * @see TestGateway#allocatedBytesPerRequest(String, String, int, int)
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface AllocationBudget {
+
+    /**
+     * The path of the route to measure.
+     */
+    String path();
+
+    /**
+     * The path of the route whose allocations are subtracted from the ones of {@link #path()}. No baseline
+     * is measured if empty.
+     */
+    String baselinePath() default "";
+
+    /**
+     * The maximum number of bytes allocated per request, over the ones to {@link #baselinePath()} if set.
+     */
+    long maxBytesPerRequest();
+
+    /**
+     * The number of the requests which are sent before measuring, to warm up the JIT compiler and the caches.
+     */
+    int warmupRequests() default 1000;
+
+    /**
+     * The number of the requests to measure.
+     */
+    int requests() default 1000;
+}
@@ -26,8 +26,10 @@ package dev.gihwan.tollgate.junit5;
 
 import java.net.URI;
 
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
 import org.junit.jupiter.api.extension.Extension;
 import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
 
 import com.linecorp.armeria.common.SessionProtocol;
 import com.linecorp.armeria.testing.junit5.common.AbstractAllOrEachExtension;
@@ -38,8 +40,12 @@ import dev.gihwan.tollgate.testing.TestGateway;
 
 /**
  * An {@link Extension} which starts and stops the {@link Gateway} following test lifecycle.
+ *
+ * <p>A test annotated with {@link AllocationBudget} fails if the {@link Gateway} allocates more than the
+ * declared budget per request.
  */
-public abstract class GatewayExtension extends AbstractAllOrEachExtension {
+public abstract class GatewayExtension extends AbstractAllOrEachExtension
+        implements BeforeTestExecutionCallback {
 
     private final TestGateway delegate;
 
@@ -62,6 +68,31 @@ public abstract class GatewayExtension extends AbstractAllOrEachExtension {
         delegate.stop().join();
     }
 
+    @Override
+    public final void beforeTestExecution(ExtensionContext context) throws Exception {
+        final AllocationBudget budget =
+                AnnotationSupport.findAnnotation(context.getElement(), AllocationBudget.class).orElse(null);
+        if (budget == null) {
+            return;
+        }
+
+        final long allocatedBytes;
+        final String target;
+        if (budget.baselinePath().isEmpty()) {
+            allocatedBytes = allocatedBytesPerRequest(budget.path(), budget.warmupRequests(),
+                                                      budget.requests());
+            target = budget.path();
+        } else {
+            allocatedBytes = allocatedBytesPerRequest(budget.path(), budget.baselinePath(),
+                                                      budget.warmupRequests(), budget.requests());
+            target = budget.path() + " over " + budget.baselinePath();
+        }
+        if (allocatedBytes > budget.maxBytesPerRequest()) {
+            throw new AssertionError("allocated " + allocatedBytes + " bytes per request to " + target +
+                                     " (expected: <= " + budget.maxBytesPerRequest() + ')');
+        }
+    }
+
     /**
      * @see TestGateway#httpPort()
      */
@@ -96,4 +127,18 @@ public abstract class GatewayExtension extends AbstractAllOrEachExtension {
     public URI httpsUri() {
         return delegate.httpsUri();
     }
+
+    /**
+     * @see TestGateway#allocatedBytesPerRequest(String, int, int)
+     */
+    public long allocatedBytesPerRequest(String path, int warmupRequests, int requests) {
+        return delegate.allocatedBytesPerRequest(path, warmupRequests, requests);
+    }
+
+    /**
+     * @see TestGateway#allocatedBytesPerRequest(String, String, int, int)
+     */
+    public long allocatedBytesPerRequest(String path, String baselinePath, int warmupRequests, int requests) {
+        return delegate.allocatedBytesPerRequest(path, baselinePath, warmupRequests, requests);
+    }
 }
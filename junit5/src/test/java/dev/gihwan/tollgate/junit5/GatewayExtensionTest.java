@@ -65,4 +65,10 @@ class GatewayExtensionTest {
         final AggregatedHttpResponse res = webClient.get("/health").aggregate().join();
         assertThat(res.status()).isEqualTo(HttpStatus.OK);
     }
+
+    @Test
+    @AllocationBudget(path = "/health", maxBytesPerRequest = 1024 * 1024, warmupRequests = 100, requests = 100)
+    void allocationBudget() {
+        assertThat(gateway.allocatedBytesPerRequest("/health", 0, 10)).isPositive();
+    }
 }
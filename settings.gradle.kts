@@ -26,6 +26,7 @@ rootProject.name = "tollgate"
 
 include("gateway")
 
+include("benchmarks")
 include("hocon")
 include("junit5")
 include("spring:boot2-autoconfigure")
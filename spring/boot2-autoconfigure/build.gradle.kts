@@ -40,6 +40,7 @@ dependencies {
     testImplementation(project(":junit5"))
     testImplementation(Dependency.springBootStarterTest)
     testImplementation(Dependency.assertj)
+    testImplementation(Dependency.awaitility)
     testImplementation(Dependency.mockito)
     testImplementation(Dependency.armeriaJunit)
 }
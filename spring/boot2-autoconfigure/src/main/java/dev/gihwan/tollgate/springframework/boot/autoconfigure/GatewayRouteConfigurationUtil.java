@@ -25,37 +25,185 @@
 package dev.gihwan.tollgate.springframework.boot.autoconfigure;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import com.google.common.net.HostAndPort;
 
 import com.linecorp.armeria.client.Endpoint;
 import com.linecorp.armeria.client.endpoint.EndpointGroup;
 
+import dev.gihwan.tollgate.gateway.CircuitBreakerPolicy;
+import dev.gihwan.tollgate.gateway.CircuitBreakerPolicyBuilder;
+import dev.gihwan.tollgate.gateway.DnsDiscovery;
+import dev.gihwan.tollgate.gateway.DnsDiscoveryBuilder;
+import dev.gihwan.tollgate.gateway.FileDiscovery;
+import dev.gihwan.tollgate.gateway.FileDiscoveryBuilder;
 import dev.gihwan.tollgate.gateway.GatewayBuilder;
+import dev.gihwan.tollgate.gateway.HeaderPolicy;
+import dev.gihwan.tollgate.gateway.HeaderPolicyBuilder;
 import dev.gihwan.tollgate.gateway.Upstream;
+import dev.gihwan.tollgate.gateway.UpstreamBuilder;
+import dev.gihwan.tollgate.gateway.ZoneAwarePolicy;
+import dev.gihwan.tollgate.gateway.ZoneAwarePolicyBuilder;
 
 final class GatewayRouteConfigurationUtil {
 
-    static void configureRoute(GatewayBuilder builder, TollgateProperties.Route properties) {
-        builder.upstream(properties.getPath(), getUpstream(properties.getUpstream()));
+    private static final int DEFAULT_DNS_PORT = 53;
+
+    static void configureRoute(GatewayBuilder builder, TollgateProperties.Route properties,
+                               @Nullable String zone) {
+        builder.upstream(properties.getPath(), getUpstream(properties.getUpstream(), zone));
     }
 
-    private static Upstream getUpstream(TollgateProperties.Route.Upstream properties) {
+    private static Upstream getUpstream(TollgateProperties.Route.Upstream properties, @Nullable String zone) {
+        final UpstreamBuilder builder;
         if (properties.getUri() != null) {
-            return Upstream.of(properties.getUri());
+            builder = Upstream.builder(properties.getUri());
+        } else if (properties.getDns() != null) {
+            checkArgument(properties.getScheme() != null, "scheme must exist");
+            builder = Upstream.builder(properties.getScheme(), getDnsDiscovery(properties.getDns()));
+        } else if (properties.getFile() != null) {
+            checkArgument(properties.getScheme() != null, "scheme must exist");
+            builder = Upstream.builder(properties.getScheme(), getFileDiscovery(properties.getFile()));
+        } else {
+            checkArgument(properties.getScheme() != null, "scheme must exist");
+            checkArgument(!isEmpty(properties.getEndpoints()), "endpoints must exist");
+
+            final List<Endpoint> endpoints = new ArrayList<>();
+            final Map<String, List<Endpoint>> zones = new LinkedHashMap<>();
+            for (TollgateProperties.Route.Upstream.Endpoint endpointProperties : properties.getEndpoints()) {
+                Endpoint endpoint = Endpoint.of(endpointProperties.getHost(), endpointProperties.getPort());
+                if (endpointProperties.getWeight() != null) {
+                    endpoint = endpoint.withWeight(endpointProperties.getWeight());
+                }
+                if (endpointProperties.getZone() != null) {
+                    zones.computeIfAbsent(endpointProperties.getZone(), unused -> new ArrayList<>())
+                         .add(endpoint);
+                }
+                endpoints.add(endpoint);
+            }
+            builder = Upstream.builder(properties.getScheme(), EndpointGroup.of(endpoints));
+
+            if (zone != null && !zones.isEmpty()) {
+                final ZoneAwarePolicyBuilder zoneAwareBuilder = ZoneAwarePolicy.builder(zone);
+                zones.forEach(zoneAwareBuilder::zone);
+                if (properties.getZoneSpilloverThreshold() != null) {
+                    zoneAwareBuilder.spilloverThreshold(properties.getZoneSpilloverThreshold());
+                }
+                builder.zoneAware(zoneAwareBuilder.build());
+            }
+        }
+
+        if (properties.getLoadBalancer() != null) {
+            builder.loadBalancer(properties.getLoadBalancer());
         }
 
-        checkArgument(properties.getScheme() != null, "scheme must exist");
-        checkArgument(!isEmpty(properties.getEndpoints()), "endpoints must exist");
+        if (properties.getRequestHeaders() != null) {
+            builder.requestHeaderPolicy(getHeaderPolicy(properties.getRequestHeaders()));
+        }
+        if (properties.getResponseHeaders() != null) {
+            builder.responseHeaderPolicy(getHeaderPolicy(properties.getResponseHeaders()));
+        }
+        if (properties.getCircuitBreaker() != null) {
+            builder.circuitBreaker(getCircuitBreakerPolicy(properties.getCircuitBreaker()));
+        }
+        return builder.build();
+    }
 
-        final List<Endpoint> endpoints = properties.getEndpoints()
-                                                   .stream()
-                                                   .map(endpoint -> Endpoint.of(endpoint.getHost(),
-                                                                                endpoint.getPort()))
-                                                   .collect(Collectors.toUnmodifiableList());
-        return Upstream.of(properties.getScheme(), EndpointGroup.of(endpoints));
+    private static DnsDiscovery getDnsDiscovery(TollgateProperties.Route.Upstream.Dns properties) {
+        checkArgument((properties.getAddress() != null) != (properties.getService() != null),
+                      "one of address and service must exist");
+        final DnsDiscoveryBuilder builder;
+        if (properties.getAddress() != null) {
+            checkArgument(properties.getPort() != null, "port must exist with address");
+            builder = DnsDiscovery.address(properties.getAddress(), properties.getPort());
+        } else {
+            builder = DnsDiscovery.service(properties.getService());
+        }
+        if (properties.getMinTtl() != null || properties.getMaxTtl() != null) {
+            checkArgument(properties.getMinTtl() != null && properties.getMaxTtl() != null,
+                          "both minTtl and maxTtl must exist");
+            builder.ttl(properties.getMinTtl(), properties.getMaxTtl());
+        }
+        if (properties.getInitialBackoff() != null || properties.getMaxBackoff() != null) {
+            checkArgument(properties.getInitialBackoff() != null && properties.getMaxBackoff() != null,
+                          "both initialBackoff and maxBackoff must exist");
+            builder.backoff(properties.getInitialBackoff(), properties.getMaxBackoff());
+        }
+        if (properties.getQueryTimeout() != null) {
+            builder.queryTimeout(properties.getQueryTimeout());
+        }
+        builder.serverAddresses(properties.getServers().stream()
+                                          .map(HostAndPort::fromString)
+                                          .map(server -> new InetSocketAddress(
+                                                  server.getHost(), server.getPortOrDefault(DEFAULT_DNS_PORT)))
+                                          .collect(toImmutableList()));
+        return builder.build();
+    }
+
+    private static FileDiscovery getFileDiscovery(TollgateProperties.Route.Upstream.File properties) {
+        checkArgument(properties.getPath() != null, "path must exist");
+        final FileDiscoveryBuilder builder = FileDiscovery.builder(Paths.get(properties.getPath()));
+        if (properties.getDebounce() != null) {
+            builder.debounce(properties.getDebounce());
+        }
+        if (properties.getMinEndpoints() != null) {
+            builder.minEndpoints(properties.getMinEndpoints());
+        }
+        return builder.build();
+    }
+
+    private static HeaderPolicy getHeaderPolicy(TollgateProperties.Route.Upstream.HeaderPolicy properties) {
+        final HeaderPolicyBuilder builder = HeaderPolicy.builder();
+        if (properties.getAllow() != null) {
+            builder.allow(properties.getAllow());
+        }
+        builder.remove(properties.getRemove());
+        properties.getRename().forEach(builder::rename);
+        builder.stripHopByHopHeaders(properties.isStripHopByHop());
+        properties.getSet().forEach(builder::set);
+        properties.getAdd().forEach(builder::add);
+        builder.xForwardedHeaders(properties.isXForwarded());
+        builder.forwardedHeader(properties.isForwarded());
+        builder.trustForwardedHeaders(properties.isTrustForwarded());
+        return builder.build();
+    }
+
+    private static CircuitBreakerPolicy getCircuitBreakerPolicy(
+            TollgateProperties.Route.Upstream.CircuitBreaker properties) {
+        final CircuitBreakerPolicyBuilder builder = CircuitBreakerPolicy.builder();
+        if (properties.getFailureRateThreshold() != null) {
+            builder.failureRateThreshold(properties.getFailureRateThreshold());
+        }
+        if (properties.getMinimumRequestThreshold() != null) {
+            builder.minimumRequestThreshold(properties.getMinimumRequestThreshold());
+        }
+        if (properties.getSlidingWindow() != null) {
+            builder.slidingWindow(properties.getSlidingWindow());
+        }
+        if (properties.getSlowCallThreshold() != null) {
+            builder.slowCallThreshold(properties.getSlowCallThreshold());
+        }
+        if (properties.getOpenWindow() != null) {
+            builder.openWindow(properties.getOpenWindow());
+        }
+        if (properties.getTrialRequestInterval() != null) {
+            builder.trialRequestInterval(properties.getTrialRequestInterval());
+        }
+        if (properties.getFailFastStatus() != null) {
+            builder.failFastStatus(properties.getFailFastStatus());
+        }
+        return builder.build();
     }
 
     private GatewayRouteConfigurationUtil() {}
@@ -48,7 +48,7 @@ public class TollgateAutoConfiguration {
     public Gateway gateway(TollgateProperties properties, ObjectProvider<GatewayCustomizer> customizers) {
         final GatewayBuilder builder = Gateway.builder();
         builder.server(serverBuilder -> configureServer(serverBuilder, properties.getServer()));
-        properties.getRoutes().forEach(route -> configureRoute(builder, route));
+        properties.getRoutes().forEach(route -> configureRoute(builder, route, properties.getZone()));
         customizers.forEach(customizer -> customizer.customize(builder));
         return builder.build();
     }
@@ -25,10 +25,13 @@
 package dev.gihwan.tollgate.springframework.boot.autoconfigure;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.Nullable;
 
@@ -39,6 +42,7 @@ import com.linecorp.armeria.common.SessionProtocol;
 import com.linecorp.armeria.server.ServerPort;
 
 import dev.gihwan.tollgate.gateway.Gateway;
+import dev.gihwan.tollgate.gateway.LoadBalancer;
 
 /**
  * {@link ConfigurationProperties @ConfigurationProperties} for Tollgate.
@@ -56,6 +60,13 @@ public class TollgateProperties {
      */
     private List<Route> routes = emptyList();
 
+    /**
+     * Zone of this {@link Gateway}, e.g. an availability zone. If set, the requests are routed to the
+     * {@link Route.Upstream.Endpoint}s in the same zone first.
+     */
+    @Nullable
+    private String zone;
+
     /**
      * Returns the {@link com.linecorp.armeria.server.Server} properties of this {@link Gateway}.
      */
@@ -85,6 +96,21 @@ public class TollgateProperties {
         this.routes = requireNonNull(routes, "routes");
     }
 
+    /**
+     * Returns the zone of this {@link Gateway}.
+     */
+    @Nullable
+    public String getZone() {
+        return zone;
+    }
+
+    /**
+     * Sets the zone of this {@link Gateway} as the given {@code zone}.
+     */
+    public void setZone(String zone) {
+        this.zone = requireNonNull(zone, "zone");
+    }
+
     /**
      * {@link com.linecorp.armeria.server.Server} properties of {@link Gateway}.
      */
@@ -223,6 +249,55 @@ public class TollgateProperties {
             @Nullable
             private List<Endpoint> endpoints;
 
+            /**
+             * {@link dev.gihwan.tollgate.gateway.DnsDiscovery} properties of the endpoints of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            private Dns dns;
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.FileDiscovery} properties of the endpoints of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            private File file;
+
+            /**
+             * {@link LoadBalancer} which selects one of the {@link Endpoint}s of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}, e.g. {@code p2c-ewma}.
+             */
+            @Nullable
+            private LoadBalancer loadBalancer;
+
+            /**
+             * Ratio of the available capacity of the local zone below which the requests spill over to
+             * the other zones. If unset, {@code 0.7} is used.
+             */
+            @Nullable
+            private Double zoneSpilloverThreshold;
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties of the requests to this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            private HeaderPolicy requestHeaders;
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties of the responses from this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            private HeaderPolicy responseHeaders;
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.CircuitBreakerPolicy} properties of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            private CircuitBreaker circuitBreaker;
+
             /**
              * Returns the {@link URI} of this {@link dev.gihwan.tollgate.gateway.Upstream}.
              */
@@ -270,6 +345,124 @@ public class TollgateProperties {
                 this.endpoints = requireNonNull(endpoints, "endpoints");
             }
 
+            /**
+             * Returns the {@link dev.gihwan.tollgate.gateway.DnsDiscovery} properties of the endpoints of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public Dns getDns() {
+                return dns;
+            }
+
+            /**
+             * Sets the {@link dev.gihwan.tollgate.gateway.DnsDiscovery} properties of the endpoints of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream} as the given {@link Dns}.
+             */
+            public void setDns(Dns dns) {
+                this.dns = requireNonNull(dns, "dns");
+            }
+
+            /**
+             * Returns the {@link dev.gihwan.tollgate.gateway.FileDiscovery} properties of the endpoints of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public File getFile() {
+                return file;
+            }
+
+            /**
+             * Sets the {@link dev.gihwan.tollgate.gateway.FileDiscovery} properties of the endpoints of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream} as the given {@link File}.
+             */
+            public void setFile(File file) {
+                this.file = requireNonNull(file, "file");
+            }
+
+            /**
+             * Returns the {@link LoadBalancer} of this {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public LoadBalancer getLoadBalancer() {
+                return loadBalancer;
+            }
+
+            /**
+             * Sets the {@link LoadBalancer} of this {@link dev.gihwan.tollgate.gateway.Upstream} as the given
+             * {@link LoadBalancer}.
+             */
+            public void setLoadBalancer(LoadBalancer loadBalancer) {
+                this.loadBalancer = requireNonNull(loadBalancer, "loadBalancer");
+            }
+
+            /**
+             * Returns the zone spillover threshold of this {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public Double getZoneSpilloverThreshold() {
+                return zoneSpilloverThreshold;
+            }
+
+            /**
+             * Sets the zone spillover threshold of this {@link dev.gihwan.tollgate.gateway.Upstream} as the
+             * given {@code zoneSpilloverThreshold}.
+             */
+            public void setZoneSpilloverThreshold(Double zoneSpilloverThreshold) {
+                this.zoneSpilloverThreshold = requireNonNull(zoneSpilloverThreshold,
+                                                             "zoneSpilloverThreshold");
+            }
+
+            /**
+             * Returns the {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties of the requests to this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public HeaderPolicy getRequestHeaders() {
+                return requestHeaders;
+            }
+
+            /**
+             * Sets the {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties of the requests to this
+             * {@link dev.gihwan.tollgate.gateway.Upstream} as the given {@link HeaderPolicy}.
+             */
+            public void setRequestHeaders(HeaderPolicy requestHeaders) {
+                this.requestHeaders = requireNonNull(requestHeaders, "requestHeaders");
+            }
+
+            /**
+             * Returns the {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties of the responses from
+             * this {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public HeaderPolicy getResponseHeaders() {
+                return responseHeaders;
+            }
+
+            /**
+             * Sets the {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties of the responses from this
+             * {@link dev.gihwan.tollgate.gateway.Upstream} as the given {@link HeaderPolicy}.
+             */
+            public void setResponseHeaders(HeaderPolicy responseHeaders) {
+                this.responseHeaders = requireNonNull(responseHeaders, "responseHeaders");
+            }
+
+            /**
+             * Returns the {@link dev.gihwan.tollgate.gateway.CircuitBreakerPolicy} properties of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream}.
+             */
+            @Nullable
+            public CircuitBreaker getCircuitBreaker() {
+                return circuitBreaker;
+            }
+
+            /**
+             * Sets the {@link dev.gihwan.tollgate.gateway.CircuitBreakerPolicy} properties of this
+             * {@link dev.gihwan.tollgate.gateway.Upstream} as the given {@link CircuitBreaker}.
+             */
+            public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+                this.circuitBreaker = requireNonNull(circuitBreaker, "circuitBreaker");
+            }
+
             /**
              * {@link com.linecorp.armeria.client.Endpoint} properties.
              */
@@ -285,6 +478,18 @@ public class TollgateProperties {
                  */
                 private int port;
 
+                /**
+                 * Weight of this {@link com.linecorp.armeria.client.Endpoint}. If unset, {@code 1000} is used.
+                 */
+                @Nullable
+                private Integer weight;
+
+                /**
+                 * Zone of this {@link com.linecorp.armeria.client.Endpoint}, e.g. an availability zone.
+                 */
+                @Nullable
+                private String zone;
+
                 /**
                  * Returns the host of this {@link com.linecorp.armeria.client.Endpoint}.
                  */
@@ -314,6 +519,655 @@ public class TollgateProperties {
                 public void setPort(int port) {
                     this.port = port;
                 }
+
+                /**
+                 * Returns the weight of this {@link com.linecorp.armeria.client.Endpoint}.
+                 */
+                @Nullable
+                public Integer getWeight() {
+                    return weight;
+                }
+
+                /**
+                 * Sets the weight of this {@link com.linecorp.armeria.client.Endpoint} as the given
+                 * {@code weight}.
+                 */
+                public void setWeight(Integer weight) {
+                    this.weight = requireNonNull(weight, "weight");
+                }
+
+                /**
+                 * Returns the zone of this {@link com.linecorp.armeria.client.Endpoint}.
+                 */
+                @Nullable
+                public String getZone() {
+                    return zone;
+                }
+
+                /**
+                 * Sets the zone of this {@link com.linecorp.armeria.client.Endpoint} as the given
+                 * {@code zone}.
+                 */
+                public void setZone(String zone) {
+                    this.zone = requireNonNull(zone, "zone");
+                }
+            }
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.HeaderPolicy} properties.
+             */
+            public static class HeaderPolicy {
+
+                /**
+                 * Headers to keep. The other headers are removed.
+                 */
+                @Nullable
+                private List<String> allow;
+
+                /**
+                 * Headers to remove.
+                 */
+                private List<String> remove = emptyList();
+
+                /**
+                 * Headers to rename, keyed by the original names.
+                 */
+                private Map<String, String> rename = emptyMap();
+
+                /**
+                 * Whether to remove the hop-by-hop headers.
+                 */
+                private boolean stripHopByHop;
+
+                /**
+                 * Headers to set, replacing the existing values.
+                 */
+                private Map<String, String> set = emptyMap();
+
+                /**
+                 * Headers to add.
+                 */
+                private Map<String, String> add = emptyMap();
+
+                /**
+                 * Whether to add the {@code X-Forwarded-For}, {@code X-Forwarded-Proto} and
+                 * {@code X-Forwarded-Host} headers.
+                 */
+                private boolean xForwarded;
+
+                /**
+                 * Whether to add the {@code Forwarded} header.
+                 */
+                private boolean forwarded;
+
+                /**
+                 * Whether to append to the existing forwarding headers rather than replace them.
+                 */
+                private boolean trustForwarded;
+
+                /**
+                 * Returns the headers to keep.
+                 */
+                @Nullable
+                public List<String> getAllow() {
+                    return allow;
+                }
+
+                /**
+                 * Sets the headers to keep as the given {@code allow}.
+                 */
+                public void setAllow(List<String> allow) {
+                    this.allow = requireNonNull(allow, "allow");
+                }
+
+                /**
+                 * Returns the headers to remove.
+                 */
+                public List<String> getRemove() {
+                    return remove;
+                }
+
+                /**
+                 * Sets the headers to remove as the given {@code remove}.
+                 */
+                public void setRemove(List<String> remove) {
+                    this.remove = requireNonNull(remove, "remove");
+                }
+
+                /**
+                 * Returns the headers to rename, keyed by the original names.
+                 */
+                public Map<String, String> getRename() {
+                    return rename;
+                }
+
+                /**
+                 * Sets the headers to rename as the given {@code rename}.
+                 */
+                public void setRename(Map<String, String> rename) {
+                    this.rename = requireNonNull(rename, "rename");
+                }
+
+                /**
+                 * Returns whether to remove the hop-by-hop headers.
+                 */
+                public boolean isStripHopByHop() {
+                    return stripHopByHop;
+                }
+
+                /**
+                 * Sets whether to remove the hop-by-hop headers.
+                 */
+                public void setStripHopByHop(boolean stripHopByHop) {
+                    this.stripHopByHop = stripHopByHop;
+                }
+
+                /**
+                 * Returns the headers to set.
+                 */
+                public Map<String, String> getSet() {
+                    return set;
+                }
+
+                /**
+                 * Sets the headers to set as the given {@code set}.
+                 */
+                public void setSet(Map<String, String> set) {
+                    this.set = requireNonNull(set, "set");
+                }
+
+                /**
+                 * Returns the headers to add.
+                 */
+                public Map<String, String> getAdd() {
+                    return add;
+                }
+
+                /**
+                 * Sets the headers to add as the given {@code add}.
+                 */
+                public void setAdd(Map<String, String> add) {
+                    this.add = requireNonNull(add, "add");
+                }
+
+                /**
+                 * Returns whether to add the {@code X-Forwarded-*} headers.
+                 */
+                public boolean isXForwarded() {
+                    return xForwarded;
+                }
+
+                /**
+                 * Sets whether to add the {@code X-Forwarded-*} headers.
+                 */
+                public void setXForwarded(boolean xForwarded) {
+                    this.xForwarded = xForwarded;
+                }
+
+                /**
+                 * Returns whether to add the {@code Forwarded} header.
+                 */
+                public boolean isForwarded() {
+                    return forwarded;
+                }
+
+                /**
+                 * Sets whether to add the {@code Forwarded} header.
+                 */
+                public void setForwarded(boolean forwarded) {
+                    this.forwarded = forwarded;
+                }
+
+                /**
+                 * Returns whether to append to the existing forwarding headers rather than replace them.
+                 */
+                public boolean isTrustForwarded() {
+                    return trustForwarded;
+                }
+
+                /**
+                 * Sets whether to append to the existing forwarding headers rather than replace them.
+                 */
+                public void setTrustForwarded(boolean trustForwarded) {
+                    this.trustForwarded = trustForwarded;
+                }
+            }
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.CircuitBreakerPolicy} properties. The default of
+             * {@link dev.gihwan.tollgate.gateway.CircuitBreakerPolicyBuilder} is used for an unset property.
+             */
+            public static class CircuitBreaker {
+
+                /**
+                 * Rate of the failed requests in the sliding window which opens the circuit.
+                 */
+                @Nullable
+                private Double failureRateThreshold;
+
+                /**
+                 * Minimum number of the requests in the sliding window to evaluate the failure rate.
+                 */
+                @Nullable
+                private Long minimumRequestThreshold;
+
+                /**
+                 * Length of the sliding window in which the failure rate is evaluated.
+                 */
+                @Nullable
+                private Duration slidingWindow;
+
+                /**
+                 * Time to receive the response headers after which a request is regarded as failed.
+                 */
+                @Nullable
+                private Duration slowCallThreshold;
+
+                /**
+                 * Time to keep the circuit open before sending a trial request.
+                 */
+                @Nullable
+                private Duration openWindow;
+
+                /**
+                 * Interval between the trial requests while the circuit is half-open.
+                 */
+                @Nullable
+                private Duration trialRequestInterval;
+
+                /**
+                 * Status code of the responses to the requests which fail fast while the circuit is open.
+                 */
+                @Nullable
+                private Integer failFastStatus;
+
+                /**
+                 * Returns the rate of the failed requests in the sliding window which opens the circuit.
+                 */
+                @Nullable
+                public Double getFailureRateThreshold() {
+                    return failureRateThreshold;
+                }
+
+                /**
+                 * Sets the rate of the failed requests in the sliding window which opens the circuit as the
+                 * given {@code failureRateThreshold}.
+                 */
+                public void setFailureRateThreshold(Double failureRateThreshold) {
+                    this.failureRateThreshold = requireNonNull(failureRateThreshold, "failureRateThreshold");
+                }
+
+                /**
+                 * Returns the minimum number of the requests in the sliding window to evaluate the failure
+                 * rate.
+                 */
+                @Nullable
+                public Long getMinimumRequestThreshold() {
+                    return minimumRequestThreshold;
+                }
+
+                /**
+                 * Sets the minimum number of the requests in the sliding window to evaluate the failure rate
+                 * as the given {@code minimumRequestThreshold}.
+                 */
+                public void setMinimumRequestThreshold(Long minimumRequestThreshold) {
+                    this.minimumRequestThreshold =
+                            requireNonNull(minimumRequestThreshold, "minimumRequestThreshold");
+                }
+
+                /**
+                 * Returns the length of the sliding window in which the failure rate is evaluated.
+                 */
+                @Nullable
+                public Duration getSlidingWindow() {
+                    return slidingWindow;
+                }
+
+                /**
+                 * Sets the length of the sliding window in which the failure rate is evaluated as the given
+                 * {@link Duration}.
+                 */
+                public void setSlidingWindow(Duration slidingWindow) {
+                    this.slidingWindow = requireNonNull(slidingWindow, "slidingWindow");
+                }
+
+                /**
+                 * Returns the time to receive the response headers after which a request is regarded as
+                 * failed.
+                 */
+                @Nullable
+                public Duration getSlowCallThreshold() {
+                    return slowCallThreshold;
+                }
+
+                /**
+                 * Sets the time to receive the response headers after which a request is regarded as failed
+                 * as the given {@link Duration}.
+                 */
+                public void setSlowCallThreshold(Duration slowCallThreshold) {
+                    this.slowCallThreshold = requireNonNull(slowCallThreshold, "slowCallThreshold");
+                }
+
+                /**
+                 * Returns the time to keep the circuit open before sending a trial request.
+                 */
+                @Nullable
+                public Duration getOpenWindow() {
+                    return openWindow;
+                }
+
+                /**
+                 * Sets the time to keep the circuit open before sending a trial request as the given
+                 * {@link Duration}.
+                 */
+                public void setOpenWindow(Duration openWindow) {
+                    this.openWindow = requireNonNull(openWindow, "openWindow");
+                }
+
+                /**
+                 * Returns the interval between the trial requests while the circuit is half-open.
+                 */
+                @Nullable
+                public Duration getTrialRequestInterval() {
+                    return trialRequestInterval;
+                }
+
+                /**
+                 * Sets the interval between the trial requests while the circuit is half-open as the given
+                 * {@link Duration}.
+                 */
+                public void setTrialRequestInterval(Duration trialRequestInterval) {
+                    this.trialRequestInterval = requireNonNull(trialRequestInterval, "trialRequestInterval");
+                }
+
+                /**
+                 * Returns the status code of the responses to the requests which fail fast while the circuit
+                 * is open.
+                 */
+                @Nullable
+                public Integer getFailFastStatus() {
+                    return failFastStatus;
+                }
+
+                /**
+                 * Sets the status code of the responses to the requests which fail fast while the circuit is
+                 * open as the given {@code failFastStatus}.
+                 */
+                public void setFailFastStatus(Integer failFastStatus) {
+                    this.failFastStatus = requireNonNull(failFastStatus, "failFastStatus");
+                }
+            }
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.DnsDiscovery} properties. One of {@code address} and
+             * {@code service} must be set. The default of
+             * {@link dev.gihwan.tollgate.gateway.DnsDiscoveryBuilder} is used for an unset property.
+             */
+            public static class Dns {
+
+                /**
+                 * Hostname whose {@code A} and {@code AAAA} records are the endpoints.
+                 */
+                @Nullable
+                private String address;
+
+                /**
+                 * Port of the endpoints of the {@code address}.
+                 */
+                @Nullable
+                private Integer port;
+
+                /**
+                 * Name whose {@code SRV} records are the endpoints.
+                 */
+                @Nullable
+                private String service;
+
+                /**
+                 * Minimum time for which the records are cached.
+                 */
+                @Nullable
+                private Duration minTtl;
+
+                /**
+                 * Maximum time for which the records are cached.
+                 */
+                @Nullable
+                private Duration maxTtl;
+
+                /**
+                 * Delay before querying again after the first failure.
+                 */
+                @Nullable
+                private Duration initialBackoff;
+
+                /**
+                 * Maximum delay before querying again after the consecutive failures.
+                 */
+                @Nullable
+                private Duration maxBackoff;
+
+                /**
+                 * Timeout of a query.
+                 */
+                @Nullable
+                private Duration queryTimeout;
+
+                /**
+                 * {@code host:port}s of the DNS servers to query. The DNS servers of the system are used if
+                 * empty.
+                 */
+                private List<String> servers = emptyList();
+
+                /**
+                 * Returns the hostname whose {@code A} and {@code AAAA} records are the endpoints.
+                 */
+                @Nullable
+                public String getAddress() {
+                    return address;
+                }
+
+                /**
+                 * Sets the hostname whose {@code A} and {@code AAAA} records are the endpoints as the given
+                 * {@code address}.
+                 */
+                public void setAddress(String address) {
+                    this.address = requireNonNull(address, "address");
+                }
+
+                /**
+                 * Returns the port of the endpoints of the {@code address}.
+                 */
+                @Nullable
+                public Integer getPort() {
+                    return port;
+                }
+
+                /**
+                 * Sets the port of the endpoints of the {@code address} as the given {@code port}.
+                 */
+                public void setPort(Integer port) {
+                    this.port = requireNonNull(port, "port");
+                }
+
+                /**
+                 * Returns the name whose {@code SRV} records are the endpoints.
+                 */
+                @Nullable
+                public String getService() {
+                    return service;
+                }
+
+                /**
+                 * Sets the name whose {@code SRV} records are the endpoints as the given {@code service}.
+                 */
+                public void setService(String service) {
+                    this.service = requireNonNull(service, "service");
+                }
+
+                /**
+                 * Returns the minimum time for which the records are cached.
+                 */
+                @Nullable
+                public Duration getMinTtl() {
+                    return minTtl;
+                }
+
+                /**
+                 * Sets the minimum time for which the records are cached as the given {@code minTtl}.
+                 */
+                public void setMinTtl(Duration minTtl) {
+                    this.minTtl = requireNonNull(minTtl, "minTtl");
+                }
+
+                /**
+                 * Returns the maximum time for which the records are cached.
+                 */
+                @Nullable
+                public Duration getMaxTtl() {
+                    return maxTtl;
+                }
+
+                /**
+                 * Sets the maximum time for which the records are cached as the given {@code maxTtl}.
+                 */
+                public void setMaxTtl(Duration maxTtl) {
+                    this.maxTtl = requireNonNull(maxTtl, "maxTtl");
+                }
+
+                /**
+                 * Returns the delay before querying again after the first failure.
+                 */
+                @Nullable
+                public Duration getInitialBackoff() {
+                    return initialBackoff;
+                }
+
+                /**
+                 * Sets the delay before querying again after the first failure as the given
+                 * {@code initialBackoff}.
+                 */
+                public void setInitialBackoff(Duration initialBackoff) {
+                    this.initialBackoff = requireNonNull(initialBackoff, "initialBackoff");
+                }
+
+                /**
+                 * Returns the maximum delay before querying again after the consecutive failures.
+                 */
+                @Nullable
+                public Duration getMaxBackoff() {
+                    return maxBackoff;
+                }
+
+                /**
+                 * Sets the maximum delay before querying again after the consecutive failures as the given
+                 * {@code maxBackoff}.
+                 */
+                public void setMaxBackoff(Duration maxBackoff) {
+                    this.maxBackoff = requireNonNull(maxBackoff, "maxBackoff");
+                }
+
+                /**
+                 * Returns the timeout of a query.
+                 */
+                @Nullable
+                public Duration getQueryTimeout() {
+                    return queryTimeout;
+                }
+
+                /**
+                 * Sets the timeout of a query as the given {@code queryTimeout}.
+                 */
+                public void setQueryTimeout(Duration queryTimeout) {
+                    this.queryTimeout = requireNonNull(queryTimeout, "queryTimeout");
+                }
+
+                /**
+                 * Returns the {@code host:port}s of the DNS servers to query.
+                 */
+                public List<String> getServers() {
+                    return servers;
+                }
+
+                /**
+                 * Sets the {@code host:port}s of the DNS servers to query as the given {@code servers}.
+                 */
+                public void setServers(List<String> servers) {
+                    this.servers = requireNonNull(servers, "servers");
+                }
+            }
+
+            /**
+             * {@link dev.gihwan.tollgate.gateway.FileDiscovery} properties. The file is parsed as JSON. The
+             * default of {@link dev.gihwan.tollgate.gateway.FileDiscoveryBuilder} is used for an unset
+             * property.
+             */
+            public static class File {
+
+                /**
+                 * Path of the file.
+                 */
+                @Nullable
+                private String path;
+
+                /**
+                 * Time for which the file must not change before it is read.
+                 */
+                @Nullable
+                private Duration debounce;
+
+                /**
+                 * Minimum number of the endpoints in the file, below which the file is rejected.
+                 */
+                @Nullable
+                private Integer minEndpoints;
+
+                /**
+                 * Returns the path of the file.
+                 */
+                @Nullable
+                public String getPath() {
+                    return path;
+                }
+
+                /**
+                 * Sets the path of the file as the given {@code path}.
+                 */
+                public void setPath(String path) {
+                    this.path = requireNonNull(path, "path");
+                }
+
+                /**
+                 * Returns the time for which the file must not change before it is read.
+                 */
+                @Nullable
+                public Duration getDebounce() {
+                    return debounce;
+                }
+
+                /**
+                 * Sets the time for which the file must not change before it is read as the given
+                 * {@code debounce}.
+                 */
+                public void setDebounce(Duration debounce) {
+                    this.debounce = requireNonNull(debounce, "debounce");
+                }
+
+                /**
+                 * Returns the minimum number of the endpoints in the file, below which the file is rejected.
+                 */
+                @Nullable
+                public Integer getMinEndpoints() {
+                    return minEndpoints;
+                }
+
+                /**
+                 * Sets the minimum number of the endpoints in the file, below which the file is rejected, as
+                 * the given {@code minEndpoints}.
+                 */
+                public void setMinEndpoints(Integer minEndpoints) {
+                    this.minEndpoints = requireNonNull(minEndpoints, "minEndpoints");
+                }
             }
         }
     }
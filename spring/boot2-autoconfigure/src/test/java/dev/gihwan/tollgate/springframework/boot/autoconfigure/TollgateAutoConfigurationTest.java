@@ -25,9 +25,15 @@
 package dev.gihwan.tollgate.springframework.boot.autoconfigure;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.context.annotation.Bean;
@@ -35,13 +41,17 @@ import org.springframework.context.annotation.Configuration;
 
 import com.linecorp.armeria.client.WebClient;
 import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.RequestHeaders;
+import com.linecorp.armeria.common.ResponseHeaders;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.testing.junit5.server.ServerExtension;
 
 import dev.gihwan.tollgate.gateway.Gateway;
 import dev.gihwan.tollgate.gateway.Upstream;
+import dev.gihwan.tollgate.testing.TestDnsServer;
 
 class TollgateAutoConfigurationTest {
 
@@ -50,6 +60,12 @@ class TollgateAutoConfigurationTest {
         @Override
         protected void configure(ServerBuilder builder) {
             builder.service("/", (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+            builder.service("/error", (ctx, req) -> HttpResponse.of(HttpStatus.INTERNAL_SERVER_ERROR));
+            builder.service("/header", (ctx, req) -> HttpResponse.of(
+                    ResponseHeaders.of(HttpStatus.OK,
+                                       "x-bar", req.headers().get("x-bar", ""),
+                                       "x-forwarded-for", req.headers().get("x-forwarded-for", ""),
+                                       "private", "this is private")));
         }
     };
 
@@ -109,6 +125,143 @@ class TollgateAutoConfigurationTest {
                      });
     }
 
+    @Test
+    void sendRequestWithHeaderPolicyProperties() {
+        final String upstream = "tollgate.gateway.routes[0].upstream.";
+        contextRunner.withPropertyValues("tollgate.gateway.routes[0].name:exampleProxy",
+                                         "tollgate.gateway.routes[0].path:/header",
+                                         upstream + "uri:" + upstreamServer.httpUri(),
+                                         upstream + "request-headers.rename.x-foo:x-bar",
+                                         upstream + "request-headers.x-forwarded:true",
+                                         upstream + "response-headers.remove:private")
+                     .run(context -> {
+                         final Gateway gateway = context.getBean(Gateway.class);
+
+                         final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                         final AggregatedHttpResponse res =
+                                 client.execute(RequestHeaders.of(HttpMethod.GET, "/header",
+                                                                  "x-foo", "this is foo",
+                                                                  "x-forwarded-for", "192.168.0.1"))
+                                       .aggregate().join();
+                         assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                         assertThat(res.headers().get("x-bar")).isEqualTo("this is foo");
+                         // The untrusted forwarding header is replaced.
+                         assertThat(res.headers().get("x-forwarded-for")).isEqualTo("127.0.0.1");
+                         assertThat(res.headers().get("private")).isNull();
+                     });
+    }
+
+    @Test
+    void sendRequestWithCircuitBreakerProperties() {
+        final String upstream = "tollgate.gateway.routes[0].upstream.";
+        contextRunner.withPropertyValues("tollgate.gateway.routes[0].name:exampleProxy",
+                                         "tollgate.gateway.routes[0].path:/error",
+                                         upstream + "uri:" + upstreamServer.httpUri(),
+                                         upstream + "circuit-breaker.minimum-request-threshold:1",
+                                         upstream + "circuit-breaker.sliding-window:1s",
+                                         upstream + "circuit-breaker.fail-fast-status:429")
+                     .run(context -> {
+                         final Gateway gateway = context.getBean(Gateway.class);
+
+                         final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                         await().untilAsserted(() -> {
+                             final AggregatedHttpResponse res = client.get("/error").aggregate().join();
+                             assertThat(res.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                         });
+                     });
+    }
+
+    @Test
+    void sendRequestWithLoadBalancer() {
+        final String upstream = "tollgate.gateway.routes[0].upstream.";
+        contextRunner.withPropertyValues("tollgate.gateway.routes[0].name:exampleProxy",
+                                         "tollgate.gateway.routes[0].path:/",
+                                         upstream + "scheme:http",
+                                         upstream + "endpoints[0].host:127.0.0.1",
+                                         upstream + "endpoints[0].port:" + upstreamServer.httpPort(),
+                                         upstream + "load-balancer:p2c-ewma")
+                     .run(context -> {
+                         final Gateway gateway = context.getBean(Gateway.class);
+
+                         final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                         final AggregatedHttpResponse res = client.get("/").aggregate().join();
+                         assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                     });
+    }
+
+    @Test
+    void sendRequestToLocalZone() {
+        // Nothing listens on the port 1 in the other zone, so every request must stay in the local zone.
+        final String upstream = "tollgate.gateway.routes[0].upstream.";
+        contextRunner.withPropertyValues("tollgate.gateway.zone:a",
+                                         "tollgate.gateway.routes[0].name:exampleProxy",
+                                         "tollgate.gateway.routes[0].path:/",
+                                         upstream + "scheme:http",
+                                         upstream + "endpoints[0].host:127.0.0.1",
+                                         upstream + "endpoints[0].port:" + upstreamServer.httpPort(),
+                                         upstream + "endpoints[0].weight:10",
+                                         upstream + "endpoints[0].zone:a",
+                                         upstream + "endpoints[1].host:127.0.0.1",
+                                         upstream + "endpoints[1].port:1",
+                                         upstream + "endpoints[1].zone:b",
+                                         upstream + "zone-spillover-threshold:0.5")
+                     .run(context -> {
+                         final Gateway gateway = context.getBean(Gateway.class);
+
+                         final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                         for (int i = 0; i < 4; i++) {
+                             final AggregatedHttpResponse res = client.get("/").aggregate().join();
+                             assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                         }
+                     });
+    }
+
+    @Test
+    void sendRequestToDnsDiscoveredEndpoint() {
+        final String upstream = "tollgate.gateway.routes[0].upstream.";
+        try (TestDnsServer dnsServer = TestDnsServer.of()) {
+            dnsServer.setAddresses("foo.test", 1, "127.0.0.1");
+            final String dnsServerAddress = "127.0.0.1:" + dnsServer.address().getPort();
+            contextRunner.withPropertyValues("tollgate.gateway.routes[0].name:exampleProxy",
+                                             "tollgate.gateway.routes[0].path:/",
+                                             upstream + "scheme:http",
+                                             upstream + "dns.address:foo.test",
+                                             upstream + "dns.port:" + upstreamServer.httpPort(),
+                                             upstream + "dns.min-ttl:1s",
+                                             upstream + "dns.max-ttl:10s",
+                                             upstream + "dns.servers:" + dnsServerAddress)
+                         .run(context -> {
+                             final Gateway gateway = context.getBean(Gateway.class);
+
+                             final WebClient client =
+                                     WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                             final AggregatedHttpResponse res = client.get("/").aggregate().join();
+                             assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                         });
+        }
+    }
+
+    @Test
+    void sendRequestToFileDiscoveredEndpoint(@TempDir Path tempDir) throws IOException {
+        final Path path = tempDir.resolve("endpoints.json");
+        Files.writeString(path, "{\"endpoints\": [{\"host\": \"127.0.0.1\", \"port\": " +
+                                upstreamServer.httpPort() + "}]}");
+        final String upstream = "tollgate.gateway.routes[0].upstream.";
+        contextRunner.withPropertyValues("tollgate.gateway.routes[0].name:exampleProxy",
+                                         "tollgate.gateway.routes[0].path:/",
+                                         upstream + "scheme:http",
+                                         upstream + "file.path:" + path,
+                                         upstream + "file.debounce:100ms",
+                                         upstream + "file.min-endpoints:1")
+                     .run(context -> {
+                         final Gateway gateway = context.getBean(Gateway.class);
+
+                         final WebClient client = WebClient.of("http://127.0.0.1:" + gateway.activeLocalPort());
+                         final AggregatedHttpResponse res = client.get("/").aggregate().join();
+                         assertThat(res.status()).isEqualTo(HttpStatus.OK);
+                     });
+    }
+
     @Configuration(proxyBeanMethods = false)
     static class CustomGatewayConfiguration {
 
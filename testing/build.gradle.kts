@@ -32,6 +32,7 @@ plugins {
 
 dependencies {
     api(project(":gateway"))
+    api(Dependency.hdrHistogram)
     api(Dependency.jsr305)
     implementation(project(":util"))
     implementation(Dependency.guava)
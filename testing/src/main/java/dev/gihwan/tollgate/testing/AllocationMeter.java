@@ -0,0 +1,139 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.testing;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Measures the number of bytes allocated by the threads which satisfy a filter, using
+ * {@link ThreadMXBean#getThreadAllocatedBytes(long[])}.
+ *
+ * <p>Please note that the bytes allocated by a thread which terminates before
+ * {@link #allocatedBytes()} is called are not counted.
+ */
+public final class AllocationMeter {
+
+    // The prefix of the names of the event loop threads which the Gateway and its upstream clients use
+    // by default.
+    private static final String COMMON_WORKER_THREAD_NAME_PREFIX = "armeria-common-worker";
+
+    /**
+     * Returns a new {@link AllocationMeter} which measures the common event loop threads of Armeria, which
+     * serve requests and send them to the upstream servers unless the gateway is configured with its own
+     * worker group.
+     */
+    public static AllocationMeter ofCommonWorkers() {
+        return of(thread -> thread.getName().startsWith(COMMON_WORKER_THREAD_NAME_PREFIX));
+    }
+
+    /**
+     * Returns a new {@link AllocationMeter} which measures the current thread.
+     */
+    public static AllocationMeter ofCurrentThread() {
+        final Thread currentThread = Thread.currentThread();
+        return of(thread -> thread == currentThread);
+    }
+
+    /**
+     * Returns a new {@link AllocationMeter} which measures the threads which satisfy the given
+     * {@code threadFilter}.
+     *
+     * @throws UnsupportedOperationException if the JVM does not support measuring thread allocations.
+     */
+    public static AllocationMeter of(Predicate<? super Thread> threadFilter) {
+        return new AllocationMeter(requireNonNull(threadFilter, "threadFilter"));
+    }
+
+    private final ThreadMXBean threadMXBean;
+    private final Predicate<? super Thread> threadFilter;
+    @Nullable
+    private Map<Long, Long> baseline;
+
+    private AllocationMeter(Predicate<? super Thread> threadFilter) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean)) {
+            throw new UnsupportedOperationException("com.sun.management.ThreadMXBean is not available");
+        }
+        threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("thread allocated memory is not supported");
+        }
+        if (!threadMXBean.isThreadAllocatedMemoryEnabled()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        this.threadFilter = threadFilter;
+    }
+
+    /**
+     * Starts measuring from now on. Calling this method again restarts measuring.
+     */
+    public AllocationMeter start() {
+        baseline = snapshot();
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the measured threads since {@link #start()} is called.
+     * A thread which starts after {@link #start()} is counted from its beginning.
+     */
+    public long allocatedBytes() {
+        final Map<Long, Long> baseline = this.baseline;
+        checkState(baseline != null, "meter did not start.");
+
+        long allocatedBytes = 0;
+        for (Map.Entry<Long, Long> entry : snapshot().entrySet()) {
+            allocatedBytes += entry.getValue() - baseline.getOrDefault(entry.getKey(), 0L);
+        }
+        return allocatedBytes;
+    }
+
+    private Map<Long, Long> snapshot() {
+        final Thread[] threads = Thread.getAllStackTraces().keySet().stream()
+                                       .filter(threadFilter)
+                                       .toArray(Thread[]::new);
+        final long[] threadIds = new long[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            threadIds[i] = threads[i].getId();
+        }
+
+        final long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+        final Map<Long, Long> snapshot = new HashMap<>(threadIds.length);
+        for (int i = 0; i < threadIds.length; i++) {
+            // -1 is returned for a thread which is not alive anymore.
+            if (allocatedBytes[i] >= 0) {
+                snapshot.put(threadIds[i], allocatedBytes[i]);
+            }
+        }
+        return snapshot;
+    }
+}
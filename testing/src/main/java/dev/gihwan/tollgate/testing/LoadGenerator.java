@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.testing;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.ClientRequestContextCaptor;
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.ConnectionPoolListener;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.SessionProtocol;
+
+import io.netty.util.AttributeMap;
+
+/**
+ * A closed-loop load generator which sends requests over a fixed number of connections and records the
+ * latency of each request into an HdrHistogram.
+ *
+ * <p>Each worker sends a request and waits for the complete response before sending the next one, so the
+ * number of in-flight requests never exceeds {@code connections * concurrencyPerConnection}. Because a
+ * closed-loop generator stops sending while a response is delayed, the recorded latencies are also
+ * corrected for coordinated omission. See {@link LoadResult#histogram()}.
+ *
+ * <pre>{@code
+ * LoadResult result = LoadGenerator.builder(gateway.httpUri())
+ *                                  .protocol(SessionProtocol.H2C)
+ *                                  .connections(4)
+ *                                  .concurrencyPerConnection(8)
+ *                                  .path("/foo")
+ *                                  .duration(Duration.ofSeconds(10))
+ *                                  .build()
+ *                                  .run();
+ * assertThat(result.p99()).isLessThan(Duration.ofMillis(10));
+ * }</pre>
+ */
+public final class LoadGenerator {
+
+    private static final int SIGNIFICANT_VALUE_DIGITS = 3;
+
+    /**
+     * Returns a new {@link LoadGeneratorBuilder} which sends requests to the host and port of the given
+     * {@code uri}.
+     */
+    public static LoadGeneratorBuilder builder(URI uri) {
+        requireNonNull(uri, "uri");
+        final Endpoint endpoint = uri.getPort() > 0 ? Endpoint.of(uri.getHost(), uri.getPort())
+                                                    : Endpoint.of(uri.getHost());
+        return new LoadGeneratorBuilder(endpoint);
+    }
+
+    /**
+     * Returns a new {@link LoadGeneratorBuilder} which sends requests to the given {@code endpoint}.
+     */
+    public static LoadGeneratorBuilder builder(Endpoint endpoint) {
+        return new LoadGeneratorBuilder(requireNonNull(endpoint, "endpoint"));
+    }
+
+    private final Endpoint endpoint;
+    private final SessionProtocol protocol;
+    private final int connections;
+    private final int concurrencyPerConnection;
+    private final Supplier<? extends HttpRequest> requestFactory;
+    private final Duration warmup;
+    private final Duration duration;
+    @Nullable
+    private final Duration expectedInterval;
+    private final Duration responseTimeout;
+
+    LoadGenerator(Endpoint endpoint, SessionProtocol protocol, int connections, int concurrencyPerConnection,
+                  Supplier<? extends HttpRequest> requestFactory, Duration warmup, Duration duration,
+                  @Nullable Duration expectedInterval, Duration responseTimeout) {
+        this.endpoint = endpoint;
+        this.protocol = protocol;
+        this.connections = connections;
+        this.concurrencyPerConnection = concurrencyPerConnection;
+        this.requestFactory = requestFactory;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.expectedInterval = expectedInterval;
+        this.responseTimeout = responseTimeout;
+    }
+
+    /**
+     * Sends requests for the warm-up period and the measurement period, and returns the {@link LoadResult}
+     * of the measurement period. This method blocks until all workers complete their in-flight requests.
+     */
+    public LoadResult run() {
+        final Recorder recorder = new Recorder(SIGNIFICANT_VALUE_DIGITS);
+        final LongAdder successes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final AtomicInteger openedConnections = new AtomicInteger();
+        final ConnectionPoolListener connectionPoolListener = new ConnectionPoolListener() {
+            @Override
+            public void connectionOpen(SessionProtocol protocol, InetSocketAddress remoteAddr,
+                                       InetSocketAddress localAddr, AttributeMap attrs) {
+                openedConnections.incrementAndGet();
+            }
+
+            @Override
+            public void connectionClosed(SessionProtocol protocol, InetSocketAddress remoteAddr,
+                                         InetSocketAddress localAddr, AttributeMap attrs) {}
+        };
+
+        final List<ClientFactory> factories = new ArrayList<>(connections);
+        try {
+            final long measurementStartNanos = System.nanoTime() + warmup.toNanos();
+            final long measurementEndNanos = measurementStartNanos + duration.toNanos();
+            final List<CompletableFuture<Void>> workers =
+                    new ArrayList<>(connections * concurrencyPerConnection);
+            for (int i = 0; i < connections; i++) {
+                // A factory which uses a single event loop per endpoint owns a single connection, except that
+                // HTTP/1 opens a connection for each in-flight request.
+                final ClientFactory factory = ClientFactory.builder()
+                                                           .maxNumEventLoopsPerEndpoint(1)
+                                                           .maxNumEventLoopsPerHttp1Endpoint(1)
+                                                           .connectionPoolListener(connectionPoolListener)
+                                                           .tlsNoVerify()
+                                                           .build();
+                factories.add(factory);
+                final WebClient client = WebClient.builder(protocol, endpoint)
+                                                  .factory(factory)
+                                                  .responseTimeout(responseTimeout)
+                                                  .build();
+                for (int j = 0; j < concurrencyPerConnection; j++) {
+                    final Worker worker = new Worker(client, measurementStartNanos, measurementEndNanos,
+                                                     recorder, successes, failures);
+                    worker.sendNext();
+                    workers.add(worker.completionFuture);
+                }
+            }
+            CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[0])).join();
+
+            final long elapsedNanos = Math.max(System.nanoTime() - measurementStartNanos, 1);
+            final Histogram uncorrected = recorder.getIntervalHistogram();
+            // Like wrk, the mean latency is used as the expected interval between requests of a worker
+            // unless specified.
+            final long expectedIntervalNanos = expectedInterval != null ? expectedInterval.toNanos()
+                                                                        : (long) uncorrected.getMean();
+            final Histogram corrected = expectedIntervalNanos > 0 ?
+                                        uncorrected.copyCorrectedForCoordinatedOmission(expectedIntervalNanos)
+                                                                  : uncorrected.copy();
+            return new LoadResult(corrected, uncorrected, successes.sum(), failures.sum(),
+                                  openedConnections.get(), Duration.ofNanos(elapsedNanos));
+        } finally {
+            factories.forEach(ClientFactory::close);
+        }
+    }
+
+    private final class Worker {
+
+        private final WebClient client;
+        private final long measurementStartNanos;
+        private final long measurementEndNanos;
+        private final Recorder recorder;
+        private final LongAdder successes;
+        private final LongAdder failures;
+        private final CompletableFuture<Void> completionFuture = new CompletableFuture<>();
+
+        Worker(WebClient client, long measurementStartNanos, long measurementEndNanos, Recorder recorder,
+               LongAdder successes, LongAdder failures) {
+            this.client = client;
+            this.measurementStartNanos = measurementStartNanos;
+            this.measurementEndNanos = measurementEndNanos;
+            this.recorder = recorder;
+            this.successes = successes;
+            this.failures = failures;
+        }
+
+        void sendNext() {
+            final long startNanos = System.nanoTime();
+            if (startNanos - measurementEndNanos >= 0) {
+                completionFuture.complete(null);
+                return;
+            }
+
+            final HttpRequest req;
+            try {
+                req = requestFactory.get();
+            } catch (Throwable cause) {
+                completionFuture.completeExceptionally(cause);
+                return;
+            }
+            final HttpResponse res;
+            final ClientRequestContext ctx;
+            try (ClientRequestContextCaptor captor = Clients.newContextCaptor()) {
+                res = client.execute(req);
+                ctx = captor.get();
+            }
+            res.aggregate().handle((aggregated, cause) -> {
+                onResponse(startNanos, aggregated, cause);
+                // Sends the next request after the connection is released to the pool, so that a connection
+                // of HTTP/1 is reused rather than a new connection being opened.
+                ctx.eventLoop().execute(this::sendNext);
+                return null;
+            });
+        }
+
+        private void onResponse(long startNanos, @Nullable AggregatedHttpResponse res,
+                                @Nullable Throwable cause) {
+            if (startNanos - measurementStartNanos < 0) {
+                return;
+            }
+            recorder.recordValue(System.nanoTime() - startNanos);
+            if (cause == null && res != null && res.status().isSuccess()) {
+                successes.increment();
+            } else {
+                failures.increment();
+            }
+        }
+    }
+}
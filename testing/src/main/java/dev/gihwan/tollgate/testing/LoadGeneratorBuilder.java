@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.testing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.SessionProtocol;
+
+/**
+ * A builder for {@link LoadGenerator}.
+ */
+public final class LoadGeneratorBuilder {
+
+    private static final Duration DEFAULT_WARMUP = Duration.ofSeconds(1);
+    private static final Duration DEFAULT_DURATION = Duration.ofSeconds(5);
+    private static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(10);
+
+    private final Endpoint endpoint;
+    private SessionProtocol protocol = SessionProtocol.H1C;
+    private int connections = 1;
+    private int concurrencyPerConnection = 1;
+    private Supplier<? extends HttpRequest> requestFactory = () -> HttpRequest.of(HttpMethod.GET, "/");
+    private Duration warmup = DEFAULT_WARMUP;
+    private Duration duration = DEFAULT_DURATION;
+    @Nullable
+    private Duration expectedInterval;
+    private Duration responseTimeout = DEFAULT_RESPONSE_TIMEOUT;
+
+    LoadGeneratorBuilder(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Sets the {@link SessionProtocol} of the connections, which should be one of {@link SessionProtocol#H1C},
+     * {@link SessionProtocol#H2C}, {@link SessionProtocol#H1} and {@link SessionProtocol#H2}.
+     * {@link SessionProtocol#H1C} is used by default.
+     */
+    public LoadGeneratorBuilder protocol(SessionProtocol protocol) {
+        requireNonNull(protocol, "protocol");
+        checkArgument(protocol == SessionProtocol.H1C || protocol == SessionProtocol.H2C ||
+                      protocol == SessionProtocol.H1 || protocol == SessionProtocol.H2,
+                      "protocol: %s (expected: H1C, H2C, H1 or H2)", protocol);
+        this.protocol = protocol;
+        return this;
+    }
+
+    /**
+     * Sets the number of connections. {@code 1} is used by default.
+     */
+    public LoadGeneratorBuilder connections(int connections) {
+        checkArgument(connections > 0, "connections: %s (expected: > 0)", connections);
+        this.connections = connections;
+        return this;
+    }
+
+    /**
+     * Sets the number of in-flight requests of a connection. {@code 1} is used by default.
+     *
+     * Please note that a connection of HTTP/1 carries only one request at a time, so a value larger than
+     * {@code 1} is allowed only for HTTP/2.
+     */
+    public LoadGeneratorBuilder concurrencyPerConnection(int concurrencyPerConnection) {
+        checkArgument(concurrencyPerConnection > 0,
+                      "concurrencyPerConnection: %s (expected: > 0)", concurrencyPerConnection);
+        this.concurrencyPerConnection = concurrencyPerConnection;
+        return this;
+    }
+
+    /**
+     * Sends {@link HttpMethod#GET} requests to the given {@code path}. {@code /} is used by default.
+     */
+    public LoadGeneratorBuilder path(String path) {
+        requireNonNull(path, "path");
+        return request(() -> HttpRequest.of(HttpMethod.GET, path));
+    }
+
+    /**
+     * Sends the requests created by the given {@code requestFactory}. The {@code requestFactory} is called for
+     * each request, because an {@link HttpRequest} cannot be sent more than once.
+     */
+    public LoadGeneratorBuilder request(Supplier<? extends HttpRequest> requestFactory) {
+        this.requestFactory = requireNonNull(requestFactory, "requestFactory");
+        return this;
+    }
+
+    /**
+     * Sets the warm-up period whose requests are not recorded. {@code 1} second is used by default.
+     */
+    public LoadGeneratorBuilder warmup(Duration warmup) {
+        requireNonNull(warmup, "warmup");
+        checkArgument(!warmup.isNegative(), "warmup: %s (expected: >= 0)", warmup);
+        this.warmup = warmup;
+        return this;
+    }
+
+    /**
+     * Sets the measurement period. {@code 5} seconds is used by default.
+     */
+    public LoadGeneratorBuilder duration(Duration duration) {
+        requireNonNull(duration, "duration");
+        checkArgument(!duration.isNegative() && !duration.isZero(), "duration: %s (expected: > 0)", duration);
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Sets the expected interval between the requests of a worker, which is used to correct the latencies
+     * for coordinated omission. The mean latency of the measurement period is used by default.
+     */
+    public LoadGeneratorBuilder expectedInterval(Duration expectedInterval) {
+        requireNonNull(expectedInterval, "expectedInterval");
+        checkArgument(!expectedInterval.isNegative() && !expectedInterval.isZero(),
+                      "expectedInterval: %s (expected: > 0)", expectedInterval);
+        this.expectedInterval = expectedInterval;
+        return this;
+    }
+
+    /**
+     * Sets the response timeout of a request. {@code 10} seconds is used by default.
+     */
+    public LoadGeneratorBuilder responseTimeout(Duration responseTimeout) {
+        requireNonNull(responseTimeout, "responseTimeout");
+        checkArgument(!responseTimeout.isNegative() && !responseTimeout.isZero(),
+                      "responseTimeout: %s (expected: > 0)", responseTimeout);
+        this.responseTimeout = responseTimeout;
+        return this;
+    }
+
+    /**
+     * Builds a new {@link LoadGenerator} based on the properties of this builder.
+     *
+     * @throws IllegalStateException if {@link #concurrencyPerConnection(int)} is larger than {@code 1} for
+     *                               HTTP/1.
+     */
+    public LoadGenerator build() {
+        checkState(protocol.isMultiplex() || concurrencyPerConnection == 1,
+                   "concurrencyPerConnection: %s (expected: 1 for %s)", concurrencyPerConnection, protocol);
+        return new LoadGenerator(endpoint, protocol, connections, concurrencyPerConnection, requestFactory,
+                                 warmup, duration, expectedInterval, responseTimeout);
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.testing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * The result of {@link LoadGenerator#run()}. All latencies are recorded in nanoseconds.
+ */
+public final class LoadResult {
+
+    private final Histogram histogram;
+    private final Histogram uncorrectedHistogram;
+    private final long successes;
+    private final long failures;
+    private final int connections;
+    private final Duration elapsed;
+
+    LoadResult(Histogram histogram, Histogram uncorrectedHistogram, long successes, long failures,
+               int connections, Duration elapsed) {
+        this.histogram = histogram;
+        this.uncorrectedHistogram = uncorrectedHistogram;
+        this.successes = successes;
+        this.failures = failures;
+        this.connections = connections;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Returns the latency {@link Histogram} corrected for coordinated omission, i.e. including the latencies
+     * of the requests which would have been sent if the workers had not waited for the delayed responses.
+     */
+    public Histogram histogram() {
+        return histogram;
+    }
+
+    /**
+     * Returns the latency {@link Histogram} of the requests which were actually sent.
+     */
+    public Histogram uncorrectedHistogram() {
+        return uncorrectedHistogram;
+    }
+
+    /**
+     * Returns the corrected latency at the given {@code percentile}, e.g. {@code 99.9}.
+     */
+    public Duration latencyAtPercentile(double percentile) {
+        checkArgument(percentile >= 0 && percentile <= 100, "percentile: %s (expected: 0-100)", percentile);
+        return Duration.ofNanos(histogram.getValueAtPercentile(percentile));
+    }
+
+    /**
+     * Returns the corrected median latency.
+     */
+    public Duration p50() {
+        return latencyAtPercentile(50);
+    }
+
+    /**
+     * Returns the corrected 99th percentile latency.
+     */
+    public Duration p99() {
+        return latencyAtPercentile(99);
+    }
+
+    /**
+     * Returns the corrected 99.9th percentile latency.
+     */
+    public Duration p999() {
+        return latencyAtPercentile(99.9);
+    }
+
+    /**
+     * Returns the number of the requests sent in the measurement period.
+     */
+    public long requests() {
+        return successes + failures;
+    }
+
+    /**
+     * Returns the number of the requests which were responded with a {@code 2xx} status.
+     */
+    public long successes() {
+        return successes;
+    }
+
+    /**
+     * Returns the number of the requests which were failed or responded with a non-{@code 2xx} status.
+     */
+    public long failures() {
+        return failures;
+    }
+
+    /**
+     * Returns the number of the connections opened by the {@link LoadGenerator}, including the warm-up period.
+     */
+    public int connections() {
+        return connections;
+    }
+
+    /**
+     * Returns the elapsed time of the measurement period, including the time to complete the in-flight
+     * requests at the end.
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of the requests per second in the measurement period.
+     */
+    public double throughput() {
+        return requests() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed.toNanos();
+    }
+
+    /**
+     * Prints the percentile distribution of the corrected latencies in milliseconds to the given
+     * {@code printStream}.
+     */
+    public void outputPercentileDistribution(PrintStream printStream) {
+        histogram.outputPercentileDistribution(printStream, (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("requests", requests())
+                          .add("failures", failures)
+                          .add("connections", connections)
+                          .add("throughput", String.format("%.1f/s", throughput()))
+                          .add("p50", p50())
+                          .add("p99", p99())
+                          .add("p999", p999())
+                          .add("max", Duration.ofNanos(histogram.getMaxValue()))
+                          .toString();
+    }
+}
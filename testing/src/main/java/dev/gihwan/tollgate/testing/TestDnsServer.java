@@ -0,0 +1,236 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package dev.gihwan.tollgate.testing;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.net.InetAddresses;
+
+import com.linecorp.armeria.common.util.SafeCloseable;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * An in-process DNS server which answers the {@code A}, {@code AAAA} and {@code SRV} queries with the records
+ * set by a test, e.g. to test the DNS discovery of an {@link dev.gihwan.tollgate.gateway.Upstream}.
+ *
+ * <p>A query of a name without records is answered with {@code NXDOMAIN}, and every query is answered with
+ * {@code SERVFAIL} while the server is failing.
+ */
+public final class TestDnsServer implements SafeCloseable {
+
+    private static final String THREAD_NAME_PREFIX = "tollgate-test-dns";
+
+    /**
+     * Creates and starts a new {@link TestDnsServer} which listens on a random port of the loopback address.
+     */
+    public static TestDnsServer of() {
+        return new TestDnsServer();
+    }
+
+    private final Map<String, List<Record>> records = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private final EventLoopGroup eventLoopGroup;
+    private final Channel channel;
+    private volatile boolean failing;
+
+    private TestDnsServer() {
+        eventLoopGroup = new NioEventLoopGroup(1, new DefaultThreadFactory(THREAD_NAME_PREFIX, true));
+        channel = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new DatagramDnsQueryDecoder(),
+                                              new DatagramDnsResponseEncoder(),
+                                              new QueryHandler());
+                    }
+                })
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .syncUninterruptibly()
+                .channel();
+    }
+
+    /**
+     * Returns the address which this server listens on.
+     */
+    public InetSocketAddress address() {
+        return (InetSocketAddress) channel.localAddress();
+    }
+
+    /**
+     * Sets the {@code A} and {@code AAAA} records of the given {@code hostname} as the given IP addresses,
+     * replacing its records. No IP address removes the records.
+     */
+    public TestDnsServer setAddresses(String hostname, int ttlSeconds, String... ipAddrs) {
+        requireNonNull(hostname, "hostname");
+        requireNonNull(ipAddrs, "ipAddrs");
+        checkArgument(ttlSeconds >= 0, "ttlSeconds: %s (expected: >= 0)", ttlSeconds);
+        final List<Record> newRecords = new CopyOnWriteArrayList<>();
+        for (String ipAddr : ipAddrs) {
+            final byte[] address = InetAddresses.forString(ipAddr).getAddress();
+            final DnsRecordType type = address.length == 4 ? DnsRecordType.A : DnsRecordType.AAAA;
+            newRecords.add(new Record(type, ttlSeconds, address));
+        }
+        if (newRecords.isEmpty()) {
+            records.remove(normalize(hostname));
+        } else {
+            records.put(normalize(hostname), newRecords);
+        }
+        return this;
+    }
+
+    /**
+     * Adds an {@code SRV} record of the given {@code serviceName}, which points to the given {@code port} of
+     * the given {@code target} with the given {@code weight}.
+     */
+    public TestDnsServer addService(String serviceName, int ttlSeconds, int weight, int port, String target) {
+        requireNonNull(serviceName, "serviceName");
+        requireNonNull(target, "target");
+        checkArgument(ttlSeconds >= 0, "ttlSeconds: %s (expected: >= 0)", ttlSeconds);
+        final ByteBuf data = Unpooled.buffer();
+        data.writeShort(0); // The priority.
+        data.writeShort(weight);
+        data.writeShort(port);
+        for (String label : target.split("\\.")) {
+            final byte[] bytes = label.getBytes(StandardCharsets.US_ASCII);
+            data.writeByte(bytes.length);
+            data.writeBytes(bytes);
+        }
+        data.writeByte(0);
+        final byte[] bytes = new byte[data.readableBytes()];
+        data.readBytes(bytes);
+        records.computeIfAbsent(normalize(serviceName), unused -> new CopyOnWriteArrayList<>())
+               .add(new Record(DnsRecordType.SRV, ttlSeconds, bytes));
+        return this;
+    }
+
+    /**
+     * Removes all records of the given {@code name}.
+     */
+    public TestDnsServer removeRecords(String name) {
+        records.remove(normalize(requireNonNull(name, "name")));
+        return this;
+    }
+
+    /**
+     * Sets whether this server answers every query with {@code SERVFAIL}.
+     */
+    public TestDnsServer failing(boolean failing) {
+        this.failing = failing;
+        return this;
+    }
+
+    /**
+     * Returns the number of the queries which this server has received.
+     */
+    public int queries() {
+        return queries.get();
+    }
+
+    @Override
+    public void close() {
+        channel.close().syncUninterruptibly();
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    private static String normalize(String name) {
+        final String lowerCase = name.toLowerCase(Locale.ROOT);
+        return lowerCase.endsWith(".") ? lowerCase.substring(0, lowerCase.length() - 1) : lowerCase;
+    }
+
+    private final class QueryHandler extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) {
+            queries.incrementAndGet();
+            final DatagramDnsResponse res =
+                    new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+            final DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+            res.addRecord(DnsSection.QUESTION, question);
+            if (failing) {
+                res.setCode(DnsResponseCode.SERVFAIL);
+                ctx.writeAndFlush(res);
+                return;
+            }
+            final List<Record> nameRecords = records.get(normalize(question.name()));
+            if (nameRecords == null) {
+                res.setCode(DnsResponseCode.NXDOMAIN);
+                ctx.writeAndFlush(res);
+                return;
+            }
+            for (Record record : nameRecords) {
+                if (record.type.equals(question.type())) {
+                    res.addRecord(DnsSection.ANSWER,
+                                  new DefaultDnsRawRecord(question.name(), record.type, record.ttlSeconds,
+                                                          Unpooled.wrappedBuffer(record.data)));
+                }
+            }
+            ctx.writeAndFlush(res);
+        }
+    }
+
+    private static final class Record {
+        final DnsRecordType type;
+        final long ttlSeconds;
+        final byte[] data;
+
+        Record(DnsRecordType type, long ttlSeconds, byte[] data) {
+            this.type = type;
+            this.ttlSeconds = ttlSeconds;
+            this.data = data;
+        }
+    }
+}
@@ -24,19 +24,29 @@
 
 package dev.gihwan.tollgate.testing;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 import javax.annotation.CheckReturnValue;
 import javax.annotation.Nullable;
 
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.WebClient;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.util.EventLoopGroups;
 import com.linecorp.armeria.common.util.SafeCloseable;
 
+import io.netty.channel.EventLoopGroup;
+
 import dev.gihwan.tollgate.gateway.Gateway;
 import dev.gihwan.tollgate.gateway.GatewayBuilder;
 
@@ -45,6 +55,9 @@ import dev.gihwan.tollgate.gateway.GatewayBuilder;
  */
 public abstract class TestGateway implements SafeCloseable {
 
+    private static final String ALLOCATION_CLIENT_THREAD_NAME_PREFIX = "tollgate-allocation-client";
+    private static final int ALLOCATION_BATCH_SIZE = 100;
+
     /**
      * Creates and starts a new {@link Gateway} which configured with the given {@code builderConsumer}.
      * Please note that the returned {@link Gateway} is already started automatically.
@@ -141,4 +154,108 @@ public abstract class TestGateway implements SafeCloseable {
     public URI httpsUri() {
         return URI.create("http://127.0.0.1:" + httpsPort());
     }
+
+    /**
+     * Returns the average number of bytes allocated by the common event loop threads to serve a {@code GET}
+     * request to the given {@code path}. See {@link #allocatedBytesPerRequest(Supplier, int, int)}.
+     */
+    public long allocatedBytesPerRequest(String path, int warmupRequests, int requests) {
+        requireNonNull(path, "path");
+        return allocatedBytesPerRequest(() -> HttpRequest.of(HttpMethod.GET, path), warmupRequests, requests);
+    }
+
+    /**
+     * Sends the requests created by the given {@code requestFactory} one by one to the HTTP port of the
+     * {@link Gateway}, and returns the average number of bytes allocated by the common event loop threads to
+     * serve each of the last {@code requests} requests.
+     *
+     * The requests are sent by a client which uses its own event loop, so that only the allocations of the
+     * {@link Gateway} and its upstream clients are counted. Please note that the allocations of an upstream
+     * server are counted as well if it runs on the common event loop threads in the same JVM.
+     *
+     * @see AllocationMeter#ofCommonWorkers()
+     */
+    public long allocatedBytesPerRequest(Supplier<? extends HttpRequest> requestFactory,
+                                         int warmupRequests, int requests) {
+        requireNonNull(requestFactory, "requestFactory");
+        checkArgument(warmupRequests >= 0, "warmupRequests: %s (expected: >= 0)", warmupRequests);
+        checkArgument(requests > 0, "requests: %s (expected: > 0)", requests);
+
+        return withAllocationClient(client -> {
+            for (int i = 0; i < warmupRequests; i++) {
+                client.execute(requestFactory.get()).aggregate().join();
+            }
+
+            final AllocationMeter meter = AllocationMeter.ofCommonWorkers().start();
+            for (int i = 0; i < requests; i++) {
+                client.execute(requestFactory.get()).aggregate().join();
+            }
+            return meter.allocatedBytes() / requests;
+        });
+    }
+
+    /**
+     * Returns the average number of bytes allocated by the common event loop threads to serve a {@code GET}
+     * request to the given {@code path} over the ones to serve a {@code GET} request to the given
+     * {@code baselinePath}. See {@link #allocatedBytesPerRequest(Supplier, Supplier, int, int)}.
+     */
+    public long allocatedBytesPerRequest(String path, String baselinePath, int warmupRequests, int requests) {
+        requireNonNull(path, "path");
+        requireNonNull(baselinePath, "baselinePath");
+        return allocatedBytesPerRequest(() -> HttpRequest.of(HttpMethod.GET, path),
+                                        () -> HttpRequest.of(HttpMethod.GET, baselinePath),
+                                        warmupRequests, requests);
+    }
+
+    /**
+     * Returns the average number of bytes allocated by the common event loop threads to serve each of the
+     * requests created by the given {@code requestFactory} over the ones to serve each of the requests
+     * created by the given {@code baselineRequestFactory}. See
+     * {@link #allocatedBytesPerRequest(Supplier, int, int)}.
+     *
+     * Both requests are sent by the same client in turns of the batches of 100 requests, because the
+     * allocations of the same request vary by the connections more than the difference of a small change,
+     * e.g. copying the headers once more, while the difference on the same connections is stable.
+     */
+    public long allocatedBytesPerRequest(Supplier<? extends HttpRequest> requestFactory,
+                                         Supplier<? extends HttpRequest> baselineRequestFactory,
+                                         int warmupRequests, int requests) {
+        requireNonNull(requestFactory, "requestFactory");
+        requireNonNull(baselineRequestFactory, "baselineRequestFactory");
+        checkArgument(warmupRequests >= 0, "warmupRequests: %s (expected: >= 0)", warmupRequests);
+        checkArgument(requests > 0, "requests: %s (expected: > 0)", requests);
+
+        return withAllocationClient(client -> {
+            for (int i = 0; i < warmupRequests; i++) {
+                client.execute(requestFactory.get()).aggregate().join();
+                client.execute(baselineRequestFactory.get()).aggregate().join();
+            }
+
+            final AllocationMeter meter = AllocationMeter.ofCommonWorkers();
+            long allocatedBytes = 0;
+            for (int sent = 0; sent < requests;) {
+                final int batchSize = Math.min(ALLOCATION_BATCH_SIZE, requests - sent);
+                meter.start();
+                for (int i = 0; i < batchSize; i++) {
+                    client.execute(requestFactory.get()).aggregate().join();
+                }
+                allocatedBytes += meter.allocatedBytes();
+                meter.start();
+                for (int i = 0; i < batchSize; i++) {
+                    client.execute(baselineRequestFactory.get()).aggregate().join();
+                }
+                allocatedBytes -= meter.allocatedBytes();
+                sent += batchSize;
+            }
+            return allocatedBytes / requests;
+        });
+    }
+
+    private long withAllocationClient(ToLongFunction<WebClient> measurement) {
+        final EventLoopGroup eventLoopGroup =
+                EventLoopGroups.newEventLoopGroup(1, ALLOCATION_CLIENT_THREAD_NAME_PREFIX, true);
+        try (ClientFactory factory = ClientFactory.builder().workerGroup(eventLoopGroup, true).build()) {
+            return measurement.applyAsLong(WebClient.builder(httpUri()).factory(factory).build());
+        }
+    }
 }
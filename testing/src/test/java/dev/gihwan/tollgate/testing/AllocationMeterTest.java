@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.testing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class AllocationMeterTest {
+
+    // Keeps the allocated array reachable so that the allocation is not eliminated.
+    private static volatile byte[] sink;
+
+    @Test
+    void measureCurrentThread() {
+        final AllocationMeter meter = AllocationMeter.ofCurrentThread().start();
+        sink = new byte[1024 * 1024];
+        assertThat(meter.allocatedBytes()).isGreaterThanOrEqualTo(1024 * 1024);
+    }
+
+    @Test
+    void restart() {
+        final AllocationMeter meter = AllocationMeter.ofCurrentThread().start();
+        sink = new byte[1024 * 1024];
+        meter.start();
+        assertThat(meter.allocatedBytes()).isLessThan(1024 * 1024);
+    }
+
+    @Test
+    void excludeFilteredThreads() {
+        final AllocationMeter meter = AllocationMeter.of(thread -> false).start();
+        sink = new byte[1024 * 1024];
+        assertThat(meter.allocatedBytes()).isZero();
+    }
+
+    @Test
+    void shouldThrowIllegalStateExceptionIfNotStarted() {
+        assertThatThrownBy(() -> AllocationMeter.ofCurrentThread().allocatedBytes())
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 - 2021 Gihwan Kim
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package dev.gihwan.tollgate.testing;
+
+import static dev.gihwan.tollgate.testing.TestGateway.withTestGateway;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.server.Server;
+
+import dev.gihwan.tollgate.gateway.Upstream;
+
+class LoadGeneratorTest {
+
+    private static Server backend;
+    private static TestGateway gateway;
+
+    @BeforeAll
+    static void beforeAll() {
+        backend = Server.builder()
+                        .http(0)
+                        .service("/foo", (ctx, req) -> HttpResponse.of("foo"))
+                        .service("/bar", (ctx, req) -> HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE))
+                        .build();
+        backend.start().join();
+
+        final String backendUri = "http://127.0.0.1:" + backend.activeLocalPort(SessionProtocol.HTTP);
+        gateway = withTestGateway(builder -> {
+            builder.server(serverBuilder -> serverBuilder.http(0));
+            builder.upstream("/foo", Upstream.of(backendUri));
+            builder.upstream("/bar", Upstream.of(backendUri));
+        });
+    }
+
+    @AfterAll
+    static void afterAll() {
+        gateway.close();
+        backend.stop().join();
+    }
+
+    @Test
+    void http1() {
+        final LoadResult result = LoadGenerator.builder(gateway.httpUri())
+                                               .protocol(SessionProtocol.H1C)
+                                               .connections(2)
+                                               .path("/foo")
+                                               .warmup(Duration.ofMillis(100))
+                                               .duration(Duration.ofMillis(500))
+                                               .build()
+                                               .run();
+
+        assertThat(result.requests()).isPositive();
+        assertThat(result.successes()).isEqualTo(result.requests());
+        assertThat(result.failures()).isZero();
+        assertThat(result.connections()).isEqualTo(2);
+        assertThat(result.throughput()).isPositive();
+        assertThat(result.uncorrectedHistogram().getTotalCount()).isEqualTo(result.requests());
+        assertThat(result.p50()).isPositive()
+                                .isLessThanOrEqualTo(result.p99());
+        assertThat(result.p99()).isLessThanOrEqualTo(result.p999());
+    }
+
+    @Test
+    void http2() {
+        final LoadResult result = LoadGenerator.builder(gateway.httpUri())
+                                               .protocol(SessionProtocol.H2C)
+                                               .connections(2)
+                                               .concurrencyPerConnection(4)
+                                               .path("/foo")
+                                               .warmup(Duration.ofMillis(100))
+                                               .duration(Duration.ofMillis(500))
+                                               .build()
+                                               .run();
+
+        assertThat(result.requests()).isPositive();
+        assertThat(result.failures()).isZero();
+        assertThat(result.connections()).isEqualTo(2);
+    }
+
+    @Test
+    void correctForCoordinatedOmission() {
+        final LoadResult result = LoadGenerator.builder(gateway.httpUri())
+                                               .path("/foo")
+                                               .warmup(Duration.ZERO)
+                                               .duration(Duration.ofMillis(300))
+                                               .expectedInterval(Duration.ofNanos(100_000))
+                                               .build()
+                                               .run();
+
+        // Every latency longer than the expected interval adds the requests which would have been sent.
+        assertThat(result.histogram().getTotalCount())
+                .isGreaterThan(result.uncorrectedHistogram().getTotalCount());
+    }
+
+    @Test
+    void countFailures() {
+        final LoadResult result = LoadGenerator.builder(gateway.httpUri())
+                                               .path("/bar")
+                                               .warmup(Duration.ZERO)
+                                               .duration(Duration.ofMillis(300))
+                                               .build()
+                                               .run();
+
+        assertThat(result.requests()).isPositive();
+        assertThat(result.failures()).isEqualTo(result.requests());
+        assertThat(result.toString()).contains("failures=" + result.failures());
+    }
+
+    @Test
+    void shouldThrowIllegalStateExceptionIfHttp1HasConcurrency() {
+        assertThatThrownBy(() -> LoadGenerator.builder(gateway.httpUri())
+                                              .protocol(SessionProtocol.H1C)
+                                              .concurrencyPerConnection(2)
+                                              .build())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldThrowIllegalArgumentExceptionIfProtocolIsNotExplicit() {
+        assertThatThrownBy(() -> LoadGenerator.builder(gateway.httpUri())
+                                              .protocol(SessionProtocol.HTTP))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
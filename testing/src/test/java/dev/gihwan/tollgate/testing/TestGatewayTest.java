@@ -31,7 +31,12 @@ import org.junit.jupiter.api.Test;
 
 import com.linecorp.armeria.client.WebClient;
 import com.linecorp.armeria.common.AggregatedHttpResponse;
+import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.util.EventLoopGroups;
+import com.linecorp.armeria.server.Server;
+
+import io.netty.channel.EventLoopGroup;
 
 import dev.gihwan.tollgate.gateway.Upstream;
 
@@ -71,4 +76,27 @@ class TestGatewayTest {
             assertThat(res.status()).isEqualTo(HttpStatus.OK);
         }
     }
+
+    @Test
+    void allocatedBytesPerRequest() {
+        final EventLoopGroup backendWorkerGroup = EventLoopGroups.newEventLoopGroup(1);
+        final Server backend = Server.builder()
+                                     .http(0)
+                                     .workerGroup(backendWorkerGroup, true)
+                                     .service("/foo", (ctx, req) -> HttpResponse.of("foo"))
+                                     .build();
+        backend.start().join();
+        try (TestGateway gateway = withTestGateway(builder -> {
+            builder.server(serverBuilder -> serverBuilder.http(0));
+            builder.upstream("/foo", Upstream.of("http://127.0.0.1:" + backend.activeLocalPort()));
+        })) {
+            final long allocatedBytes = gateway.allocatedBytesPerRequest("/foo", 100, 100);
+            assertThat(allocatedBytes).isPositive();
+            // The allocations to the same path cancel out the ones to the baseline path.
+            assertThat(gateway.allocatedBytesPerRequest("/foo", "/foo", 100, 100))
+                    .isLessThan(allocatedBytes / 2);
+        } finally {
+            backend.stop().join();
+        }
+    }
 }